@@ -0,0 +1,46 @@
+package com.github.phone.utils.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point of {@code benchmarks.jar}.
+ *
+ * <p>Without arguments all benchmarks are run twice, single-threaded and with one thread per
+ * available processor, both with the GC profiler so allocation rates are reported next to
+ * the timings. {@link PhoneNumberBatchBenchmark} parallelizes by itself and {@link WarmUpBenchmark}
+ * measures the first call in a JVM, both only run in the single-threaded pass. With arguments the
+ * standard JMH command line is used instead, e.g.
+ * {@code java -jar target/benchmarks.jar normalizePhoneNumber -t 4 -prof gc}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        int[] threadCounts = {1, Runtime.getRuntime().availableProcessors()};
+        for (int threads : threadCounts) {
+            OptionsBuilder options = new OptionsBuilder();
+            options.include(BenchmarkRunner.class.getPackage().getName() + ".*")
+                .threads(threads)
+                .addProfiler(GCProfiler.class);
+            if (threads > 1) {
+                options.exclude(PhoneNumberBatchBenchmark.class.getName())
+                    .exclude(WarmUpBenchmark.class.getName());
+            }
+            new Runner(options.build()).run();
+            if (threadCounts[0] == threadCounts[1]) {
+                break;
+            }
+        }
+    }
+}
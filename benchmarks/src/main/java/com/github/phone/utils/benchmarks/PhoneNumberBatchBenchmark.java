@@ -0,0 +1,73 @@
+package com.github.phone.utils.benchmarks;
+
+import com.github.phone.utils.PhoneNumberBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link PhoneNumberBatch} with the number of worker threads.
+ *
+ * <p>One invocation validates a whole mixed-country batch, built by repeating the selected corpus.
+ * The batch runs on its own pool of {@code parallelism} threads, so compare the scores across
+ * that parameter; running this benchmark with several JMH threads only adds contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhoneNumberBatchBenchmark {
+
+    @Param({"VALID", "MESSY"})
+    private PhoneNumberCorpus.Kind corpus;
+
+    @Param({"1000000"})
+    private int batchSize;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private List<String> numbers;
+    private List<String> countryCodes;
+    private ForkJoinPool pool;
+    private PhoneNumberBatch batch;
+
+    @Setup
+    public void setUp() {
+        PhoneNumberCorpus source = PhoneNumberCorpus.get(corpus);
+        numbers = new ArrayList<>(batchSize);
+        countryCodes = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            numbers.add(source.number(i % source.size()));
+            countryCodes.add(source.countryCode(i % source.size()));
+        }
+        pool = new ForkJoinPool(parallelism);
+        batch = PhoneNumberBatch.builder().executor(pool).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public PhoneNumberBatch.Result validate() {
+        return batch.validate(numbers, countryCodes);
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.phone.utils.benchmarks;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic input corpora for the benchmarks.
+ *
+ * <p>Every corpus is a list of (phone number, default country code) pairs generated from
+ * libphonenumber example numbers with a fixed seed, so runs are comparable between commits.
+ */
+public final class PhoneNumberCorpus {
+
+    public enum Kind {
+        /** Valid numbers, half of them in E.164 and half as national numbers. */
+        VALID,
+        /** Numbers which are too short, too long, contain letters or use unknown country codes. */
+        INVALID,
+        /** Valid numbers as humans type them: spaces, dashes, brackets, "00" prefixes, trunk zeros. */
+        MESSY
+    }
+
+    public static final int SIZE = 4096;
+
+    private static final long SEED = 20240601L;
+
+    private static final List<String> REGIONS = Collections.unmodifiableList(Arrays.asList(
+        "NO", "SE", "DK", "GB", "UA", "US", "IT", "DE", "FR", "PL", "IN", "BR", "AU", "ES", "NL"));
+
+    private static final PhoneNumberUtil PHONE_UTIL = PhoneNumberUtil.getInstance();
+
+    private static final PhoneNumberCorpus[] CORPORA = new PhoneNumberCorpus[Kind.values().length];
+
+    private final String[] numbers;
+    private final String[] countryCodes;
+
+    private PhoneNumberCorpus(String[] numbers, String[] countryCodes) {
+        this.numbers = numbers;
+        this.countryCodes = countryCodes;
+    }
+
+    public static synchronized PhoneNumberCorpus get(Kind kind) {
+        PhoneNumberCorpus corpus = CORPORA[kind.ordinal()];
+        if (corpus == null) {
+            corpus = generate(kind, new Random(SEED + kind.ordinal()));
+            CORPORA[kind.ordinal()] = corpus;
+        }
+        return corpus;
+    }
+
+    public int size() {
+        return numbers.length;
+    }
+
+    public String number(int index) {
+        return numbers[index];
+    }
+
+    public String countryCode(int index) {
+        return countryCodes[index];
+    }
+
+    /**
+     * Returns {@code length} consecutive numbers starting at {@code from}, wrapping around.
+     */
+    public List<String> numbers(int from, int length) {
+        List<String> result = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            result.add(numbers[(from + i) % numbers.length]);
+        }
+        return result;
+    }
+
+    private static PhoneNumberCorpus generate(Kind kind, Random random) {
+        String[] numbers = new String[SIZE];
+        String[] countryCodes = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            String region = REGIONS.get(random.nextInt(REGIONS.size()));
+            PhoneNumber valid = randomValidNumber(region, random);
+            countryCodes[i] = "+" + valid.getCountryCode();
+            switch (kind) {
+                case VALID:
+                    numbers[i] = random.nextBoolean()
+                        ? PHONE_UTIL.format(valid, PhoneNumberFormat.E164)
+                        : PHONE_UTIL.getNationalSignificantNumber(valid);
+                    break;
+                case INVALID:
+                    numbers[i] = invalidVariant(valid, random);
+                    break;
+                case MESSY:
+                    numbers[i] = messyVariant(valid, region, random);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown corpus kind: " + kind);
+            }
+        }
+        return new PhoneNumberCorpus(numbers, countryCodes);
+    }
+
+    private static PhoneNumber randomValidNumber(String region, Random random) {
+        PhoneNumberType type = random.nextBoolean() ? PhoneNumberType.MOBILE : PhoneNumberType.FIXED_LINE;
+        PhoneNumber example = PHONE_UTIL.getExampleNumberForType(region, type);
+        if (example == null) {
+            example = PHONE_UTIL.getExampleNumber(region);
+        }
+        // randomize the subscriber part, keep the first attempt which is still valid
+        long national = example.getNationalNumber();
+        for (int attempt = 0; attempt < 20; attempt++) {
+            long candidate = national - national % 10000 + random.nextInt(10000);
+            PhoneNumber number = new PhoneNumber()
+                .setCountryCode(example.getCountryCode())
+                .setNationalNumber(candidate)
+                .setItalianLeadingZero(example.isItalianLeadingZero());
+            if (PHONE_UTIL.isValidNumber(number)) {
+                return number;
+            }
+        }
+        return example;
+    }
+
+    private static String invalidVariant(PhoneNumber valid, Random random) {
+        String e164 = PHONE_UTIL.format(valid, PhoneNumberFormat.E164);
+        switch (random.nextInt(6)) {
+            case 0:
+                return e164.substring(0, 4 + random.nextInt(3));
+            case 1:
+                return e164 + (1000 + random.nextInt(9000));
+            case 2:
+                return "Customer " + random.nextInt(1000);
+            case 3:
+                return "+999" + valid.getNationalNumber();
+            case 4:
+                return e164.substring(0, 5) + "abc" + e164.substring(5);
+            default:
+                return random.nextBoolean() ? "null" : "--";
+        }
+    }
+
+    private static String messyVariant(PhoneNumber valid, String region, Random random) {
+        String e164 = PHONE_UTIL.format(valid, PhoneNumberFormat.E164);
+        switch (random.nextInt(5)) {
+            case 0:
+                return PHONE_UTIL.format(valid, PhoneNumberFormat.INTERNATIONAL);
+            case 1:
+                return PHONE_UTIL.format(valid, PhoneNumberFormat.NATIONAL);
+            case 2:
+                return "00" + e164.substring(1);
+            case 3:
+                return "  " + PHONE_UTIL.format(valid, PhoneNumberFormat.RFC3966).replace("tel:", "") + " ";
+            default:
+                String national = PHONE_UTIL.getNationalSignificantNumber(valid);
+                int split = Math.min(3, national.length());
+                return "(" + national.substring(0, split) + ") " + national.substring(split);
+        }
+    }
+}
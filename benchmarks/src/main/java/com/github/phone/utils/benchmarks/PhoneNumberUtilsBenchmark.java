@@ -0,0 +1,141 @@
+package com.github.phone.utils.benchmarks;
+
+import com.github.phone.utils.PhoneNumberParsingException;
+import com.github.phone.utils.PhoneNumberUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline for every public entry point of {@link PhoneNumberUtils}.
+ *
+ * <p>Each invocation takes the next entry of the selected corpus, so a single measurement mixes
+ * regions and formats. Methods which report bad input by throwing are measured including the
+ * exception, since that is what callers pay for.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PhoneNumberUtilsBenchmark {
+
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"VALID", "INVALID", "MESSY"})
+    private PhoneNumberCorpus.Kind corpus;
+
+    private PhoneNumberCorpus numbers;
+    private List<String>[] batches;
+    private int cursor;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp(ThreadParams threadParams) {
+        numbers = PhoneNumberCorpus.get(corpus);
+        // threads start at different offsets so they do not walk the corpus in lock step
+        cursor = threadParams.getThreadIndex() * 997;
+        batches = new List[numbers.size() / BATCH_SIZE];
+        for (int i = 0; i < batches.length; i++) {
+            batches[i] = numbers.numbers(i * BATCH_SIZE, BATCH_SIZE);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (PhoneNumberCorpus.SIZE - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public Object normalizePhoneNumber() {
+        int i = next();
+        try {
+            return PhoneNumberUtils.normalizePhoneNumber(numbers.number(i));
+        } catch (PhoneNumberParsingException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object getCountryCodeFromFullPhoneNumber() {
+        int i = next();
+        try {
+            return PhoneNumberUtils.getCountryCodeFromFullPhoneNumber(numbers.number(i));
+        } catch (PhoneNumberParsingException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public boolean hasCountryCode() {
+        return PhoneNumberUtils.hasCountryCode(47, numbers.number(next()));
+    }
+
+    @Benchmark
+    public String generateFullPhoneNumber() {
+        int i = next();
+        return PhoneNumberUtils.generateFullPhoneNumber(numbers.countryCode(i), numbers.number(i));
+    }
+
+    @Benchmark
+    public boolean isValidPhoneNumber() {
+        int i = next();
+        return PhoneNumberUtils.isValidPhoneNumber(numbers.countryCode(i), numbers.number(i));
+    }
+
+    @Benchmark
+    public Object parseNumber() {
+        int i = next();
+        try {
+            return PhoneNumberUtils.parseNumber(numbers.countryCode(i), numbers.number(i));
+        } catch (PhoneNumberParsingException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public boolean isPossibleFullPhoneNumber() {
+        return PhoneNumberUtils.isPossibleFullPhoneNumber(numbers.number(next()));
+    }
+
+    @Benchmark
+    public Long getNationalNumber() {
+        return PhoneNumberUtils.getNationalNumber(numbers.number(next()));
+    }
+
+    @Benchmark
+    public Object appendCountryCodeIfMissingAndNormalize() {
+        int i = next();
+        try {
+            return PhoneNumberUtils.appendCountryCodeIfMissingAndNormalize(numbers.number(i), numbers.countryCode(i));
+        } catch (PhoneNumberParsingException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<String> validatePhoneNumbers() {
+        return PhoneNumberUtils.validatePhoneNumbers(batches[next() % batches.length]);
+    }
+
+    @Benchmark
+    public void parsePhoneNumberWhichAcceptNonNumbers(Blackhole blackhole) {
+        blackhole.consume(PhoneNumberUtils.parsePhoneNumberWhichAcceptNonNumbers(numbers.number(next())));
+    }
+}
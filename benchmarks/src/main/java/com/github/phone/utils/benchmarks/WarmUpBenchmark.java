@@ -0,0 +1,58 @@
+package com.github.phone.utils.benchmarks;
+
+import com.github.phone.utils.PhoneNumberUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first {@code normalizePhoneNumber} call for a region in a fresh JVM, with and
+ * without {@link PhoneNumberUtils#warmUp(java.util.Collection)} at startup.
+ *
+ * <p>Every fork measures exactly one call, so the score is the average first-call latency over the
+ * forks. The class loading and static initialization of PhoneNumberUtils happen in the setup of
+ * both variants, only the per region work differs.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class WarmUpBenchmark {
+
+    @Param({"false", "true"})
+    private boolean warmUp;
+
+    @Param({"NO:+4790630185", "DE:+4930123456", "BR:+5511961234567"})
+    private String regionAndNumber;
+
+    private String number;
+
+    @Setup
+    public void setUp() {
+        String region = regionAndNumber.substring(0, 2);
+        number = regionAndNumber.substring(3);
+        // runs the code path once for another region, so the cold variant pays for the region only
+        PhoneNumberUtils.normalizePhoneNumber("+12015550123");
+        if (warmUp) {
+            PhoneNumberUtils.warmUp(Collections.singletonList(region));
+        }
+    }
+
+    @Benchmark
+    public String firstNormalizePhoneNumber() {
+        return PhoneNumberUtils.normalizePhoneNumber(number);
+    }
+}
@@ -0,0 +1,255 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Country calling codes 1 to 999 with their regions, built once from the libphonenumber metadata.
+ *
+ * <p>Looking up a calling code is an array access, and {@link #resolve(CharSequence)} reads the
+ * usual spellings of a country code ("+47", "47", "0047") without regex, boxing or substrings,
+ * so methods taking a country code string no longer pay for a parse and a map lookup per call.
+ *
+ * <pre>
+ * CallingCodeTable.Entry norway = CallingCodeTable.resolve("+47");
+ * norway.getMainRegion();     // "NO"
+ * norway.getRegions();        // [NO, SJ]
+ * norway.getPrefix();         // "+47"
+ * </pre>
+ */
+public final class CallingCodeTable {
+
+    /** Largest calling code, calling codes have at most three digits. */
+    public static final int MAX_CALLING_CODE = 999;
+
+    // what libphonenumber answers for calling codes it does not know
+    static final String UNKNOWN_REGION = "ZZ";
+
+    // national number lengths libphonenumber parses, and its input length limit
+    private static final int MIN_NATIONAL_DIGITS = 2;
+    private static final int MAX_NATIONAL_DIGITS = 17;
+    private static final int MAX_CLEAN_NUMBER_LENGTH = 250;
+
+    private static final Entry[] ENTRIES = new Entry[MAX_CALLING_CODE + 1];
+
+    static {
+        PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+        for (int callingCode : phoneUtil.getSupportedCallingCodes()) {
+            ENTRIES[callingCode] = new Entry(callingCode, phoneUtil.getRegionCodeForCountryCode(callingCode),
+                Collections.unmodifiableList(phoneUtil.getRegionCodesForCountryCode(callingCode)));
+        }
+    }
+
+    private CallingCodeTable() {
+    }
+
+    /**
+     * @param callingCode country calling code, e.g. 47
+     * @return the entry, or null if the calling code is not assigned
+     */
+    public static Entry get(int callingCode) {
+        return isAssigned(callingCode) ? ENTRIES[callingCode] : null;
+    }
+
+    public static boolean isAssigned(int callingCode) {
+        return callingCode > 0 && callingCode <= MAX_CALLING_CODE && ENTRIES[callingCode] != null;
+    }
+
+    /**
+     * Reads a country code spelled like {@link PhoneNumberSanitizer#parseCountryCode(CharSequence)}
+     * accepts it, e.g. "+47", "47", "0047" or "(47)".
+     * @param countryCode country code as given by the user
+     * @return the entry, or null if the input is not a country code or the calling code is not assigned
+     */
+    public static Entry resolve(CharSequence countryCode) {
+        if (countryCode == null) {
+            return null;
+        }
+        try {
+            return get(PhoneNumberSanitizer.parseCountryCode(countryCode));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calling code a "+" or "00" prefixed number starts with, read from its first one to three
+     * digits. No two calling codes start with each other, so the table works as a trie and the
+     * shortest assigned prefix is the calling code, as libphonenumber finds it. Spaces and hyphens
+     * are skipped, the rest of the number is not looked at, so this is routing, not validation.
+     * @param number phone number, e.g. "+47 906 30 185" or "0047..."
+     * @return the entry, or null if the number has no "+" or "00" prefix or no assigned calling code
+     */
+    public static Entry extract(CharSequence number) {
+        if (number == null) {
+            return null;
+        }
+        int length = number.length();
+        int position = skipSeparators(number, 0);
+        if (position < length && number.charAt(position) == '+') {
+            position++;
+        } else if (position + 1 < length && number.charAt(position) == '0' && number.charAt(position + 1) == '0') {
+            position += 2;
+        } else {
+            return null;
+        }
+        int callingCode = 0;
+        for (int digits = 0; digits < 3; digits++) {
+            position = skipSeparators(number, position);
+            if (position == length) {
+                return null;
+            }
+            char c = number.charAt(position++);
+            if (c < '0' || c > '9' || digits == 0 && c == '0') {
+                return null;
+            }
+            callingCode = callingCode * 10 + (c - '0');
+            if (isAssigned(callingCode)) {
+                return ENTRIES[callingCode];
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Calling code of a "+" number made of ASCII digits, spaces and hyphens only, which libphonenumber
+     * is known to parse: an assigned calling code followed by 2 to 17 digits. -1 for any other input,
+     * including inputs libphonenumber may well parse, so callers fall back to the full parse.
+     */
+    static int callingCodeOfCleanNumber(CharSequence number) {
+        int length = number == null ? 0 : number.length();
+        if (length == 0 || length > MAX_CLEAN_NUMBER_LENGTH || number.charAt(0) != '+') {
+            return -1;
+        }
+        int callingCode = 0;
+        int position = 1;
+        for (int digits = 0; !isAssigned(callingCode); digits++) {
+            position = skipSeparators(number, position);
+            if (digits == 3 || position == length) {
+                return -1;
+            }
+            char c = number.charAt(position++);
+            if (c < '0' || c > '9' || digits == 0 && c == '0') {
+                return -1;
+            }
+            callingCode = callingCode * 10 + (c - '0');
+        }
+        int nationalDigits = 0;
+        for (; position < length; position++) {
+            char c = number.charAt(position);
+            if (c >= '0' && c <= '9') {
+                nationalDigits++;
+            } else if (c != ' ' && c != '-') {
+                return -1;
+            }
+        }
+        return nationalDigits >= MIN_NATIONAL_DIGITS && nationalDigits <= MAX_NATIONAL_DIGITS ? callingCode : -1;
+    }
+
+    private static int skipSeparators(CharSequence number, int position) {
+        int length = number.length();
+        while (position < length && (number.charAt(position) == ' ' || number.charAt(position) == '-')) {
+            position++;
+        }
+        return position;
+    }
+
+    /*
+     * Main region of the calling code, "ZZ" for unassigned calling codes, the same as
+     * PhoneNumberUtil.getRegionCodeForCountryCode.
+     */
+    static String regionOf(int callingCode) {
+        Entry entry = get(callingCode);
+        return entry == null ? UNKNOWN_REGION : entry.mainRegion;
+    }
+
+    /*
+     * Region of a country code read the way Integer.parseInt reads it, null if parseInt would
+     * throw. The usual "+47" and "47" spellings are read here, anything else goes to parseInt.
+     */
+    static String regionOfNumber(String countryCode) {
+        if (countryCode == null) {
+            return null;
+        }
+        int length = countryCode.length();
+        int start = length > 1 && countryCode.charAt(0) == '+' ? 1 : 0;
+        if (length == 0 || length - start > 9) {
+            return regionOfParsedInt(countryCode);
+        }
+        int value = 0;
+        for (int i = start; i < length; i++) {
+            char c = countryCode.charAt(i);
+            if (c < '0' || c > '9') {
+                return regionOfParsedInt(countryCode);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return regionOf(value);
+    }
+
+    /*
+     * "+NN" prefix of the calling code, built once for assigned calling codes.
+     */
+    static String prefixOf(int callingCode) {
+        Entry entry = get(callingCode);
+        return entry == null ? "+" + callingCode : entry.prefix;
+    }
+
+    private static String regionOfParsedInt(String countryCode) {
+        try {
+            return regionOf(Integer.parseInt(countryCode));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * One assigned calling code.
+     */
+    public static final class Entry {
+        private final int callingCode;
+        private final String mainRegion;
+        private final List<String> regions;
+        private final String prefix;
+
+        private Entry(int callingCode, String mainRegion, List<String> regions) {
+            this.callingCode = callingCode;
+            this.mainRegion = mainRegion;
+            this.regions = regions;
+            this.prefix = "+" + callingCode;
+        }
+
+        public int getCallingCode() {
+            return callingCode;
+        }
+
+        /**
+         * @return the region numbers of this calling code are parsed for, e.g. "NO" for 47, "001" for
+         *     non geographical calling codes like 800
+         */
+        public String getMainRegion() {
+            return mainRegion;
+        }
+
+        /**
+         * @return all regions sharing the calling code, main region first
+         */
+        public List<String> getRegions() {
+            return regions;
+        }
+
+        /**
+         * @return the calling code with + prefix, e.g. "+47"
+         */
+        public String getPrefix() {
+            return prefix;
+        }
+
+        @Override
+        public String toString() {
+            return prefix + " " + regions;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.util.List;
+
+/*
+ * libphonenumber's isValidNumber for the numbers of one calling code, answered by digit automata
+ * compiled from the bundled metadata instead of regular expressions.
+ *
+ * libphonenumber picks the region of the number first: the only region of the calling code, or
+ * the first region of the list whose leading digits match the start of the national significant
+ * number, or which has no leading digits and a number type matching the number. The number is
+ * valid if it matches the general description of that region and one of its number types, where
+ * a description matches if the length is one of its possible lengths, when it has any, and its
+ * pattern matches the whole number. The same steps run here on one automaton per region, tag 0
+ * for the general description and one tag per number type, and one for the leading digits.
+ */
+final class CompiledNumberValidator {
+
+    private static final int MAX_STATES = 20_000;
+    private static final int MAX_LENGTH = 32;
+
+    private static final int GENERAL = 1;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int countryCode;
+    private final Region[] regions;
+
+    private CompiledNumberValidator(int countryCode, Region[] regions) {
+        this.countryCode = countryCode;
+        this.regions = regions;
+    }
+
+    /*
+     * Compiles all regions of the calling code, in libphonenumber's order. Throws
+     * IllegalArgumentException if a pattern can not be compiled or an automaton gets too large.
+     */
+    static CompiledNumberValidator compile(int countryCode) {
+        List<String> regionCodes = PhoneNumberUtils.PHONE_UTIL.getRegionCodesForCountryCode(countryCode);
+        if (regionCodes.isEmpty() || regionCodes.contains(PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY)) {
+            throw new IllegalArgumentException("No geographic regions for calling code " + countryCode);
+        }
+        Region[] regions = new Region[regionCodes.size()];
+        for (int i = 0; i < regions.length; i++) {
+            PhoneMetadata metadata = PhoneMetadataLookup.forRegion(regionCodes.get(i));
+            if (metadata == null) {
+                throw new IllegalArgumentException("No metadata for " + regionCodes.get(i));
+            }
+            try {
+                regions[i] = new Region(metadata, regions.length > 1);
+            } catch (IllegalStateException e) {
+                throw new IllegalArgumentException("Can not compile " + regionCodes.get(i) + ": " + e.getMessage(), e);
+            }
+        }
+        return new CompiledNumberValidator(countryCode, regions);
+    }
+
+    int getCountryCode() {
+        return countryCode;
+    }
+
+    /*
+     * Same answer as PhoneNumberUtil.isValidNumber for a number of this calling code with a non
+     * negative national number.
+     */
+    boolean isValid(PhoneNumber number) {
+        int leadingZeros = number.isItalianLeadingZero() ? Math.max(0, number.getNumberOfLeadingZeros()) : 0;
+        long nationalNumber = number.getNationalNumber();
+        if (regions.length == 1) {
+            return regions[0].isValid(leadingZeros, nationalNumber);
+        }
+        for (Region region : regions) {
+            if (region.leadingDigits != null) {
+                if (region.matchesLeadingDigits(leadingZeros, nationalNumber)) {
+                    return region.isValid(leadingZeros, nationalNumber);
+                }
+            } else if (region.isValid(leadingZeros, nationalNumber)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Automata of one region.
+     */
+    private static final class Region {
+        private final DigitAutomaton numbers;
+        private final DigitAutomaton leadingDigits;
+        // per national number length, the tags whose possible lengths allow it
+        private final int[] lengthTags = new int[MAX_LENGTH + 1];
+
+        Region(PhoneMetadata metadata, boolean withLeadingDigits) {
+            PhoneNumberDesc[] descs = {
+                metadata.getGeneralDesc(),
+                metadata.getPremiumRate(),
+                metadata.getTollFree(),
+                metadata.getSharedCost(),
+                metadata.getVoip(),
+                metadata.getPersonalNumber(),
+                metadata.getPager(),
+                metadata.getUan(),
+                metadata.getVoicemail(),
+                metadata.getFixedLine(),
+                // libphonenumber skips mobile when it has the fixed line pattern, even if the
+                // possible lengths differ
+                metadata.getSameMobileAndFixedLinePattern() ? null : metadata.getMobile(),
+            };
+            String[] patterns = new String[descs.length];
+            for (int i = 0; i < descs.length; i++) {
+                PhoneNumberDesc desc = descs[i];
+                if (desc == null) {
+                    continue;
+                }
+                patterns[i] = desc.getNationalNumberPattern();
+                for (int length = 0; length <= MAX_LENGTH; length++) {
+                    if (desc.getPossibleLengthCount() == 0 || desc.getPossibleLengthList().contains(length)) {
+                        lengthTags[length] |= 1 << i;
+                    }
+                }
+            }
+            this.numbers = DigitAutomaton.compile(patterns, MAX_STATES);
+            this.leadingDigits = withLeadingDigits && metadata.hasLeadingDigits()
+                ? DigitAutomaton.compile(new String[] {metadata.getLeadingDigits()}, MAX_STATES) : null;
+        }
+
+        boolean isValid(int leadingZeros, long nationalNumber) {
+            DigitAutomaton automaton = numbers;
+            int state = automaton.start();
+            for (int i = 0; i < leadingZeros && state != DigitAutomaton.DEAD; i++) {
+                state = automaton.next(state, 0);
+            }
+            int digits = digitCount(nationalNumber);
+            for (int i = digits - 1; i >= 0 && state != DigitAutomaton.DEAD; i--) {
+                state = automaton.next(state, (int) (nationalNumber / POWERS_OF_TEN[i] % 10));
+            }
+            int tags = automaton.accepting(state) & lengthTags[Math.min(MAX_LENGTH, leadingZeros + digits)];
+            return (tags & GENERAL) != 0 && (tags & ~GENERAL) != 0;
+        }
+
+        /*
+         * True if the leading digits pattern matches a prefix of the number, like Matcher.lookingAt.
+         */
+        boolean matchesLeadingDigits(int leadingZeros, long nationalNumber) {
+            DigitAutomaton automaton = leadingDigits;
+            int state = automaton.start();
+            for (int i = 0; i < leadingZeros; i++) {
+                if (automaton.accepting(state) != 0) {
+                    return true;
+                }
+                state = automaton.next(state, 0);
+            }
+            for (int i = digitCount(nationalNumber) - 1; i >= 0; i--) {
+                if (automaton.accepting(state) != 0) {
+                    return true;
+                }
+                state = automaton.next(state, (int) (nationalNumber / POWERS_OF_TEN[i] % 10));
+            }
+            return automaton.accepting(state) != 0;
+        }
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.phone.utils;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Thread-safe {@link PhoneNumberSet}.
+ *
+ * <p>Numbers are spread over independently locked stripes, each one a {@link PhoneNumberSet}, so
+ * threads adding different numbers rarely contend and a stripe only grows its own table.
+ *
+ * <pre>
+ * ConcurrentPhoneNumberSet seen = new ConcurrentPhoneNumberSet(20_000_000, 64);
+ * numbers.parallelStream().filter(n -&gt; seen.add(PackedPhoneNumber.parse(n)))...
+ * </pre>
+ */
+public final class ConcurrentPhoneNumberSet {
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final PhoneNumberSet[] stripes;
+    private final int stripeMask;
+
+    public ConcurrentPhoneNumberSet() {
+        this(0, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param expectedSize number of numbers the set holds without growing
+     * @param concurrencyLevel expected number of threads adding at the same time
+     */
+    public ConcurrentPhoneNumberSet(int expectedSize, int concurrencyLevel) {
+        if (expectedSize < 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Bad expected size " + expectedSize
+                + " or concurrency level " + concurrencyLevel);
+        }
+        int stripeCount = 1;
+        while (stripeCount < concurrencyLevel && stripeCount < (1 << 16)) {
+            stripeCount <<= 1;
+        }
+        this.stripes = new PhoneNumberSet[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new PhoneNumberSet(expectedSize / stripeCount);
+        }
+    }
+
+    /**
+     * @param packedPhoneNumber packed phone number
+     * @return true if the number was not in the set before
+     * @throws IllegalArgumentException if the value is not a packed phone number
+     */
+    public boolean add(long packedPhoneNumber) {
+        PhoneNumberSet.checkPacked(packedPhoneNumber);
+        PhoneNumberSet stripe = stripeFor(packedPhoneNumber);
+        synchronized (stripe) {
+            return stripe.add(packedPhoneNumber);
+        }
+    }
+
+    public boolean contains(long packedPhoneNumber) {
+        if (!PackedPhoneNumber.isPacked(packedPhoneNumber)) {
+            return false;
+        }
+        PhoneNumberSet stripe = stripeFor(packedPhoneNumber);
+        synchronized (stripe) {
+            return stripe.contains(packedPhoneNumber);
+        }
+    }
+
+    /**
+     * Sum of the stripe sizes, not a snapshot while other threads are adding.
+     * @return the number of numbers
+     */
+    public long size() {
+        long size = 0;
+        for (PhoneNumberSet stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (PhoneNumberSet stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Calls the action for every number, one stripe at a time. The action runs while the stripe is
+     * locked and must not add to this set.
+     * @param action receives the packed numbers
+     */
+    public void forEach(LongConsumer action) {
+        for (PhoneNumberSet stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach(action);
+            }
+        }
+    }
+
+    /**
+     * @return the packed numbers, sorted
+     */
+    public long[] toSortedArray() {
+        long[][] parts = new long[stripes.length][];
+        int total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                parts[i] = stripes[i].toSortedArray();
+            }
+            total += parts[i].length;
+        }
+        long[] values = new long[total];
+        int position = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, values, position, part.length);
+            position += part.length;
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    private PhoneNumberSet stripeFor(long packedPhoneNumber) {
+        // the stripe sets use the low bits of the same hash for their slots
+        return stripes[(int) (PhoneNumberSet.mix(packedPhoneNumber) >>> 40) & stripeMask];
+    }
+}
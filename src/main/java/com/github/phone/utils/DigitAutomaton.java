@@ -0,0 +1,392 @@
+package com.github.phone.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Deterministic automaton over the digits 0 to 9, compiled from the regular expressions of the
+ * libphonenumber metadata.
+ *
+ * The metadata patterns only use digits, "\d", classes like "[02-8]", groups, "|" and the
+ * quantifiers "?", "*", "+", "{n}" and "{n,m}", which is what the compiler accepts. Each pattern
+ * is parsed to a Thompson automaton, the patterns are joined into one and turned into a DFA by
+ * subset construction. A state accepts a bitmask of tags, bit i for the i-th pattern, so one walk
+ * over the digits tells which patterns match. Walking allocates nothing.
+ */
+final class DigitAutomaton {
+
+    static final int DEAD = -1;
+
+    private static final int DIGITS = 10;
+    private static final int ALL_DIGITS = (1 << DIGITS) - 1;
+
+    // next state per state and digit, DEAD if no pattern can match anymore
+    private final int[] transitions;
+    private final int[] accepting;
+
+    private DigitAutomaton(int[] transitions, int[] accepting) {
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    /*
+     * Compiles the patterns, tag i for patterns[i], a null or empty pattern never matches.
+     * Throws IllegalArgumentException for syntax the compiler does not know and
+     * IllegalStateException if the DFA gets more than maxStates states.
+     */
+    static DigitAutomaton compile(String[] patterns, int maxStates) {
+        if (patterns.length > Integer.SIZE - 1) {
+            throw new IllegalArgumentException("Too many patterns: " + patterns.length);
+        }
+        Nfa nfa = new Nfa();
+        int start = nfa.newState();
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i] == null || patterns[i].isEmpty()) {
+                continue;
+            }
+            int[] fragment = new Parser(patterns[i], nfa).parse();
+            nfa.epsilon(start, fragment[0]);
+            nfa.tags.set(fragment[1], nfa.tags.get(fragment[1]) | 1 << i);
+        }
+        return nfa.toDfa(start, maxStates);
+    }
+
+    int start() {
+        return 0;
+    }
+
+    /*
+     * State after the digit, DEAD stays DEAD.
+     */
+    int next(int state, int digit) {
+        return state == DEAD ? DEAD : transitions[state * DIGITS + digit];
+    }
+
+    /*
+     * Tags of the patterns matching the digits read up to the state, 0 for DEAD.
+     */
+    int accepting(int state) {
+        return state == DEAD ? 0 : accepting[state];
+    }
+
+    int stateCount() {
+        return accepting.length;
+    }
+
+    /*
+     * Thompson automaton: a state has digit edges to one target or epsilon edges.
+     */
+    private static final class Nfa {
+        private final List<Integer> digitMasks = new ArrayList<>();
+        private final List<Integer> digitTargets = new ArrayList<>();
+        private final List<int[]> epsilons = new ArrayList<>();
+        private final List<Integer> tags = new ArrayList<>();
+
+        int newState() {
+            digitMasks.add(0);
+            digitTargets.add(-1);
+            epsilons.add(new int[0]);
+            tags.add(0);
+            return tags.size() - 1;
+        }
+
+        void digits(int from, int mask, int to) {
+            digitMasks.set(from, mask);
+            digitTargets.set(from, to);
+        }
+
+        void epsilon(int from, int to) {
+            int[] targets = epsilons.get(from);
+            int[] grown = Arrays.copyOf(targets, targets.length + 1);
+            grown[targets.length] = to;
+            epsilons.set(from, grown);
+        }
+
+        DigitAutomaton toDfa(int start, int maxStates) {
+            Map<BitSet, Integer> ids = new HashMap<>();
+            List<BitSet> pending = new ArrayList<>();
+            int[] transitions = new int[DIGITS * 16];
+            int[] accepting = new int[16];
+            BitSet initial = closure(single(start));
+            ids.put(initial, 0);
+            pending.add(initial);
+            for (int id = 0; id < pending.size(); id++) {
+                BitSet current = pending.get(id);
+                if (transitions.length < (id + 1) * DIGITS) {
+                    transitions = Arrays.copyOf(transitions, transitions.length * 2);
+                    accepting = Arrays.copyOf(accepting, accepting.length * 2);
+                }
+                int tagMask = 0;
+                for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                    tagMask |= tags.get(s);
+                }
+                accepting[id] = tagMask;
+                for (int digit = 0; digit < DIGITS; digit++) {
+                    BitSet moved = new BitSet();
+                    for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                        if ((digitMasks.get(s) & 1 << digit) != 0) {
+                            moved.set(digitTargets.get(s));
+                        }
+                    }
+                    if (moved.isEmpty()) {
+                        transitions[id * DIGITS + digit] = DEAD;
+                        continue;
+                    }
+                    BitSet target = closure(moved);
+                    Integer targetId = ids.get(target);
+                    if (targetId == null) {
+                        if (pending.size() == maxStates) {
+                            throw new IllegalStateException("More than " + maxStates + " states");
+                        }
+                        targetId = pending.size();
+                        ids.put(target, targetId);
+                        pending.add(target);
+                    }
+                    transitions[id * DIGITS + digit] = targetId;
+                }
+            }
+            int states = pending.size();
+            return new DigitAutomaton(Arrays.copyOf(transitions, states * DIGITS), Arrays.copyOf(accepting, states));
+        }
+
+        private BitSet closure(BitSet states) {
+            BitSet closure = (BitSet) states.clone();
+            int[] stack = new int[tags.size()];
+            int size = 0;
+            for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+                stack[size++] = s;
+            }
+            while (size > 0) {
+                for (int target : epsilons.get(stack[--size])) {
+                    if (!closure.get(target)) {
+                        closure.set(target);
+                        stack[size++] = target;
+                    }
+                }
+            }
+            return closure;
+        }
+
+        private static BitSet single(int state) {
+            BitSet set = new BitSet();
+            set.set(state);
+            return set;
+        }
+    }
+
+    /*
+     * Recursive descent over the pattern, each method returns the start and end state of the
+     * fragment it built.
+     */
+    private static final class Parser {
+        private static final int MAX_REPEAT = 64;
+
+        private final String pattern;
+        private final Nfa nfa;
+        private int position;
+
+        Parser(String pattern, Nfa nfa) {
+            this.pattern = pattern;
+            this.nfa = nfa;
+        }
+
+        int[] parse() {
+            int[] fragment = alternation();
+            if (position != pattern.length()) {
+                throw unsupported();
+            }
+            return fragment;
+        }
+
+        private int[] alternation() {
+            int[] first = sequence();
+            if (!peek('|')) {
+                return first;
+            }
+            int start = nfa.newState();
+            int end = nfa.newState();
+            nfa.epsilon(start, first[0]);
+            nfa.epsilon(first[1], end);
+            while (peek('|')) {
+                position++;
+                int[] next = sequence();
+                nfa.epsilon(start, next[0]);
+                nfa.epsilon(next[1], end);
+            }
+            return new int[] {start, end};
+        }
+
+        private int[] sequence() {
+            int start = nfa.newState();
+            int end = start;
+            while (position < pattern.length() && !peek('|') && !peek(')')) {
+                int atomStart = position;
+                int[] atom = atom();
+                int atomEnd = position;
+                atom = quantified(atom, atomStart, atomEnd);
+                nfa.epsilon(end, atom[0]);
+                end = atom[1];
+            }
+            return new int[] {start, end};
+        }
+
+        private int[] quantified(int[] atom, int atomStart, int atomEnd) {
+            if (position == pattern.length()) {
+                return atom;
+            }
+            char c = pattern.charAt(position);
+            if (c == '?') {
+                position++;
+                return optional(atom);
+            }
+            if (c == '*') {
+                position++;
+                return optional(plus(atom));
+            }
+            if (c == '+') {
+                position++;
+                return plus(atom);
+            }
+            if (c != '{') {
+                return atom;
+            }
+            position++;
+            int min = number();
+            int max = min;
+            if (peek(',')) {
+                position++;
+                max = number();
+            }
+            expect('}');
+            if (max < min || max > MAX_REPEAT) {
+                throw unsupported();
+            }
+            if (max == 0) {
+                int empty = nfa.newState();
+                return new int[] {empty, empty};
+            }
+            // the atom is built once per repetition from its text
+            int[] result = atom;
+            int end = position;
+            for (int i = 1; i < max; i++) {
+                position = atomStart;
+                int[] copy = atom();
+                if (position != atomEnd) {
+                    throw unsupported();
+                }
+                if (i >= min) {
+                    copy = optional(copy);
+                }
+                nfa.epsilon(result[1], copy[0]);
+                result = new int[] {result[0], copy[1]};
+            }
+            position = end;
+            return min == 0 ? optional(result) : result;
+        }
+
+        private int[] atom() {
+            char c = next();
+            if (c >= '0' && c <= '9') {
+                return digits(1 << (c - '0'));
+            }
+            if (c == '\\') {
+                expect('d');
+                return digits(ALL_DIGITS);
+            }
+            if (c == '[') {
+                return digits(digitClass());
+            }
+            if (c == '(') {
+                if (peek('?')) {
+                    position++;
+                    expect(':');
+                }
+                int[] group = alternation();
+                expect(')');
+                return group;
+            }
+            throw unsupported();
+        }
+
+        private int digitClass() {
+            int mask = 0;
+            while (!peek(']')) {
+                char from = next();
+                char to = from;
+                if (peek('-')) {
+                    position++;
+                    to = next();
+                }
+                if (from < '0' || to > '9' || from > to) {
+                    throw unsupported();
+                }
+                for (char d = from; d <= to; d++) {
+                    mask |= 1 << (d - '0');
+                }
+            }
+            position++;
+            return mask;
+        }
+
+        private int[] digits(int mask) {
+            int from = nfa.newState();
+            int to = nfa.newState();
+            nfa.digits(from, mask, to);
+            return new int[] {from, to};
+        }
+
+        private int[] optional(int[] fragment) {
+            int start = nfa.newState();
+            int end = nfa.newState();
+            nfa.epsilon(start, fragment[0]);
+            nfa.epsilon(start, end);
+            nfa.epsilon(fragment[1], end);
+            return new int[] {start, end};
+        }
+
+        private int[] plus(int[] fragment) {
+            int end = nfa.newState();
+            nfa.epsilon(fragment[1], fragment[0]);
+            nfa.epsilon(fragment[1], end);
+            return new int[] {fragment[0], end};
+        }
+
+        private int number() {
+            int start = position;
+            int value = 0;
+            while (position < pattern.length() && Character.isDigit(pattern.charAt(position))
+                && position - start < 4) {
+                value = value * 10 + (pattern.charAt(position++) - '0');
+            }
+            if (position == start) {
+                throw unsupported();
+            }
+            return value;
+        }
+
+        private boolean peek(char c) {
+            return position < pattern.length() && pattern.charAt(position) == c;
+        }
+
+        private char next() {
+            if (position == pattern.length()) {
+                throw unsupported();
+            }
+            return pattern.charAt(position++);
+        }
+
+        private void expect(char c) {
+            if (next() != c) {
+                throw unsupported();
+            }
+        }
+
+        private IllegalArgumentException unsupported() {
+            return new IllegalArgumentException("Unsupported pattern at " + position + ": " + pattern);
+        }
+    }
+}
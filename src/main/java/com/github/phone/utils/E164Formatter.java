@@ -0,0 +1,529 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes numbers in E.164 format straight into an {@link Appendable}, a {@code char[]}, an ASCII
+ * {@code byte[]} or a {@link ByteBuffer}, without building a String or any other object.
+ *
+ * <p>Numbers are given as {@link PackedPhoneNumber}s or Google PhoneNumbers and formatted like
+ * libphonenumber does for E.164, italian leading zeros included. The array and buffer methods
+ * check the room first and write nothing if the number does not fit.
+ *
+ * <pre>
+ * byte[] line = new byte[E164Formatter.MAX_PACKED_LENGTH + 1];
+ * int end = E164Formatter.write(packed, line, 0);   // "+4745037118"
+ * line[end++] = '\n';
+ * out.write(line, 0, end);
+ * </pre>
+ */
+public final class E164Formatter {
+
+    /** Longest E.164 string of a packed number: "+", 3 digits, 7 leading zeros and 16 digits. */
+    public static final int MAX_PACKED_LENGTH = 27;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private E164Formatter() {
+    }
+
+    /**
+     * @param packed a packed number
+     * @return number of chars of the number in E.164 format
+     * @throws PhoneNumberParsingException if the value is not a packed number
+     */
+    public static int length(long packed) {
+        PackedPhoneNumber.checkPacked(packed);
+        return length(PackedPhoneNumber.countryCode(packed), PackedPhoneNumber.leadingZeros(packed),
+            PackedPhoneNumber.nationalNumber(packed));
+    }
+
+    /**
+     * @param number a Google PhoneNumber
+     * @return number of chars of the number in E.164 format
+     */
+    public static int length(PhoneNumber number) {
+        String rawInput = rawInputOf(number);
+        return rawInput != null ? rawInput.length()
+            : length(number.getCountryCode(), leadingZerosOf(number), number.getNationalNumber());
+    }
+
+    private static int length(int countryCode, int leadingZeros, long nationalNumber) {
+        return 1 + digitCount(countryCode) + leadingZeros + digitCount(nationalNumber);
+    }
+
+    /**
+     * @param packed a packed number
+     * @return the number in E.164 format, e.g. "+4745037118"
+     * @throws PhoneNumberParsingException if the value is not a packed number
+     */
+    public static String format(long packed) {
+        PackedPhoneNumber.checkPacked(packed);
+        return format(PackedPhoneNumber.countryCode(packed), PackedPhoneNumber.leadingZeros(packed),
+            PackedPhoneNumber.nationalNumber(packed));
+    }
+
+    /**
+     * Same result as libphonenumber's E.164 format, built in a single char array.
+     * @param number a Google PhoneNumber
+     * @return the number in E.164 format, e.g. "+4745037118"
+     */
+    public static String format(PhoneNumber number) {
+        String rawInput = rawInputOf(number);
+        return rawInput != null ? rawInput
+            : format(number.getCountryCode(), leadingZerosOf(number), number.getNationalNumber());
+    }
+
+    /*
+     * "+", calling code, leading zeros and national number, no checks.
+     */
+    static String format(int countryCode, int leadingZeros, long nationalNumber) {
+        char[] chars = new char[length(countryCode, leadingZeros, nationalNumber)];
+        write(countryCode, leadingZeros, nationalNumber, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * @param packed a packed number
+     * @param out receives the number in E.164 format
+     * @return the appendable
+     * @throws IOException if the appendable throws it
+     * @throws PhoneNumberParsingException if the value is not a packed number
+     */
+    public static Appendable append(long packed, Appendable out) throws IOException {
+        PackedPhoneNumber.checkPacked(packed);
+        return append(PackedPhoneNumber.countryCode(packed), PackedPhoneNumber.leadingZeros(packed),
+            PackedPhoneNumber.nationalNumber(packed), out);
+    }
+
+    /**
+     * @param packed a packed number
+     * @param out receives the number in E.164 format
+     * @return the builder
+     * @throws PhoneNumberParsingException if the value is not a packed number
+     */
+    public static StringBuilder append(long packed, StringBuilder out) {
+        PackedPhoneNumber.checkPacked(packed);
+        appendUnchecked(PackedPhoneNumber.countryCode(packed), PackedPhoneNumber.leadingZeros(packed),
+            PackedPhoneNumber.nationalNumber(packed), out);
+        return out;
+    }
+
+    /**
+     * @param number a Google PhoneNumber
+     * @param out receives the number in E.164 format
+     * @return the appendable
+     * @throws IOException if the appendable throws it
+     */
+    public static Appendable append(PhoneNumber number, Appendable out) throws IOException {
+        String rawInput = rawInputOf(number);
+        return rawInput != null ? out.append(rawInput)
+            : append(number.getCountryCode(), leadingZerosOf(number), number.getNationalNumber(), out);
+    }
+
+    /**
+     * @param number a Google PhoneNumber
+     * @param out receives the number in E.164 format
+     * @return the builder
+     */
+    public static StringBuilder append(PhoneNumber number, StringBuilder out) {
+        String rawInput = rawInputOf(number);
+        if (rawInput != null) {
+            return out.append(rawInput);
+        }
+        appendUnchecked(number.getCountryCode(), leadingZerosOf(number), number.getNationalNumber(), out);
+        return out;
+    }
+
+    private static Appendable append(int countryCode, int leadingZeros, long nationalNumber, Appendable out)
+        throws IOException {
+
+        out.append('+');
+        appendDigits(countryCode, out);
+        for (int i = 0; i < leadingZeros; i++) {
+            out.append('0');
+        }
+        appendDigits(nationalNumber, out);
+        return out;
+    }
+
+    /**
+     * @param packed a packed number
+     * @param dest receives the number in E.164 format
+     * @param offset index of the first char to write
+     * @return index after the last char written
+     * @throws PhoneNumberParsingException if the value is not a packed number
+     * @throws IndexOutOfBoundsException if the number does not fit, nothing is written then
+     */
+    public static int write(long packed, char[] dest, int offset) {
+        PackedPhoneNumber.checkPacked(packed);
+        int countryCode = PackedPhoneNumber.countryCode(packed);
+        int leadingZeros = PackedPhoneNumber.leadingZeros(packed);
+        long nationalNumber = PackedPhoneNumber.nationalNumber(packed);
+        checkRoom(dest.length, offset, length(countryCode, leadingZeros, nationalNumber));
+        return write(countryCode, leadingZeros, nationalNumber, dest, offset);
+    }
+
+    /**
+     * @param packed a packed number
+     * @param dest receives the number in E.164 format as ASCII bytes
+     * @param offset index of the first byte to write
+     * @return index after the last byte written
+     * @throws PhoneNumberParsingException if the value is not a packed number
+     * @throws IndexOutOfBoundsException if the number does not fit, nothing is written then
+     */
+    public static int write(long packed, byte[] dest, int offset) {
+        PackedPhoneNumber.checkPacked(packed);
+        int countryCode = PackedPhoneNumber.countryCode(packed);
+        int leadingZeros = PackedPhoneNumber.leadingZeros(packed);
+        long nationalNumber = PackedPhoneNumber.nationalNumber(packed);
+        checkRoom(dest.length, offset, length(countryCode, leadingZeros, nationalNumber));
+        return write(countryCode, leadingZeros, nationalNumber, dest, offset);
+    }
+
+    /**
+     * @param number a Google PhoneNumber
+     * @param dest receives the number in E.164 format
+     * @param offset index of the first char to write
+     * @return index after the last char written
+     * @throws IndexOutOfBoundsException if the number does not fit, nothing is written then
+     */
+    public static int write(PhoneNumber number, char[] dest, int offset) {
+        checkRoom(dest.length, offset, length(number));
+        String rawInput = rawInputOf(number);
+        if (rawInput != null) {
+            rawInput.getChars(0, rawInput.length(), dest, offset);
+            return offset + rawInput.length();
+        }
+        return write(number.getCountryCode(), leadingZerosOf(number), number.getNationalNumber(), dest, offset);
+    }
+
+    /**
+     * @param number a Google PhoneNumber
+     * @param dest receives the number in E.164 format as ASCII bytes
+     * @param offset index of the first byte to write
+     * @return index after the last byte written
+     * @throws IndexOutOfBoundsException if the number does not fit, nothing is written then
+     * @throws IllegalArgumentException if the number is kept as raw input which is not ASCII
+     */
+    public static int write(PhoneNumber number, byte[] dest, int offset) {
+        checkRoom(dest.length, offset, length(number));
+        String rawInput = rawInputOf(number);
+        if (rawInput != null) {
+            checkAscii(rawInput);
+            for (int i = 0; i < rawInput.length(); i++) {
+                dest[offset++] = (byte) rawInput.charAt(i);
+            }
+            return offset;
+        }
+        return write(number.getCountryCode(), leadingZerosOf(number), number.getNationalNumber(), dest, offset);
+    }
+
+    private static int write(int countryCode, int leadingZeros, long nationalNumber, char[] dest, int offset) {
+        dest[offset++] = '+';
+        int countryCodeDigits = digitCount(countryCode);
+        for (int i = offset + countryCodeDigits - 1; i >= offset; i--) {
+            dest[i] = (char) ('0' + countryCode % 10);
+            countryCode /= 10;
+        }
+        offset += countryCodeDigits;
+        for (int i = 0; i < leadingZeros; i++) {
+            dest[offset++] = '0';
+        }
+        int digits = digitCount(nationalNumber);
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            dest[i] = (char) ('0' + nationalNumber % 10);
+            nationalNumber /= 10;
+        }
+        return offset + digits;
+    }
+
+    private static int write(int countryCode, int leadingZeros, long nationalNumber, byte[] dest, int offset) {
+        dest[offset++] = '+';
+        offset = writeDigits(countryCode, digitCount(countryCode), dest, offset);
+        for (int i = 0; i < leadingZeros; i++) {
+            dest[offset++] = '0';
+        }
+        return writeDigits(nationalNumber, digitCount(nationalNumber), dest, offset);
+    }
+
+    /**
+     * Puts the number at the position of the buffer, advancing it.
+     * @param packed a packed number
+     * @param buffer receives the number in E.164 format as ASCII bytes
+     * @return the buffer
+     * @throws PhoneNumberParsingException if the value is not a packed number
+     * @throws BufferOverflowException if the number does not fit, nothing is written then
+     */
+    public static ByteBuffer put(long packed, ByteBuffer buffer) {
+        PackedPhoneNumber.checkPacked(packed);
+        return put(PackedPhoneNumber.countryCode(packed), PackedPhoneNumber.leadingZeros(packed),
+            PackedPhoneNumber.nationalNumber(packed), buffer);
+    }
+
+    /**
+     * Puts the number at the position of the buffer, advancing it.
+     * @param number a Google PhoneNumber
+     * @param buffer receives the number in E.164 format as ASCII bytes
+     * @return the buffer
+     * @throws BufferOverflowException if the number does not fit, nothing is written then
+     * @throws IllegalArgumentException if the number is kept as raw input which is not ASCII
+     */
+    public static ByteBuffer put(PhoneNumber number, ByteBuffer buffer) {
+        String rawInput = rawInputOf(number);
+        if (rawInput == null) {
+            return put(number.getCountryCode(), leadingZerosOf(number), number.getNationalNumber(), buffer);
+        }
+        checkAscii(rawInput);
+        if (buffer.remaining() < rawInput.length()) {
+            throw new BufferOverflowException();
+        }
+        for (int i = 0; i < rawInput.length(); i++) {
+            buffer.put((byte) rawInput.charAt(i));
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer put(int countryCode, int leadingZeros, long nationalNumber, ByteBuffer buffer) {
+        int length = length(countryCode, leadingZeros, nationalNumber);
+        if (buffer.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        if (buffer.hasArray()) {
+            write(countryCode, leadingZeros, nationalNumber, buffer.array(), buffer.arrayOffset() + buffer.position());
+            buffer.position(buffer.position() + length);
+            return buffer;
+        }
+        buffer.put((byte) '+');
+        putDigits(countryCode, buffer);
+        for (int i = 0; i < leadingZeros; i++) {
+            buffer.put((byte) '0');
+        }
+        return putDigits(nationalNumber, buffer);
+    }
+
+    /**
+     * Appends the items with the separator between them, like {@code String.join} without
+     * building the joined string.
+     * @param items numbers or any other text, null items are appended as "null"
+     * @param separator text between two items, e.g. ", "
+     * @param out receives the items
+     * @return the appendable
+     * @throws IOException if the appendable throws it
+     */
+    public static Appendable appendJoined(Iterable<? extends CharSequence> items, CharSequence separator,
+        Appendable out) throws IOException {
+
+        boolean first = true;
+        for (CharSequence item : items) {
+            if (!first) {
+                out.append(separator);
+            }
+            out.append(item);
+            first = false;
+        }
+        return out;
+    }
+
+    /**
+     * @param items numbers or any other text, null items are appended as "null"
+     * @param separator text between two items, e.g. ", "
+     * @param out receives the items
+     * @return the builder
+     */
+    public static StringBuilder appendJoined(Iterable<? extends CharSequence> items, CharSequence separator,
+        StringBuilder out) {
+
+        boolean first = true;
+        for (CharSequence item : items) {
+            if (!first) {
+                out.append(separator);
+            }
+            out.append(item);
+            first = false;
+        }
+        return out;
+    }
+
+    /**
+     * @param packed packed numbers
+     * @param from index of the first number to append
+     * @param to index after the last number to append
+     * @param separator text between two numbers, e.g. ", "
+     * @param out receives the numbers in E.164 format
+     * @return the appendable
+     * @throws IOException if the appendable throws it
+     * @throws PhoneNumberParsingException if a value is not a packed number
+     */
+    public static Appendable appendJoined(long[] packed, int from, int to, CharSequence separator,
+        Appendable out) throws IOException {
+
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                out.append(separator);
+            }
+            append(packed[i], out);
+        }
+        return out;
+    }
+
+    /**
+     * @param packed packed numbers
+     * @param from index of the first number to count
+     * @param to index after the last number to count
+     * @param separator text between two numbers, e.g. ", "
+     * @return number of chars of the numbers in E.164 format joined by the separator
+     * @throws PhoneNumberParsingException if a value is not a packed number
+     */
+    public static int joinedLength(long[] packed, int from, int to, CharSequence separator) {
+        long length = 0;
+        for (int i = from; i < to; i++) {
+            length += length(packed[i]);
+        }
+        length += (long) Math.max(0, to - from - 1) * separator.length();
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Joined numbers are longer than 2 GB: " + length);
+        }
+        return (int) length;
+    }
+
+    /**
+     * Puts the numbers joined by the separator at the position of the buffer, advancing it. Size
+     * the buffer with {@link #joinedLength(long[], int, int, CharSequence)}, or wrap a
+     * {@code byte[]} to write into an array.
+     * @param packed packed numbers
+     * @param from index of the first number to put
+     * @param to index after the last number to put
+     * @param separator ASCII text between two numbers, e.g. ", "
+     * @param buffer receives the numbers in E.164 format as ASCII bytes
+     * @return the buffer
+     * @throws PhoneNumberParsingException if a value is not a packed number
+     * @throws BufferOverflowException if the numbers do not fit, nothing is written then
+     */
+    public static ByteBuffer putJoined(long[] packed, int from, int to, CharSequence separator,
+        ByteBuffer buffer) {
+
+        checkAscii(separator);
+        if (buffer.remaining() < joinedLength(packed, from, to, separator)) {
+            throw new BufferOverflowException();
+        }
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                for (int j = 0; j < separator.length(); j++) {
+                    buffer.put((byte) separator.charAt(j));
+                }
+            }
+            put(packed[i], buffer);
+        }
+        return buffer;
+    }
+
+    /*
+     * Puts the decimal digits of a non negative value, e.g. a count next to a number.
+     */
+    static ByteBuffer putDigits(long value, ByteBuffer buffer) {
+        int digits = digitCount(value);
+        if (buffer.remaining() < digits) {
+            throw new BufferOverflowException();
+        }
+        if (buffer.hasArray()) {
+            int start = buffer.arrayOffset() + buffer.position();
+            writeDigits(value, digits, buffer.array(), start);
+            buffer.position(buffer.position() + digits);
+        } else {
+            for (int i = digits - 1; i >= 0; i--) {
+                long power = POWERS_OF_TEN[i];
+                int digit = (int) (value / power);
+                buffer.put((byte) ('0' + digit));
+                value -= digit * power;
+            }
+        }
+        return buffer;
+    }
+
+    private static void appendUnchecked(int countryCode, int leadingZeros, long nationalNumber,
+        StringBuilder out) {
+
+        out.ensureCapacity(out.length() + length(countryCode, leadingZeros, nationalNumber));
+        out.append('+');
+        appendDigits(countryCode, out);
+        for (int i = 0; i < leadingZeros; i++) {
+            out.append('0');
+        }
+        appendDigits(nationalNumber, out);
+    }
+
+    private static int writeDigits(long value, int digits, byte[] dest, int offset) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            dest[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+
+    private static void appendDigits(long value, Appendable out) throws IOException {
+        for (int i = digitCount(value) - 1; i >= 0; i--) {
+            long power = POWERS_OF_TEN[i];
+            int digit = (int) (value / power);
+            out.append((char) ('0' + digit));
+            value -= digit * power;
+        }
+    }
+
+    private static void appendDigits(long value, StringBuilder out) {
+        for (int i = digitCount(value) - 1; i >= 0; i--) {
+            long power = POWERS_OF_TEN[i];
+            int digit = (int) (value / power);
+            out.append((char) ('0' + digit));
+            value -= digit * power;
+        }
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int leadingZerosOf(PhoneNumber number) {
+        return number.isItalianLeadingZero() ? Math.max(0, number.getNumberOfLeadingZeros()) : 0;
+    }
+
+    /*
+     * libphonenumber formats a number kept with its raw input and a national number of 0 as the
+     * raw input.
+     */
+    private static String rawInputOf(PhoneNumber number) {
+        if (number.getNationalNumber() == 0 && number.hasRawInput() && number.getRawInput().length() > 0) {
+            return number.getRawInput();
+        }
+        return null;
+    }
+
+    private static void checkRoom(int capacity, int offset, int length) {
+        if (offset < 0 || offset > capacity || capacity - offset < length) {
+            throw new IndexOutOfBoundsException("No room for " + length + " chars at " + offset + " of " + capacity);
+        }
+    }
+
+    private static void checkAscii(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                throw new IllegalArgumentException("Not ASCII: " + text);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.phone.utils;
+
+/**
+ * Receives the inputs {@link PhoneNumberUtils} could not handle, instead of a log line per failure.
+ *
+ * <p>Called on the thread of the failing call, so implementations must be fast and thread-safe.
+ * The arguments are passed as they are, building a message from them is up to the listener.
+ *
+ * <pre>
+ * PhoneNumberUtils.setFailureListener(FailureListener.NO_OP);
+ * PhoneNumberUtils.setFailureListener((method, reason, input, context) -&gt; metrics.count(method, reason));
+ * </pre>
+ */
+@FunctionalInterface
+public interface FailureListener {
+
+    /** Ignores all failures. */
+    FailureListener NO_OP = (method, reason, input, context) -> {
+    };
+
+    /**
+     * @param method name of the PhoneNumberUtils method which failed, e.g. "generateFullPhoneNumber"
+     * @param reason why it failed
+     * @param input the phone number as the method saw it, may be null
+     * @param context additional input such as the region or default country code, may be null
+     */
+    void onFailure(String method, FailureReason reason, String input, String context);
+}
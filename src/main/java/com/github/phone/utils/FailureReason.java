@@ -0,0 +1,53 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+
+/**
+ * Why a phone number could not be parsed, normalized or validated.
+ *
+ * <p>The first five mirror {@link NumberParseException.ErrorType} of libphonenumber.
+ */
+public enum FailureReason {
+
+    /** Unknown country calling code, or a number without country code where one is needed. */
+    INVALID_COUNTRY_CODE,
+    /** The input does not look like a phone number. */
+    NOT_A_NUMBER,
+    /** Nothing but an international call prefix and too few digits. */
+    TOO_SHORT_AFTER_IDD,
+    /** The national number is too short. */
+    TOO_SHORT_NSN,
+    /** The input or the national number is too long. */
+    TOO_LONG,
+    /** The input is null or empty. */
+    NO_INPUT,
+    /** The default country code given with the number is not a country code. */
+    INVALID_DEFAULT_COUNTRY_CODE,
+    /** The number was parsed, but its length does not fit the region. */
+    NOT_POSSIBLE,
+    /** The number was parsed, but it is not a valid number of the region. */
+    NOT_VALID;
+
+    /**
+     * @param exception a libphonenumber parse failure
+     * @return the matching reason
+     */
+    public static FailureReason of(NumberParseException exception) {
+        return of(exception.getErrorType());
+    }
+
+    static FailureReason of(NumberParseException.ErrorType errorType) {
+        switch (errorType) {
+            case INVALID_COUNTRY_CODE:
+                return INVALID_COUNTRY_CODE;
+            case TOO_SHORT_AFTER_IDD:
+                return TOO_SHORT_AFTER_IDD;
+            case TOO_SHORT_NSN:
+                return TOO_SHORT_NSN;
+            case TOO_LONG:
+                return TOO_LONG;
+            default:
+                return NOT_A_NUMBER;
+        }
+    }
+}
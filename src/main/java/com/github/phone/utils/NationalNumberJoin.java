@@ -0,0 +1,560 @@
+package com.github.phone.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Finds all pairs of numbers in two large lists with the same national number, the answer of
+ * {@link PhoneNumberUtils#areNationalNumbersSame(String, String)} for every pair at once.
+ *
+ * <p>Each number is parsed once into a primitive national number key, {@link
+ * PhoneNumberUtils#getNationalNumber(String)}, then the keys are joined. A hash join builds a table
+ * of the smaller list and probes it with the larger one. Above {@code hashJoinLimit} numbers on the
+ * smaller side a sort-merge join is used instead, which sorts both key lists and walks them
+ * sequentially, so the memory it touches is read in order. Key extraction, probing, sorting and
+ * merging run in parallel chunks on the executor. Numbers without a national number, null and
+ * empty ones included, match nothing.
+ *
+ * <pre>
+ * NationalNumberJoin join = NationalNumberJoin.builder().parallelism(8).build();
+ * NationalNumberJoin.Result matches = join.join(crmNumbers, carrierNumbers);
+ * for (int i = 0; i &lt; matches.size(); i++) {
+ *     reconcile(matches.getLeftIndex(i), matches.getRightIndex(i));
+ * }
+ * // or without collecting the pairs, called from several threads at once
+ * join.join(crmNumbers, carrierNumbers, (left, right) -&gt; ...);
+ * </pre>
+ */
+public final class NationalNumberJoin {
+
+    /**
+     * How the keys are joined.
+     */
+    public enum Strategy {
+        /**
+         * Hash join, or sort-merge join if the smaller list has more than hashJoinLimit numbers.
+         */
+        AUTO,
+        HASH,
+        SORT_MERGE
+    }
+
+    /**
+     * Receives matched pairs.
+     */
+    @FunctionalInterface
+    public interface MatchConsumer {
+        /**
+         * @param leftIndex index in the left list
+         * @param rightIndex index in the right list
+         */
+        void accept(int leftIndex, int rightIndex);
+    }
+
+    // keys are digits read as a number, never negative
+    private static final long NO_KEY = -1;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final PhoneNumberEngine engine;
+    private final Executor executor;
+    private final int parallelism;
+    private final Strategy strategy;
+    private final int hashJoinLimit;
+
+    private NationalNumberJoin(Builder builder) {
+        this.engine = builder.engine;
+        this.executor = builder.executor;
+        this.parallelism = builder.parallelism;
+        this.strategy = builder.strategy;
+        this.hashJoinLimit = builder.hashJoinLimit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param left phone numbers, entries may be null
+     * @param right phone numbers, entries may be null
+     * @return the matched pairs, ordered by left index and then right index
+     */
+    public Result join(List<String> left, List<String> right) {
+        List<LongList> chunks = new ArrayList<>();
+        run(left, right, () -> {
+            LongList pairs = new LongList();
+            synchronized (chunks) {
+                chunks.add(pairs);
+            }
+            return (leftIndex, rightIndex) -> pairs.add((long) leftIndex << 32 | rightIndex);
+        });
+        int size = 0;
+        for (LongList chunk : chunks) {
+            size = Math.addExact(size, chunk.size);
+        }
+        long[] pairs = new long[size];
+        int position = 0;
+        for (LongList chunk : chunks) {
+            System.arraycopy(chunk.values, 0, pairs, position, chunk.size);
+            position += chunk.size;
+        }
+        Arrays.parallelSort(pairs);
+        return new Result(pairs);
+    }
+
+    /**
+     * Streams the matched pairs instead of collecting them.
+     * @param left phone numbers, entries may be null
+     * @param right phone numbers, entries may be null
+     * @param consumer receives the pairs in no particular order, from several threads at once
+     * @return number of matched pairs
+     */
+    public long join(List<String> left, List<String> right, MatchConsumer consumer) {
+        // one counter per chunk, added up once all chunks are done
+        List<long[]> counts = new ArrayList<>();
+        run(left, right, () -> {
+            long[] count = new long[1];
+            synchronized (counts) {
+                counts.add(count);
+            }
+            return (leftIndex, rightIndex) -> {
+                consumer.accept(leftIndex, rightIndex);
+                count[0]++;
+            };
+        });
+        long total = 0;
+        for (long[] count : counts) {
+            total += count[0];
+        }
+        return total;
+    }
+
+    /*
+     * Gives every chunk of work its own consumer from the factory, so collecting needs no locking
+     * per pair.
+     */
+    private void run(List<String> left, List<String> right, ConsumerFactory consumers) {
+        long[] leftKeys = keys(left);
+        long[] rightKeys = keys(right);
+        boolean hash = strategy == Strategy.HASH
+            || strategy == Strategy.AUTO && Math.min(leftKeys.length, rightKeys.length) <= hashJoinLimit;
+        if (hash) {
+            hashJoin(leftKeys, rightKeys, consumers);
+        } else {
+            sortMergeJoin(leftKeys, rightKeys, consumers);
+        }
+    }
+
+    private long[] keys(List<String> numbers) {
+        String[] input = numbers.toArray(new String[0]);
+        long[] keys = new long[input.length];
+        inParallel(input.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                Long nationalNumber = input[i] == null || input[i].isEmpty()
+                    ? null : engine.getNationalNumber(input[i]);
+                keys[i] = nationalNumber == null ? NO_KEY : nationalNumber;
+            }
+        });
+        return keys;
+    }
+
+    private void hashJoin(long[] leftKeys, long[] rightKeys, ConsumerFactory consumers) {
+        boolean buildLeft = leftKeys.length <= rightKeys.length;
+        KeyIndex index = new KeyIndex(buildLeft ? leftKeys : rightKeys);
+        long[] probeKeys = buildLeft ? rightKeys : leftKeys;
+        inParallel(probeKeys.length, (from, to) -> {
+            MatchConsumer consumer = consumers.create();
+            for (int probe = from; probe < to; probe++) {
+                if (probeKeys[probe] == NO_KEY) {
+                    continue;
+                }
+                for (int build = index.first(probeKeys[probe]); build >= 0; build = index.next(build)) {
+                    if (buildLeft) {
+                        consumer.accept(build, probe);
+                    } else {
+                        consumer.accept(probe, build);
+                    }
+                }
+            }
+        });
+    }
+
+    private void sortMergeJoin(long[] leftKeys, long[] rightKeys, ConsumerFactory consumers) {
+        int[] leftOrder = sortedOrder(leftKeys);
+        int[] rightOrder = sortedOrder(rightKeys);
+        // chunks of the sorted left side, each starting at a new key so no key is split
+        inParallel(leftOrder.length, (from, to) -> {
+            while (from > 0 && from < to && leftKeys[leftOrder[from]] == leftKeys[leftOrder[from - 1]]) {
+                from++;
+            }
+            while (to < leftOrder.length && leftKeys[leftOrder[to]] == leftKeys[leftOrder[to - 1]]) {
+                to++;
+            }
+            if (from >= to) {
+                return;
+            }
+            MatchConsumer consumer = consumers.create();
+            int r = lowerBound(rightKeys, rightOrder, leftKeys[leftOrder[from]]);
+            int l = from;
+            while (l < to && r < rightOrder.length) {
+                long key = leftKeys[leftOrder[l]];
+                long rightKey = rightKeys[rightOrder[r]];
+                if (key < rightKey) {
+                    l++;
+                } else if (key > rightKey) {
+                    r++;
+                } else {
+                    int leftEnd = l;
+                    while (leftEnd < to && leftKeys[leftOrder[leftEnd]] == key) {
+                        leftEnd++;
+                    }
+                    int rightEnd = r;
+                    while (rightEnd < rightOrder.length && rightKeys[rightOrder[rightEnd]] == key) {
+                        rightEnd++;
+                    }
+                    for (int i = l; i < leftEnd; i++) {
+                        for (int j = r; j < rightEnd; j++) {
+                            consumer.accept(leftOrder[i], rightOrder[j]);
+                        }
+                    }
+                    l = leftEnd;
+                    r = rightEnd;
+                }
+            }
+        });
+    }
+
+    /*
+     * Indexes of the numbers with a key, ordered by key: chunks are sorted in parallel and then
+     * merged pairwise, in parallel too.
+     */
+    private int[] sortedOrder(long[] keys) {
+        int withKey = 0;
+        for (long key : keys) {
+            withKey += key == NO_KEY ? 0 : 1;
+        }
+        int count = withKey;
+        int[] unsorted = new int[count];
+        int position = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != NO_KEY) {
+                unsorted[position++] = i;
+            }
+        }
+        inParallel(count, (from, to) -> quickSort(keys, unsorted, from, to - 1));
+        int[] order = unsorted;
+        int[] buffer = new int[count];
+        for (int width = chunkSize(count); width < count; width <<= 1) {
+            int run = width;
+            int[] source = order;
+            int[] target = buffer;
+            List<Runnable> merges = new ArrayList<>();
+            for (int from = 0; from < count; from += run << 1) {
+                int start = from;
+                merges.add(() -> merge(keys, source, target, start, Math.min(start + run, count),
+                    Math.min(start + (run << 1), count)));
+            }
+            runAll(merges);
+            buffer = source;
+            order = target;
+        }
+        return order;
+    }
+
+    private static void merge(long[] keys, int[] source, int[] target, int from, int middle, int to) {
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < middle && keys[source[left]] <= keys[source[right]]) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+
+    private static void quickSort(long[] keys, int[] order, int low, int high) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            long pivot = median(keys[order[low]], keys[order[middle]], keys[order[high]]);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[order[i]] < pivot) {
+                    i++;
+                }
+                while (keys[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            // recurse into the smaller part, loop on the larger one
+            if (j - low < high - i) {
+                quickSort(keys, order, low, j);
+                low = i;
+            } else {
+                quickSort(keys, order, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            int value = order[i];
+            int j = i - 1;
+            while (j >= low && keys[order[j]] > keys[value]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = value;
+        }
+    }
+
+    private static long median(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static int lowerBound(long[] keys, int[] order, long key) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[order[middle]] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int chunkSize(int size) {
+        return Math.max(1024, (size + parallelism * CHUNKS_PER_THREAD - 1) / (parallelism * CHUNKS_PER_THREAD));
+    }
+
+    private void inParallel(int size, ChunkTask task) {
+        int chunkSize = chunkSize(size);
+        List<Runnable> chunks = new ArrayList<>();
+        for (int from = 0; from < size; from += chunkSize) {
+            int start = from;
+            int end = Math.min(size, from + chunkSize);
+            chunks.add(() -> task.run(start, end));
+        }
+        runAll(chunks);
+    }
+
+    private void runAll(List<Runnable> chunks) {
+        if (chunks.size() <= 1 || parallelism == 1) {
+            chunks.forEach(Runnable::run);
+            return;
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.runAsync(chunks.get(i), executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(int from, int to);
+    }
+
+    @FunctionalInterface
+    private interface ConsumerFactory {
+        MatchConsumer create();
+    }
+
+    /*
+     * Open addressing table from key to the first row with the key, rows with the same key are
+     * chained through next. Read only once built, so probing threads share it.
+     */
+    private static final class KeyIndex {
+        private final long[] slots;
+        private final int[] firstRows;
+        private final int[] nextRows;
+        private final int mask;
+
+        KeyIndex(long[] keys) {
+            int capacity = Integer.highestOneBit(Math.max(16, keys.length) * 2 - 1) << 1;
+            slots = new long[capacity];
+            firstRows = new int[capacity];
+            nextRows = new int[keys.length];
+            mask = capacity - 1;
+            // backwards, so chains list rows in ascending order
+            for (int row = keys.length - 1; row >= 0; row--) {
+                if (keys[row] == NO_KEY) {
+                    continue;
+                }
+                int slot = slot(keys[row]);
+                // keys are stored plus one, 0 marks a free slot
+                while (slots[slot] != 0 && slots[slot] != keys[row] + 1) {
+                    slot = (slot + 1) & mask;
+                }
+                nextRows[row] = slots[slot] == 0 ? -1 : firstRows[slot];
+                slots[slot] = keys[row] + 1;
+                firstRows[slot] = row;
+            }
+        }
+
+        int first(long key) {
+            int slot = slot(key);
+            while (slots[slot] != 0) {
+                if (slots[slot] == key + 1) {
+                    return firstRows[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int next(int row) {
+            return nextRows[row];
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ hash >>> 32) & mask;
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Matched pairs, ordered by left index and then right index.
+     */
+    public static final class Result {
+        private final long[] pairs;
+
+        Result(long[] pairs) {
+            this.pairs = pairs;
+        }
+
+        public int size() {
+            return pairs.length;
+        }
+
+        /**
+         * @param pair index of the pair, 0 to size() - 1
+         * @return index in the left list
+         */
+        public int getLeftIndex(int pair) {
+            return (int) (pairs[pair] >>> 32);
+        }
+
+        /**
+         * @param pair index of the pair, 0 to size() - 1
+         * @return index in the right list
+         */
+        public int getRightIndex(int pair) {
+            return (int) pairs[pair];
+        }
+    }
+
+    public static final class Builder {
+        private PhoneNumberEngine engine = PhoneNumberUtils.getEngine();
+        private Executor executor = ForkJoinPool.commonPool();
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Strategy strategy = Strategy.AUTO;
+        private int hashJoinLimit = 1 << 24;
+
+        private Builder() {
+        }
+
+        /**
+         * Engine reading the national numbers, the one {@link PhoneNumberUtils} delegates to by default.
+         * @param engine the engine
+         * @return this builder
+         */
+        public Builder engine(PhoneNumberEngine engine) {
+            if (engine == null) {
+                throw new IllegalArgumentException("engine is null");
+            }
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Executor running the chunks, the common ForkJoinPool by default.
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Number of threads the work is split for, the number of processors by default. 1 runs
+         * everything on the calling thread.
+         * @param parallelism the number of threads
+         * @return this builder
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param strategy join strategy, AUTO by default
+         * @return this builder
+         */
+        public Builder strategy(Strategy strategy) {
+            if (strategy == null) {
+                throw new IllegalArgumentException("strategy is null");
+            }
+            this.strategy = strategy;
+            return this;
+        }
+
+        /**
+         * Largest smaller side AUTO still hash joins, 16M numbers by default, a table of about
+         * 400 MB.
+         * @param hashJoinLimit the number of numbers
+         * @return this builder
+         */
+        public Builder hashJoinLimit(int hashJoinLimit) {
+            if (hashJoinLimit < 0) {
+                throw new IllegalArgumentException("hashJoinLimit is negative: " + hashJoinLimit);
+            }
+            this.hashJoinLimit = hashJoinLimit;
+            return this;
+        }
+
+        public NationalNumberJoin build() {
+            return new NationalNumberJoin(this);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.phone.utils;
+
+/**
+ * One item normalized by a {@link PhoneNumberProcessor}: the input, its position in the stream and
+ * either the E.164 number or the reason it was rejected.
+ */
+public final class NormalizedPhone {
+
+    private final long sequence;
+    private final String input;
+    private final String e164;
+    private final FailureReason failureReason;
+
+    NormalizedPhone(long sequence, String input, String e164, FailureReason failureReason) {
+        this.sequence = sequence;
+        this.input = input;
+        this.e164 = e164;
+        this.failureReason = failureReason;
+    }
+
+    /**
+     * @return position of the input in the stream, starting at 0
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * @return the number in E.164 format, null if the input was rejected
+     */
+    public String getE164() {
+        return e164;
+    }
+
+    public boolean isValid() {
+        return e164 != null;
+    }
+
+    /**
+     * @return why the input was rejected, null if it was normalized
+     */
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    @Override
+    public String toString() {
+        return "NormalizedPhone{" + sequence + ", " + input + ", " + (e164 != null ? e164 : failureReason) + "}";
+    }
+}
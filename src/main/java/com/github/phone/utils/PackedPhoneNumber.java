@@ -0,0 +1,202 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+/**
+ * Codec for phone numbers packed into a single {@code long}.
+ *
+ * <p>Layout, from the most significant bit:
+ * <pre>
+ *  63     | 62 .. 53          | 52 .. 50           | 49 .. 0
+ *  0      | country code (10) | leading zeros (3)  | national number (50)
+ * </pre>
+ * The leading zeros are those of the national number of italian style numbers, 0 means the
+ * number has no italian leading zero. 50 bits hold every national number of up to 15 digits,
+ * more than E.164 allows. Packed values are never negative, so {@link #INVALID} can not clash
+ * with a number, and comparing packed values as longs orders them by country code, leading
+ * zeros and national number.
+ *
+ * <pre>
+ * long packed = PackedPhoneNumber.fromE164("+4745037118");
+ * PackedPhoneNumber.countryCode(packed);     // 47
+ * PackedPhoneNumber.nationalNumber(packed);  // 45037118
+ * </pre>
+ */
+public final class PackedPhoneNumber {
+
+    /** Marker for "no number", returned instead of throwing. */
+    public static final long INVALID = -1L;
+
+    private static final int NATIONAL_NUMBER_BITS = 50;
+    private static final int LEADING_ZEROS_BITS = 3;
+    private static final int COUNTRY_CODE_SHIFT = NATIONAL_NUMBER_BITS + LEADING_ZEROS_BITS;
+
+    private static final long NATIONAL_NUMBER_MASK = (1L << NATIONAL_NUMBER_BITS) - 1;
+    private static final int MAX_LEADING_ZEROS = (1 << LEADING_ZEROS_BITS) - 1;
+    private static final int MAX_COUNTRY_CODE = 999;
+
+    private PackedPhoneNumber() {
+    }
+
+    /**
+     * @param countryCode country calling code, 1 to 999
+     * @param nationalNumber national number without leading zeros
+     * @param leadingZeros number of italian leading zeros, 0 to 7
+     * @return the packed number
+     * @throws IllegalArgumentException if a part is out of range
+     */
+    public static long pack(int countryCode, long nationalNumber, int leadingZeros) {
+        if (countryCode <= 0 || countryCode > MAX_COUNTRY_CODE) {
+            throw new IllegalArgumentException("Country code out of range: " + countryCode);
+        }
+        if (nationalNumber < 0 || nationalNumber > NATIONAL_NUMBER_MASK) {
+            throw new IllegalArgumentException("National number out of range: " + nationalNumber);
+        }
+        if (leadingZeros < 0 || leadingZeros > MAX_LEADING_ZEROS) {
+            throw new IllegalArgumentException("Leading zeros out of range: " + leadingZeros);
+        }
+        return ((long) countryCode << COUNTRY_CODE_SHIFT)
+            | ((long) leadingZeros << NATIONAL_NUMBER_BITS)
+            | nationalNumber;
+    }
+
+    /**
+     * Packs country code, national number and italian leading zeros of a Google PhoneNumber.
+     * Extension and raw input are not kept.
+     * @param phoneNumber the number to pack
+     * @return the packed number, or INVALID if a part is out of range
+     */
+    public static long pack(PhoneNumber phoneNumber) {
+        int countryCode = phoneNumber.getCountryCode();
+        long nationalNumber = phoneNumber.getNationalNumber();
+        int leadingZeros = phoneNumber.isItalianLeadingZero() ? phoneNumber.getNumberOfLeadingZeros() : 0;
+        if (countryCode <= 0 || countryCode > MAX_COUNTRY_CODE
+            || nationalNumber < 0 || nationalNumber > NATIONAL_NUMBER_MASK
+            || leadingZeros < 0 || leadingZeros > MAX_LEADING_ZEROS) {
+            return INVALID;
+        }
+        return pack(countryCode, nationalNumber, leadingZeros);
+    }
+
+    /**
+     * Parses a full phone number with libphonenumber and packs it.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return the packed number, or INVALID if the number can not be parsed
+     */
+    public static long parse(String fullPhoneNumber) {
+        return ParsedPhone.parse(fullPhoneNumber).toPackedPhoneNumber();
+    }
+
+    /**
+     * Reads a number in strict E.164 format, "+" followed by digits only, without running the
+     * libphonenumber parser. The country code is the assigned calling code the digits start with.
+     * @param e164 number in E.164 format
+     * @return the packed number, or INVALID if the input is not E.164 or the country code unknown
+     */
+    public static long fromE164(CharSequence e164) {
+        int length = e164 == null ? 0 : e164.length();
+        if (length < 3 || e164.charAt(0) != '+') {
+            return INVALID;
+        }
+        int countryCode = 0;
+        int position = 1;
+        while (position < length && position <= 3) {
+            int digit = asciiDigit(e164.charAt(position++));
+            if (digit < 0) {
+                return INVALID;
+            }
+            countryCode = countryCode * 10 + digit;
+            if (CallingCodeTable.isAssigned(countryCode)) {
+                break;
+            }
+        }
+        if (!CallingCodeTable.isAssigned(countryCode) || position == length) {
+            return INVALID;
+        }
+        int leadingZeros = 0;
+        while (position < length - 1 && e164.charAt(position) == '0') {
+            leadingZeros++;
+            position++;
+        }
+        long nationalNumber = 0;
+        for (; position < length; position++) {
+            int digit = asciiDigit(e164.charAt(position));
+            if (digit < 0 || nationalNumber > (NATIONAL_NUMBER_MASK - digit) / 10) {
+                return INVALID;
+            }
+            nationalNumber = nationalNumber * 10 + digit;
+        }
+        if (leadingZeros > MAX_LEADING_ZEROS) {
+            return INVALID;
+        }
+        return pack(countryCode, nationalNumber, leadingZeros);
+    }
+
+    public static int countryCode(long packed) {
+        return (int) (packed >>> COUNTRY_CODE_SHIFT);
+    }
+
+    public static long nationalNumber(long packed) {
+        return packed & NATIONAL_NUMBER_MASK;
+    }
+
+    public static int leadingZeros(long packed) {
+        return (int) (packed >>> NATIONAL_NUMBER_BITS) & MAX_LEADING_ZEROS;
+    }
+
+    public static boolean isItalianLeadingZero(long packed) {
+        return leadingZeros(packed) > 0;
+    }
+
+    /**
+     * @param packed a packed number
+     * @return true if the value is a packed number and not INVALID or otherwise out of range
+     */
+    public static boolean isPacked(long packed) {
+        return packed >= 0 && countryCode(packed) > 0;
+    }
+
+    /**
+     * @param packed a packed number
+     * @return a new Google PhoneNumber object
+     * @throws PhoneNumberParsingException if the value is not a packed number
+     */
+    public static PhoneNumber toPhoneNumber(long packed) {
+        checkPacked(packed);
+        PhoneNumber phoneNumber = new PhoneNumber()
+            .setCountryCode(countryCode(packed))
+            .setNationalNumber(nationalNumber(packed));
+        int leadingZeros = leadingZeros(packed);
+        if (leadingZeros > 0) {
+            phoneNumber.setItalianLeadingZero(true);
+            if (leadingZeros > 1) {
+                phoneNumber.setNumberOfLeadingZeros(leadingZeros);
+            }
+        }
+        return phoneNumber;
+    }
+
+    /**
+     * Formats the number like libphonenumber does for E.164, italian leading zeros included.
+     * @param packed a packed number
+     * @return the number in E.164 format, e.g. "+4745037118"
+     * @throws PhoneNumberParsingException if the value is not a packed number
+     */
+    public static String toE164(long packed) {
+        return E164Formatter.format(packed);
+    }
+
+    public static int compare(long packed1, long packed2) {
+        return Long.compare(packed1, packed2);
+    }
+
+    static void checkPacked(long packed) {
+        if (!isPacked(packed)) {
+            throw new PhoneNumberParsingException("Not a packed phone number: " + packed);
+        }
+    }
+
+    private static int asciiDigit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.phone.utils;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Result of an exception free parse: either a value or the {@link FailureReason}.
+ *
+ * <p>Returned by the {@code try...} methods of {@link PhoneNumberUtils}, which answer bad input
+ * without creating an exception. Failures carry no per call data, one shared instance per reason
+ * is returned, so a failed parse allocates nothing here.
+ *
+ * <pre>
+ * ParseOutcome&lt;String&gt; outcome = PhoneNumberUtils.tryNormalizePhoneNumber(input);
+ * if (outcome.isSuccess()) {
+ *     store(outcome.get());
+ * } else {
+ *     countRejected(outcome.getFailureReason());
+ * }
+ * </pre>
+ *
+ * @param <T> type of the value
+ */
+public final class ParseOutcome<T> {
+
+    private static final ParseOutcome<?>[] FAILURES = new ParseOutcome<?>[FailureReason.values().length];
+
+    static {
+        for (FailureReason reason : FailureReason.values()) {
+            FAILURES[reason.ordinal()] = new ParseOutcome<>(null, reason);
+        }
+    }
+
+    private final T value;
+    private final FailureReason failureReason;
+
+    private ParseOutcome(T value, FailureReason failureReason) {
+        this.value = value;
+        this.failureReason = failureReason;
+    }
+
+    /**
+     * @param value the value, not null
+     * @param <T> type of the value
+     * @return a successful outcome
+     */
+    public static <T> ParseOutcome<T> success(T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value is null");
+        }
+        return new ParseOutcome<>(value, null);
+    }
+
+    /**
+     * @param reason why there is no value
+     * @param <T> type of the value
+     * @return the shared failed outcome of the reason
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ParseOutcome<T> failure(FailureReason reason) {
+        return (ParseOutcome<T>) FAILURES[reason.ordinal()];
+    }
+
+    public boolean isSuccess() {
+        return failureReason == null;
+    }
+
+    public boolean isFailure() {
+        return failureReason != null;
+    }
+
+    /**
+     * @return the value
+     * @throws PhoneNumberParsingException if this is a failure
+     */
+    public T get() {
+        if (failureReason != null) {
+            throw new PhoneNumberParsingException(failureReason, "No value, parsing failed: " + failureReason);
+        }
+        return value;
+    }
+
+    /**
+     * @return the reason of a failure, null on success
+     */
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    public T orElse(T other) {
+        return failureReason == null ? value : other;
+    }
+
+    /**
+     * @param mapper function applied to the value of a success
+     * @param <U> type of the mapped value
+     * @return the mapped success, or this failure
+     */
+    @SuppressWarnings("unchecked")
+    public <U> ParseOutcome<U> map(Function<? super T, ? extends U> mapper) {
+        return failureReason == null ? success(mapper.apply(value)) : (ParseOutcome<U>) this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ParseOutcome)) {
+            return false;
+        }
+        ParseOutcome<?> that = (ParseOutcome<?>) o;
+        return Objects.equals(value, that.value) && failureReason == that.failureReason;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value, failureReason);
+    }
+
+    @Override
+    public String toString() {
+        return failureReason == null ? "ParseOutcome{" + value + "}" : "ParseOutcome{" + failureReason + "}";
+    }
+}
@@ -0,0 +1,303 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+/**
+ * Result of parsing a phone number once.
+ *
+ * <p>All derived facts (validity, possibility, national number, E.164 form, holder) are computed
+ * from the single parse on first request and then remembered, so asking several questions about
+ * the same input costs one libphonenumber parse. Instances are immutable and thread-safe.
+ *
+ * <pre>
+ * ParsedPhone phone = ParsedPhone.parse("+47 450 37 118");
+ * phone.isValid();            // true
+ * phone.getCountryCode();     // 47
+ * phone.toE164();             // +4745037118
+ * </pre>
+ */
+public final class ParsedPhone {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+
+    private static final String UNKNOWN_REGION = "ZZ";
+
+    // messages of what libphonenumber throws for these inputs
+    private static final String NULL_INPUT = "The phone number supplied was null.";
+    private static final String NOT_A_NUMBER = "The string supplied did not seem to be a phone number.";
+    private static final String INPUT_TOO_LONG = "The string supplied was too long to parse.";
+    private static final String MISSING_PLUS = "Missing or invalid default region.";
+
+    // same limit as libphonenumber
+    private static final int MAX_INPUT_STRING_LENGTH = 250;
+
+    private final PhoneNumberEngine engine;
+    private final String input;
+    private final String region;
+    private final PhoneNumber phoneNumber;
+    // why parsing failed, kept as data, an exception is only built when one is handed out
+    private final NumberParseException.ErrorType failureType;
+    private final String failureMessage;
+
+    // lazily computed, racing threads compute the same values
+    private byte valid;
+    private byte possible;
+    private byte canonicalValid;
+    private String nationalNumber;
+    private String e164;
+    private PhoneNumberHolder holder;
+
+    private ParsedPhone(PhoneNumberEngine engine, String input, String region, PhoneNumber phoneNumber,
+        NumberParseException.ErrorType failureType, String failureMessage) {
+
+        this.engine = engine;
+        this.input = input;
+        this.region = region;
+        this.phoneNumber = phoneNumber;
+        this.failureType = failureType;
+        this.failureMessage = failureMessage;
+    }
+
+    /**
+     * Parses a full phone number, starting with +. Input without any + can only be read with a
+     * default region, when it is made of digits and punctuation it is rejected without running the
+     * parser.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return the parse result, never null
+     */
+    public static ParsedPhone parse(String fullPhoneNumber) {
+        return parse(PhoneNumberUtils.getEngine(), fullPhoneNumber);
+    }
+
+    /**
+     * Parses a phone number, numbers without country code are taken to belong to the region.
+     * @param phoneNumber phone number in any format
+     * @param region two letter region code, e.g. "NO"
+     * @return the parse result, never null
+     */
+    public static ParsedPhone parse(String phoneNumber, String region) {
+        return parse(PhoneNumberUtils.getEngine(), phoneNumber, region);
+    }
+
+    static ParsedPhone parse(PhoneNumberEngine engine, String fullPhoneNumber) {
+        if (fullPhoneNumber == null) {
+            return failed(engine, null, NumberParseException.ErrorType.NOT_A_NUMBER, NULL_INPUT);
+        }
+        if (!containsPlus(fullPhoneNumber)) {
+            return withoutPlus(engine, fullPhoneNumber);
+        }
+        return parse(engine, fullPhoneNumber, UNKNOWN_REGION);
+    }
+
+    static ParsedPhone parse(PhoneNumberEngine engine, String phoneNumber, String region) {
+        PhoneNumberParseCache.Entry entry = engine.parseOrCached(phoneNumber, region);
+        return new ParsedPhone(engine, phoneNumber, region, entry.phoneNumberForCaller(), entry.getFailureType(),
+            entry.getFailureMessage());
+    }
+
+    private static ParsedPhone failed(PhoneNumberEngine engine, String input, NumberParseException.ErrorType type,
+        String message) {
+
+        return new ParsedPhone(engine, input, UNKNOWN_REGION, null, type, message);
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * @return true if libphonenumber could parse the input
+     */
+    public boolean isParsed() {
+        return phoneNumber != null;
+    }
+
+    /**
+     * @return why the input could not be parsed, null if it was parsed
+     */
+    public FailureReason getFailureReason() {
+        return failureType == null ? null : FailureReason.of(failureType);
+    }
+
+    public boolean isValid() {
+        if (valid == UNKNOWN) {
+            valid = phoneNumber != null && engine.isValidNumber(phoneNumber) ? TRUE : FALSE;
+        }
+        return valid == TRUE;
+    }
+
+    public boolean isPossible() {
+        if (possible == UNKNOWN) {
+            possible = phoneNumber != null && engine.phoneUtil().isPossibleNumber(phoneNumber) ? TRUE : FALSE;
+        }
+        return possible == TRUE;
+    }
+
+    /**
+     * @return the country code, e.g. 47
+     * @throws PhoneNumberParsingException if the input could not be parsed
+     */
+    public int getCountryCode() {
+        return parsedNumber().getCountryCode();
+    }
+
+    /**
+     * @return the country code with + prefix, e.g. "+47"
+     * @throws PhoneNumberParsingException if the input could not be parsed
+     */
+    public String getCountryCodeWithPlusSign() {
+        return CallingCodeTable.prefixOf(getCountryCode());
+    }
+
+    /**
+     * National part of the number, with the leading zero of italian numbers kept.
+     * @return the national number, e.g. "45037118"
+     * @throws PhoneNumberParsingException if the input could not be parsed
+     */
+    public String getNationalNumber() {
+        if (nationalNumber == null) {
+            PhoneNumber number = parsedNumber();
+            nationalNumber = number.isItalianLeadingZero()
+                ? "0" + number.getNationalNumber() : Long.toString(number.getNationalNumber());
+        }
+        return nationalNumber;
+    }
+
+    /**
+     * @return the number in E.164 format, e.g. "+4745037118"
+     * @throws PhoneNumberParsingException if the input could not be parsed
+     */
+    public String toE164() {
+        if (e164 == null) {
+            e164 = E164Formatter.format(parsedNumber());
+        }
+        return e164;
+    }
+
+    /**
+     * @return holder with "+" prefixed country code, national number and E.164 number
+     * @throws PhoneNumberParsingException if the input could not be parsed
+     */
+    public PhoneNumberHolder toPhoneNumberHolder() {
+        if (holder == null) {
+            holder = new PhoneNumberHolder(getCountryCodeWithPlusSign(), getNationalNumber(), toE164());
+        }
+        return holder;
+    }
+
+    /**
+     * @return a copy of the parsed Google PhoneNumber object
+     * @throws PhoneNumberParsingException if the input could not be parsed
+     */
+    public PhoneNumber toPhoneNumber() {
+        return new PhoneNumber().mergeFrom(parsedNumber());
+    }
+
+    /**
+     * @return the number packed into a long, or {@link PackedPhoneNumber#INVALID} if the input could not be parsed
+     */
+    public long toPackedPhoneNumber() {
+        return phoneNumber == null ? PackedPhoneNumber.INVALID : PackedPhoneNumber.pack(phoneNumber);
+    }
+
+    /*
+     * The parsed object itself, callers in this package must not modify it.
+     */
+    PhoneNumber phoneNumber() {
+        return phoneNumber;
+    }
+
+    /*
+     * Validity of "+" + country code + national number, which is how generateFullPhoneNumber has
+     * always formatted numbers. Only when parsing that string could strip a national prefix again
+     * does it have to be parsed, otherwise the result is known from this parse.
+     */
+    boolean isCanonicalNumberValid() {
+        if (canonicalValid == UNKNOWN) {
+            boolean result = false;
+            if (phoneNumber != null) {
+                int countryCode = phoneNumber.getCountryCode();
+                String national = Long.toString(phoneNumber.getNationalNumber());
+                if (engine.mayStripNationalPrefix(countryCode, national)) {
+                    result = parse(engine, "+" + countryCode + national).isValid();
+                } else {
+                    PhoneNumber canonical = new PhoneNumber()
+                        .setCountryCode(countryCode)
+                        .setNationalNumber(phoneNumber.getNationalNumber());
+                    result = engine.isValidNumber(canonical);
+                }
+            }
+            canonicalValid = result ? TRUE : FALSE;
+        }
+        return canonicalValid == TRUE;
+    }
+
+    private static boolean containsPlus(String input) {
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            if (c == '+' || c == '＋') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * What libphonenumber reports for input without "+" and without region. It first rejects input
+     * which does not look like a phone number: after cutting leading and trailing punctuation,
+     * exactly two digits or at least three digits with punctuation between them. Input made of
+     * ASCII digits and plain punctuation is decided here, anything else, e.g. with letters, is
+     * left to the parser, which fails either way.
+     */
+    private static ParsedPhone withoutPlus(PhoneNumberEngine engine, String input) {
+        if (input.length() > MAX_INPUT_STRING_LENGTH) {
+            return failed(engine, input, NumberParseException.ErrorType.TOO_LONG, INPUT_TOO_LONG);
+        }
+        int digits = 0;
+        int first = -1;
+        int last = -1;
+        boolean plain = true;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                first = first < 0 ? i : first;
+                last = i;
+            } else if (PhoneNumberSanitizer.digit(c) >= 0) {
+                digits++;
+                plain = false;
+            } else if (c != ' ' && c != '-' && c != '.' && c != '(' && c != ')') {
+                plain = false;
+            }
+        }
+        if (digits < 2) {
+            return failed(engine, input, NumberParseException.ErrorType.NOT_A_NUMBER, NOT_A_NUMBER);
+        }
+        if (!plain) {
+            return parse(engine, input, UNKNOWN_REGION);
+        }
+        boolean viable = digits >= 3 || last - first == 1;
+        return viable ? failed(engine, input, NumberParseException.ErrorType.INVALID_COUNTRY_CODE, MISSING_PLUS)
+            : failed(engine, input, NumberParseException.ErrorType.NOT_A_NUMBER, NOT_A_NUMBER);
+    }
+
+    private PhoneNumber parsedNumber() {
+        if (phoneNumber == null) {
+            throw new PhoneNumberParsingException(getFailureReason(), null);
+        }
+        return phoneNumber;
+    }
+
+    @Override
+    public String toString() {
+        return phoneNumber == null ? "ParsedPhone{" + input + ", " + failureType + "}"
+            : "ParsedPhone{" + input + ", " + toE164() + "}";
+    }
+}
@@ -0,0 +1,390 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.AsYouTypeFormatter;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.util.Arrays;
+
+/**
+ * State of a phone number input field, fed one keystroke at a time.
+ *
+ * <p>Each character is sanitized once when it is typed. For input starting with "+" the session
+ * keeps the calling code, the national number and the national prefix check up to date digit by
+ * digit, so {@link #isPossible()} and {@link #isValid()} take constant time instead of cleaning and
+ * parsing the whole input again. The answers are those of
+ * {@link PhoneNumberEngine#isPossibleFullPhoneNumber(String)} for the digits and "+" typed so far
+ * and of {@link PhoneNumberEngine#isValidPhoneNumber(String, String)} for the input. Input without
+ * "+", and numbers whose national prefix libphonenumber might strip, are answered by those methods,
+ * once per keystroke and only when asked.
+ *
+ * <pre>
+ * PhoneInputSession session = PhoneInputSession.builder().build();
+ * for (char c : "+47 450 37 118".toCharArray()) {
+ *     session.type(c);
+ * }
+ * session.isValid();        // true
+ * session.getFormatted();   // "+47 45 03 71 18", formatted by libphonenumber's AsYouTypeFormatter
+ * session.backspace();
+ * session.isPossible();     // false
+ * </pre>
+ *
+ * <p>Sessions are not thread safe, use one per input field.
+ */
+public final class PhoneInputSession {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+
+    // same limits as libphonenumber
+    private static final int MIN_NATIONAL_DIGITS = 2;
+    private static final int MAX_NATIONAL_DIGITS = 17;
+    private static final int MAX_CALLING_CODE_DIGITS = 3;
+
+    private final PhoneNumberEngine engine;
+    private final String defaultCountryCode;
+    private final AsYouTypeFormatter formatter;
+    private final StringBuilder input = new StringBuilder();
+    // per typed char, true if it is a digit or "+" kept in the sanitized input
+    private boolean[] kept = new boolean[32];
+    private char[] sanitized = new char[32];
+    private int sanitizedLength;
+    private int formattedLength;
+    private String formatted = "";
+
+    // "+" input, built digit by digit
+    private int pluses;
+    private int callingCodeDigits;
+    private int callingCodeValue;
+    private int callingCode;
+    private boolean unparseable;
+    private DigitAutomaton nationalPrefix;
+    private int nationalDigits;
+    private long nationalNumber;
+    private int leadingZeros;
+    // national prefix check of the digits as typed, and without their leading zeros
+    private int prefixState;
+    private boolean prefixMatched;
+    private int canonicalPrefixState;
+    private boolean canonicalPrefixMatched;
+
+    private final PhoneNumber number = new PhoneNumber();
+    private final PhoneNumber canonical = new PhoneNumber();
+    private byte possible;
+    private byte valid;
+
+    private PhoneInputSession(Builder builder) {
+        this.engine = builder.engine != null ? builder.engine : PhoneNumberUtils.getEngine();
+        this.defaultCountryCode = builder.defaultCountryCode != null
+            ? builder.defaultCountryCode : engine.getDefaultCountryCode();
+        CallingCodeTable.Entry entry = CallingCodeTable.resolve(defaultCountryCode);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown default country code: " + defaultCountryCode);
+        }
+        this.formatter = engine.phoneUtil().getAsYouTypeFormatter(entry.getMainRegion());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param c the typed character, anything but digits and "+" is kept in the input only
+     * @return this session
+     */
+    public PhoneInputSession type(char c) {
+        int position = input.length();
+        if (position == kept.length) {
+            kept = Arrays.copyOf(kept, position * 2);
+        }
+        input.append(c);
+        int digit = PhoneNumberSanitizer.digit(c);
+        char clean = digit >= 0 ? (char) ('0' + digit) : c == '+' || c == '＋' ? '+' : 0;
+        kept[position] = clean != 0;
+        if (clean != 0) {
+            if (sanitizedLength == sanitized.length) {
+                sanitized = Arrays.copyOf(sanitized, sanitizedLength * 2);
+            }
+            sanitized[sanitizedLength++] = clean;
+            advance(clean);
+            possible = UNKNOWN;
+            valid = UNKNOWN;
+        }
+        return this;
+    }
+
+    /**
+     * Types each character of the text, e.g. pasted text.
+     * @param text the characters
+     * @return this session
+     */
+    public PhoneInputSession type(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            type(text.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Removes the last typed character, takes time linear in the input length when it was a
+     * digit or "+".
+     * @return this session
+     */
+    public PhoneInputSession backspace() {
+        int position = input.length() - 1;
+        if (position < 0) {
+            return this;
+        }
+        input.setLength(position);
+        if (kept[position]) {
+            sanitizedLength--;
+            replay();
+            if (formattedLength > sanitizedLength) {
+                formatter.clear();
+                formattedLength = 0;
+                formatted = "";
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Removes all typed characters.
+     * @return this session
+     */
+    public PhoneInputSession clear() {
+        input.setLength(0);
+        sanitizedLength = 0;
+        formatter.clear();
+        formattedLength = 0;
+        formatted = "";
+        replay();
+        return this;
+    }
+
+    /**
+     * @return the characters typed so far
+     */
+    public String getInput() {
+        return input.toString();
+    }
+
+    /**
+     * @return the digits and "+" typed so far, digits converted to ASCII
+     */
+    public String getSanitized() {
+        return new String(sanitized, 0, sanitizedLength);
+    }
+
+    /**
+     * @return the digits and "+" typed so far as libphonenumber's AsYouTypeFormatter formats them
+     */
+    public String getFormatted() {
+        while (formattedLength < sanitizedLength) {
+            formatted = formatter.inputDigit(sanitized[formattedLength++]);
+        }
+        return formatted;
+    }
+
+    /**
+     * @return same as {@link PhoneNumberEngine#isPossibleFullPhoneNumber(String)} of {@link #getSanitized()}
+     */
+    public boolean isPossible() {
+        if (possible == UNKNOWN) {
+            boolean result;
+            if (needsParse()) {
+                result = engine.isPossibleFullPhoneNumber(getSanitized());
+            } else {
+                result = isParseable()
+                    && (PhoneMetadataLookup.possibleLengths(callingCode) & 1 << nationalDigits) != 0;
+            }
+            possible = result ? TRUE : FALSE;
+        }
+        return possible == TRUE;
+    }
+
+    /**
+     * @return same as {@link PhoneNumberEngine#isValidPhoneNumber(String, String)} of the default
+     *     country code and {@link #getInput()}
+     */
+    public boolean isValid() {
+        if (valid == UNKNOWN) {
+            boolean result;
+            if (needsParse()) {
+                result = engine.isValidPhoneNumber(defaultCountryCode, getSanitized());
+            } else {
+                result = isParseable() && (engine.isValidNumber(parsedNumber()) || isCanonicalNumberValid());
+            }
+            valid = result ? TRUE : FALSE;
+        }
+        return valid == TRUE;
+    }
+
+    /*
+     * True if the answers need the engine: input without a single leading "+", engines with
+     * their own metadata, and numbers libphonenumber might strip a national prefix from.
+     */
+    private boolean needsParse() {
+        if (sanitizedLength == 0 || sanitized[0] != '+' || pluses != 1 || !engine.hasDefaultMetadata()) {
+            return true;
+        }
+        return callingCode != 0 && (nationalPrefix == null || prefixMatched);
+    }
+
+    private boolean isParseable() {
+        return callingCode != 0 && nationalDigits >= MIN_NATIONAL_DIGITS && nationalDigits <= MAX_NATIONAL_DIGITS;
+    }
+
+    /*
+     * The number libphonenumber parses from the "+" input, italian leading zeros included.
+     */
+    private PhoneNumber parsedNumber() {
+        number.clear();
+        number.setCountryCode(callingCode).setNationalNumber(nationalNumber);
+        if (leadingZeros > 0) {
+            number.setItalianLeadingZero(true);
+            int zeros = Math.min(leadingZeros, nationalDigits - 1);
+            if (zeros != 1) {
+                number.setNumberOfLeadingZeros(zeros);
+            }
+        }
+        return number;
+    }
+
+    /*
+     * ParsedPhone.isCanonicalNumberValid for the "+" input: without leading zeros the canonical
+     * number is the parsed one.
+     */
+    private boolean isCanonicalNumberValid() {
+        if (leadingZeros == 0) {
+            return false;
+        }
+        boolean matched = canonicalPrefixMatched;
+        if (nationalNumber == 0) {
+            // all zeros, the canonical national number is "0"
+            int state = nationalPrefix.next(nationalPrefix.start(), 0);
+            matched = nationalPrefix.accepting(nationalPrefix.start()) != 0 || nationalPrefix.accepting(state) != 0;
+        }
+        if (matched) {
+            return engine.parse(CallingCodeTable.prefixOf(callingCode) + nationalNumber).isValid();
+        }
+        canonical.clear();
+        return engine.isValidNumber(canonical.setCountryCode(callingCode).setNationalNumber(nationalNumber));
+    }
+
+    /*
+     * Rebuilds the "+" state from the sanitized input, after characters were removed.
+     */
+    private void replay() {
+        pluses = 0;
+        callingCodeDigits = 0;
+        callingCodeValue = 0;
+        callingCode = 0;
+        unparseable = false;
+        nationalPrefix = null;
+        nationalDigits = 0;
+        nationalNumber = 0;
+        leadingZeros = 0;
+        int length = sanitizedLength;
+        sanitizedLength = 0;
+        for (int i = 0; i < length; i++) {
+            sanitizedLength++;
+            advance(sanitized[i]);
+        }
+        possible = UNKNOWN;
+        valid = UNKNOWN;
+    }
+
+    private void advance(char c) {
+        if (c == '+') {
+            pluses++;
+            return;
+        }
+        if (unparseable || sanitized[0] != '+') {
+            return;
+        }
+        int digit = c - '0';
+        if (callingCode == 0) {
+            callingCodeDigits++;
+            callingCodeValue = callingCodeValue * 10 + digit;
+            if (callingCodeValue == 0) {
+                unparseable = true;
+            } else if (CallingCodeTable.isAssigned(callingCodeValue)) {
+                startNationalNumber(callingCodeValue);
+            } else if (callingCodeDigits == MAX_CALLING_CODE_DIGITS) {
+                unparseable = true;
+            }
+            return;
+        }
+        nationalDigits++;
+        if (nationalDigits > MAX_NATIONAL_DIGITS) {
+            return;
+        }
+        nationalNumber = nationalNumber * 10 + digit;
+        if (nationalNumber == 0) {
+            leadingZeros++;
+        }
+        if (nationalPrefix != null) {
+            prefixState = nationalPrefix.next(prefixState, digit);
+            prefixMatched |= nationalPrefix.accepting(prefixState) != 0;
+            if (nationalNumber != 0) {
+                canonicalPrefixState = nationalPrefix.next(canonicalPrefixState, digit);
+                canonicalPrefixMatched |= nationalPrefix.accepting(canonicalPrefixState) != 0;
+            }
+        }
+    }
+
+    private void startNationalNumber(int countryCode) {
+        callingCode = countryCode;
+        nationalPrefix = PhoneMetadataLookup.nationalPrefixAutomaton(countryCode);
+        if (nationalPrefix != null) {
+            prefixState = nationalPrefix.start();
+            prefixMatched = nationalPrefix.accepting(prefixState) != 0;
+            canonicalPrefixState = prefixState;
+            canonicalPrefixMatched = prefixMatched;
+        }
+    }
+
+    public static final class Builder {
+        private PhoneNumberEngine engine;
+        private String defaultCountryCode;
+
+        private Builder() {
+        }
+
+        /**
+         * Engine answering the questions, the engine of {@link PhoneNumberUtils} by default.
+         * @param engine the engine
+         * @return this builder
+         */
+        public Builder engine(PhoneNumberEngine engine) {
+            if (engine == null) {
+                throw new IllegalArgumentException("engine is null");
+            }
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Country code of input without one, and of the formatter, the default country code of
+         * the engine by default.
+         * @param defaultCountryCode the country code, e.g. "+46"
+         * @return this builder
+         */
+        public Builder defaultCountryCode(String defaultCountryCode) {
+            if (defaultCountryCode == null) {
+                throw new IllegalArgumentException("defaultCountryCode is null");
+            }
+            this.defaultCountryCode = defaultCountryCode;
+            return this;
+        }
+
+        /**
+         * @return a session without input
+         * @throws IllegalArgumentException if the default country code is not an assigned calling code
+         */
+        public PhoneInputSession build() {
+            return new PhoneInputSession(this);
+        }
+    }
+}
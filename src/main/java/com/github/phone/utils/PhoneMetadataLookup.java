@@ -0,0 +1,123 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.metadata.DefaultMetadataDependenciesProvider;
+import com.google.i18n.phonenumbers.metadata.source.MetadataSource;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/*
+ * Read access to the libphonenumber metadata, which PhoneNumberUtil keeps to itself.
+ */
+final class PhoneMetadataLookup {
+
+    private static final MetadataSource METADATA_SOURCE =
+        DefaultMetadataDependenciesProvider.getInstance().getPhoneNumberMetadataSource();
+
+    private static final Set<String> SUPPORTED_REGIONS = PhoneNumberUtil.getInstance().getSupportedRegions();
+
+    private static final Pattern NO_NATIONAL_PREFIX = Pattern.compile("(?!)");
+
+    private static final ConcurrentMap<Integer, Pattern> NATIONAL_PREFIX_FOR_PARSING = new ConcurrentHashMap<>();
+
+    private static final int MAX_PREFIX_STATES = 1_000;
+
+    // prefixes which never match, and patterns the automaton compiler does not support
+    private static final DigitAutomaton NO_PREFIX_AUTOMATON = DigitAutomaton.compile(new String[0], 1);
+    private static final DigitAutomaton UNSUPPORTED_PREFIX = DigitAutomaton.compile(new String[0], 1);
+
+    private static final ConcurrentMap<Integer, DigitAutomaton> NATIONAL_PREFIX_AUTOMATA =
+        new ConcurrentHashMap<>();
+
+    // bit 31 marks computed entries
+    private static final int COMPUTED = 1 << 31;
+    private static final int[] POSSIBLE_LENGTHS = new int[CallingCodeTable.MAX_CALLING_CODE + 1];
+
+    private PhoneMetadataLookup() {
+    }
+
+    /*
+     * Metadata of the main region of the calling code, the same metadata libphonenumber uses
+     * when it parses a "+" prefixed number. Null for unassigned calling codes.
+     */
+    static PhoneMetadata forCallingCode(int countryCode) {
+        String region = CallingCodeTable.regionOf(countryCode);
+        if (PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY.equals(region)) {
+            return METADATA_SOURCE.getMetadataForNonGeographicalRegion(countryCode);
+        }
+        return forRegion(region);
+    }
+
+    /*
+     * Null for unknown regions.
+     */
+    static PhoneMetadata forRegion(String region) {
+        if (region == null || !SUPPORTED_REGIONS.contains(region)) {
+            return null;
+        }
+        return METADATA_SOURCE.getMetadataForRegion(region);
+    }
+
+    /*
+     * True if parsing "+" + countryCode + nationalNumber could strip or transform a national prefix,
+     * i.e. the parsed national number might differ from the given one.
+     */
+    static boolean mayStripNationalPrefix(int countryCode, String nationalNumber) {
+        Pattern prefix = NATIONAL_PREFIX_FOR_PARSING.computeIfAbsent(countryCode, code -> {
+            PhoneMetadata metadata = forCallingCode(code);
+            if (metadata == null || metadata.getNationalPrefixForParsing().isEmpty()) {
+                return NO_NATIONAL_PREFIX;
+            }
+            return Pattern.compile(metadata.getNationalPrefixForParsing());
+        });
+        return prefix != NO_NATIONAL_PREFIX && prefix.matcher(nationalNumber).lookingAt();
+    }
+
+    /*
+     * The check of mayStripNationalPrefix as an automaton, to run digit by digit: it matches once
+     * a state with a tag has been passed. Null if the pattern is beyond the compiler.
+     */
+    static DigitAutomaton nationalPrefixAutomaton(int countryCode) {
+        DigitAutomaton automaton = NATIONAL_PREFIX_AUTOMATA.computeIfAbsent(countryCode, code -> {
+            PhoneMetadata metadata = forCallingCode(code);
+            if (metadata == null || metadata.getNationalPrefixForParsing().isEmpty()) {
+                return NO_PREFIX_AUTOMATON;
+            }
+            try {
+                return DigitAutomaton.compile(new String[] {metadata.getNationalPrefixForParsing()}, MAX_PREFIX_STATES);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                return UNSUPPORTED_PREFIX;
+            }
+        });
+        return automaton == UNSUPPORTED_PREFIX ? null : automaton;
+    }
+
+    /*
+     * Lengths of the national significant numbers libphonenumber's isPossibleNumber accepts for
+     * the calling code, local only lengths included, bit n for n digits. 0 for unassigned codes.
+     */
+    static int possibleLengths(int countryCode) {
+        if (!CallingCodeTable.isAssigned(countryCode)) {
+            return 0;
+        }
+        int entry = POSSIBLE_LENGTHS[countryCode];
+        if (entry == 0) {
+            PhoneMetadata metadata = forCallingCode(countryCode);
+            entry = COMPUTED;
+            if (metadata != null) {
+                for (int length : metadata.getGeneralDesc().getPossibleLengthList()) {
+                    entry |= length > 0 && length < Integer.SIZE - 1 ? 1 << length : 0;
+                }
+                for (int length : metadata.getGeneralDesc().getPossibleLengthLocalOnlyList()) {
+                    entry |= length > 0 && length < Integer.SIZE - 1 ? 1 << length : 0;
+                }
+            }
+            POSSIBLE_LENGTHS[countryCode] = entry;
+        }
+        return entry & ~COMPUTED;
+    }
+}
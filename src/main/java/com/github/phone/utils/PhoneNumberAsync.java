@@ -0,0 +1,326 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link PhoneNumberUtils} methods returning {@link CompletableFuture}s, run on an executor instead
+ * of the calling thread.
+ *
+ * <p>Futures complete the way the synchronous methods return, a method throwing
+ * {@link PhoneNumberParsingException} completes its future exceptionally with it. Cancelling a
+ * future drops its work if it has not started yet and interrupts it otherwise. With a timeout, a
+ * future not complete in time completes with a {@link TimeoutException} and its work is cancelled,
+ * so callers never wait for a pathological input longer than that.
+ *
+ * <p>The default executor runs every call on its own virtual thread on Java 21 and later, and on a
+ * shared pool of one daemon thread per processor before.
+ *
+ * <pre>
+ * PhoneNumberAsync async = PhoneNumberAsync.builder().timeout(50, TimeUnit.MILLISECONDS).build();
+ * async.normalizeAsync("+47 450 37 118").thenAccept(...);
+ * async.withTimeout(2, TimeUnit.SECONDS).validateAllAsync(numbers, "+47").thenAccept(...);
+ * </pre>
+ */
+public final class PhoneNumberAsync {
+
+    private final PhoneNumberEngine engine;
+    private final Executor executor;
+    private final long timeoutNanos;
+    private final int chunkSize;
+
+    private PhoneNumberAsync(PhoneNumberEngine engine, Executor executor, long timeoutNanos, int chunkSize) {
+        this.engine = engine;
+        this.executor = executor;
+        this.timeoutNanos = timeoutNanos;
+        this.chunkSize = chunkSize;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Same facade and executor with another timeout, e.g. a longer one for batches.
+     * @param timeout the timeout, 0 for none
+     * @param unit unit of the timeout
+     * @return the facade
+     */
+    public PhoneNumberAsync withTimeout(long timeout, TimeUnit unit) {
+        return new PhoneNumberAsync(engine, executor, Builder.checkTimeout(timeout, unit), chunkSize);
+    }
+
+    /**
+     * @param phoneNumber Full phone number, starting with +
+     * @return completes like {@link PhoneNumberUtils#normalizePhoneNumber(String)}
+     */
+    public CompletableFuture<String> normalizeAsync(String phoneNumber) {
+        return submit(() -> engine().normalizePhoneNumber(phoneNumber));
+    }
+
+    /**
+     * @param defaultCountryCode country code for numbers without one, e.g. "+47"
+     * @param phoneNumber the phone number
+     * @return completes like {@link PhoneNumberUtils#isValidPhoneNumber(String, String)}
+     */
+    public CompletableFuture<Boolean> validateAsync(String defaultCountryCode, String phoneNumber) {
+        return submit(() -> engine().isValidPhoneNumber(defaultCountryCode, phoneNumber));
+    }
+
+    /**
+     * @param defaultCountryCode country code for numbers without one, e.g. "+47"
+     * @param phoneNumber the phone number
+     * @return completes like {@link PhoneNumberUtils#parseNumber(String, String)}
+     */
+    public CompletableFuture<PhoneNumber> parseAsync(String defaultCountryCode, String phoneNumber) {
+        return submit(() -> engine().parseNumber(defaultCountryCode, phoneNumber));
+    }
+
+    /**
+     * Normalizes the numbers in chunks which run in parallel. Bad numbers do not fail the batch.
+     * @param phoneNumbers Full phone numbers, starting with +
+     * @return completes with the outcome of {@link PhoneNumberUtils#tryNormalizePhoneNumber(String)}
+     *     per number, in input order
+     */
+    public CompletableFuture<List<ParseOutcome<String>>> normalizeAllAsync(List<String> phoneNumbers) {
+        String[] input = phoneNumbers.toArray(new String[0]);
+        @SuppressWarnings("unchecked")
+        ParseOutcome<String>[] outcomes = new ParseOutcome[input.length];
+        PhoneNumberEngine engine = engine();
+        return inChunks(input.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                outcomes[i] = engine.tryNormalizePhoneNumber(input[i]);
+            }
+        }, () -> Arrays.asList(outcomes));
+    }
+
+    /**
+     * Validates the numbers in chunks which run in parallel, like {@link PhoneNumberBatch} does.
+     * @param phoneNumbers phone numbers, entries may be null
+     * @param defaultCountryCode country code for numbers without one, e.g. "+47"
+     * @return completes with the results, by input index
+     */
+    public CompletableFuture<PhoneNumberBatch.Result> validateAllAsync(List<String> phoneNumbers,
+        String defaultCountryCode) {
+
+        String[] input = phoneNumbers.toArray(new String[0]);
+        String[] fullPhoneNumbers = new String[input.length];
+        PhoneNumberEngine engine = engine();
+        String region = engine.regionForCountryCode(defaultCountryCode);
+        return inChunks(input.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                fullPhoneNumbers[i] = engine.generateValidFullPhoneNumberForRegion(region, input[i]);
+            }
+        }, () -> new PhoneNumberBatch.Result(fullPhoneNumbers));
+    }
+
+    private PhoneNumberEngine engine() {
+        return engine != null ? engine : PhoneNumberUtils.getEngine();
+    }
+
+    /*
+     * Every chunk is a task of its own, nothing blocks while waiting for the others, so batches can
+     * not starve a bounded executor. The timeout covers the whole batch.
+     */
+    private <T> CompletableFuture<T> inChunks(int size, ChunkTask chunkTask, Supplier<T> value) {
+        List<FutureTask<Void>> tasks = new ArrayList<>();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < size; from += chunkSize) {
+            int start = from;
+            int end = Math.min(size, from + chunkSize);
+            CompletableFuture<Void> chunk = new CompletableFuture<>();
+            tasks.add(task(chunk, () -> {
+                chunkTask.run(start, end);
+                return null;
+            }));
+            chunks.add(chunk);
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]));
+        CompletableFuture<T> result = new CompletableFuture<>();
+        all.whenComplete((done, failure) -> {
+            if (failure == null) {
+                result.complete(value.get());
+            } else {
+                result.completeExceptionally(failure);
+            }
+        });
+        return start(result, tasks);
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        return start(result, Arrays.asList(task(result, call)));
+    }
+
+    private static <T> FutureTask<Void> task(CompletableFuture<T> result, Callable<T> call) {
+        return new FutureTask<>(() -> {
+            try {
+                result.complete(call.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, null);
+    }
+
+    private <T> CompletableFuture<T> start(CompletableFuture<T> result, List<FutureTask<Void>> tasks) {
+        ScheduledFuture<?> timer = timeoutNanos == 0 ? null : Timer.INSTANCE.schedule(
+            () -> result.completeExceptionally(new TimeoutException("No result within "
+                + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms")), timeoutNanos, TimeUnit.NANOSECONDS);
+        result.whenComplete((value, failure) -> {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            // only failures from outside the tasks, a task must not interrupt itself
+            if (failure instanceof CancellationException || failure instanceof TimeoutException) {
+                tasks.forEach(task -> task.cancel(true));
+            }
+        });
+        for (FutureTask<Void> task : tasks) {
+            if (result.isDone()) {
+                break;
+            }
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+        return result;
+    }
+
+    private static ThreadFactory daemonThreads(String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(int from, int to);
+    }
+
+    /*
+     * Completes futures with TimeoutException, one daemon thread for all facades.
+     */
+    private static final class Timer {
+        static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1,
+            daemonThreads("phone-utils-timeout-"));
+
+        static {
+            INSTANCE.setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    /*
+     * Created on first use of the default executor only.
+     */
+    private static final class DefaultExecutor {
+        static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                Method virtualThreads = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) virtualThreads.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // before Java 21
+                return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    daemonThreads("phone-utils-async-"));
+            }
+        }
+    }
+
+    public static final class Builder {
+        private PhoneNumberEngine engine;
+        private Executor executor;
+        private long timeoutNanos;
+        private int chunkSize = 1024;
+
+        private Builder() {
+        }
+
+        /**
+         * Executor running the calls, virtual threads on Java 21 and later by default, a shared
+         * pool of one thread per processor before.
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Engine the calls run on, by default the one {@link PhoneNumberUtils} delegates to at the time
+         * of the call.
+         * @param engine the engine
+         * @return this builder
+         */
+        public Builder engine(PhoneNumberEngine engine) {
+            if (engine == null) {
+                throw new IllegalArgumentException("engine is null");
+            }
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Time after which a future completes with a TimeoutException, none by default.
+         * @param timeout the timeout, 0 for none
+         * @param unit unit of the timeout
+         * @return this builder
+         */
+        public Builder timeout(long timeout, TimeUnit unit) {
+            this.timeoutNanos = checkTimeout(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Number of numbers per task of the batch methods, 1024 by default.
+         * @param chunkSize the number of numbers per task
+         * @return this builder
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public PhoneNumberAsync build() {
+            return new PhoneNumberAsync(engine, executor != null ? executor : DefaultExecutor.INSTANCE, timeoutNanos,
+                chunkSize);
+        }
+
+        private static long checkTimeout(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout is negative: " + timeout);
+            }
+            return unit.toNanos(timeout);
+        }
+    }
+}
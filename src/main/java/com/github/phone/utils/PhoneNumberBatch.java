@@ -0,0 +1,255 @@
+package com.github.phone.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Validates batches of (phone number, default country code) pairs in parallel.
+ *
+ * <p>Each pair gets the answers of {@link PhoneNumberUtils#isValidPhoneNumber(String, String)} and
+ * {@link PhoneNumberUtils#generateFullPhoneNumber(String, String)} from a single parse, and results
+ * are returned by input index. Items are grouped by the region of their default country code, so
+ * the region is looked up once per distinct country code, and every chunk handed to the executor
+ * works on one region only.
+ *
+ * <pre>
+ * PhoneNumberBatch batch = PhoneNumberBatch.builder().chunkSize(2048).build();
+ * PhoneNumberBatch.Result result = batch.validate(numbers, defaultCountryCodes);
+ * result.isValid(0);                // as isValidPhoneNumber(defaultCountryCodes.get(0), numbers.get(0))
+ * result.getFullPhoneNumber(0);     // "+4745037118", null if not valid
+ * </pre>
+ */
+public final class PhoneNumberBatch {
+
+    private final PhoneNumberEngine engine;
+    private final Executor executor;
+    private final int chunkSize;
+
+    private PhoneNumberBatch(Builder builder) {
+        this.engine = builder.engine;
+        this.executor = builder.executor;
+        this.chunkSize = builder.chunkSize;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Validates numbers which all have the same default country code.
+     * @param numbers phone numbers, entries may be null
+     * @param defaultCountryCode country code for numbers without one, e.g. "+47"
+     * @return the results, by input index
+     */
+    public Result validate(List<String> numbers, String defaultCountryCode) {
+        return validate(numbers, Collections.nCopies(numbers.size(), defaultCountryCode));
+    }
+
+    /**
+     * Validates numbers, each with its own default country code.
+     * @param numbers phone numbers, entries may be null
+     * @param defaultCountryCodes country code for the number at the same index, e.g. "+47"
+     * @return the results, by input index
+     * @throws IllegalArgumentException if the lists differ in size
+     */
+    public Result validate(List<String> numbers, List<String> defaultCountryCodes) {
+        int size = numbers.size();
+        if (defaultCountryCodes.size() != size) {
+            throw new IllegalArgumentException("Got " + size + " numbers but "
+                + defaultCountryCodes.size() + " default country codes");
+        }
+        String[] input = numbers.toArray(new String[size]);
+        String[] fullPhoneNumbers = new String[size];
+        PhoneNumberEngine engine = this.engine != null ? this.engine : PhoneNumberUtils.getEngine();
+
+        List<Runnable> chunks = new ArrayList<>();
+        for (Map.Entry<String, int[]> group : groupByRegion(engine, defaultCountryCodes).entrySet()) {
+            String region = group.getKey();
+            int[] indexes = group.getValue();
+            for (int from = 0; from < indexes.length; from += chunkSize) {
+                int start = from;
+                int end = Math.min(indexes.length, from + chunkSize);
+                chunks.add(() -> {
+                    for (int i = start; i < end; i++) {
+                        int index = indexes[i];
+                        fullPhoneNumbers[index] = engine.generateValidFullPhoneNumberForRegion(region, input[index]);
+                    }
+                });
+            }
+        }
+        run(chunks);
+        return new Result(fullPhoneNumbers);
+    }
+
+    /*
+     * Indexes of the items per region, in input order within a region. Country codes which are not
+     * numbers share the null region, where only full numbers can be valid.
+     */
+    private static Map<String, int[]> groupByRegion(PhoneNumberEngine engine, List<String> defaultCountryCodes) {
+        Map<String, String> regionByCountryCode = new HashMap<>();
+        Map<String, IndexList> indexesByRegion = new HashMap<>();
+        int index = 0;
+        for (String countryCode : defaultCountryCodes) {
+            String region;
+            if (regionByCountryCode.containsKey(countryCode)) {
+                region = regionByCountryCode.get(countryCode);
+            } else {
+                region = engine.regionForCountryCode(countryCode);
+                regionByCountryCode.put(countryCode, region);
+            }
+            indexesByRegion.computeIfAbsent(region, r -> new IndexList()).add(index++);
+        }
+        Map<String, int[]> groups = new HashMap<>();
+        indexesByRegion.forEach((region, indexes) -> groups.put(region, indexes.toArray()));
+        return groups;
+    }
+
+    private void run(List<Runnable> chunks) {
+        if (chunks.size() <= 1) {
+            chunks.forEach(Runnable::run);
+            return;
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.runAsync(chunks.get(i), executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Results of one batch, by input index.
+     */
+    public static final class Result {
+        private final String[] fullPhoneNumbers;
+
+        Result(String[] fullPhoneNumbers) {
+            this.fullPhoneNumbers = fullPhoneNumbers;
+        }
+
+        public int size() {
+            return fullPhoneNumbers.length;
+        }
+
+        public boolean isValid(int index) {
+            return fullPhoneNumbers[index] != null;
+        }
+
+        /**
+         * @param index input index
+         * @return the number as generateFullPhoneNumber formats it, null if the number is not valid
+         */
+        public String getFullPhoneNumber(int index) {
+            return fullPhoneNumbers[index];
+        }
+
+        /**
+         * @return the full phone numbers of the valid inputs, in input order, duplicates kept
+         */
+        public List<String> getValidFullPhoneNumbers() {
+            List<String> valid = new ArrayList<>();
+            for (String fullPhoneNumber : fullPhoneNumbers) {
+                if (fullPhoneNumber != null) {
+                    valid.add(fullPhoneNumber);
+                }
+            }
+            return valid;
+        }
+
+        public int getValidCount() {
+            int count = 0;
+            for (String fullPhoneNumber : fullPhoneNumbers) {
+                if (fullPhoneNumber != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static final class IndexList {
+        private int[] indexes = new int[16];
+        private int size;
+
+        void add(int index) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size << 1);
+            }
+            indexes[size++] = index;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(indexes, size);
+        }
+    }
+
+    public static final class Builder {
+        private PhoneNumberEngine engine;
+        private Executor executor = ForkJoinPool.commonPool();
+        private int chunkSize = 1024;
+
+        private Builder() {
+        }
+
+        /**
+         * Executor running the chunks, the common ForkJoinPool by default.
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Engine validating the numbers, by default the one {@link PhoneNumberUtils} delegates to at
+         * the time of the call.
+         * @param engine the engine
+         * @return this builder
+         */
+        public Builder engine(PhoneNumberEngine engine) {
+            if (engine == null) {
+                throw new IllegalArgumentException("engine is null");
+            }
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Number of items per task, 1024 by default. A batch of one chunk runs on the calling thread.
+         * @param chunkSize the number of items per task
+         * @return this builder
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public PhoneNumberBatch build() {
+            return new PhoneNumberBatch(this);
+        }
+    }
+}
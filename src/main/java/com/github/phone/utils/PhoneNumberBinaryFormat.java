@@ -0,0 +1,67 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/*
+ * Layout shared by PhoneNumberBinaryWriter and PhoneNumberBinaryReader.
+ *
+ * Header: the magic bytes "PNB", the format version, a flags byte and the libphonenumber version
+ * the numbers were normalized with, a length byte and ASCII bytes. Records follow until the end
+ * of the stream, all integers are unsigned LEB128 varints.
+ *
+ * Number record: country code shifted left by 3 with the italian leading zeros in the low bits,
+ * then the national number. With FLAG_DELTA a number record is instead the difference to the
+ * previous packed number, the first one to 0.
+ *
+ * Holder record: a tag byte. TAG_NUMBER and TAG_NUMBER_WITH_E164 are followed by a number record,
+ * the holder's E.164 number being null or prefix plus national number. TAG_STRINGS is followed by
+ * prefix, national and E.164 number as varint length plus one, 0 for null, and UTF-8 bytes.
+ */
+final class PhoneNumberBinaryFormat {
+
+    static final byte[] MAGIC = {'P', 'N', 'B'};
+    static final int VERSION = 1;
+
+    static final int FLAG_DELTA = 1;
+    static final int FLAG_HOLDERS = 2;
+
+    static final int TAG_NUMBER = 0;
+    static final int TAG_NUMBER_WITH_E164 = 1;
+    static final int TAG_STRINGS = 2;
+
+    static final int LEADING_ZEROS_BITS = 3;
+    static final int MAX_LEADING_ZEROS = (1 << LEADING_ZEROS_BITS) - 1;
+    static final int MAX_METADATA_VERSION_LENGTH = 255;
+
+    static final String METADATA_VERSION = truncate(readMetadataVersion());
+
+    private PhoneNumberBinaryFormat() {
+    }
+
+    private static String truncate(String version) {
+        return version.length() > MAX_METADATA_VERSION_LENGTH
+            ? version.substring(0, MAX_METADATA_VERSION_LENGTH) : version;
+    }
+
+    private static String readMetadataVersion() {
+        try (InputStream stream = PhoneNumberUtil.class.getResourceAsStream(
+            "/META-INF/maven/com.googlecode.libphonenumber/libphonenumber/pom.properties")) {
+            if (stream != null) {
+                Properties properties = new Properties();
+                properties.load(stream);
+                String version = properties.getProperty("version");
+                if (version != null) {
+                    return version;
+                }
+            }
+        } catch (IOException e) {
+            // fall through to the manifest
+        }
+        String version = PhoneNumberUtil.class.getPackage().getImplementationVersion();
+        return version != null ? version : "unknown";
+    }
+}
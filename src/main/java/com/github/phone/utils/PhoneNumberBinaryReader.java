@@ -0,0 +1,292 @@
+package com.github.phone.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads numbers and {@link PhoneNumberHolder}s written by {@link PhoneNumberBinaryWriter}.
+ *
+ * <p>{@link #map(Path)} maps the file into memory and decodes the records straight from the
+ * mapping: {@link #nextPacked()} reads a number without copying or allocating, so large files can
+ * be scanned without loading them onto the heap.
+ *
+ * <pre>
+ * try (PhoneNumberBinaryReader reader = PhoneNumberBinaryReader.map(Paths.get("numbers.pnb"))) {
+ *     while (reader.hasNext()) {
+ *         long packed = reader.nextPacked();   // or nextE164(), nextHolder()
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Numbers written with another libphonenumber version are read as written; compare
+ * {@link #getMetadataVersion()} with {@link #getCurrentMetadataVersion()} to renormalize them.
+ * Readers are not thread safe.
+ */
+public final class PhoneNumberBinaryReader implements Closeable {
+
+    private static final int STAGING_SIZE = 8192;
+
+    private final InputStream in;
+    private final ByteBuffer buffer;
+    private final byte[] staging;
+    private final boolean holders;
+    private final boolean deltaEncoded;
+    private final String metadataVersion;
+    private int stagedPosition;
+    private int stagedLimit;
+    private long previous;
+
+    private PhoneNumberBinaryReader(InputStream in, ByteBuffer buffer) throws IOException {
+        this.in = in;
+        this.buffer = buffer;
+        this.staging = in != null ? new byte[STAGING_SIZE] : null;
+        for (byte b : PhoneNumberBinaryFormat.MAGIC) {
+            if (readByte() != b) {
+                throw new IOException("Not a binary phone number stream");
+            }
+        }
+        int version = readByte();
+        if (version != PhoneNumberBinaryFormat.VERSION) {
+            throw new IOException("Unsupported binary phone number format version: " + version);
+        }
+        int flags = readByte();
+        this.holders = (flags & PhoneNumberBinaryFormat.FLAG_HOLDERS) != 0;
+        this.deltaEncoded = (flags & PhoneNumberBinaryFormat.FLAG_DELTA) != 0;
+        char[] chars = new char[readByte()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) readByte();
+        }
+        this.metadataVersion = new String(chars);
+    }
+
+    /**
+     * @param in stream holding a header and records, closed with the reader
+     * @return a reader positioned at the first record
+     * @throws IOException if the stream can not be read or does not start with a header
+     */
+    public static PhoneNumberBinaryReader open(InputStream in) throws IOException {
+        if (in == null) {
+            throw new IllegalArgumentException("in is null");
+        }
+        return new PhoneNumberBinaryReader(in, null);
+    }
+
+    /**
+     * Reads the buffer from its position to its limit, advancing the position.
+     * @param buffer buffer holding a header and records
+     * @return a reader positioned at the first record
+     * @throws IOException if the buffer does not start with a header
+     */
+    public static PhoneNumberBinaryReader open(ByteBuffer buffer) throws IOException {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer is null");
+        }
+        return new PhoneNumberBinaryReader(null, buffer);
+    }
+
+    /**
+     * Maps the file read only. The mapping lives until the reader is garbage collected, the file
+     * can be at most 2 GB.
+     * @param file file holding a header and records
+     * @return a reader positioned at the first record
+     * @throws IOException if the file can not be mapped or does not start with a header
+     */
+    public static PhoneNumberBinaryReader map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            return open(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return version of libphonenumber this library runs with, as written to new headers
+     */
+    public static String getCurrentMetadataVersion() {
+        return PhoneNumberBinaryFormat.METADATA_VERSION;
+    }
+
+    /**
+     * @return version of libphonenumber the numbers were written with
+     */
+    public String getMetadataVersion() {
+        return metadataVersion;
+    }
+
+    /**
+     * @return true if the records are PhoneNumberHolders, false if they are numbers
+     */
+    public boolean isHolders() {
+        return holders;
+    }
+
+    public boolean isDeltaEncoded() {
+        return deltaEncoded;
+    }
+
+    /**
+     * @return true if there is another record
+     * @throws IOException if the stream can not be read
+     */
+    public boolean hasNext() throws IOException {
+        if (buffer != null) {
+            return buffer.hasRemaining();
+        }
+        return stagedPosition < stagedLimit || fill();
+    }
+
+    /**
+     * @return the next number as a {@link PackedPhoneNumber}
+     * @throws IOException if the stream can not be read or the record is malformed
+     * @throws NoSuchElementException if there are no more records
+     */
+    public long nextPacked() throws IOException {
+        if (holders) {
+            throw new IllegalStateException("Stream holds PhoneNumberHolders");
+        }
+        checkHasNext();
+        if (deltaEncoded) {
+            previous += readVarLong();
+            if (!PackedPhoneNumber.isPacked(previous)) {
+                throw new IOException("Malformed delta encoded number: " + previous);
+            }
+            return previous;
+        }
+        return readNumber();
+    }
+
+    /**
+     * @return the next number in E.164 format
+     * @throws IOException if the stream can not be read or the record is malformed
+     * @throws NoSuchElementException if there are no more records
+     */
+    public String nextE164() throws IOException {
+        return PackedPhoneNumber.toE164(nextPacked());
+    }
+
+    /**
+     * Reads holders, or numbers as holders with prefix, national number and E.164 number.
+     * @return the next holder
+     * @throws IOException if the stream can not be read or the record is malformed
+     * @throws NoSuchElementException if there are no more records
+     */
+    public PhoneNumberHolder nextHolder() throws IOException {
+        if (!holders) {
+            long packed = nextPacked();
+            return toHolder(PackedPhoneNumber.countryCode(packed), PackedPhoneNumber.leadingZeros(packed),
+                PackedPhoneNumber.nationalNumber(packed), true);
+        }
+        checkHasNext();
+        int tag = readByte();
+        switch (tag) {
+            case PhoneNumberBinaryFormat.TAG_NUMBER:
+                return readNumericHolder(false);
+            case PhoneNumberBinaryFormat.TAG_NUMBER_WITH_E164:
+                return readNumericHolder(true);
+            case PhoneNumberBinaryFormat.TAG_STRINGS:
+                return new PhoneNumberHolder(readString(), readString(), readString());
+            default:
+                throw new IOException("Malformed holder record, tag " + tag);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    private PhoneNumberHolder readNumericHolder(boolean withE164) throws IOException {
+        long countryCodeAndZeros = readVarLong();
+        long nationalNumber = readVarLong();
+        long countryCode = countryCodeAndZeros >>> PhoneNumberBinaryFormat.LEADING_ZEROS_BITS;
+        if (countryCode == 0 || countryCode > CallingCodeTable.MAX_CALLING_CODE || nationalNumber < 0) {
+            throw new IOException("Malformed holder record: " + countryCodeAndZeros + ", " + nationalNumber);
+        }
+        return toHolder((int) countryCode, (int) countryCodeAndZeros & PhoneNumberBinaryFormat.MAX_LEADING_ZEROS,
+            nationalNumber, withE164);
+    }
+
+    private static PhoneNumberHolder toHolder(int countryCode, int leadingZeros, long nationalNumber,
+        boolean withE164) {
+
+        return new PhoneNumberHolder(countryCode, leadingZeros, nationalNumber, withE164);
+    }
+
+    private long readNumber() throws IOException {
+        long countryCodeAndZeros = readVarLong();
+        long nationalNumber = readVarLong();
+        long countryCode = countryCodeAndZeros >>> PhoneNumberBinaryFormat.LEADING_ZEROS_BITS;
+        try {
+            if (countryCode > CallingCodeTable.MAX_CALLING_CODE) {
+                throw new IllegalArgumentException("Country code out of range: " + countryCode);
+            }
+            return PackedPhoneNumber.pack((int) countryCode, nationalNumber,
+                (int) countryCodeAndZeros & PhoneNumberBinaryFormat.MAX_LEADING_ZEROS);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed number record", e);
+        }
+    }
+
+    private String readString() throws IOException {
+        long length = readVarLong() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Malformed string length: " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) readByte();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private int readByte() throws IOException {
+        if (buffer != null) {
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Truncated record");
+            }
+            return buffer.get() & 0xFF;
+        }
+        if (stagedPosition == stagedLimit && !fill()) {
+            throw new IOException("Truncated record");
+        }
+        return staging[stagedPosition++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(staging, 0, staging.length);
+        stagedPosition = 0;
+        stagedLimit = Math.max(0, read);
+        return read > 0;
+    }
+
+    private void checkHasNext() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+    }
+}
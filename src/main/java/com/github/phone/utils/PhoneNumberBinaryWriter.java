@@ -0,0 +1,255 @@
+package com.github.phone.utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes normalized numbers or {@link PhoneNumberHolder}s in a compact binary format, read back by
+ * {@link PhoneNumberBinaryReader}.
+ *
+ * <p>A number takes the varint encoded country code and national number, 6 bytes for
+ * "+4745037118" against 14 for the E.164 string. Sorted numbers can be delta encoded, each number
+ * then takes the varint of its distance to the previous one, often 1 to 3 bytes. The header records
+ * the libphonenumber version the numbers were normalized with.
+ *
+ * <pre>
+ * try (PhoneNumberBinaryWriter writer = PhoneNumberBinaryWriter.numbers(out, false)) {
+ *     for (String e164 : normalized) {
+ *         writer.writeE164(e164);
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Writers over an {@code OutputStream} buffer the records and write them on {@link #flush()}
+ * and {@link #close()}; writers over a {@code ByteBuffer} put the records straight into it and throw
+ * {@link java.nio.BufferOverflowException} when it is full. Writers are not thread safe.
+ */
+public final class PhoneNumberBinaryWriter implements Closeable, Flushable {
+
+    private static final int STAGING_SIZE = 8192;
+
+    private final OutputStream out;
+    private final ByteBuffer buffer;
+    private final byte[] staging;
+    private final boolean holders;
+    private final boolean deltaEncoded;
+    private int staged;
+    private long previous;
+    private long count;
+
+    private PhoneNumberBinaryWriter(OutputStream out, ByteBuffer buffer, boolean holders, boolean deltaEncoded) {
+        this.out = out;
+        this.buffer = buffer;
+        this.staging = out != null ? new byte[STAGING_SIZE] : null;
+        this.holders = holders;
+        this.deltaEncoded = deltaEncoded;
+        // the header always fits the staging buffer
+        for (byte b : PhoneNumberBinaryFormat.MAGIC) {
+            put(b);
+        }
+        put(PhoneNumberBinaryFormat.VERSION);
+        put((holders ? PhoneNumberBinaryFormat.FLAG_HOLDERS : 0)
+            | (deltaEncoded ? PhoneNumberBinaryFormat.FLAG_DELTA : 0));
+        String metadataVersion = PhoneNumberBinaryFormat.METADATA_VERSION;
+        put(metadataVersion.length());
+        for (int i = 0; i < metadataVersion.length(); i++) {
+            put(metadataVersion.charAt(i));
+        }
+    }
+
+    /**
+     * @param out stream receiving the numbers, closed with the writer
+     * @param deltaEncoded true to delta encode, the numbers must then be written in ascending
+     *     {@link PackedPhoneNumber} order
+     * @return a writer for numbers
+     */
+    public static PhoneNumberBinaryWriter numbers(OutputStream out, boolean deltaEncoded) {
+        return new PhoneNumberBinaryWriter(checkNotNull(out), null, false, deltaEncoded);
+    }
+
+    /**
+     * @param buffer buffer receiving the numbers from its position on
+     * @param deltaEncoded true to delta encode, the numbers must then be written in ascending
+     *     {@link PackedPhoneNumber} order
+     * @return a writer for numbers
+     */
+    public static PhoneNumberBinaryWriter numbers(ByteBuffer buffer, boolean deltaEncoded) {
+        return new PhoneNumberBinaryWriter(null, checkNotNull(buffer), false, deltaEncoded);
+    }
+
+    /**
+     * @param out stream receiving the holders, closed with the writer
+     * @return a writer for PhoneNumberHolders
+     */
+    public static PhoneNumberBinaryWriter holders(OutputStream out) {
+        return new PhoneNumberBinaryWriter(checkNotNull(out), null, true, false);
+    }
+
+    /**
+     * @param buffer buffer receiving the holders from its position on
+     * @return a writer for PhoneNumberHolders
+     */
+    public static PhoneNumberBinaryWriter holders(ByteBuffer buffer) {
+        return new PhoneNumberBinaryWriter(null, checkNotNull(buffer), true, false);
+    }
+
+    /**
+     * @param e164 number in E.164 format, as written by the normalize methods
+     * @throws IOException if the stream can not be written
+     * @throws IllegalArgumentException if the number is not E.164 or, with delta encoding, smaller
+     *     than the previous one
+     */
+    public void writeE164(CharSequence e164) throws IOException {
+        long packed = PackedPhoneNumber.fromE164(e164);
+        if (packed == PackedPhoneNumber.INVALID) {
+            throw new IllegalArgumentException("Not an E.164 number: " + e164);
+        }
+        writePacked(packed);
+    }
+
+    /**
+     * @param packed a {@link PackedPhoneNumber}
+     * @throws IOException if the stream can not be written
+     * @throws IllegalArgumentException if the value is not a packed number or, with delta
+     *     encoding, smaller than the previous one
+     */
+    public void writePacked(long packed) throws IOException {
+        if (holders) {
+            throw new IllegalStateException("Writer is for PhoneNumberHolders");
+        }
+        if (!PackedPhoneNumber.isPacked(packed)) {
+            throw new IllegalArgumentException("Not a packed phone number: " + packed);
+        }
+        if (deltaEncoded) {
+            if (packed < previous) {
+                throw new IllegalArgumentException("Numbers must be ascending for delta encoding: "
+                    + PackedPhoneNumber.toE164(packed) + " after " + PackedPhoneNumber.toE164(previous));
+            }
+            writeVarLong(packed - previous);
+            previous = packed;
+        } else {
+            writeNumber(PackedPhoneNumber.countryCode(packed), PackedPhoneNumber.leadingZeros(packed),
+                PackedPhoneNumber.nationalNumber(packed));
+        }
+        count++;
+    }
+
+    /**
+     * Writes holders of digits, like the parse methods return, as numbers and any other holder as
+     * its three strings.
+     * @param holder the holder
+     * @throws IOException if the stream can not be written
+     */
+    public void writeHolder(PhoneNumberHolder holder) throws IOException {
+        if (!holders) {
+            throw new IllegalStateException("Writer is for numbers");
+        }
+        if (holder == null) {
+            throw new IllegalArgumentException("holder is null");
+        }
+        if (!writeNumericHolder(holder)) {
+            writeByte(PhoneNumberBinaryFormat.TAG_STRINGS);
+            writeString(holder.getPrefix());
+            writeString(holder.getNational());
+            writeString(holder.getPhoneNumber());
+        }
+        count++;
+    }
+
+    /**
+     * @return number of records written
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.write(staging, 0, staged);
+            staged = 0;
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            try {
+                flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private boolean writeNumericHolder(PhoneNumberHolder holder) throws IOException {
+        if (holder.getCountryCode() == 0 || holder.getNationalNumber() < 0
+            || holder.getLeadingZeros() > PhoneNumberBinaryFormat.MAX_LEADING_ZEROS) {
+            return false;
+        }
+        int tag;
+        if (holder.isPhoneNumberDerived()) {
+            tag = PhoneNumberBinaryFormat.TAG_NUMBER_WITH_E164;
+        } else if (holder.getPhoneNumber() == null) {
+            tag = PhoneNumberBinaryFormat.TAG_NUMBER;
+        } else {
+            return false;
+        }
+        writeByte(tag);
+        writeNumber(holder.getCountryCode(), holder.getLeadingZeros(), holder.getNationalNumber());
+        return true;
+    }
+
+    private void writeNumber(int countryCode, int leadingZeros, long nationalNumber) throws IOException {
+        writeVarLong((long) countryCode << PhoneNumberBinaryFormat.LEADING_ZEROS_BITS | leadingZeros);
+        writeVarLong(nationalNumber);
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (out != null && staged == staging.length) {
+            out.write(staging, 0, staged);
+            staged = 0;
+        }
+        put(b);
+    }
+
+    private void put(int b) {
+        if (buffer != null) {
+            buffer.put((byte) b);
+        } else {
+            staging[staged++] = (byte) b;
+        }
+    }
+
+    private static <T> T checkNotNull(T target) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target is null");
+        }
+        return target;
+    }
+}
@@ -0,0 +1,590 @@
+package com.github.phone.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Removes duplicate phone numbers from inputs too large to keep in memory, counting how often every
+ * number occurs.
+ *
+ * <p>Numbers are read from an iterator and normalized in parallel chunks into {@link
+ * PackedPhoneNumber packed} longs. When the run buffer is full it is sorted with a parallel sort,
+ * equal numbers are collapsed into one record with a count, and the run is written to a temporary
+ * file while the next buffer fills. At the end the runs are merged, k at a time, until one merge
+ * produces the unique numbers in E.164 format ordered by country code and national number. Runs are
+ * written and read sequentially through buffers; the temporary files are deleted afterwards. Input
+ * that fits one run never touches the disk.
+ *
+ * <p>The memory budget is split between two run buffers of 8 bytes per number while reading and the
+ * read buffers of the runs while merging. More runs than the budget gives buffers for are merged in
+ * several passes. The chunks of input strings being normalized are not part of the budget.
+ *
+ * <pre>
+ * PhoneNumberDeduplicator.Report report = PhoneNumberDeduplicator.builder()
+ *     .memoryBudget(512L * 1024 * 1024).tempDirectory(Paths.get("/scratch")).defaultCountryCode("+47")
+ *     .build()
+ *     .deduplicate(Files.lines(input).iterator(), Paths.get("unique.csv"));   // lines of e164,count
+ * </pre>
+ *
+ * <p>Without default country code numbers are normalized with
+ * {@link PhoneNumberUtils#tryNormalizePhoneNumber(String)}, with one with
+ * {@link PhoneNumberUtils#tryAppendCountryCodeIfMissingAndNormalize(String, String)}.
+ */
+public final class PhoneNumberDeduplicator {
+
+    /**
+     * Receives the unique numbers.
+     */
+    @FunctionalInterface
+    public interface UniqueNumberConsumer {
+        /**
+         * @param e164 the number in E.164 format
+         * @param count how often the number occurred in the input, at least 1
+         */
+        void accept(String e164, long count);
+    }
+
+    // a packed number and its count
+    private static final int RECORD_BYTES = 16;
+    private static final long MIN_MEMORY_BUDGET = 64 * 1024;
+    private static final int MIN_MERGE_BUFFER = 16 * 1024;
+    private static final int MAX_IO_BUFFER = 8 * 1024 * 1024;
+    private static final int MAX_FAN_IN = 1024;
+    private static final int MAX_CHUNK_SIZE = 4096;
+
+    private final PhoneNumberEngine engine;
+    private final String defaultCountryCode;
+    private final long memoryBudget;
+    private final Path tempDirectory;
+    private final int parallelism;
+    private final Executor executor;
+
+    private PhoneNumberDeduplicator(Builder builder) {
+        this.engine = builder.engine;
+        this.defaultCountryCode = builder.defaultCountryCode;
+        this.memoryBudget = builder.memoryBudget;
+        this.tempDirectory = builder.tempDirectory;
+        this.parallelism = builder.parallelism;
+        this.executor = builder.executor;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Writes one line per unique number, the E.164 number and its count separated by a comma.
+     * @param numbers phone numbers, entries which can not be normalized are counted as rejected
+     * @param output file receiving the unique numbers, created or replaced
+     * @return counts of the job
+     * @throws IOException if the output or a temporary file can not be written
+     */
+    public Report deduplicate(Iterator<String> numbers, Path output) throws IOException {
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(ioBufferSize(16));
+            Report report = run(numbers, (packed, count) -> {
+                // number, comma, up to 19 digits of count and newline
+                if (buffer.remaining() < E164Formatter.MAX_PACKED_LENGTH + 21) {
+                    flush(buffer, channel);
+                }
+                E164Formatter.put(packed, buffer).put((byte) ',');
+                E164Formatter.putDigits(count, buffer).put((byte) '\n');
+            });
+            flush(buffer, channel);
+            return report;
+        }
+    }
+
+    /**
+     * Passes every unique number to the consumer, ordered by country code and national number.
+     * @param numbers phone numbers, entries which can not be normalized are counted as rejected
+     * @param consumer receives the unique numbers on the calling thread
+     * @return counts of the job
+     * @throws IOException if a temporary file can not be written
+     */
+    public Report deduplicate(Iterator<String> numbers, UniqueNumberConsumer consumer) throws IOException {
+        return run(numbers, (packed, count) -> consumer.accept(PackedPhoneNumber.toE164(packed), count));
+    }
+
+    private Report run(Iterator<String> numbers, RecordSink sink) throws IOException {
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, memoryBudget / (2 * Long.BYTES));
+        int chunkSize = Math.max(1, Math.min(MAX_CHUNK_SIZE, capacity / parallelism));
+        List<Path> temporary = new ArrayList<>();
+        try {
+            List<Run> runs = new ArrayList<>();
+            long[] filling = new long[capacity];
+            long[] spare = null;
+            CompletableFuture<Run> spill = null;
+            Deque<CompletableFuture<Void>> chunks = new ArrayDeque<>();
+            long input = 0;
+            int size = 0;
+            while (numbers.hasNext()) {
+                String[] chunk = new String[Math.min(chunkSize, capacity - size)];
+                int count = 0;
+                while (count < chunk.length && numbers.hasNext()) {
+                    chunk[count++] = numbers.next();
+                }
+                if (chunks.size() >= parallelism) {
+                    join(chunks.poll());
+                }
+                long[] target = filling;
+                int offset = size;
+                int length = count;
+                chunks.add(CompletableFuture.runAsync(() -> normalize(chunk, length, target, offset), executor));
+                input += count;
+                size += count;
+                if (size == capacity && numbers.hasNext()) {
+                    joinAll(chunks);
+                    if (spill != null) {
+                        runs.add(join(spill));
+                    }
+                    spill = spill(filling, size, newTemporaryFile(temporary));
+                    long[] full = filling;
+                    filling = spare != null ? spare : new long[capacity];
+                    spare = full;
+                    size = 0;
+                }
+            }
+            joinAll(chunks);
+            if (spill != null) {
+                runs.add(join(spill));
+            }
+            if (runs.isEmpty()) {
+                Counts counts = collapse(filling, size, sink);
+                return new Report(input, counts.rejected, counts.records, 0);
+            }
+            runs.add(join(spill(filling, size, newTemporaryFile(temporary))));
+            // the run buffers are garbage while merging
+            filling = null;
+            spare = null;
+            long rejected = 0;
+            for (Run run : runs) {
+                rejected += run.rejected;
+            }
+            int spilled = runs.size();
+            int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, memoryBudget / MIN_MERGE_BUFFER - 1));
+            while (runs.size() > fanIn) {
+                List<Run> merged = new ArrayList<>();
+                for (int from = 0; from < runs.size(); from += fanIn) {
+                    List<Run> group = runs.subList(from, Math.min(runs.size(), from + fanIn));
+                    Path path = newTemporaryFile(temporary);
+                    try (RunWriter writer = new RunWriter(path, ioBufferSize(group.size() + 1))) {
+                        merge(group, writer);
+                        merged.add(new Run(path, writer.records, 0));
+                    }
+                    for (Run run : group) {
+                        Files.delete(run.path);
+                    }
+                }
+                runs = merged;
+            }
+            long unique = merge(runs, sink);
+            return new Report(input, rejected, unique, spilled);
+        } finally {
+            for (Path path : temporary) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private void normalize(String[] chunk, int count, long[] target, int offset) {
+        for (int i = 0; i < count; i++) {
+            ParseOutcome<String> outcome = defaultCountryCode == null
+                ? engine.tryNormalizePhoneNumber(chunk[i])
+                : engine.tryAppendCountryCodeIfMissingAndNormalize(chunk[i], defaultCountryCode);
+            target[offset + i] = outcome.isSuccess()
+                ? PackedPhoneNumber.fromE164(outcome.get()) : PackedPhoneNumber.INVALID;
+        }
+    }
+
+    private CompletableFuture<Run> spill(long[] buffer, int size, Path path) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (RunWriter writer = new RunWriter(path, ioBufferSize(16))) {
+                Counts counts = collapse(buffer, size, writer);
+                return new Run(path, counts.records, counts.rejected);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /*
+     * Sorts the buffer and passes each number once with its count. INVALID is negative, so the
+     * rejected numbers sort first.
+     */
+    private static Counts collapse(long[] buffer, int size, RecordSink sink) throws IOException {
+        Arrays.parallelSort(buffer, 0, size);
+        Counts counts = new Counts();
+        int i = 0;
+        while (i < size && buffer[i] < 0) {
+            i++;
+        }
+        counts.rejected = i;
+        while (i < size) {
+            int end = i + 1;
+            while (end < size && buffer[end] == buffer[i]) {
+                end++;
+            }
+            sink.accept(buffer[i], end - i);
+            counts.records++;
+            i = end;
+        }
+        return counts;
+    }
+
+    /*
+     * K-way merge over a heap of run readers ordered by their current number, adding up the counts
+     * of equal numbers.
+     */
+    private long merge(List<Run> runs, RecordSink sink) throws IOException {
+        RunReader[] heap = new RunReader[runs.size()];
+        int heapSize = 0;
+        try {
+            int bufferSize = ioBufferSize(runs.size() + 1);
+            for (Run run : runs) {
+                RunReader reader = new RunReader(run.path, bufferSize);
+                heap[heapSize++] = reader;
+                if (!reader.next()) {
+                    heap[--heapSize] = null;
+                    reader.close();
+                }
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(heap, heapSize, i);
+            }
+            long records = 0;
+            while (heapSize > 0) {
+                long packed = heap[0].packed;
+                long count = 0;
+                while (heapSize > 0 && heap[0].packed == packed) {
+                    count += heap[0].count;
+                    if (!heap[0].next()) {
+                        heap[0].close();
+                        heap[0] = heap[--heapSize];
+                        heap[heapSize] = null;
+                    }
+                    siftDown(heap, heapSize, 0);
+                }
+                sink.accept(packed, count);
+                records++;
+            }
+            return records;
+        } finally {
+            for (int i = 0; i < heapSize; i++) {
+                heap[i].close();
+            }
+        }
+    }
+
+    private static void siftDown(RunReader[] heap, int size, int index) {
+        RunReader reader = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].packed < heap[child].packed) {
+                child++;
+            }
+            if (reader.packed <= heap[child].packed) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = reader;
+    }
+
+    /*
+     * Share of the memory budget for one of the given number of buffers, a whole number of records.
+     */
+    private int ioBufferSize(int buffers) {
+        long share = Math.min(MAX_IO_BUFFER, memoryBudget / buffers);
+        return (int) Math.max(RECORD_BYTES, share - share % RECORD_BYTES);
+    }
+
+    private Path newTemporaryFile(List<Path> temporary) throws IOException {
+        Path path = tempDirectory == null ? Files.createTempFile("phone-dedup-", ".run")
+            : Files.createTempFile(tempDirectory, "phone-dedup-", ".run");
+        temporary.add(path);
+        return path;
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void joinAll(Deque<CompletableFuture<Void>> futures) throws IOException {
+        while (!futures.isEmpty()) {
+            join(futures.poll());
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordSink {
+        void accept(long packed, long count) throws IOException;
+    }
+
+    private static final class Counts {
+        private long records;
+        private long rejected;
+    }
+
+    private static final class Run {
+        private final Path path;
+        private final long records;
+        private final long rejected;
+
+        Run(Path path, long records, long rejected) {
+            this.path = path;
+            this.records = records;
+            this.rejected = rejected;
+        }
+    }
+
+    private static final class RunWriter implements RecordSink, AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long records;
+
+        RunWriter(Path path, int bufferSize) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = ByteBuffer.allocate(bufferSize);
+        }
+
+        @Override
+        public void accept(long packed, long count) throws IOException {
+            if (buffer.remaining() < RECORD_BYTES) {
+                flush(buffer, channel);
+            }
+            buffer.putLong(packed).putLong(count);
+            records++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush(buffer, channel);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class RunReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long packed;
+        private long count;
+
+        RunReader(Path path, int bufferSize) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocate(bufferSize);
+            buffer.flip();
+        }
+
+        boolean next() throws IOException {
+            if (buffer.remaining() < RECORD_BYTES) {
+                buffer.compact();
+                int read = 0;
+                while (buffer.hasRemaining() && read >= 0) {
+                    read = channel.read(buffer);
+                }
+                buffer.flip();
+                if (buffer.remaining() < RECORD_BYTES) {
+                    return false;
+                }
+            }
+            packed = buffer.getLong();
+            count = buffer.getLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Counts of a finished job.
+     */
+    public static final class Report {
+        private final long input;
+        private final long rejected;
+        private final long unique;
+        private final int runs;
+
+        private Report(long input, long rejected, long unique, int runs) {
+            this.input = input;
+            this.rejected = rejected;
+            this.unique = unique;
+            this.runs = runs;
+        }
+
+        /**
+         * @return numbers read from the input
+         */
+        public long getInput() {
+            return input;
+        }
+
+        /**
+         * @return numbers which could not be normalized
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return distinct normalized numbers, the lines of the output
+         */
+        public long getUnique() {
+            return unique;
+        }
+
+        /**
+         * @return normalized numbers which were a repeat of an earlier one
+         */
+        public long getDuplicates() {
+            return input - rejected - unique;
+        }
+
+        /**
+         * @return sorted runs written to temporary files, 0 if the input fit in memory
+         */
+        public int getRuns() {
+            return runs;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{input=" + input + ", rejected=" + rejected + ", unique=" + unique
+                + ", duplicates=" + getDuplicates() + ", runs=" + runs + "}";
+        }
+    }
+
+    public static final class Builder {
+        private PhoneNumberEngine engine = PhoneNumberUtils.getEngine();
+        private String defaultCountryCode;
+        private long memoryBudget = 256L * 1024 * 1024;
+        private Path tempDirectory;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Executor executor = ForkJoinPool.commonPool();
+
+        private Builder() {
+        }
+
+        /**
+         * Engine normalizing the numbers, the one {@link PhoneNumberUtils} delegates to by default.
+         * @param engine the engine
+         * @return this builder
+         */
+        public Builder engine(PhoneNumberEngine engine) {
+            if (engine == null) {
+                throw new IllegalArgumentException("engine is null");
+            }
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Country code for numbers without one, e.g. "+47". Without it numbers need a country code.
+         * @param defaultCountryCode the default country code
+         * @return this builder
+         */
+        public Builder defaultCountryCode(String defaultCountryCode) {
+            this.defaultCountryCode = defaultCountryCode;
+            return this;
+        }
+
+        /**
+         * Bytes of run and merge buffers, 256 MB by default, at least 64 KB. A run holds one number
+         * per 16 bytes of budget.
+         * @param memoryBudget the budget in bytes
+         * @return this builder
+         */
+        public Builder memoryBudget(long memoryBudget) {
+            if (memoryBudget < MIN_MEMORY_BUDGET) {
+                throw new IllegalArgumentException("memoryBudget must be at least " + MIN_MEMORY_BUDGET
+                    + " bytes: " + memoryBudget);
+            }
+            this.memoryBudget = memoryBudget;
+            return this;
+        }
+
+        /**
+         * Directory for the sorted runs, the default temporary-file directory by default.
+         * @param tempDirectory the directory
+         * @return this builder
+         */
+        public Builder tempDirectory(Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        /**
+         * Maximum number of chunks normalized at the same time, the number of processors by default.
+         * @param parallelism the number of chunks
+         * @return this builder
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Executor normalizing chunks and writing runs, the common ForkJoinPool by default.
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        public PhoneNumberDeduplicator build() {
+            return new PhoneNumberDeduplicator(this);
+        }
+    }
+}
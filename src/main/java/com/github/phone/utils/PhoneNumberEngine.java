@@ -0,0 +1,1123 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.MetadataLoader;
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * The operations of {@link PhoneNumberUtils} on an instance with its own settings: default country
+ * code, parse cache, failure listener, executor for the async and batch methods, and metadata.
+ *
+ * <p>Engines are immutable and thread-safe, so one JVM can serve tenants with different defaults
+ * side by side. The static methods of {@link PhoneNumberUtils} delegate to a default engine, which
+ * has "+47" as default country code and the metadata bundled with libphonenumber.
+ *
+ * <pre>
+ * PhoneNumberEngine sweden = PhoneNumberEngine.builder()
+ *         .defaultCountryCode("+46")
+ *         .parseCache(PhoneNumberParseCache.builder().maximumSize(100_000).build())
+ *         .failureListener(FailureListener.NO_OP)
+ *         .build();
+ * sweden.isValidPhoneNumber("070-123 45 67");        // true
+ * sweden.generateFullPhoneNumber("070-123 45 67");   // "+46701234567"
+ * </pre>
+ *
+ * <p>Engines with their own metadata loader do not use the lookup tables built from the bundled
+ * metadata ({@link CallingCodeTable} and the possible length filter), every call parses.
+ *
+ * <p>Validation of the numbers of {@link Builder#compiledRegions(Collection) compiled regions}
+ * walks digit automata built from the metadata when the engine is built, instead of matching
+ * libphonenumber's regular expressions, with the same results.
+ */
+public final class PhoneNumberEngine {
+
+    private static final String EMPTY_COUNTRY_CODE = "null";
+
+    private final PhoneNumberUtil phoneUtil;
+    // the bundled metadata, which the static lookup tables are built from
+    private final boolean defaultMetadata;
+    private final MetadataLoader metadataLoader;
+    private final String defaultCountryCode;
+    private final String defaultRegion;
+    private final PhoneNumberParseCache parseCache;
+    private final FailureListener failureListener;
+    private final Executor executor;
+    private final Set<String> compiledRegions;
+    // by calling code, null entries validate through libphonenumber
+    private final CompiledNumberValidator[] validators;
+
+    private PhoneNumberEngine(Builder builder) {
+        this.metadataLoader = builder.metadataLoader;
+        this.defaultMetadata = metadataLoader == null;
+        this.phoneUtil = defaultMetadata ? PhoneNumberUtils.PHONE_UTIL : PhoneNumberUtil.createInstance(metadataLoader);
+        this.defaultCountryCode = builder.defaultCountryCode;
+        this.defaultRegion = regionForCountryCode(defaultCountryCode);
+        if (defaultRegion == null || CallingCodeTable.UNKNOWN_REGION.equals(defaultRegion)) {
+            throw new IllegalArgumentException("Unknown default country code: " + defaultCountryCode);
+        }
+        this.parseCache = builder.parseCache;
+        this.failureListener = builder.failureListener != null
+            ? builder.failureListener : SampledFailureLogger.builder().build();
+        this.executor = builder.executor;
+        this.compiledRegions = builder.compiledRegions;
+        this.validators = compileValidators(compiledRegions);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder with the settings of this engine, to derive an engine differing in some of them
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.defaultCountryCode = defaultCountryCode;
+        builder.parseCache = parseCache;
+        builder.failureListener = failureListener;
+        builder.executor = executor;
+        builder.metadataLoader = metadataLoader;
+        builder.compiledRegions = compiledRegions;
+        return builder;
+    }
+
+    /**
+     * @return the country code used for numbers without one, e.g. "+47"
+     */
+    public String getDefaultCountryCode() {
+        return defaultCountryCode;
+    }
+
+    /**
+     * @return the main region of the default country code, e.g. "NO"
+     */
+    public String getDefaultRegion() {
+        return defaultRegion;
+    }
+
+    public PhoneNumberParseCache getParseCache() {
+        return parseCache;
+    }
+
+    public FailureListener getFailureListener() {
+        return failureListener;
+    }
+
+    /**
+     * @return the executor of {@link #async()} and {@link #batch()}, null for their defaults
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the regions whose numbers are validated by compiled automata, all regions of their
+     *     calling codes included, empty if there are none or the engine has its own metadata
+     */
+    public Set<String> getCompiledRegions() {
+        Set<String> regions = new TreeSet<>();
+        for (CompiledNumberValidator validator : validators) {
+            if (validator != null) {
+                regions.addAll(phoneUtil.getRegionCodesForCountryCode(validator.getCountryCode()));
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * @return async facade running the methods of this engine on its executor
+     */
+    public PhoneNumberAsync async() {
+        PhoneNumberAsync.Builder builder = PhoneNumberAsync.builder().engine(this);
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return batch validator using this engine and running on its executor
+     */
+    public PhoneNumberBatch batch() {
+        PhoneNumberBatch.Builder builder = PhoneNumberBatch.builder().engine(this);
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Same as {@link ParsedPhone#parse(String)} with the metadata and cache of this engine.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return the parse result, never null
+     */
+    public ParsedPhone parse(String fullPhoneNumber) {
+        return ParsedPhone.parse(this, fullPhoneNumber);
+    }
+
+    /**
+     * Same as {@link ParsedPhone#parse(String, String)} with the metadata and cache of this engine.
+     * @param phoneNumber phone number in any format
+     * @param region two letter region code, e.g. "NO"
+     * @return the parse result, never null
+     */
+    public ParsedPhone parse(String phoneNumber, String region) {
+        return ParsedPhone.parse(this, phoneNumber, region);
+    }
+
+    /**
+     * @param regions two letter region codes, e.g. "NO"
+     * @return the time spent per region
+     * @throws IllegalArgumentException if a region is not supported by the metadata
+     * @see PhoneNumberUtils#warmUp(Collection)
+     */
+    public WarmUpReport warmUp(Collection<String> regions) {
+        Map<String, Long> nanosByRegion = new LinkedHashMap<>();
+        for (String region : regions) {
+            long start = System.nanoTime();
+            if (region == null || !phoneUtil.getSupportedRegions().contains(region)) {
+                throw new IllegalArgumentException("Unknown region: " + region);
+            }
+            for (PhoneNumberType type : PhoneNumberType.values()) {
+                warmUpExample(phoneUtil.getExampleNumberForType(region, type), region);
+            }
+            nanosByRegion.put(region, System.nanoTime() - start);
+        }
+        return new WarmUpReport(nanosByRegion);
+    }
+
+    /**
+     * @return the time spent per region
+     * @see PhoneNumberUtils#warmUp()
+     */
+    public WarmUpReport warmUp() {
+        WarmUpReport regions = warmUp(new TreeSet<>(phoneUtil.getSupportedRegions()));
+        Map<String, Long> nanosByRegion = new LinkedHashMap<>(regions.getNanosByRegion());
+        for (int callingCode : new TreeSet<>(phoneUtil.getSupportedGlobalNetworkCallingCodes())) {
+            long start = System.nanoTime();
+            warmUpExample(phoneUtil.getExampleNumberForNonGeoEntity(callingCode), null);
+            nanosByRegion.put(CallingCodeTable.prefixOf(callingCode), System.nanoTime() - start);
+        }
+        return new WarmUpReport(nanosByRegion);
+    }
+
+    private void warmUpExample(PhoneNumber example, String region) {
+        if (example == null) {
+            return;
+        }
+        String e164 = phoneUtil.format(example, PhoneNumberFormat.E164);
+        try {
+            PhoneNumber parsed = phoneUtil.parse(e164, null);
+            phoneUtil.isValidNumber(parsed);
+            phoneUtil.isPossibleNumber(parsed);
+            phoneUtil.getNumberType(parsed);
+            phoneUtil.format(parsed, PhoneNumberFormat.INTERNATIONAL);
+            if (region != null) {
+                phoneUtil.isValidNumberForRegion(phoneUtil.parse(
+                    phoneUtil.format(parsed, PhoneNumberFormat.NATIONAL), region), region);
+            }
+        } catch (NumberParseException e) {
+            // example numbers parse, and warming up must not fail if one of them stops doing so
+        }
+        mayStripNationalPrefix(example.getCountryCode(), phoneUtil.getNationalSignificantNumber(example));
+    }
+
+    public PhoneNumber parsePhoneByGoogle(String phone, String country) {
+        ParsedPhone parsed = parse(phone, country);
+        if (parsed.isParsed()) {
+            return parsed.phoneNumber();
+        }
+        failureListener.onFailure("parsePhoneByGoogle", parsed.getFailureReason(), phone, country);
+        return null;
+    }
+
+    /**
+     * Exception free {@link #parsePhoneByGoogle(String, String)}, failures are not reported.
+     * @param phone phone number in any format
+     * @param country two letter region code for numbers without country code
+     * @return the Google PhoneNumber object, or the failure reason
+     */
+    public ParseOutcome<PhoneNumber> tryParsePhoneByGoogle(String phone, String country) {
+        ParsedPhone parsed = parse(phone, country);
+        return parsed.isParsed() ? ParseOutcome.success(parsed.phoneNumber()) : failure(parsed);
+    }
+
+    public boolean hasCountryCode(int code, String phoneNumber) {
+        if (phoneNumber == null || PhoneNumberSanitizer.containsLetterPair(phoneNumber)) {
+            return false;
+        }
+        int callingCode = callingCodeOfCleanNumber(phoneNumber);
+        if (callingCode > 0 && callingCode != code || cannotBePossible(phoneNumber)) {
+            return false;
+        }
+        ParsedPhone parsed = parse(phoneNumber);
+        return parsed.isPossible() && parsed.getCountryCode() == code;
+    }
+
+    /**
+     * Same as {@link #hasCountryCode(int, String)} for a {@link PackedPhoneNumber}, without parsing.
+     * @param code the country code
+     * @param packedPhoneNumber packed phone number
+     * @return True if the number is possible and has the country code
+     */
+    public boolean hasCountryCode(int code, long packedPhoneNumber) {
+        return PackedPhoneNumber.isPacked(packedPhoneNumber)
+            && PackedPhoneNumber.countryCode(packedPhoneNumber) == code
+            && phoneUtil.isPossibleNumber(PackedPhoneNumber.toPhoneNumber(packedPhoneNumber));
+    }
+
+    public boolean hasCountryCode(String phoneNumber) {
+        String changedPhoneNumber = PhoneNumberUtils.replaceInternationalCallingPrefixWithPlus(phoneNumber);
+        return callingCodeOfCleanNumber(changedPhoneNumber) > 0 || parse(changedPhoneNumber).isParsed();
+    }
+
+    /**
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return The country code
+     * @throws PhoneNumberParsingException if phone number not valid
+     */
+    public int getCountryCodeFromFullPhoneNumber(String fullPhoneNumber) {
+        int callingCode = callingCodeOfCleanNumber(fullPhoneNumber);
+        if (callingCode > 0) {
+            return callingCode;
+        }
+        return parse(fullPhoneNumber).getCountryCode();
+    }
+
+    /**
+     * Exception free {@link #getCountryCodeFromFullPhoneNumber(String)}.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return The country code, or the failure reason
+     */
+    public ParseOutcome<Integer> tryGetCountryCodeFromFullPhoneNumber(String fullPhoneNumber) {
+        int callingCode = callingCodeOfCleanNumber(fullPhoneNumber);
+        if (callingCode > 0) {
+            return ParseOutcome.success(callingCode);
+        }
+        ParsedPhone parsed = parse(fullPhoneNumber);
+        return parsed.isParsed() ? ParseOutcome.success(parsed.getCountryCode()) : failure(parsed);
+    }
+
+    /**
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return True if italian number, false otherwise
+     */
+    public boolean isItalianOrUnknownNumber(String fullPhoneNumber) {
+        ParsedPhone parsed = parse(fullPhoneNumber);
+        return !parsed.isParsed() || parsed.phoneNumber().isItalianLeadingZero();
+    }
+
+    /**
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return The country code with prefix +
+     * @throws PhoneNumberParsingException if phone number not valid
+     */
+    public String getCountryCodeWithPlusSignFromFullPhoneNumber(String fullPhoneNumber) {
+        int callingCode = callingCodeOfCleanNumber(fullPhoneNumber);
+        if (callingCode > 0) {
+            return CallingCodeTable.prefixOf(callingCode);
+        }
+        return parse(fullPhoneNumber).getCountryCodeWithPlusSign();
+    }
+
+    /**
+     * Exception free {@link #getCountryCodeWithPlusSignFromFullPhoneNumber(String)}.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return The country code with prefix +, or the failure reason
+     */
+    public ParseOutcome<String> tryGetCountryCodeWithPlusSignFromFullPhoneNumber(String fullPhoneNumber) {
+        int callingCode = callingCodeOfCleanNumber(fullPhoneNumber);
+        if (callingCode > 0) {
+            return ParseOutcome.success(CallingCodeTable.prefixOf(callingCode));
+        }
+        ParsedPhone parsed = parse(fullPhoneNumber);
+        return parsed.isParsed() ? ParseOutcome.success(parsed.getCountryCodeWithPlusSign()) : failure(parsed);
+    }
+
+    /**
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return the national number
+     * @throws PhoneNumberParsingException if phone number not valid
+     */
+    public String getPhoneNumberWithoutCountryCodeFromFullPhoneNumber(String fullPhoneNumber) {
+        return parse(fullPhoneNumber).getNationalNumber();
+    }
+
+    /**
+     * Exception free {@link #getPhoneNumberWithoutCountryCodeFromFullPhoneNumber(String)}.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return the national number, or the failure reason
+     */
+    public ParseOutcome<String> tryGetPhoneNumberWithoutCountryCodeFromFullPhoneNumber(String fullPhoneNumber) {
+        ParsedPhone parsed = parse(fullPhoneNumber);
+        return parsed.isParsed() ? ParseOutcome.success(parsed.getNationalNumber()) : failure(parsed);
+    }
+
+    /**
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return Google PhoneNumber object
+     * @throws PhoneNumberParsingException if phone number not valid
+     */
+    public PhoneNumber getPhoneNumberObjFromFullPhoneNumber(String fullPhoneNumber) {
+        ParsedPhone parsed = parse(fullPhoneNumber);
+        if (!parsed.isParsed()) {
+            throw new PhoneNumberParsingException(parsed.getFailureReason(), null);
+        }
+        return parsed.phoneNumber();
+    }
+
+    /**
+     * Exception free {@link #getPhoneNumberObjFromFullPhoneNumber(String)}.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return Google PhoneNumber object, or the failure reason
+     */
+    public ParseOutcome<PhoneNumber> tryGetPhoneNumberObjFromFullPhoneNumber(String fullPhoneNumber) {
+        ParsedPhone parsed = parse(fullPhoneNumber);
+        return parsed.isParsed() ? ParseOutcome.success(parsed.phoneNumber()) : failure(parsed);
+    }
+
+    /**
+     * @param phone1 first number to check
+     * @param phone2 second number to check
+     * @return True if the same, false otherwise
+     */
+    public boolean areNationalNumbersSame(String phone1, String phone2) {
+        if (phone1 == null || phone1.isEmpty() || phone2 == null || phone2.isEmpty()) {
+            return false;
+        }
+        try {
+            Long number1 = getNationalNumber(phone1);
+            Long number2 = getNationalNumber(phone2);
+            return !(number1 == null || number2 == null) && number1.equals(number2);
+        } catch (PhoneNumberParsingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param phoneNumber phone number, with or without country code
+     * @return the national number, or the digits of the input if it can not be parsed
+     */
+    public Long getNationalNumber(String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
+            return null;
+        }
+        if (cannotParse(phoneNumber)) {
+            return removeAllNonNumeric(phoneNumber);
+        }
+        ParseOutcome<PhoneNumber> phoneObj =
+            tryGetPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(phoneNumber);
+        if (phoneObj.isSuccess()) {
+            return phoneObj.get().getNationalNumber();
+        }
+        return removeAllNonNumeric(phoneNumber);
+    }
+
+    /**
+     * @param fullPhoneNumber Full phone number, the + may be missing for country code 1
+     * @return Google PhoneNumber object
+     * @throws PhoneNumberParsingException if phone number not valid
+     */
+    public PhoneNumber getPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(String fullPhoneNumber) {
+        ParseOutcome<PhoneNumber> outcome =
+            tryGetPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(fullPhoneNumber);
+        if (outcome.isSuccess()) {
+            return outcome.get();
+        }
+        if (outcome.getFailureReason() == FailureReason.NO_INPUT) {
+            throw new PhoneNumberParsingException("Phone number is null or empty: " + fullPhoneNumber);
+        }
+        throw new PhoneNumberParsingException(outcome.getFailureReason(), null);
+    }
+
+    /**
+     * Exception free {@link #getPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(String)}.
+     * @param fullPhoneNumber Full phone number, the + may be missing for country code 1
+     * @return Google PhoneNumber object, or the failure reason of the number as given
+     */
+    public ParseOutcome<PhoneNumber> tryGetPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(
+        String fullPhoneNumber) {
+
+        ParsedPhone parsed = parse(fullPhoneNumber);
+        if (parsed.isParsed()) {
+            return ParseOutcome.success(parsed.phoneNumber());
+        }
+        if (fullPhoneNumber == null || fullPhoneNumber.isEmpty()) {
+            return ParseOutcome.failure(FailureReason.NO_INPUT);
+        }
+        // a full phone number requires plus prefix, add if it doesn't exist
+        if (!fullPhoneNumber.startsWith("+") && fullPhoneNumber.startsWith("1")) {
+            String withPlusPrefix = "+" + fullPhoneNumber;
+            if (!cannotBePossible(withPlusPrefix)) {
+                ParsedPhone withPlus = parse(withPlusPrefix);
+                if (withPlus.isValid()) {
+                    return ParseOutcome.success(withPlus.phoneNumber());
+                }
+            }
+        }
+        return failure(parsed);
+    }
+
+    /**
+     * {@link #isValidPhoneNumber(String, String)} with the default country code of this engine.
+     * @param phoneNumber the phone number
+     * @return True if valid
+     */
+    public boolean isValidPhoneNumber(String phoneNumber) {
+        return isValidPhoneNumber(defaultCountryCode, phoneNumber);
+    }
+
+    /**
+     * @param defaultCountryCode country code for numbers without one, e.g. "+47"
+     * @param phoneNumber the phone number
+     * @return True if valid
+     */
+    public boolean isValidPhoneNumber(String defaultCountryCode, String phoneNumber) {
+        if (phoneNumber == null) {
+            return false;
+        }
+        phoneNumber = PhoneNumberUtils.removeNonInteger(phoneNumber);
+
+        ParsedPhone full = parseIfFullPhoneNumber(phoneNumber);
+        if (full != null && full.isValid()) {
+            return true;
+        }
+        String region = regionForCountryCode(defaultCountryCode);
+        if (region == null) {
+            return false;
+        }
+        ParsedPhone parsed = full != null ? full : parse(phoneNumber, region);
+        return parsed.isCanonicalNumberValid();
+    }
+
+    /**
+     * Valid numbers as full phone numbers, numbers without country code get the default country
+     * code of this engine.
+     * @param numbers phone numbers
+     * @return the valid numbers as full phone numbers, distinct by input
+     */
+    public List<String> validatePhoneNumbers(List<String> numbers) {
+        if (numbers == null) {
+            return new ArrayList<>();
+        }
+        return numbers.stream()
+                .filter(n -> n != null)
+                .filter(n -> !n.isEmpty())
+                .filter(n -> isValidPhoneNumber(defaultCountryCode, n))
+                .distinct()
+                .map(n -> generateFullPhoneNumber(defaultCountryCode, n))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param numbers phone numbers
+     * @param distinctAfterNormalization false for the behaviour of {@link #validatePhoneNumbers(List)}
+     * @return the valid numbers as full phone numbers
+     * @see PhoneNumberUtils#validatePhoneNumbers(List, boolean)
+     */
+    public List<String> validatePhoneNumbers(List<String> numbers, boolean distinctAfterNormalization) {
+        if (!distinctAfterNormalization) {
+            return validatePhoneNumbers(numbers);
+        }
+        List<String> result = new ArrayList<>();
+        if (numbers == null) {
+            return result;
+        }
+        PhoneNumberSet seen = new PhoneNumberSet();
+        Set<String> unpackable = new HashSet<>();
+        for (String number : numbers) {
+            if (number == null || number.isEmpty()) {
+                continue;
+            }
+            String fullPhoneNumber = generateValidFullPhoneNumberForRegion(defaultRegion, number);
+            if (fullPhoneNumber == null) {
+                continue;
+            }
+            long packed = PackedPhoneNumber.fromE164(fullPhoneNumber);
+            if (packed == PackedPhoneNumber.INVALID ? unpackable.add(fullPhoneNumber) : seen.add(packed)) {
+                result.add(fullPhoneNumber);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@link #generateFullPhoneNumber(String, String)} with the default country code of this engine.
+     * @param phoneNumber the phone number
+     * @return the full phone number, or the sanitized input if it can not be parsed
+     */
+    public String generateFullPhoneNumber(String phoneNumber) {
+        return generateFullPhoneNumber(defaultCountryCode, phoneNumber);
+    }
+
+    /**
+     * @param defaultCountryCode country code for numbers without one, e.g. "+47"
+     * @param phoneNumber the phone number
+     * @return the full phone number, or the sanitized input if it can not be parsed
+     */
+    public String generateFullPhoneNumber(String defaultCountryCode, String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+
+        // else, remove all eventual invalid characters
+        phoneNumber = PhoneNumberUtils.removeNonInteger(phoneNumber);
+
+        // first check if already valid number
+        ParsedPhone full = parseIfFullPhoneNumber(phoneNumber);
+        if (full != null && full.isValid()) {
+            return phoneNumber;
+        }
+
+        String region = regionForCountryCode(defaultCountryCode);
+        if (region == null) {
+            failureListener.onFailure("generateFullPhoneNumber", FailureReason.INVALID_DEFAULT_COUNTRY_CODE,
+                phoneNumber, defaultCountryCode);
+            return phoneNumber;
+        }
+
+        ParsedPhone parsed = full != null ? full : parse(phoneNumber, region);
+        if (parsed.isParsed()) {
+            return PhoneNumberUtils.formatPhoneNumber(parsed.phoneNumber());
+        }
+        failureListener.onFailure("generateFullPhoneNumber", parsed.getFailureReason(), phoneNumber, region);
+
+        // we give up
+        return phoneNumber;
+    }
+
+    /*
+     * A "+" prefixed number is parsed the same way whatever the default region is, so it is parsed
+     * once as a full number. Anything else needs the region of the default country code.
+     */
+    private ParsedPhone parseIfFullPhoneNumber(String sanitizedPhoneNumber) {
+        return sanitizedPhoneNumber.startsWith("+") ? parse(sanitizedPhoneNumber) : null;
+    }
+
+    /*
+     * generateFullPhoneNumber for numbers isValidPhoneNumber accepts, null for the others, from one
+     * parse. The region of the default country code is looked up by the caller, null if the country
+     * code is not a number.
+     */
+    String generateValidFullPhoneNumberForRegion(String region, String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        String sanitized = PhoneNumberUtils.removeNonInteger(phoneNumber);
+        ParsedPhone full = parseIfFullPhoneNumber(sanitized);
+        if (full != null && full.isValid()) {
+            return sanitized;
+        }
+        if (region == null) {
+            return null;
+        }
+        ParsedPhone parsed = full != null ? full : parse(sanitized, region);
+        return parsed.isCanonicalNumberValid() ? PhoneNumberUtils.formatPhoneNumber(parsed.phoneNumber()) : null;
+    }
+
+    /*
+     * Region of a country code read the way Integer.parseInt reads it, null if it is not a number.
+     */
+    String regionForCountryCode(String countryCode) {
+        if (defaultMetadata) {
+            return CallingCodeTable.regionOfNumber(countryCode);
+        }
+        try {
+            return phoneUtil.getRegionCodeForCountryCode(Integer.parseInt(countryCode));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param fullPhoneNumber Full phone number, starting with +, used if valid
+     * @param defaultCountryCode country code for phoneNumber if it has none
+     * @param phoneNumber phone number used if fullPhoneNumber is not valid
+     * @return Google PhoneNumber object
+     * @throws PhoneNumberParsingException if neither number is valid
+     */
+    public PhoneNumber parseNumber(String fullPhoneNumber, String defaultCountryCode, String phoneNumber)
+        throws PhoneNumberParsingException {
+
+        // first check if already valid number
+        ParsedPhone full = parse(fullPhoneNumber);
+        if (full.isValid()) {
+            return full.phoneNumber();
+        }
+        return parseNumber(defaultCountryCode, phoneNumber);
+    }
+
+    /**
+     * @param countryCode country code for numbers without one
+     * @param phoneNumber phone number in any format
+     * @return Google PhoneNumber object
+     * @throws PhoneNumberParsingException if the number is not valid
+     */
+    public PhoneNumber parseNumber(String countryCode, String phoneNumber) throws PhoneNumberParsingException {
+        ParseOutcome<PhoneNumber> outcome = tryParseNumber(countryCode, phoneNumber);
+        if (outcome.isSuccess()) {
+            return outcome.get();
+        }
+        switch (outcome.getFailureReason()) {
+            case NO_INPUT:
+                throw new PhoneNumberParsingException("Input phone number is null");
+            case NOT_VALID:
+                throw new PhoneNumberParsingException(String.format("Prefix: %s, national: %s are not valid number",
+                    countryCode, PhoneNumberUtils.removeNonInteger(phoneNumber)));
+            default:
+                throw new PhoneNumberParsingException(outcome.getFailureReason(), null);
+        }
+    }
+
+    /**
+     * Exception free {@link #parseNumber(String, String, String)}.
+     * @param fullPhoneNumber Full phone number, starting with +, used if valid
+     * @param defaultCountryCode country code for phoneNumber if it has none
+     * @param phoneNumber phone number used if fullPhoneNumber is not valid
+     * @return Google PhoneNumber object, or the failure reason of phoneNumber
+     */
+    public ParseOutcome<PhoneNumber> tryParseNumber(String fullPhoneNumber, String defaultCountryCode,
+        String phoneNumber) {
+
+        ParsedPhone full = parse(fullPhoneNumber);
+        if (full.isValid()) {
+            return ParseOutcome.success(full.phoneNumber());
+        }
+        return tryParseNumber(defaultCountryCode, phoneNumber);
+    }
+
+    /**
+     * Exception free {@link #parseNumber(String, String)}.
+     * @param countryCode country code for numbers without one
+     * @param phoneNumber phone number in any format
+     * @return Google PhoneNumber object, or the failure reason
+     */
+    public ParseOutcome<PhoneNumber> tryParseNumber(String countryCode, String phoneNumber) {
+        if (phoneNumber == null) {
+            return ParseOutcome.failure(FailureReason.NO_INPUT);
+        }
+
+        // else, remove all eventual invalid characters
+        String sanitized = PhoneNumberUtils.removeNonInteger(phoneNumber);
+
+        // first check if already valid number
+        ParsedPhone full = parseIfFullPhoneNumber(sanitized);
+        if (full != null && full.isValid()) {
+            return ParseOutcome.success(full.phoneNumber());
+        }
+
+        String region = regionForCountryCode(countryCode);
+        if (region == null) {
+            return ParseOutcome.failure(FailureReason.INVALID_DEFAULT_COUNTRY_CODE);
+        }
+        ParsedPhone parsed = full != null ? full : parse(sanitized, region);
+        if (!parsed.isParsed()) {
+            return failure(parsed);
+        }
+        if (!parsed.isCanonicalNumberValid()) {
+            return ParseOutcome.failure(FailureReason.NOT_VALID);
+        }
+        return ParseOutcome.success(parsed.phoneNumber());
+    }
+
+    private static <T> ParseOutcome<T> failure(ParsedPhone parsed) {
+        return ParseOutcome.failure(parsed.getFailureReason());
+    }
+
+    public boolean isValidFullPhoneNumberHelper(String fullPhoneNumber) {
+        if (cannotBePossible(fullPhoneNumber)) {
+            return false;
+        }
+        return parse(fullPhoneNumber).isValid();
+    }
+
+    public boolean isPossibleFullPhoneNumber(String fullPhoneNumber) {
+        if (null == fullPhoneNumber) {
+            return false;
+        }
+
+        if (PhoneNumberSanitizer.containsLetterPair(fullPhoneNumber) || cannotBePossible(fullPhoneNumber)) {
+            return false;
+        }
+
+        return parse(fullPhoneNumber).isPossible();
+    }
+
+    /**
+     * @param phoneNumber Full phone number, starting with +
+     * @return the number in E.164 format
+     * @throws PhoneNumberParsingException if the number can not be parsed or is not possible
+     */
+    public String normalizePhoneNumber(String phoneNumber) {
+        ParsedPhone parsed = parse(phoneNumber);
+        if (!parsed.isParsed()) {
+            failureListener.onFailure("normalizePhoneNumber", parsed.getFailureReason(), phoneNumber, null);
+            throw new PhoneNumberParsingException(parsed.getFailureReason(), "phone number invalid: " + phoneNumber);
+        }
+
+        if (!parsed.isPossible()) {
+            throw new PhoneNumberParsingException(FailureReason.NOT_POSSIBLE,
+                "phone number invalid: " + parsed.toE164());
+        }
+
+        return parsed.toE164();
+    }
+
+    /**
+     * Exception free {@link #normalizePhoneNumber(String)}.
+     * @param phoneNumber Full phone number, starting with +
+     * @return the number in E.164 format, or the failure reason
+     */
+    public ParseOutcome<String> tryNormalizePhoneNumber(String phoneNumber) {
+        ParsedPhone parsed = parse(phoneNumber);
+        if (!parsed.isParsed()) {
+            return failure(parsed);
+        }
+        if (!parsed.isPossible()) {
+            return ParseOutcome.failure(FailureReason.NOT_POSSIBLE);
+        }
+        return ParseOutcome.success(parsed.toE164());
+    }
+
+    /**
+     * @param phoneNumber phone number, with or without country code
+     * @param countryCode country code for numbers without one, e.g. "+47"
+     * @return the number in E.164 format
+     * @throws PhoneNumberParsingException if the number can not be parsed or is not possible
+     */
+    public String appendCountryCodeIfMissingAndNormalize(String phoneNumber, String countryCode) {
+        phoneNumber = PhoneNumberUtils.replaceInternationalCallingPrefixWithPlus(phoneNumber);
+
+        String region = null;
+        if (countryCode != null && !countryCode.isEmpty()) {
+            region = regionOf(PhoneNumberSanitizer.parseCountryCode(countryCode));
+        }
+
+        ParsedPhone parsed = parse(phoneNumber, region);
+        if (!parsed.isParsed()) {
+            failureListener.onFailure("appendCountryCodeIfMissingAndNormalize", parsed.getFailureReason(),
+                phoneNumber, region);
+            throw new PhoneNumberParsingException(parsed.getFailureReason(), "phone number invalid: " + phoneNumber);
+        }
+
+        if (!parsed.isPossible()) {
+            throw new PhoneNumberParsingException(FailureReason.NOT_POSSIBLE, "phone number invalid: " + phoneNumber);
+        }
+
+        return parsed.toE164();
+    }
+
+    /**
+     * Exception free {@link #appendCountryCodeIfMissingAndNormalize(String, String)}.
+     * @param phoneNumber phone number, with or without country code
+     * @param countryCode country code for numbers without one, e.g. "+47"
+     * @return the number in E.164 format, or the failure reason
+     */
+    public ParseOutcome<String> tryAppendCountryCodeIfMissingAndNormalize(String phoneNumber, String countryCode) {
+        String region = null;
+        if (countryCode != null && !countryCode.isEmpty()) {
+            try {
+                region = regionOf(PhoneNumberSanitizer.parseCountryCode(countryCode));
+            } catch (NumberFormatException e) {
+                return ParseOutcome.failure(FailureReason.INVALID_DEFAULT_COUNTRY_CODE);
+            }
+        }
+        ParsedPhone parsed = parse(PhoneNumberUtils.replaceInternationalCallingPrefixWithPlus(phoneNumber), region);
+        if (!parsed.isParsed()) {
+            return failure(parsed);
+        }
+        if (!parsed.isPossible()) {
+            return ParseOutcome.failure(FailureReason.NOT_POSSIBLE);
+        }
+        return ParseOutcome.success(parsed.toE164());
+    }
+
+    /**
+     * @param phoneNumber phone number, with or without country code
+     * @param countryCode country code for numbers without one, e.g. "+47"
+     * @return the national number
+     * @throws PhoneNumberParsingException if the number can not be parsed
+     */
+    public String getPhoneWithoutCountryCode(String phoneNumber, String countryCode) {
+        String region = regionOf(PhoneNumberSanitizer.parseCountryCode(countryCode));
+        ParsedPhone parsed = parse(phoneNumber, region);
+        if (!parsed.isParsed()) {
+            throw new PhoneNumberParsingException(parsed.getFailureReason(), "phone number error: " + phoneNumber);
+        }
+        return parsed.getNationalNumber();
+    }
+
+    /**
+     * Exception free {@link #getPhoneWithoutCountryCode(String, String)}.
+     * @param phoneNumber phone number, with or without country code
+     * @param countryCode country code for numbers without one, e.g. "+47"
+     * @return the national number, or the failure reason
+     */
+    public ParseOutcome<String> tryGetPhoneWithoutCountryCode(String phoneNumber, String countryCode) {
+        String region;
+        try {
+            region = regionOf(PhoneNumberSanitizer.parseCountryCode(countryCode));
+        } catch (NumberFormatException e) {
+            return ParseOutcome.failure(FailureReason.INVALID_DEFAULT_COUNTRY_CODE);
+        }
+        ParsedPhone parsed = parse(phoneNumber, region);
+        return parsed.isParsed() ? ParseOutcome.success(parsed.getNationalNumber()) : failure(parsed);
+    }
+
+    public String removeNationalLeadingZero(String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.isEmpty()) {
+            return phoneNumber;
+        }
+
+        // if normalization succeeds, its a perfect valid number with country code, lets just normalize it
+        ParseOutcome<String> normalized = tryNormalizePhoneNumber(phoneNumber);
+        if (normalized.isSuccess()) {
+            return normalized.get();
+        }
+        // else its probably without country code, lets check if it starts with leading zero
+        if (phoneNumber.startsWith("00")) {
+            return phoneNumber.substring(2);
+        }
+        if (phoneNumber.startsWith("0")) {
+            return phoneNumber.substring(1);
+        }
+        // else just return original string
+        return phoneNumber;
+    }
+
+    /**
+     * @param phoneNumber full phone number, or a number with a "null" country code prefix
+     * @return the country code and national number, a null country code if the number can not be parsed
+     * @see PhoneNumberUtils#parsePhoneNumberWhichAcceptNonNumbers(String)
+     */
+    public PhoneNumberHolder parsePhoneNumberWhichAcceptNonNumbers(String phoneNumber) {
+        ParsedPhone parsed = parse(phoneNumber);
+        if (parsed.isParsed()) {
+            return new PhoneNumberHolder(parsed.getCountryCodeWithPlusSign(), parsed.getNationalNumber());
+        }
+        if (phoneNumber.trim().equalsIgnoreCase(EMPTY_COUNTRY_CODE)) {
+            return new PhoneNumberHolder(null, "");
+        }
+        if (phoneNumber.startsWith(EMPTY_COUNTRY_CODE)) {
+            int end = phoneNumber.indexOf(EMPTY_COUNTRY_CODE, EMPTY_COUNTRY_CODE.length());
+            String shortPhoneNumber = phoneNumber.substring(EMPTY_COUNTRY_CODE.length(),
+                end < 0 ? phoneNumber.length() : end);
+            return new PhoneNumberHolder(null, shortPhoneNumber);
+        }
+        return new PhoneNumberHolder(null, phoneNumber);
+    }
+
+    /**
+     * @param myStr text holding a number
+     * @return the digits as a number, null if there are none or too many
+     */
+    public Long removeAllNonNumeric(String myStr) {
+        try {
+            long number = PhoneNumberSanitizer.parseDigits(myStr);
+            return number < 0 ? null : number;
+        } catch (NumberFormatException e) {
+            failureListener.onFailure("removeAllNonNumeric", FailureReason.TOO_LONG, myStr, null);
+            return null;
+        }
+    }
+
+    PhoneNumberUtil phoneUtil() {
+        return phoneUtil;
+    }
+
+    /*
+     * True if the lookup tables built from the bundled metadata apply to this engine.
+     */
+    boolean hasDefaultMetadata() {
+        return defaultMetadata;
+    }
+
+    /*
+     * libphonenumber's isValidNumber, answered by the compiled automata of the calling code if
+     * there are any.
+     */
+    boolean isValidNumber(PhoneNumber number) {
+        int countryCode = number.getCountryCode();
+        CompiledNumberValidator validator = countryCode > 0 && countryCode < validators.length
+            ? validators[countryCode] : null;
+        return validator != null && number.getNationalNumber() >= 0
+            ? validator.isValid(number) : phoneUtil.isValidNumber(number);
+    }
+
+    /*
+     * libphonenumber parse through the cache of this engine, if there is one.
+     */
+    PhoneNumberParseCache.Entry parseOrCached(String phoneNumber, String region) {
+        PhoneNumberParseCache cache = parseCache;
+        if (cache == null) {
+            return PhoneNumberParseCache.parseUncached(phoneUtil, phoneNumber, region);
+        }
+        return cache.lookup(phoneUtil, phoneNumber, region);
+    }
+
+    /*
+     * The lookup tables below are built from the bundled metadata, with other metadata every
+     * answer is "don't know" and the caller parses.
+     */
+    boolean mayStripNationalPrefix(int countryCode, String nationalNumber) {
+        return !defaultMetadata || PhoneMetadataLookup.mayStripNationalPrefix(countryCode, nationalNumber);
+    }
+
+    private int callingCodeOfCleanNumber(String number) {
+        return defaultMetadata ? CallingCodeTable.callingCodeOfCleanNumber(number) : -1;
+    }
+
+    private boolean cannotParse(String number) {
+        return defaultMetadata && PossibleLengthFilter.cannotParse(number);
+    }
+
+    private boolean cannotBePossible(String number) {
+        return defaultMetadata && PossibleLengthFilter.cannotBePossible(number);
+    }
+
+    private CompiledNumberValidator[] compileValidators(Set<String> regions) {
+        CompiledNumberValidator[] compiled = new CompiledNumberValidator[CallingCodeTable.MAX_CALLING_CODE + 1];
+        for (String region : regions) {
+            if (!phoneUtil.getSupportedRegions().contains(region)) {
+                throw new IllegalArgumentException("Unknown region: " + region);
+            }
+            int countryCode = phoneUtil.getCountryCodeForRegion(region);
+            if (defaultMetadata && compiled[countryCode] == null) {
+                try {
+                    compiled[countryCode] = CompiledNumberValidator.compile(countryCode);
+                } catch (IllegalArgumentException e) {
+                    // validated by libphonenumber
+                }
+            }
+        }
+        return compiled;
+    }
+
+    private String regionOf(int callingCode) {
+        return defaultMetadata
+            ? CallingCodeTable.regionOf(callingCode) : phoneUtil.getRegionCodeForCountryCode(callingCode);
+    }
+
+    public static final class Builder {
+        private String defaultCountryCode = "+47";
+        private PhoneNumberParseCache parseCache;
+        private FailureListener failureListener;
+        private Executor executor;
+        private MetadataLoader metadataLoader;
+        private Set<String> compiledRegions = Collections.emptySet();
+
+        private Builder() {
+        }
+
+        /**
+         * Country code of numbers without one, "+47" by default.
+         * @param defaultCountryCode the country code, e.g. "+46"
+         * @return this builder
+         */
+        public Builder defaultCountryCode(String defaultCountryCode) {
+            if (defaultCountryCode == null) {
+                throw new IllegalArgumentException("defaultCountryCode is null");
+            }
+            this.defaultCountryCode = defaultCountryCode;
+            return this;
+        }
+
+        /**
+         * Cache of parse results, none by default. A cache must not be shared by engines with
+         * different metadata.
+         * @param parseCache the cache, or null to parse every input from scratch
+         * @return this builder
+         */
+        public Builder parseCache(PhoneNumberParseCache parseCache) {
+            this.parseCache = parseCache;
+            return this;
+        }
+
+        /**
+         * Listener told about inputs which could not be parsed, a {@link SampledFailureLogger} with
+         * its default settings by default.
+         * @param failureListener the listener, {@link FailureListener#NO_OP} to ignore failures
+         * @return this builder
+         */
+        public Builder failureListener(FailureListener failureListener) {
+            if (failureListener == null) {
+                throw new IllegalArgumentException("failureListener is null, use FailureListener.NO_OP");
+            }
+            this.failureListener = failureListener;
+            return this;
+        }
+
+        /**
+         * Executor of {@link PhoneNumberEngine#async()} and {@link PhoneNumberEngine#batch()}, their
+         * own defaults if not set.
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Loader of the metadata files, the metadata bundled with libphonenumber by default.
+         * @param metadataLoader the loader, e.g. reading a newer metadata release from disk
+         * @return this builder
+         */
+        public Builder metadataLoader(MetadataLoader metadataLoader) {
+            if (metadataLoader == null) {
+                throw new IllegalArgumentException("metadataLoader is null");
+            }
+            this.metadataLoader = metadataLoader;
+            return this;
+        }
+
+        /**
+         * Regions whose validation runs on digit automata compiled from the metadata, none by
+         * default. Regions sharing their calling code with others are compiled together, e.g. "US"
+         * compiles all regions of +1. Compiling takes a few milliseconds per region when the engine
+         * is built, engines with their own metadata loader ignore this setting.
+         * @param regions two letter region codes of the hot regions, e.g. "NO"
+         * @return this builder
+         */
+        public Builder compiledRegions(Collection<String> regions) {
+            if (regions == null) {
+                throw new IllegalArgumentException("regions is null or holds null");
+            }
+            // contains(null) throws for null-hostile collections such as TreeSet
+            for (String region : regions) {
+                if (region == null) {
+                    throw new IllegalArgumentException("regions is null or holds null");
+                }
+            }
+            this.compiledRegions = Collections.unmodifiableSet(new TreeSet<>(regions));
+            return this;
+        }
+
+        /**
+         * @return the engine
+         * @throws IllegalArgumentException if the default country code is not an assigned calling
+         *     code or a compiled region is not supported by the metadata
+         */
+        public PhoneNumberEngine build() {
+            return new PhoneNumberEngine(this);
+        }
+    }
+}
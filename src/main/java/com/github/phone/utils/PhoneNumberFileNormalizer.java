@@ -0,0 +1,560 @@
+package com.github.phone.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Normalizes one column of a large delimited text file to E.164.
+ *
+ * <p>The input is memory-mapped and split into chunks at line boundaries, chunks are normalized in
+ * parallel and written in input order. Every line either goes to the output file, with the phone
+ * number column replaced by the E.164 number, or unchanged to the rejects file. Blank lines are
+ * dropped. Lines are read as UTF-8 bytes, only the phone number field is decoded.
+ *
+ * <p>With a checkpoint file the job can be resumed: after each chunk the input offset and the sizes
+ * of both output files are recorded. A new run with the same files truncates the outputs to the
+ * recorded sizes and continues from the recorded offset, it refuses to run if an output is shorter
+ * than recorded. The checkpoint is deleted when the whole input has been processed.
+ *
+ * <pre>
+ * PhoneNumberFileNormalizer.Report report = PhoneNumberFileNormalizer.builder()
+ *     .input(Paths.get("contacts.csv")).output(Paths.get("contacts-e164.csv"))
+ *     .rejects(Paths.get("contacts-rejects.csv")).checkpoint(Paths.get("contacts.checkpoint"))
+ *     .column(3).defaultCountryCode("+47").skipHeader(true)
+ *     .build()
+ *     .run();
+ * </pre>
+ *
+ * <p>Without default country code every field goes through
+ * {@link PhoneNumberUtils#normalizePhoneNumber(String)}, with one through
+ * {@link PhoneNumberUtils#appendCountryCodeIfMissingAndNormalize(String, String)}.
+ */
+public final class PhoneNumberFileNormalizer {
+
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    private static final String INPUT_OFFSET = "inputOffset";
+    private static final String INPUT_SIZE = "inputSize";
+    private static final String INPUT_LAST_MODIFIED = "inputLastModified";
+    private static final String OUTPUT_SIZE = "outputSize";
+    private static final String REJECTS_SIZE = "rejectsSize";
+    private static final String NORMALIZED = "normalized";
+    private static final String REJECTED = "rejected";
+
+    private final Path input;
+    private final Path output;
+    private final Path rejects;
+    private final Path checkpoint;
+    private final int column;
+    private final byte delimiter;
+    private final String defaultCountryCode;
+    private final boolean skipHeader;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Executor executor;
+
+    private PhoneNumberFileNormalizer(Builder builder) {
+        this.input = builder.input;
+        this.output = builder.output;
+        this.rejects = builder.rejects;
+        this.checkpoint = builder.checkpoint;
+        this.column = builder.column;
+        this.delimiter = (byte) builder.delimiter;
+        this.defaultCountryCode = builder.defaultCountryCode;
+        this.skipHeader = builder.skipHeader;
+        this.chunkSize = builder.chunkSize;
+        this.parallelism = builder.parallelism;
+        this.executor = builder.executor;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Normalizes the input, resuming from the checkpoint if there is one.
+     * @return counts of the whole job, resumed parts included
+     * @throws IOException if a file can not be read or written
+     * @throws IllegalStateException if the checkpoint was written for a different input file, or the
+     *     output or rejects file is shorter than recorded in the checkpoint
+     */
+    public Report run() throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileChannel rej = FileChannel.open(rejects, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+            long inputSize = in.size();
+            long inputLastModified = Files.getLastModifiedTime(input).toMillis();
+            Properties state = readCheckpoint(inputSize, inputLastModified);
+            long offset = Long.parseLong(state.getProperty(INPUT_OFFSET));
+            long resumedFrom = offset;
+            long normalized = Long.parseLong(state.getProperty(NORMALIZED));
+            long rejected = Long.parseLong(state.getProperty(REJECTED));
+            long outputSize = Long.parseLong(state.getProperty(OUTPUT_SIZE));
+            long rejectsSize = Long.parseLong(state.getProperty(REJECTS_SIZE));
+            // truncating can not bring back what was lost since the checkpoint was written
+            if (out.size() < outputSize || rej.size() < rejectsSize) {
+                throw new IllegalStateException("Checkpoint " + checkpoint + " expects at least " + outputSize
+                    + " bytes in " + output + " and " + rejectsSize + " bytes in " + rejects);
+            }
+            out.truncate(outputSize);
+            rej.truncate(rejectsSize);
+            out.position(out.size());
+            rej.position(rej.size());
+
+            Deque<CompletableFuture<Chunk>> inFlight = new ArrayDeque<>();
+            long nextStart = offset;
+            try {
+                while (nextStart < inputSize || !inFlight.isEmpty()) {
+                    while (inFlight.size() < parallelism && nextStart < inputSize) {
+                        long start = nextStart;
+                        ByteBuffer buffer = mapChunk(in, start, inputSize);
+                        inFlight.add(CompletableFuture.supplyAsync(() -> normalizeChunk(buffer, start), executor));
+                        nextStart = start + buffer.remaining();
+                    }
+                    Chunk chunk = join(inFlight.poll());
+                    chunk.output.writeTo(out);
+                    chunk.rejects.writeTo(rej);
+                    normalized += chunk.normalized;
+                    rejected += chunk.rejected;
+                    offset = chunk.end;
+                    if (checkpoint != null) {
+                        out.force(false);
+                        rej.force(false);
+                        state.setProperty(INPUT_OFFSET, Long.toString(offset));
+                        state.setProperty(OUTPUT_SIZE, Long.toString(out.position()));
+                        state.setProperty(REJECTS_SIZE, Long.toString(rej.position()));
+                        state.setProperty(NORMALIZED, Long.toString(normalized));
+                        state.setProperty(REJECTED, Long.toString(rejected));
+                        writeCheckpoint(state);
+                    }
+                }
+            } finally {
+                // only left after a failure, chunks not started yet are not worth normalizing
+                for (CompletableFuture<Chunk> pending : inFlight) {
+                    pending.cancel(false);
+                }
+            }
+            if (checkpoint != null) {
+                Files.deleteIfExists(checkpoint);
+            }
+            return new Report(normalized, rejected, resumedFrom, inputSize);
+        }
+    }
+
+    private Properties readCheckpoint(long inputSize, long inputLastModified) throws IOException {
+        Properties state = new Properties();
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            try (InputStream stream = Files.newInputStream(checkpoint)) {
+                state.load(stream);
+            }
+            if (!Long.toString(inputSize).equals(state.getProperty(INPUT_SIZE))
+                || !Long.toString(inputLastModified).equals(state.getProperty(INPUT_LAST_MODIFIED))) {
+                throw new IllegalStateException("Checkpoint " + checkpoint + " does not belong to " + input);
+            }
+            return state;
+        }
+        state.setProperty(INPUT_SIZE, Long.toString(inputSize));
+        state.setProperty(INPUT_LAST_MODIFIED, Long.toString(inputLastModified));
+        state.setProperty(INPUT_OFFSET, "0");
+        state.setProperty(OUTPUT_SIZE, "0");
+        state.setProperty(REJECTS_SIZE, "0");
+        state.setProperty(NORMALIZED, "0");
+        state.setProperty(REJECTED, "0");
+        return state;
+    }
+
+    /*
+     * Written next to the checkpoint and moved over it, so a kill never leaves half a checkpoint.
+     */
+    private void writeCheckpoint(Properties state) throws IOException {
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temporary)) {
+            state.store(stream, "PhoneNumberFileNormalizer checkpoint");
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+     * Maps the chunk starting at start, up to just after the last line break within chunkSize
+     * bytes. A line longer than the chunk makes the chunk grow until the line fits. The chunk is
+     * mapped once, here, and the returned buffer is all the worker reads.
+     */
+    private ByteBuffer mapChunk(FileChannel in, long start, long inputSize) throws IOException {
+        long window = chunkSize;
+        while (true) {
+            long end = Math.min(inputSize, start + window);
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            if (end == inputSize) {
+                return buffer;
+            }
+            for (int i = (int) (end - start) - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    buffer.limit(i + 1);
+                    return buffer.slice();
+                }
+            }
+            if (window >= MAX_CHUNK_SIZE) {
+                throw new IOException("Line at offset " + start + " of " + input + " is longer than "
+                    + MAX_CHUNK_SIZE + " bytes");
+            }
+            window = Math.min(window * 2, MAX_CHUNK_SIZE);
+        }
+    }
+
+    private Chunk normalizeChunk(ByteBuffer buffer, long start) {
+        int length = buffer.remaining();
+        long end = start + length;
+        Chunk chunk = new Chunk(end, length);
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd < length ? lineEnd + 1 : length;
+            int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (start == 0 && lineStart == 0 && skipHeader) {
+                chunk.output.write(buffer, lineStart, next);
+                chunk.output.terminateLine(buffer, next);
+            } else if (contentEnd > lineStart) {
+                normalizeLine(buffer, lineStart, contentEnd, next, chunk);
+            }
+            lineStart = next;
+        }
+        return chunk;
+    }
+
+    private void normalizeLine(ByteBuffer buffer, int lineStart, int contentEnd, int next, Chunk chunk) {
+        int fieldStart = lineStart;
+        int currentColumn = 0;
+        boolean quoted = false;
+        int fieldEnd = -1;
+        for (int i = lineStart; i < contentEnd; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == delimiter && !quoted) {
+                if (currentColumn == column) {
+                    fieldEnd = i;
+                    break;
+                }
+                currentColumn++;
+                fieldStart = i + 1;
+            }
+        }
+        if (fieldEnd < 0 && currentColumn == column) {
+            fieldEnd = contentEnd;
+        }
+        String e164 = fieldEnd < 0 ? null : normalizeField(buffer, fieldStart, fieldEnd);
+        if (e164 == null) {
+            chunk.rejects.write(buffer, lineStart, next);
+            chunk.rejects.terminateLine(buffer, next);
+            chunk.rejected++;
+        } else {
+            chunk.output.write(buffer, lineStart, fieldStart);
+            chunk.output.writeAscii(e164);
+            chunk.output.write(buffer, fieldEnd, next);
+            chunk.output.terminateLine(buffer, next);
+            chunk.normalized++;
+        }
+    }
+
+    private String normalizeField(ByteBuffer buffer, int fieldStart, int fieldEnd) {
+        int from = fieldStart;
+        int to = fieldEnd;
+        if (to - from >= 2 && buffer.get(from) == '"' && buffer.get(to - 1) == '"') {
+            from++;
+            to--;
+        }
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        String field = new String(bytes, StandardCharsets.UTF_8).trim();
+        ParseOutcome<String> normalized = defaultCountryCode == null ? PhoneNumberUtils.tryNormalizePhoneNumber(field)
+            : PhoneNumberUtils.tryAppendCountryCodeIfMissingAndNormalize(field, defaultCountryCode);
+        return normalized.orElse(null);
+    }
+
+    private static Chunk join(CompletableFuture<Chunk> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Counts of a finished job.
+     */
+    public static final class Report {
+        private final long normalized;
+        private final long rejected;
+        private final long resumedFromOffset;
+        private final long inputSize;
+
+        private Report(long normalized, long rejected, long resumedFromOffset, long inputSize) {
+            this.normalized = normalized;
+            this.rejected = rejected;
+            this.resumedFromOffset = resumedFromOffset;
+            this.inputSize = inputSize;
+        }
+
+        public long getNormalized() {
+            return normalized;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return input offset this run started at, 0 if the job was not resumed
+         */
+        public long getResumedFromOffset() {
+            return resumedFromOffset;
+        }
+
+        public long getInputSize() {
+            return inputSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{normalized=" + normalized + ", rejected=" + rejected
+                + ", resumedFromOffset=" + resumedFromOffset + ", inputSize=" + inputSize + "}";
+        }
+    }
+
+    private static final class Chunk {
+        private final long end;
+        private final Bytes output;
+        private final Bytes rejects;
+        private long normalized;
+        private long rejected;
+
+        Chunk(long end, int inputLength) {
+            this.end = end;
+            this.output = new Bytes(inputLength + (inputLength >>> 3));
+            this.rejects = new Bytes(64);
+        }
+    }
+
+    /*
+     * Growable byte buffer, written to the channel without copying.
+     */
+    private static final class Bytes {
+        private byte[] bytes;
+        private int size;
+
+        Bytes(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void write(ByteBuffer buffer, int from, int to) {
+            ensureCapacity(to - from);
+            for (int i = from; i < to; i++) {
+                bytes[size++] = buffer.get(i);
+            }
+        }
+
+        void writeAscii(String value) {
+            ensureCapacity(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                bytes[size++] = (byte) value.charAt(i);
+            }
+        }
+
+        /*
+         * The last line of a file may lack a line break, the output gets one anyway.
+         */
+        void terminateLine(ByteBuffer buffer, int next) {
+            if (next == 0 || buffer.get(next - 1) != '\n') {
+                ensureCapacity(1);
+                bytes[size++] = '\n';
+            }
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + extra));
+            }
+        }
+    }
+
+    public static final class Builder {
+        private Path input;
+        private Path output;
+        private Path rejects;
+        private Path checkpoint;
+        private int column;
+        private char delimiter = ',';
+        private String defaultCountryCode;
+        private boolean skipHeader;
+        private int chunkSize = 8 * 1024 * 1024;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Executor executor = ForkJoinPool.commonPool();
+
+        private Builder() {
+        }
+
+        public Builder input(Path input) {
+            this.input = input;
+            return this;
+        }
+
+        /**
+         * File receiving the normalized lines, created if missing.
+         * @param output the output file
+         * @return this builder
+         */
+        public Builder output(Path output) {
+            this.output = output;
+            return this;
+        }
+
+        /**
+         * File receiving the lines which could not be normalized, created if missing.
+         * @param rejects the rejects file
+         * @return this builder
+         */
+        public Builder rejects(Path rejects) {
+            this.rejects = rejects;
+            return this;
+        }
+
+        /**
+         * File recording the progress, no checkpoints are written by default.
+         * @param checkpoint the checkpoint file
+         * @return this builder
+         */
+        public Builder checkpoint(Path checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        /**
+         * Zero based index of the phone number column, 0 by default.
+         * @param column the column index
+         * @return this builder
+         */
+        public Builder column(int column) {
+            if (column < 0) {
+                throw new IllegalArgumentException("column must not be negative: " + column);
+            }
+            this.column = column;
+            return this;
+        }
+
+        /**
+         * Column delimiter, ',' by default. Delimiters inside double quotes are ignored.
+         * @param delimiter an ASCII delimiter
+         * @return this builder
+         */
+        public Builder delimiter(char delimiter) {
+            if (delimiter >= 128 || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+                throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+            }
+            this.delimiter = delimiter;
+            return this;
+        }
+
+        /**
+         * Country code for numbers without one, e.g. "+47". Without it numbers need a country code.
+         * @param defaultCountryCode the default country code
+         * @return this builder
+         */
+        public Builder defaultCountryCode(String defaultCountryCode) {
+            this.defaultCountryCode = defaultCountryCode;
+            return this;
+        }
+
+        /**
+         * Whether the first line is a header, copied to the output unchanged. False by default.
+         * @param skipHeader true if the file has a header line
+         * @return this builder
+         */
+        public Builder skipHeader(boolean skipHeader) {
+            this.skipHeader = skipHeader;
+            return this;
+        }
+
+        /**
+         * Bytes per chunk, 8 MB by default. Also the unit of checkpointing.
+         * @param chunkSize the chunk size in bytes
+         * @return this builder
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+                throw new IllegalArgumentException("chunkSize out of range: " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Maximum number of chunks in flight, the number of processors by default.
+         * @param parallelism the number of chunks normalized at the same time
+         * @return this builder
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Executor normalizing the chunks, the common ForkJoinPool by default.
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        public PhoneNumberFileNormalizer build() {
+            if (input == null || output == null || rejects == null) {
+                throw new IllegalArgumentException("input, output and rejects are required");
+            }
+            return new PhoneNumberFileNormalizer(this);
+        }
+    }
+}
@@ -1,37 +1,273 @@
 package com.github.phone.utils;
 
-public class PhoneNumberHolder {
+import java.util.Objects;
 
+/**
+ * Prefix, national part and full form of a phone number.
+ *
+ * <p>A "+" prefix followed by a calling code and a national part of digits are kept as an int and
+ * a long: the prefix string is shared by all holders of the calling code, the national string is
+ * built when it is first asked for, and a full phone number which is just prefix plus national part
+ * is not kept at all but built on demand. Other strings, null included, are kept as given.
+ *
+ * <p>Holders are equal when their three strings are, and order by calling code, national number
+ * and full phone number, with holders that are not numbers first.
+ */
+public class PhoneNumberHolder implements Comparable<PhoneNumberHolder> {
+
+    private static final int MAX_LEADING_ZEROS = 127;
+    private static final int MAX_NATIONAL_DIGITS = 18;
+
+    // shared "+NN" for calling codes, as given otherwise
     private final String prefix;
-    private final String national;
-    private final String phoneNumber;
+    // 0 if the prefix is not "+" and a calling code
+    private final int countryCode;
+    // -1 if the national part is not digits
+    private final long nationalNumber;
+    private final byte leadingZeros;
+    // true if the full phone number is prefix plus national part and not kept
+    private final boolean derivedPhoneNumber;
+    // built on demand for digits, as given otherwise
+    private String national;
+    private String phoneNumber;
+    private int hash;
 
     public PhoneNumberHolder(String prefix, String national) {
-        this.prefix = prefix;
-        this.national = national;
-        this.phoneNumber = null;
+        this(prefix, national, null);
     }
 
     public PhoneNumberHolder(int prefix, long national, String phoneNumber) {
-        this.prefix = "+" + String.valueOf(prefix);
-        this.national = String.valueOf(national);
-        this.phoneNumber = phoneNumber;
+        this.countryCode = prefix > 0 && prefix <= CallingCodeTable.MAX_CALLING_CODE ? prefix : 0;
+        this.prefix = countryCode > 0 ? CallingCodeTable.prefixOf(countryCode) : "+" + prefix;
+        this.nationalNumber = national >= 0 ? national : -1;
+        this.leadingZeros = 0;
+        this.national = national >= 0 ? null : String.valueOf(national);
+        this.derivedPhoneNumber = isDerived(phoneNumber);
+        this.phoneNumber = derivedPhoneNumber ? null : phoneNumber;
     }
 
     public PhoneNumberHolder(String prefix, String national, String phoneNumber) {
-        this.prefix = prefix;
-        this.national = national;
-        this.phoneNumber = phoneNumber;
+        this.countryCode = parseCountryCode(prefix);
+        this.prefix = countryCode > 0 ? CallingCodeTable.prefixOf(countryCode) : prefix;
+        int zeros = countLeadingZeros(national);
+        this.nationalNumber = zeros < 0 ? -1 : parseDigits(national, zeros);
+        this.leadingZeros = (byte) Math.max(0, zeros);
+        this.national = nationalNumber >= 0 ? null : national;
+        this.derivedPhoneNumber = isDerived(phoneNumber);
+        this.phoneNumber = derivedPhoneNumber ? null : phoneNumber;
+    }
+
+    /*
+     * Holder of digits without building any string, e.g. for numbers read from a binary stream.
+     */
+    PhoneNumberHolder(int countryCode, int leadingZeros, long nationalNumber, boolean withPhoneNumber) {
+        this.countryCode = countryCode;
+        this.prefix = CallingCodeTable.prefixOf(countryCode);
+        this.nationalNumber = nationalNumber;
+        this.leadingZeros = (byte) leadingZeros;
+        this.derivedPhoneNumber = withPhoneNumber;
     }
 
     public String getPrefix() {
         return prefix;
     }
+
     public String getNational() {
+        if (national == null && nationalNumber >= 0) {
+            national = appendNational(new StringBuilder(20)).toString();
+        }
         return national;
     }
 
     public String getPhoneNumber() {
+        if (phoneNumber == null && derivedPhoneNumber) {
+            phoneNumber = countryCode > 0 ? E164Formatter.format(countryCode, leadingZeros, nationalNumber)
+                : appendNational(new StringBuilder(24).append(prefix)).toString();
+        }
         return phoneNumber;
     }
+
+    /**
+     * @return the calling code of a "+" prefix, 0 if the prefix is not one
+     */
+    public int getCountryCode() {
+        return countryCode;
+    }
+
+    /**
+     * @return the national part as a number, leading zeros dropped, -1 if it is not digits
+     */
+    public long getNationalNumber() {
+        return nationalNumber;
+    }
+
+    int getLeadingZeros() {
+        return leadingZeros;
+    }
+
+    /*
+     * True if the full phone number is prefix plus national part.
+     */
+    boolean isPhoneNumberDerived() {
+        return derivedPhoneNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PhoneNumberHolder other = (PhoneNumberHolder) o;
+        return countryCode == other.countryCode
+            && nationalNumber == other.nationalNumber
+            && leadingZeros == other.leadingZeros
+            && derivedPhoneNumber == other.derivedPhoneNumber
+            && Objects.equals(prefix, other.prefix)
+            && (nationalNumber >= 0 || Objects.equals(national, other.national))
+            && (derivedPhoneNumber || Objects.equals(phoneNumber, other.phoneNumber));
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hashCode(prefix);
+            h = 31 * h + (nationalNumber >= 0
+                ? 31 * Long.hashCode(nationalNumber) + leadingZeros : Objects.hashCode(national));
+            h = 31 * h + (derivedPhoneNumber ? 1 : Objects.hashCode(phoneNumber));
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public int compareTo(PhoneNumberHolder other) {
+        int result = Integer.compare(countryCode, other.countryCode);
+        if (result == 0 && countryCode == 0) {
+            result = compareNullsFirst(prefix, other.prefix);
+        }
+        if (result == 0) {
+            result = Boolean.compare(nationalNumber >= 0, other.nationalNumber >= 0);
+        }
+        if (result == 0) {
+            result = nationalNumber >= 0
+                ? compareNumbers(other) : compareNullsFirst(national, other.national);
+        }
+        if (result == 0) {
+            result = Boolean.compare(!derivedPhoneNumber, !other.derivedPhoneNumber);
+        }
+        if (result == 0 && !derivedPhoneNumber) {
+            result = compareNullsFirst(phoneNumber, other.phoneNumber);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneNumberHolder{" + prefix + ", " + getNational() + ", " + getPhoneNumber() + "}";
+    }
+
+    private int compareNumbers(PhoneNumberHolder other) {
+        int result = Integer.compare(leadingZeros, other.leadingZeros);
+        return result != 0 ? result : Long.compare(nationalNumber, other.nationalNumber);
+    }
+
+    private static int compareNullsFirst(String a, String b) {
+        if (a == null) {
+            return b == null ? 0 : -1;
+        }
+        return b == null ? 1 : a.compareTo(b);
+    }
+
+    private StringBuilder appendNational(StringBuilder builder) {
+        for (int i = leadingZeros; i > 0; i--) {
+            builder.append('0');
+        }
+        return builder.append(nationalNumber);
+    }
+
+    /*
+     * True if the phone number is the prefix followed by the national digits, compared without
+     * building the string.
+     */
+    private boolean isDerived(String phoneNumber) {
+        if (phoneNumber == null || prefix == null || nationalNumber < 0 || !phoneNumber.startsWith(prefix)) {
+            return false;
+        }
+        int position = prefix.length();
+        for (int i = 0; i < leadingZeros; i++) {
+            if (position >= phoneNumber.length() || phoneNumber.charAt(position++) != '0') {
+                return false;
+            }
+        }
+        int digits = phoneNumber.length() - position;
+        // "+47045037118" is not "+47" plus "45037118"
+        if (digits <= 0 || digits > MAX_NATIONAL_DIGITS || digits > 1 && phoneNumber.charAt(position) == '0') {
+            return false;
+        }
+        long value = 0;
+        for (; position < phoneNumber.length(); position++) {
+            char c = phoneNumber.charAt(position);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value == nationalNumber;
+    }
+
+    /*
+     * Calling code of "+" followed by 1 to 3 digits without leading zero, 0 for anything else.
+     */
+    private static int parseCountryCode(String prefix) {
+        int length = prefix == null ? 0 : prefix.length();
+        if (length < 2 || length > 4 || prefix.charAt(0) != '+' || prefix.charAt(1) == '0') {
+            return 0;
+        }
+        int countryCode = 0;
+        for (int i = 1; i < length; i++) {
+            char c = prefix.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            countryCode = countryCode * 10 + (c - '0');
+        }
+        return countryCode;
+    }
+
+    /*
+     * Zeros before the last digit of a string of digits, -1 if the string is not short enough
+     * digits to keep as a number.
+     */
+    private static int countLeadingZeros(String national) {
+        int length = national == null ? 0 : national.length();
+        if (length == 0) {
+            return -1;
+        }
+        int zeros = 0;
+        while (zeros < length - 1 && national.charAt(zeros) == '0') {
+            zeros++;
+        }
+        if (zeros > MAX_LEADING_ZEROS || length - zeros > MAX_NATIONAL_DIGITS) {
+            return -1;
+        }
+        for (int i = zeros; i < length; i++) {
+            char c = national.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return zeros;
+    }
+
+    private static long parseDigits(String national, int from) {
+        long value = 0;
+        for (int i = from; i < national.length(); i++) {
+            value = value * 10 + (national.charAt(i) - '0');
+        }
+        return value;
+    }
 }
@@ -0,0 +1,334 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of libphonenumber parse results keyed by (raw input, region).
+ *
+ * <p>The cache is split into independently locked LRU segments, so concurrent readers of
+ * different numbers rarely contend. Failed parses are cached as well (unless disabled), so
+ * repeated garbage input is answered with a new {@link NumberParseException} of the stored error
+ * type and message instead of running the parser.
+ *
+ * <p>Cached {@link PhoneNumber} objects are never handed out, every hit returns a fresh copy.
+ *
+ * <pre>
+ * PhoneNumberUtils.setParseCache(PhoneNumberParseCache.builder().maximumSize(500_000).build());
+ * </pre>
+ */
+public final class PhoneNumberParseCache {
+
+    // rough per entry overhead: key, entry, map node and the cached PhoneNumber
+    private static final long ENTRY_OVERHEAD_BYTES = 160;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final boolean cacheFailures;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    private PhoneNumberParseCache(Builder builder) {
+        int segmentCount = 1;
+        while (segmentCount < builder.concurrencyLevel) {
+            segmentCount <<= 1;
+        }
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        this.cacheFailures = builder.cacheFailures;
+        long maxSizePerSegment = divideRoundingUp(builder.maximumSize, segmentCount);
+        long maxWeightPerSegment = divideRoundingUp(builder.maximumWeight, segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(maxSizePerSegment, maxWeightPerSegment);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parses the number with the given util, answering from the cache when possible.
+     * @param phoneUtil libphonenumber instance used on a miss
+     * @param number raw input
+     * @param region default region, may be null
+     * @return a new PhoneNumber object owned by the caller
+     * @throws NumberParseException if the number can not be parsed
+     */
+    PhoneNumber parse(PhoneNumberUtil phoneUtil, String number, String region) throws NumberParseException {
+        Entry entry = lookup(phoneUtil, number, region);
+        if (entry.failureType != null) {
+            throw new NumberParseException(entry.failureType, entry.failureMessage);
+        }
+        return entry.phoneNumberForCaller();
+    }
+
+    /*
+     * Same as parse, without throwing: a failure, cached or not, is returned as its error type and
+     * message, so repeated garbage costs neither the parser nor a new exception.
+     */
+    Entry lookup(PhoneNumberUtil phoneUtil, String number, String region) {
+        if (number == null) {
+            return parseUncached(phoneUtil, number, region);
+        }
+        Key key = new Key(number, region);
+        Segment segment = segments[spread(key.hash) & segmentMask];
+        Entry entry = segment.get(key);
+        if (entry != null) {
+            hitCount.increment();
+            return entry;
+        }
+        missCount.increment();
+        Entry parsed = parseUncached(phoneUtil, number, region);
+        if (parsed.phoneNumber != null) {
+            segment.put(key, new Entry(new PhoneNumber().mergeFrom(parsed.phoneNumber), true, null, null));
+        } else if (cacheFailures) {
+            segment.put(key, new Entry(null, true, parsed.failureType, parsed.failureMessage));
+        }
+        return parsed;
+    }
+
+    /*
+     * Runs the parser, the returned entry is not cached and its PhoneNumber goes to the caller.
+     */
+    static Entry parseUncached(PhoneNumberUtil phoneUtil, String number, String region) {
+        try {
+            return new Entry(phoneUtil.parse(number, region), false, null, null);
+        } catch (NumberParseException e) {
+            return new Entry(null, false, e.getErrorType(), e.getMessage());
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Number of cached entries, successful and failed parses together.
+     * @return the number of entries
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Estimated heap used by the cached entries.
+     * @return the weight in bytes
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private static long divideRoundingUp(long value, int divisor) {
+        return value == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(1, (value + divisor - 1) / divisor);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long weigh(Key key) {
+        return ENTRY_OVERHEAD_BYTES + 2L * key.number.length();
+    }
+
+    private final class Segment {
+        private final long maximumSize;
+        private final long maximumWeight;
+        private final LinkedHashMap<Key, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        Segment(long maximumSize, long maximumWeight) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+        }
+
+        synchronized Entry get(Key key) {
+            return map.get(key);
+        }
+
+        synchronized void put(Key key, Entry entry) {
+            if (map.put(key, entry) == null) {
+                weight += weigh(key);
+            }
+            Iterator<Map.Entry<Key, Entry>> eldest = map.entrySet().iterator();
+            while ((map.size() > maximumSize || weight > maximumWeight) && eldest.hasNext()) {
+                Key evicted = eldest.next().getKey();
+                eldest.remove();
+                weight -= weigh(evicted);
+                evictionCount.increment();
+            }
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized long weight() {
+            return weight;
+        }
+
+        synchronized void clear() {
+            map.clear();
+            weight = 0;
+        }
+    }
+
+    private static final class Key {
+        private final String number;
+        private final String region;
+        private final int hash;
+
+        Key(String number, String region) {
+            this.number = number;
+            this.region = region;
+            this.hash = 31 * number.hashCode() + (region == null ? 0 : region.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && number.equals(other.number)
+                && (region == null ? other.region == null : region.equals(other.region));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /*
+     * A parse result, the PhoneNumber or the error type and message of the failure. The exception
+     * itself is never kept, callers which need one create their own.
+     */
+    static final class Entry {
+        private final PhoneNumber phoneNumber;
+        // true for entries in the cache, whose PhoneNumber must be copied for the caller
+        private final boolean shared;
+        private final NumberParseException.ErrorType failureType;
+        private final String failureMessage;
+
+        private Entry(PhoneNumber phoneNumber, boolean shared, NumberParseException.ErrorType failureType,
+            String failureMessage) {
+
+            this.phoneNumber = phoneNumber;
+            this.shared = shared;
+            this.failureType = failureType;
+            this.failureMessage = failureMessage;
+        }
+
+        /*
+         * The parsed number owned by the caller, null if parsing failed.
+         */
+        PhoneNumber phoneNumberForCaller() {
+            return phoneNumber == null || !shared ? phoneNumber : new PhoneNumber().mergeFrom(phoneNumber);
+        }
+
+        NumberParseException.ErrorType getFailureType() {
+            return failureType;
+        }
+
+        String getFailureMessage() {
+            return failureMessage;
+        }
+    }
+
+    public static final class Builder {
+        private long maximumSize = 100_000;
+        private long maximumWeight = Long.MAX_VALUE;
+        private int concurrencyLevel = 16;
+        private boolean cacheFailures = true;
+
+        private Builder() {
+        }
+
+        /**
+         * Maximum number of entries, 100 000 by default.
+         * @param maximumSize the maximum number of entries
+         * @return this builder
+         */
+        public Builder maximumSize(long maximumSize) {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Maximum estimated heap used by the entries, unbounded by default.
+         * @param maximumWeightBytes the maximum weight in bytes
+         * @return this builder
+         */
+        public Builder maximumWeight(long maximumWeightBytes) {
+            if (maximumWeightBytes <= 0) {
+                throw new IllegalArgumentException("maximumWeight must be positive: " + maximumWeightBytes);
+            }
+            this.maximumWeight = maximumWeightBytes;
+            return this;
+        }
+
+        /**
+         * Expected number of concurrently accessing threads, 16 by default.
+         * @param concurrencyLevel the number of independently locked segments
+         * @return this builder
+         */
+        public Builder concurrencyLevel(int concurrencyLevel) {
+            if (concurrencyLevel <= 0 || concurrencyLevel > (1 << 16)) {
+                throw new IllegalArgumentException("concurrencyLevel out of range: " + concurrencyLevel);
+            }
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        /**
+         * Whether inputs which fail to parse are cached as well, true by default.
+         * @param cacheFailures true to cache failed parses
+         * @return this builder
+         */
+        public Builder cacheFailures(boolean cacheFailures) {
+            this.cacheFailures = cacheFailures;
+            return this;
+        }
+
+        public PhoneNumberParseCache build() {
+            return new PhoneNumberParseCache(this);
+        }
+    }
+}
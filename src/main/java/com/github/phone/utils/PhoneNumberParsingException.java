@@ -1,20 +1,65 @@
 package com.github.phone.utils;
 
+import com.google.i18n.phonenumbers.NumberParseException;
+
 public class PhoneNumberParsingException extends RuntimeException {
 
     private static final long serialVersionUID = 1L;
 
+    private static volatile boolean stackTraceEnabled =
+        !Boolean.getBoolean("com.github.phone.utils.stacklessExceptions");
+
+    private final FailureReason failureReason;
 
     public PhoneNumberParsingException(Throwable cause) {
-        super(cause.getCause());
+        this(cause.getCause() == null ? null : cause.getCause().toString(), cause.getCause(), reasonOf(cause));
     }
 
     public PhoneNumberParsingException(String message) {
-        super(message);
+        this(message, null, null);
     }
 
     public PhoneNumberParsingException(String message, Throwable cause) {
-        super(message, cause instanceof PhoneNumberParsingException ? cause.getCause() : cause);
+        this(message, cause instanceof PhoneNumberParsingException ? cause.getCause() : cause, reasonOf(cause));
+    }
+
+    public PhoneNumberParsingException(FailureReason failureReason, String message) {
+        this(message, null, failureReason);
     }
 
+    private PhoneNumberParsingException(String message, Throwable cause, FailureReason failureReason) {
+        super(message, cause, true, stackTraceEnabled);
+        this.failureReason = failureReason;
+    }
+
+    /**
+     * Stack traces are filled in by default. Without them, creating the exception costs about as much
+     * as any other small object, which matters when bad input is common. The default can also be
+     * switched off with the system property {@code com.github.phone.utils.stacklessExceptions=true}.
+     * @param enabled false for exceptions without stack trace
+     */
+    public static void setStackTraceEnabled(boolean enabled) {
+        stackTraceEnabled = enabled;
+    }
+
+    public static boolean isStackTraceEnabled() {
+        return stackTraceEnabled;
+    }
+
+    /**
+     * @return why parsing failed, null if not known
+     */
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    private static FailureReason reasonOf(Throwable cause) {
+        if (cause instanceof NumberParseException) {
+            return FailureReason.of((NumberParseException) cause);
+        }
+        if (cause instanceof PhoneNumberParsingException) {
+            return ((PhoneNumberParsingException) cause).getFailureReason();
+        }
+        return null;
+    }
 }
@@ -0,0 +1,453 @@
+package com.github.phone.utils;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Reactive Streams processor normalizing a stream of phone numbers to E.164, for endless inputs
+ * like message queues which can not be collected into a list first.
+ *
+ * <p>At most {@code bufferSize} numbers are requested from upstream which have not left the
+ * processor yet, so memory stays bounded whatever the rates of both sides. Up to
+ * {@code parallelism} numbers are normalized at the same time on the executor. In ordered mode
+ * numbers leave in input order, in unordered mode as soon as they are done. Numbers which can not
+ * be normalized do not fail the stream, they go to the rejects consumer and use no downstream
+ * demand. An error from upstream is passed on after the numbers received before it.
+ *
+ * <p>The processor has a single subscriber. Java 9 and later code gets a
+ * {@code java.util.concurrent.Flow.Processor} from {@code FlowAdapters.toFlowProcessor(processor)}
+ * of the (optional) reactive-streams dependency.
+ *
+ * <pre>
+ * PhoneNumberProcessor processor = PhoneNumberProcessor.builder()
+ *         .defaultCountryCode("+47").parallelism(4).bufferSize(1024).ordered(false)
+ *         .rejects(rejected -&gt; deadLetters.send(rejected.getInput()))
+ *         .build();
+ * source.subscribe(processor);
+ * processor.subscribe(sink);
+ * </pre>
+ */
+public final class PhoneNumberProcessor implements Processor<String, NormalizedPhone> {
+
+    private final PhoneNumberEngine engine;
+    private final String defaultCountryCode;
+    private final Executor executor;
+    private final int parallelism;
+    private final int bufferSize;
+    private final int replenishSize;
+    private final boolean ordered;
+    private final Consumer<NormalizedPhone> rejects;
+
+    private final AtomicReference<Subscription> upstream = new AtomicReference<>();
+    private final AtomicReference<Subscriber<? super NormalizedPhone>> downstream = new AtomicReference<>();
+    // set once onSubscribe of the downstream subscriber returned, nothing is signalled before
+    private volatile Subscriber<? super NormalizedPhone> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+
+    private final Queue<Item> inputs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    // received but not yet emitted or rejected, never more than bufferSize
+    private final AtomicInteger outstanding = new AtomicInteger();
+    // ordered mode: results by sequence modulo bufferSize; unordered mode: results as they complete
+    private final AtomicReferenceArray<NormalizedPhone> results;
+    private final Queue<NormalizedPhone> completed = new ConcurrentLinkedQueue<>();
+
+    // serializes the drain loop, which alone signals downstream and calls the rejects consumer
+    private final AtomicInteger wip = new AtomicInteger();
+    private long nextSequence;
+    private long emitSequence;
+    private NormalizedPhone held;
+    private int consumed;
+    private boolean terminated;
+
+    private volatile boolean done;
+    private volatile Throwable upstreamError;
+    private volatile Throwable failure;
+    private volatile boolean cancelled;
+
+    private final LongAdder normalizedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private PhoneNumberProcessor(Builder builder) {
+        this.engine = builder.engine != null ? builder.engine : PhoneNumberUtils.getEngine();
+        this.defaultCountryCode = builder.defaultCountryCode;
+        this.executor = builder.executor;
+        this.parallelism = builder.parallelism;
+        this.bufferSize = builder.bufferSize;
+        this.replenishSize = Math.max(1, bufferSize / 2);
+        this.ordered = builder.ordered;
+        this.rejects = builder.rejects;
+        this.results = new AtomicReferenceArray<>(ordered ? bufferSize : 0);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (subscription == null) {
+            throw new NullPointerException("subscription is null");
+        }
+        if (!upstream.compareAndSet(null, subscription) || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(String phoneNumber) {
+        if (phoneNumber == null) {
+            throw new NullPointerException("phoneNumber is null");
+        }
+        if (done) {
+            return;
+        }
+        if (outstanding.incrementAndGet() > bufferSize) {
+            fail(new IllegalStateException("Received more numbers than requested"));
+            return;
+        }
+        // onNext is never called concurrently
+        inputs.offer(new Item(nextSequence++, phoneNumber));
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        if (error == null) {
+            throw new NullPointerException("error is null");
+        }
+        upstreamError = error;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super NormalizedPhone> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber is null");
+        }
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("PhoneNumberProcessor allows only one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Requested " + n + ", must be positive"));
+                    return;
+                }
+                requested.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        });
+        this.subscriber = subscriber;
+        drain();
+    }
+
+    /**
+     * @return numbers emitted downstream so far
+     */
+    public long getNormalizedCount() {
+        return normalizedCount.sum();
+    }
+
+    /**
+     * @return numbers given to the rejects consumer so far
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private void fail(Throwable error) {
+        if (failure == null) {
+            failure = error;
+        }
+        done = true;
+        cancelUpstream();
+        drain();
+    }
+
+    private void cancelUpstream() {
+        Subscription subscription = upstream.get();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (cancelled || terminated) {
+                inputs.clear();
+                completed.clear();
+                held = null;
+            } else {
+                dispatch();
+                emit();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void dispatch() {
+        while (failure == null && running.get() < parallelism) {
+            Item item = inputs.poll();
+            if (item == null) {
+                return;
+            }
+            running.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    NormalizedPhone result = normalize(item);
+                    if (ordered) {
+                        results.set((int) (result.getSequence() % bufferSize), result);
+                    } else {
+                        completed.offer(result);
+                    }
+                    running.decrementAndGet();
+                    drain();
+                });
+            } catch (RejectedExecutionException e) {
+                failure = e;
+                done = true;
+                cancelUpstream();
+            }
+        }
+    }
+
+    private NormalizedPhone normalize(Item item) {
+        ParseOutcome<String> outcome = defaultCountryCode == null
+            ? engine.tryNormalizePhoneNumber(item.phoneNumber)
+            : engine.tryAppendCountryCodeIfMissingAndNormalize(item.phoneNumber, defaultCountryCode);
+        return outcome.isSuccess()
+            ? new NormalizedPhone(item.sequence, item.phoneNumber, outcome.get(), null)
+            : new NormalizedPhone(item.sequence, item.phoneNumber, null, outcome.getFailureReason());
+    }
+
+    private void emit() {
+        Subscriber<? super NormalizedPhone> target = subscriber;
+        if (failure != null) {
+            terminate(target);
+            return;
+        }
+        long demand = requested.get();
+        long sent = 0;
+        for (NormalizedPhone next = peek(); next != null; next = peek()) {
+            if (next.isValid()) {
+                if (target == null || sent == demand) {
+                    break;
+                }
+                target.onNext(next);
+                normalizedCount.increment();
+                sent++;
+            } else {
+                try {
+                    rejects.accept(next);
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+                rejectedCount.increment();
+            }
+            remove();
+        }
+        if (sent > 0 && demand != Long.MAX_VALUE) {
+            requested.addAndGet(-sent);
+        }
+        if (done && outstanding.get() == 0) {
+            terminate(target);
+        }
+    }
+
+    private NormalizedPhone peek() {
+        if (ordered) {
+            return results.get((int) (emitSequence % bufferSize));
+        }
+        if (held == null) {
+            held = completed.poll();
+        }
+        return held;
+    }
+
+    private void remove() {
+        if (ordered) {
+            results.set((int) (emitSequence++ % bufferSize), null);
+        } else {
+            held = null;
+        }
+        outstanding.decrementAndGet();
+        if (!done && ++consumed == replenishSize) {
+            consumed = 0;
+            upstream.get().request(replenishSize);
+        }
+    }
+
+    private void terminate(Subscriber<? super NormalizedPhone> target) {
+        if (target == null) {
+            return;
+        }
+        terminated = true;
+        Throwable error = failure != null ? failure : upstreamError;
+        if (error != null) {
+            target.onError(error);
+        } else {
+            target.onComplete();
+        }
+    }
+
+    private static final class Item {
+        final long sequence;
+        final String phoneNumber;
+
+        Item(long sequence, String phoneNumber) {
+            this.sequence = sequence;
+            this.phoneNumber = phoneNumber;
+        }
+    }
+
+    public static final class Builder {
+        private PhoneNumberEngine engine;
+        private String defaultCountryCode;
+        private Executor executor = ForkJoinPool.commonPool();
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int bufferSize = 256;
+        private boolean ordered = true;
+        private Consumer<NormalizedPhone> rejects = rejected -> {
+        };
+
+        private Builder() {
+        }
+
+        /**
+         * Engine normalizing the numbers, the one {@link PhoneNumberUtils} delegates to by default.
+         * @param engine the engine
+         * @return this builder
+         */
+        public Builder engine(PhoneNumberEngine engine) {
+            if (engine == null) {
+                throw new IllegalArgumentException("engine is null");
+            }
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Country code for numbers without one, none by default, so only full numbers are normalized.
+         * @param defaultCountryCode the country code, e.g. "+47"
+         * @return this builder
+         */
+        public Builder defaultCountryCode(String defaultCountryCode) {
+            this.defaultCountryCode = defaultCountryCode;
+            return this;
+        }
+
+        /**
+         * Executor normalizing the numbers, the common ForkJoinPool by default.
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Most numbers normalized at the same time, the number of processors by default.
+         * @param parallelism the number of numbers
+         * @return this builder
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Most numbers requested from upstream which have not left the processor, 256 by default.
+         * @param bufferSize the number of numbers
+         * @return this builder
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize <= 0) {
+                throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * True to emit numbers in input order (the default), false to emit them as soon as they are
+         * normalized, which keeps one slow number from holding up the others.
+         * @param ordered the output mode
+         * @return this builder
+         */
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * Consumer of the numbers which could not be normalized, called in order with the emitted
+         * numbers and never concurrently. Ignores them by default. If it throws, the stream fails.
+         * @param rejects the consumer
+         * @return this builder
+         */
+        public Builder rejects(Consumer<NormalizedPhone> rejects) {
+            if (rejects == null) {
+                throw new IllegalArgumentException("rejects is null");
+            }
+            this.rejects = rejects;
+            return this;
+        }
+
+        public PhoneNumberProcessor build() {
+            return new PhoneNumberProcessor(this);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.github.phone.utils;
+
+/**
+ * Single pass, regex free clean up of raw phone number input.
+ *
+ * <p>Characters are classified through a lookup table, so no {@link java.util.regex.Pattern} is
+ * compiled or matched and no intermediate strings are created. Decimal digits of any script,
+ * e.g. fullwidth "４５" or Arabic-Indic "٤٥", are mapped to their ASCII value instead of being
+ * dropped, and the fullwidth plus sign is treated like "+".
+ *
+ * <p>Every cleaning method has overloads writing into a caller supplied {@link StringBuilder}
+ * or {@code char[]}, so bulk jobs can reuse one buffer for all records.
+ */
+public final class PhoneNumberSanitizer {
+
+    private static final byte OTHER = 0;
+    private static final byte DIGIT = 1;
+    private static final byte PLUS = 2;
+    private static final byte LETTER = 3;
+    private static final byte WHITESPACE = 4;
+    private static final byte DOT = 5;
+    private static final byte UNDERSCORE = 6;
+
+    private static final char FULLWIDTH_PLUS = '＋';
+
+    private static final byte[] ASCII_CLASSES = new byte[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            ASCII_CLASSES[c] = DIGIT;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            ASCII_CLASSES[c] = LETTER;
+            ASCII_CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        ASCII_CLASSES['+'] = PLUS;
+        ASCII_CLASSES['.'] = DOT;
+        ASCII_CLASSES['_'] = UNDERSCORE;
+        for (char c : new char[] {' ', '\t', '\n', '\u000B', '\f', '\r'}) {
+            ASCII_CLASSES[c] = WHITESPACE;
+        }
+    }
+
+    private PhoneNumberSanitizer() {
+    }
+
+    /**
+     * Value of a decimal digit of any script.
+     * @param c the character
+     * @return 0 to 9, or -1 if c is not a decimal digit
+     */
+    public static int digit(char c) {
+        if (c < 128) {
+            return ASCII_CLASSES[c] == DIGIT ? c - '0' : -1;
+        }
+        return Character.digit(c, 10);
+    }
+
+    /**
+     * Removes everything except digits and +, digits are converted to ASCII.
+     * @param input raw input, may be null
+     * @return the cleaned input, null if input is null
+     */
+    public static String keepDigitsAndPlus(CharSequence input) {
+        if (input == null) {
+            return null;
+        }
+        if (input instanceof String && isDigitsAndPlusOnly(input)) {
+            return (String) input;
+        }
+        return keepDigitsAndPlus(input, new StringBuilder(input.length())).toString();
+    }
+
+    /**
+     * Appends the digits and + of the input, digits converted to ASCII.
+     * @param input raw input
+     * @param out the builder to append to
+     * @return out
+     */
+    public static StringBuilder keepDigitsAndPlus(CharSequence input, StringBuilder out) {
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            int digit = digit(c);
+            if (digit >= 0) {
+                out.append((char) ('0' + digit));
+            } else if (c == '+' || c == FULLWIDTH_PLUS) {
+                out.append('+');
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Writes the digits and + of the input into dst, digits converted to ASCII.
+     * @param input raw input
+     * @param dst destination, needs room for input.length() characters in the worst case
+     * @param offset first index of dst to write
+     * @return number of characters written
+     */
+    public static int keepDigitsAndPlus(CharSequence input, char[] dst, int offset) {
+        int position = offset;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            int digit = digit(c);
+            if (digit >= 0) {
+                dst[position++] = (char) ('0' + digit);
+            } else if (c == '+' || c == FULLWIDTH_PLUS) {
+                dst[position++] = '+';
+            }
+        }
+        return position - offset;
+    }
+
+    /**
+     * Removes everything except digits, digits are converted to ASCII.
+     * @param input raw input, may be null
+     * @return the digits, null if input is null
+     */
+    public static String digitsOnly(CharSequence input) {
+        if (input == null) {
+            return null;
+        }
+        return digitsOnly(input, new StringBuilder(input.length())).toString();
+    }
+
+    /**
+     * Appends the digits of the input, converted to ASCII.
+     * @param input raw input
+     * @param out the builder to append to
+     * @return out
+     */
+    public static StringBuilder digitsOnly(CharSequence input, StringBuilder out) {
+        for (int i = 0, length = input.length(); i < length; i++) {
+            int digit = digit(input.charAt(i));
+            if (digit >= 0) {
+                out.append((char) ('0' + digit));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Writes the digits of the input into dst, converted to ASCII.
+     * @param input raw input
+     * @param dst destination, needs room for input.length() characters in the worst case
+     * @param offset first index of dst to write
+     * @return number of digits written
+     */
+    public static int digitsOnly(CharSequence input, char[] dst, int offset) {
+        int position = offset;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            int digit = digit(input.charAt(i));
+            if (digit >= 0) {
+                dst[position++] = (char) ('0' + digit);
+            }
+        }
+        return position - offset;
+    }
+
+    /**
+     * Reads all digits of the input as one number, ignoring every other character.
+     * @param input raw input
+     * @return the number, or -1 if the input has no digits
+     * @throws NumberFormatException if the digits do not fit into a long
+     */
+    public static long parseDigits(CharSequence input) {
+        long value = 0;
+        boolean found = false;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            int digit = digit(input.charAt(i));
+            if (digit >= 0) {
+                found = true;
+                if (value > (Long.MAX_VALUE - digit) / 10) {
+                    throw new NumberFormatException("Too many digits for a long: " + input);
+                }
+                value = value * 10 + digit;
+            }
+        }
+        return found ? value : -1;
+    }
+
+    /**
+     * Reads a country code like "+47", "47" or "0047". Punctuation is ignored, letters,
+     * whitespace, dots and underscores are not accepted.
+     * @param countryCode country code as given by the user
+     * @return the country code
+     * @throws NumberFormatException if the input is not a country code
+     */
+    public static int parseCountryCode(CharSequence countryCode) {
+        if (countryCode == null) {
+            throw new NumberFormatException("Country code is null");
+        }
+        int value = 0;
+        boolean found = false;
+        for (int i = 0, length = countryCode.length(); i < length; i++) {
+            char c = countryCode.charAt(i);
+            int digit = digit(c);
+            if (digit >= 0) {
+                if (value > (Integer.MAX_VALUE - digit) / 10) {
+                    throw new NumberFormatException("Country code too long: " + countryCode);
+                }
+                found = true;
+                value = value * 10 + digit;
+            } else if (c < 128 && ASCII_CLASSES[c] != OTHER && ASCII_CLASSES[c] != PLUS) {
+                throw new NumberFormatException("Not a country code: " + countryCode);
+            }
+        }
+        if (!found) {
+            throw new NumberFormatException("Not a country code: " + countryCode);
+        }
+        return value;
+    }
+
+    /**
+     * Appends the digits following the first "+" or "00" of the input, spaces are ignored.
+     * "+47" and "00 47" both give "47", "47" gives nothing.
+     * @param countryCode country code as given by the user
+     * @param out the builder to append to
+     * @return true if a country code was found
+     */
+    public static boolean appendCleanCountryCode(CharSequence countryCode, StringBuilder out) {
+        int length = countryCode.length();
+        for (int i = nextNonSpace(countryCode, 0); i < length; i = nextNonSpace(countryCode, i + 1)) {
+            char c = countryCode.charAt(i);
+            int start = -1;
+            if (c == '+' || c == FULLWIDTH_PLUS) {
+                start = nextNonSpace(countryCode, i + 1);
+            } else if (digit(c) == 0) {
+                int next = nextNonSpace(countryCode, i + 1);
+                if (next < length && digit(countryCode.charAt(next)) == 0) {
+                    start = nextNonSpace(countryCode, next + 1);
+                }
+            }
+            if (start >= 0 && start < length && digit(countryCode.charAt(start)) >= 0) {
+                for (int j = start; j < length; j = nextNonSpace(countryCode, j + 1)) {
+                    int digit = digit(countryCode.charAt(j));
+                    if (digit < 0) {
+                        break;
+                    }
+                    out.append((char) ('0' + digit));
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the input contains two ASCII letters in a row, which no phone number does.
+     * @param input raw input
+     * @return true if two consecutive letters were found
+     */
+    public static boolean containsLetterPair(CharSequence input) {
+        boolean previousIsLetter = false;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            boolean letter = c < 128 && ASCII_CLASSES[c] == LETTER;
+            if (letter && previousIsLetter) {
+                return true;
+            }
+            previousIsLetter = letter;
+        }
+        return false;
+    }
+
+    private static boolean isDigitsAndPlusOnly(CharSequence input) {
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            if (c >= 128 || (ASCII_CLASSES[c] != DIGIT && ASCII_CLASSES[c] != PLUS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int nextNonSpace(CharSequence input, int from) {
+        int i = from;
+        while (i < input.length() && input.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+}
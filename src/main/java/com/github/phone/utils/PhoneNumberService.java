@@ -0,0 +1,364 @@
+package com.github.phone.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Normalizes phone numbers for many concurrent callers, in micro-batches and with identical
+ * requests coalesced.
+ *
+ * <p>Requests are collected until {@code maxBatchSize} of them are waiting or the first one has
+ * waited {@code linger}, then the batch runs as one task on the executor. While a number is waiting
+ * or being normalized, further requests for it join the pending computation instead of queueing
+ * again (single-flight), so a number hammered by thousands of threads is normalized once per batch.
+ * Every caller gets its own future, cancelling it does not affect the other callers.
+ *
+ * <pre>
+ * try (PhoneNumberService service = PhoneNumberService.builder()
+ *         .maxBatchSize(256).linger(200, TimeUnit.MICROSECONDS).build()) {
+ *     service.normalize("+47 450 37 118").thenAccept(...);
+ *     service.getBatchSizeHistogram().getValueAtPercentile(0.99);
+ * }
+ * </pre>
+ */
+public final class PhoneNumberService implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final PhoneNumberEngine engine;
+    private final Executor executor;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram waitMicros = new Histogram();
+
+    private PhoneNumberService(Builder builder) {
+        this.engine = builder.engine != null ? builder.engine : PhoneNumberUtils.getEngine();
+        this.executor = builder.executor;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.lingerNanos = builder.lingerNanos;
+        this.dispatcher = new Thread(this::dispatch, "phone-utils-service-" + THREAD_COUNT.incrementAndGet());
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param phoneNumber Full phone number, starting with +
+     * @return completes like {@link PhoneNumberEngine#normalizePhoneNumber(String)} of the engine returns or throws
+     * @throws IllegalStateException if the service is closed
+     */
+    public CompletableFuture<String> normalize(String phoneNumber) {
+        if (closed) {
+            throw new IllegalStateException("PhoneNumberService is closed");
+        }
+        requests.increment();
+        if (phoneNumber == null) {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            complete(result, null);
+            return result;
+        }
+        CompletableFuture<String> pending = inFlight.get(phoneNumber);
+        if (pending == null) {
+            CompletableFuture<String> created = new CompletableFuture<>();
+            pending = inFlight.putIfAbsent(phoneNumber, created);
+            if (pending == null) {
+                queue.add(new Request(phoneNumber, created, System.nanoTime()));
+                if (closed) {
+                    // closed while adding, the dispatcher may be gone already
+                    drainQueue();
+                }
+                pending = created;
+            } else {
+                coalesced.increment();
+            }
+        } else {
+            coalesced.increment();
+        }
+        // a copy per caller, so one caller cancelling does not cancel the others
+        return pending.thenApply(normalized -> normalized);
+    }
+
+    /**
+     * Stops taking requests. Requests already taken are still completed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+    }
+
+    /**
+     * @return number of normalize calls
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return number of normalize calls which joined a pending computation of the same number
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return distinct numbers per batch
+     */
+    public Histogram getBatchSizeHistogram() {
+        return batchSizes;
+    }
+
+    /**
+     * @return microseconds requests waited for their batch to start
+     */
+    public Histogram getWaitTimeHistogram() {
+        return waitMicros;
+    }
+
+    private void dispatch() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Request first = closed ? queue.poll() : queue.take();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedAt + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = closed ? 0 : deadline - System.nanoTime();
+                    Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // close() wakes us up, what is queued is still dispatched
+            }
+            if (!batch.isEmpty()) {
+                submit(new ArrayList<>(batch));
+                batch.clear();
+            }
+        }
+    }
+
+    private void drainQueue() {
+        List<Request> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            submit(rest);
+        }
+    }
+
+    private void submit(List<Request> batch) {
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            for (Request request : batch) {
+                inFlight.remove(request.phoneNumber, request.result);
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void run(List<Request> batch) {
+        long start = System.nanoTime();
+        batchSizes.record(batch.size());
+        for (Request request : batch) {
+            waitMicros.record(TimeUnit.NANOSECONDS.toMicros(start - request.enqueuedAt));
+            complete(request.result, request.phoneNumber);
+            // later requests for the number start a new computation
+            inFlight.remove(request.phoneNumber, request.result);
+        }
+    }
+
+    private void complete(CompletableFuture<String> result, String phoneNumber) {
+        try {
+            result.complete(engine.normalizePhoneNumber(phoneNumber));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static final class Request {
+        final String phoneNumber;
+        final CompletableFuture<String> result;
+        final long enqueuedAt;
+
+        Request(String phoneNumber, CompletableFuture<String> result, long enqueuedAt) {
+            this.phoneNumber = phoneNumber;
+            this.result = result;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Histogram with power of two buckets: bucket 0 counts the value 0, bucket i the values from
+     * 2^(i-1) to 2^i - 1. Percentiles are reported as the upper bound of their bucket, so they are
+     * accurate to a factor of two, which is what is needed to tune batch size and linger time.
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = Long.SIZE;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        Histogram() {
+        }
+
+        void record(long value) {
+            long positive = Math.max(0, value);
+            counts.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(positive));
+            count.increment();
+            sum.add(positive);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /**
+         * @param bucket bucket index, 0 to 63
+         * @return number of values recorded in the bucket
+         */
+        public long getBucketCount(int bucket) {
+            return counts.get(bucket);
+        }
+
+        /**
+         * @param percentile between 0 and 1, e.g. 0.99
+         * @return upper bound of the bucket holding the percentile, 0 if nothing was recorded
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException("percentile must be between 0 and 1: " + percentile);
+            }
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank && snapshot[i] > 0) {
+                    return upperBound(i);
+                }
+            }
+            return 0;
+        }
+
+        private static long upperBound(int bucket) {
+            // 2^63 - 1 overflows to Long.MAX_VALUE for the last bucket
+            return (1L << bucket) - 1;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + getCount() + ", mean=" + String.format("%.1f", getMean())
+                + ", p50=" + getValueAtPercentile(0.5) + ", p99=" + getValueAtPercentile(0.99)
+                + ", max=" + getValueAtPercentile(1);
+        }
+    }
+
+    public static final class Builder {
+        private PhoneNumberEngine engine;
+        private Executor executor = ForkJoinPool.commonPool();
+        private int maxBatchSize = 128;
+        private long lingerNanos = TimeUnit.MICROSECONDS.toNanos(100);
+
+        private Builder() {
+        }
+
+        /**
+         * Engine normalizing the numbers, the one {@link PhoneNumberUtils} delegates to by default.
+         * @param engine the engine
+         * @return this builder
+         */
+        public Builder engine(PhoneNumberEngine engine) {
+            if (engine == null) {
+                throw new IllegalArgumentException("engine is null");
+            }
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Executor running the batches, the common ForkJoinPool by default.
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Most distinct numbers per batch, 128 by default.
+         * @param maxBatchSize the number of numbers
+         * @return this builder
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Longest time the first request of a batch waits for more requests, 100 microseconds by
+         * default. 0 dispatches whatever is waiting right away.
+         * @param linger the time
+         * @param unit unit of the time
+         * @return this builder
+         */
+        public Builder linger(long linger, TimeUnit unit) {
+            if (linger < 0) {
+                throw new IllegalArgumentException("linger is negative: " + linger);
+            }
+            this.lingerNanos = unit.toNanos(linger);
+            return this;
+        }
+
+        public PhoneNumberService build() {
+            return new PhoneNumberService(this);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.phone.utils;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Set of {@link PackedPhoneNumber packed phone numbers} backed by a single {@code long[]}.
+ *
+ * <p>Open addressing with linear probing, so there is no boxing and no per entry object: a
+ * number costs 8 to 16 bytes instead of the ~100 bytes of a String in a {@link java.util.HashSet}.
+ * Packed numbers are never 0, which marks a free slot. Numbers can not be removed.
+ *
+ * <p>Not thread-safe, see {@link ConcurrentPhoneNumberSet}.
+ *
+ * <pre>
+ * PhoneNumberSet seen = new PhoneNumberSet();
+ * if (seen.add(PackedPhoneNumber.parse(number))) {
+ *     // first time this number shows up
+ * }
+ * </pre>
+ */
+public final class PhoneNumberSet {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public PhoneNumberSet() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param expectedSize number of numbers the set holds without growing
+     */
+    public PhoneNumberSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Negative expected size: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * @param packedPhoneNumber packed phone number
+     * @return true if the number was not in the set before
+     * @throws IllegalArgumentException if the value is not a packed phone number
+     */
+    public boolean add(long packedPhoneNumber) {
+        checkPacked(packedPhoneNumber);
+        int slot = slot(packedPhoneNumber);
+        while (table[slot] != 0) {
+            if (table[slot] == packedPhoneNumber) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == MAX_CAPACITY - 1) {
+            throw new IllegalStateException("PhoneNumberSet is full");
+        }
+        table[slot] = packedPhoneNumber;
+        if (++size > resizeAt && table.length < MAX_CAPACITY) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long packedPhoneNumber) {
+        if (!PackedPhoneNumber.isPacked(packedPhoneNumber)) {
+            return false;
+        }
+        int slot = slot(packedPhoneNumber);
+        while (table[slot] != 0) {
+            if (table[slot] == packedPhoneNumber) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        size = 0;
+    }
+
+    /**
+     * Calls the action for every number, in no particular order.
+     * @param action receives the packed numbers
+     */
+    public void forEach(LongConsumer action) {
+        for (long value : table) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * @return the packed numbers, sorted
+     */
+    public long[] toSortedArray() {
+        long[] values = new long[size];
+        int i = 0;
+        for (long value : table) {
+            if (value != 0) {
+                values[i++] = value;
+            }
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    static void checkPacked(long packedPhoneNumber) {
+        if (!PackedPhoneNumber.isPacked(packedPhoneNumber)) {
+            throw new IllegalArgumentException("Not a packed phone number: " + packedPhoneNumber);
+        }
+    }
+
+    /*
+     * Finalizer of MurmurHash3, packed numbers of one country differ in the low bits only.
+     */
+    static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private int slot(long packedPhoneNumber) {
+        return (int) mix(packedPhoneNumber) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        // load factor of 0.5 keeps the probe sequences short
+        long capacity = MIN_CAPACITY;
+        while (capacity < 2L * expectedSize && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        return (int) capacity;
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity >>> 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        allocate(capacity);
+        for (long value : old) {
+            if (value != 0) {
+                int slot = slot(value);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+}
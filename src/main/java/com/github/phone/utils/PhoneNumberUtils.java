@@ -1,55 +1,116 @@
 package com.github.phone.utils;
 
-import com.google.i18n.phonenumbers.NumberParseException;
-import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
 import com.google.i18n.phonenumbers.Phonenumber;
 import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public class PhoneNumberUtils {
 
-    private static Logger log = LoggerFactory.getLogger(PhoneNumberUtils.class);
+    static final com.google.i18n.phonenumbers.PhoneNumberUtil PHONE_UTIL =
+        com.google.i18n.phonenumbers.PhoneNumberUtil.getInstance();
 
-    private static final String EMPTY_COUNTRY_CODE = "null";
-    private static final String UNKNOWN_REGION = "ZZ";
-    private static final String JUST_NUMBERS = "[^\\w\\s\\.]";
+    private static volatile PhoneNumberEngine engine = PhoneNumberEngine.builder().build();
 
-    static com.google.i18n.phonenumbers.PhoneNumberUtil phoneUtil;
+    /**
+     * Replaces the engine all methods of this class delegate to, e.g. with one having another
+     * default country code for {@link #validatePhoneNumbers(List)}.
+     * @param defaultEngine the engine
+     */
+    public static synchronized void setEngine(PhoneNumberEngine defaultEngine) {
+        if (defaultEngine == null) {
+            throw new IllegalArgumentException("engine is null");
+        }
+        engine = defaultEngine;
+    }
 
-    static {
-        phoneUtil = com.google.i18n.phonenumbers.PhoneNumberUtil.getInstance();
+    /**
+     * @return the engine all methods of this class delegate to
+     */
+    public static PhoneNumberEngine getEngine() {
+        return engine;
     }
 
-    public static Phonenumber.PhoneNumber parsePhoneByGoogle(String phone, String country) {
+    /**
+     * Enables caching of parse results for all methods of this class.
+     * @param cache the cache to use, or null to parse every input from scratch (the default)
+     */
+    public static synchronized void setParseCache(PhoneNumberParseCache cache) {
+        engine = engine.toBuilder().parseCache(cache).build();
+    }
 
-        try {
-            return phoneUtil.parse(phone, country);
+    public static PhoneNumberParseCache getParseCache() {
+        return engine.getParseCache();
+    }
 
-        } catch (NumberParseException e) {
-            log.warn(e.getMessage() + " country: " + country + " phone: " + phone);
+    /**
+     * Sets the listener told about inputs which could not be parsed, instead of logging each of them.
+     * The default is a {@link SampledFailureLogger} with its default settings.
+     * @param listener the listener, {@link FailureListener#NO_OP} to ignore failures
+     */
+    public static synchronized void setFailureListener(FailureListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener is null, use FailureListener.NO_OP");
         }
-        return null;
+        engine = engine.toBuilder().failureListener(listener).build();
+    }
+
+    public static FailureListener getFailureListener() {
+        return engine.getFailureListener();
+    }
+
+    /**
+     * Loads the metadata of the regions and runs their example numbers through parsing, validation
+     * and formatting, so the regular expressions libphonenumber compiles on first use are compiled
+     * before the first real request. Call at startup, e.g. before the service reports ready.
+     * @param regions two letter region codes, e.g. "NO"
+     * @return the time spent per region
+     * @throws IllegalArgumentException if a region is not supported by libphonenumber
+     */
+    public static WarmUpReport warmUp(Collection<String> regions) {
+        return engine.warmUp(regions);
+    }
+
+    /**
+     * {@link #warmUp(Collection)} for every region and non geographical calling code libphonenumber
+     * knows. Takes around a second and loads all metadata.
+     * @return the time spent per region
+     */
+    public static WarmUpReport warmUp() {
+        return engine.warmUp();
+    }
+
+    public static Phonenumber.PhoneNumber parsePhoneByGoogle(String phone, String country) {
+        return engine.parsePhoneByGoogle(phone, country);
+    }
+
+    /**
+     * Exception free {@link #parsePhoneByGoogle(String, String)}, failures are not logged.
+     * @param phone phone number in any format
+     * @param country two letter region code for numbers without country code
+     * @return the Google PhoneNumber object, or the failure reason
+     */
+    public static ParseOutcome<PhoneNumber> tryParsePhoneByGoogle(String phone, String country) {
+        return engine.tryParsePhoneByGoogle(phone, country);
     }
 
     public static boolean hasCountryCode(int code, String phoneNumber) {
-        return isPossibleFullPhoneNumber(phoneNumber) && getCountryCodeFromFullPhoneNumber(phoneNumber) == code;
+        return engine.hasCountryCode(code, phoneNumber);
+    }
+
+    /**
+     * Same as {@link #hasCountryCode(int, String)} for a {@link PackedPhoneNumber}, without parsing.
+     * @param code the country code
+     * @param packedPhoneNumber packed phone number
+     * @return True if the number is possible and has the country code
+     */
+    public static boolean hasCountryCode(int code, long packedPhoneNumber) {
+        return engine.hasCountryCode(code, packedPhoneNumber);
     }
 
     public static boolean hasCountryCode(String phoneNumber) {
-        String changedPhoneNumber = replaceInternationalCallingPrefixWithPlus(phoneNumber);
-        try {
-            getCountryCodeFromFullPhoneNumber(changedPhoneNumber);
-        } catch (Exception e) {
-            return false;
-        }
-        return true;
+        return engine.hasCountryCode(phoneNumber);
     }
 
     /**
@@ -61,12 +122,27 @@ public class PhoneNumberUtils {
      * @throws PhoneNumberParsingException if phone number not valid
      */
     public static int getCountryCodeFromFullPhoneNumber(String fullPhoneNumber) {
-        try {
-            PhoneNumber phoneNumber = phoneUtil.parse(fullPhoneNumber, UNKNOWN_REGION);
-            return phoneNumber.getCountryCode();
-        } catch (NumberParseException e) {
-            throw new PhoneNumberParsingException(e);
-        }
+        return engine.getCountryCodeFromFullPhoneNumber(fullPhoneNumber);
+    }
+
+    /**
+     * Country code of a {@link PackedPhoneNumber}.
+     * @param packedPhoneNumber packed phone number
+     * @return The country code
+     * @throws PhoneNumberParsingException if the value is not a packed phone number
+     */
+    public static int getCountryCodeFromFullPhoneNumber(long packedPhoneNumber) {
+        PackedPhoneNumber.checkPacked(packedPhoneNumber);
+        return PackedPhoneNumber.countryCode(packedPhoneNumber);
+    }
+
+    /**
+     * Exception free {@link #getCountryCodeFromFullPhoneNumber(String)}.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return The country code, or the failure reason
+     */
+    public static ParseOutcome<Integer> tryGetCountryCodeFromFullPhoneNumber(String fullPhoneNumber) {
+        return engine.tryGetCountryCodeFromFullPhoneNumber(fullPhoneNumber);
     }
 
     /**
@@ -76,13 +152,7 @@ public class PhoneNumberUtils {
      * @return True if italian number, false otherwise
      */
     public static boolean isItalianOrUnknownNumber(String fullPhoneNumber) {
-        PhoneNumber phoneNumber;
-        try {
-            phoneNumber = phoneUtil.parse(fullPhoneNumber, UNKNOWN_REGION);
-        } catch (NumberParseException e) {
-            return true;
-        }
-        return phoneNumber.isItalianLeadingZero();
+        return engine.isItalianOrUnknownNumber(fullPhoneNumber);
     }
 
     /**
@@ -93,12 +163,16 @@ public class PhoneNumberUtils {
      * @throws PhoneNumberParsingException if phone number not valid
      */
     public static String getCountryCodeWithPlusSignFromFullPhoneNumber(String fullPhoneNumber) {
-        try {
-            PhoneNumber phoneNumber = phoneUtil.parse(fullPhoneNumber, UNKNOWN_REGION);
-            return "+" + String.valueOf(phoneNumber.getCountryCode());
-        } catch (NumberParseException e) {
-            throw new PhoneNumberParsingException(e);
-        }
+        return engine.getCountryCodeWithPlusSignFromFullPhoneNumber(fullPhoneNumber);
+    }
+
+    /**
+     * Exception free {@link #getCountryCodeWithPlusSignFromFullPhoneNumber(String)}.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return The country code with prefix +, or the failure reason
+     */
+    public static ParseOutcome<String> tryGetCountryCodeWithPlusSignFromFullPhoneNumber(String fullPhoneNumber) {
+        return engine.tryGetCountryCodeWithPlusSignFromFullPhoneNumber(fullPhoneNumber);
     }
 
     /**
@@ -108,17 +182,16 @@ public class PhoneNumberUtils {
      * @throws PhoneNumberParsingException if phone number not valid
      */
     public static String getPhoneNumberWithoutCountryCodeFromFullPhoneNumber(String fullPhoneNumber) {
-        try {
-            PhoneNumber phoneNumber = phoneUtil.parse(fullPhoneNumber, UNKNOWN_REGION);
-            StringBuilder nationalNumber = new StringBuilder();
-            if (phoneNumber.isItalianLeadingZero()) {
-                nationalNumber.append("0");
-            }
-            nationalNumber.append(Long.toString(phoneNumber.getNationalNumber()));
-            return nationalNumber.toString();
-        } catch (NumberParseException e) {
-            throw new PhoneNumberParsingException(e);
-        }
+        return engine.getPhoneNumberWithoutCountryCodeFromFullPhoneNumber(fullPhoneNumber);
+    }
+
+    /**
+     * Exception free {@link #getPhoneNumberWithoutCountryCodeFromFullPhoneNumber(String)}.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return the national number, or the failure reason
+     */
+    public static ParseOutcome<String> tryGetPhoneNumberWithoutCountryCodeFromFullPhoneNumber(String fullPhoneNumber) {
+        return engine.tryGetPhoneNumberWithoutCountryCodeFromFullPhoneNumber(fullPhoneNumber);
     }
 
     /**
@@ -128,12 +201,16 @@ public class PhoneNumberUtils {
      * @throws PhoneNumberParsingException if phone number not valid
      */
     public static PhoneNumber getPhoneNumberObjFromFullPhoneNumber(String fullPhoneNumber) {
+        return engine.getPhoneNumberObjFromFullPhoneNumber(fullPhoneNumber);
+    }
 
-        try {
-            return  phoneUtil.parse(fullPhoneNumber, UNKNOWN_REGION);
-        } catch (NumberParseException e) {
-            throw new PhoneNumberParsingException(e);
-        }
+    /**
+     * Exception free {@link #getPhoneNumberObjFromFullPhoneNumber(String)}.
+     * @param fullPhoneNumber Full phone number, starting with +
+     * @return Google PhoneNumber object, or the failure reason
+     */
+    public static ParseOutcome<PhoneNumber> tryGetPhoneNumberObjFromFullPhoneNumber(String fullPhoneNumber) {
+        return engine.tryGetPhoneNumberObjFromFullPhoneNumber(fullPhoneNumber);
     }
 
     /**
@@ -144,21 +221,19 @@ public class PhoneNumberUtils {
      * @throws PhoneNumberParsingException phone numbers not valid
      */
     public static boolean areNationalNumbersSame(String phone1, String phone2) {
+        return engine.areNationalNumbersSame(phone1, phone2);
+    }
 
-        if (phone1 == null || phone1.isEmpty() || phone2 == null || phone2.isEmpty()) {
-            return false;
-        }
-
-        try {
-
-            Long number1 = getNationalNumber(phone1);
-            Long number2 = getNationalNumber(phone2);
-
-            return !(number1 == null || number2 == null) && number1.equals(number2);
-
-        } catch (PhoneNumberParsingException e) {
-            return false;
-        }
+    /**
+     * Comparing if the national numbers of two packed phone numbers are the same.
+     * Like {@link #areNationalNumbersSame(String, String)} the country codes are not compared.
+     * @param packedPhone1 first packed number to check
+     * @param packedPhone2 second packed number to check
+     * @return True if the same, false otherwise or if a value is not a packed phone number
+     */
+    public static boolean areNationalNumbersSame(long packedPhone1, long packedPhone2) {
+        return PackedPhoneNumber.isPacked(packedPhone1) && PackedPhoneNumber.isPacked(packedPhone2)
+            && PackedPhoneNumber.nationalNumber(packedPhone1) == PackedPhoneNumber.nationalNumber(packedPhone2);
     }
 
     /*
@@ -167,18 +242,7 @@ public class PhoneNumberUtils {
      * number given as input, and with all non numeric characters removed.
      */
     public static Long getNationalNumber(String phoneNumber) {
-        if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
-            return null;
-        }
-        try {
-
-            PhoneNumber phoneObj = getPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(phoneNumber);
-
-            return phoneObj.getNationalNumber();
-
-        } catch (PhoneNumberParsingException e) {
-            return removeAllNonNumeric(phoneNumber);
-        }
+        return engine.getNationalNumber(phoneNumber);
     }
 
     /*
@@ -187,85 +251,56 @@ public class PhoneNumberUtils {
      * https://groups.google.com/forum/#!topic/libphonenumber-discuss/IqP4cC8udn0
      */
     public static PhoneNumber getPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(String fullPhoneNumber) {
+        return engine.getPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(fullPhoneNumber);
+    }
 
-        try {
-
-            return getPhoneNumberObjFromFullPhoneNumber(fullPhoneNumber);
-
-        } catch (PhoneNumberParsingException e) {
-
-            // if doesnt exist, lets add plus prefix and
-            if (fullPhoneNumber == null || fullPhoneNumber.isEmpty()) {
-                throw new PhoneNumberParsingException("Phone number is null or empty: " + fullPhoneNumber);
-            }
-            // a full phone number requires plus prefix, add if it doesn't exist
-            if (!fullPhoneNumber.startsWith("+") && fullPhoneNumber.startsWith("1")) {
-                fullPhoneNumber = "+" + fullPhoneNumber;
-            }
-
-            if (isValidFullPhoneNumberHelper(fullPhoneNumber)) {
-                return getPhoneNumberObjFromFullPhoneNumber(fullPhoneNumber);
-            }
+    /**
+     * Exception free {@link #getPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(String)}.
+     * @param fullPhoneNumber Full phone number, the + may be missing for country code 1
+     * @return Google PhoneNumber object, or the failure reason of the number as given
+     */
+    public static ParseOutcome<PhoneNumber> tryGetPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(
+        String fullPhoneNumber) {
 
-            throw e;
-        }
+        return engine.tryGetPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist(fullPhoneNumber);
     }
 
     /*
      * Checks if number is valid. Adds default country code provided if phone number is not complete.
      */
     public static boolean isValidPhoneNumber(String defaultCountryCode, String phoneNumber) {
-        return isValidFullPhoneNumberHelper(
-                generateFullPhoneNumber(defaultCountryCode, phoneNumber)
-        );
+        return engine.isValidPhoneNumber(defaultCountryCode, phoneNumber);
     }
 
     public static boolean isValidNorwegianPhoneNumber(String phoneNumber) {
         return isValidPhoneNumber("+47", phoneNumber);
     }
 
+    /**
+     * Valid numbers as full phone numbers, numbers without country code get the default country code
+     * of the engine, "+47" unless {@link #setEngine(PhoneNumberEngine)} replaced it.
+     * @param numbers norwegian or full phone numbers
+     * @return the valid numbers as full phone numbers, distinct by input
+     */
     public static List<String> validatePhoneNumbers(List<String> numbers) {
-        if (numbers == null) {
-            return new ArrayList<>();
-        }
-        return numbers.stream()
-                .filter(n -> n != null)
-                .filter(n -> !n.isEmpty())
-                .filter(n -> PhoneNumberUtils.isValidPhoneNumber("+47", n))
-                .distinct()
-                .map(n -> PhoneNumberUtils.generateFullPhoneNumber("+47", n))
-                .collect(Collectors.toList());
+        return engine.validatePhoneNumbers(numbers);
     }
 
-    public static String generateFullPhoneNumber(String defaultCountryCode, String phoneNumber) {
-
-        if (phoneNumber == null) {
-            return null;
-        }
-
-        // else, remove all eventual invalid characters
-        phoneNumber = removeNonInteger(phoneNumber);
-
-        // first check if already valid number
-        if (isValidFullPhoneNumberHelper(phoneNumber)) {
-            return phoneNumber;
-        }
-
-        try {
-
-            String region = phoneUtil.getRegionCodeForCountryCode(Integer.parseInt(defaultCountryCode));
-            PhoneNumber phoneNumberObj = phoneUtil.parse(phoneNumber, region);
-            long phonePrefix = phoneNumberObj.getCountryCode();
-            long nationalNumber = phoneNumberObj.getNationalNumber();
-
-            return "+" + phonePrefix + nationalNumber;
-
-        } catch (NumberParseException | NumberFormatException e) {
-            log.error(e.getMessage(), e);
-        }
+    /**
+     * Like {@link #validatePhoneNumbers(List)}, but with distinctAfterNormalization the duplicates are
+     * removed after the numbers are normalized, so "+47 450 37 118" and "45037118" count as the same
+     * number. The first occurrence is kept, in input order. Seen numbers are held packed in a
+     * {@link PhoneNumberSet}.
+     * @param numbers norwegian or full phone numbers
+     * @param distinctAfterNormalization false for the behaviour of {@link #validatePhoneNumbers(List)}
+     * @return the valid numbers as full phone numbers
+     */
+    public static List<String> validatePhoneNumbers(List<String> numbers, boolean distinctAfterNormalization) {
+        return engine.validatePhoneNumbers(numbers, distinctAfterNormalization);
+    }
 
-        // we give up
-        return phoneNumber;
+    public static String generateFullPhoneNumber(String defaultCountryCode, String phoneNumber) {
+        return engine.generateFullPhoneNumber(defaultCountryCode, phoneNumber);
     }
 
     public static String generateFullNorwegianPhoneNumber(String phoneNumber) {
@@ -278,59 +313,63 @@ public class PhoneNumberUtils {
     public static PhoneNumber parseNumber(String fullPhoneNumber, String defaultCountryCode, String phoneNumber)
         throws PhoneNumberParsingException {
 
-        try {
-            // first check if already valid number
-            if (isValidFullPhoneNumberHelper(fullPhoneNumber)) {
-                return phoneUtil.parse(fullPhoneNumber, UNKNOWN_REGION);
-            }
-            return parseNumber(defaultCountryCode, phoneNumber);
-
-        } catch (NumberParseException e) {
-            throw new PhoneNumberParsingException(e);
-        }
+        return engine.parseNumber(fullPhoneNumber, defaultCountryCode, phoneNumber);
     }
 
     public static PhoneNumber parseNumber(String countryCode, String phoneNumber) throws PhoneNumberParsingException {
+        return engine.parseNumber(countryCode, phoneNumber);
+    }
 
-        if (phoneNumber == null) {
-            throw new PhoneNumberParsingException("Input phone number is null");
-        }
-
-        // else, remove all eventual invalid characters
-        phoneNumber = removeNonInteger(phoneNumber);
-
-        try {
-
-            // first check if already valid number
-            if (isValidFullPhoneNumberHelper(phoneNumber)) {
-                return phoneUtil.parse(phoneNumber, UNKNOWN_REGION);
-            }
+    /**
+     * Exception free {@link #parseNumber(String, String, String)}.
+     * @param fullPhoneNumber Full phone number, starting with +, used if valid
+     * @param defaultCountryCode country code for phoneNumber if it has none
+     * @param phoneNumber phone number used if fullPhoneNumber is not valid
+     * @return Google PhoneNumber object, or the failure reason of phoneNumber
+     */
+    public static ParseOutcome<PhoneNumber> tryParseNumber(String fullPhoneNumber, String defaultCountryCode,
+        String phoneNumber) {
 
-            String region = phoneUtil.getRegionCodeForCountryCode(Integer.parseInt(countryCode));
-            PhoneNumber obj = phoneUtil.parse(phoneNumber, region);
-            if (!isValidPhoneNumber(countryCode, phoneNumber)) {
-                throw new PhoneNumberParsingException(String.format("Prefix: %s, national: %s are not valid number",
-                    countryCode, phoneNumber));
-            }
-            return obj;
+        return engine.tryParseNumber(fullPhoneNumber, defaultCountryCode, phoneNumber);
+    }
 
-        } catch (NumberParseException | NumberFormatException e) {
-            throw new PhoneNumberParsingException(e);
-        }
+    /**
+     * Exception free {@link #parseNumber(String, String)}.
+     * @param countryCode country code for numbers without one
+     * @param phoneNumber phone number in any format
+     * @return Google PhoneNumber object, or the failure reason
+     */
+    public static ParseOutcome<PhoneNumber> tryParseNumber(String countryCode, String phoneNumber) {
+        return engine.tryParseNumber(countryCode, phoneNumber);
     }
 
     public static String formatPhoneNumber(PhoneNumber obj) {
         if (obj == null) {
             throw new PhoneNumberParsingException("Obj is null");
         }
-        return "+" + obj.getCountryCode() + obj.getNationalNumber();
+        return E164Formatter.format(obj.getCountryCode(), 0, obj.getNationalNumber());
+    }
+
+    /**
+     * Same format as {@link #formatPhoneNumber(PhoneNumber)}, "+" country code and national number.
+     * @param packedPhoneNumber packed phone number
+     * @return the formatted number
+     * @throws PhoneNumberParsingException if the value is not a packed phone number
+     */
+    public static String formatPhoneNumber(long packedPhoneNumber) {
+        PackedPhoneNumber.checkPacked(packedPhoneNumber);
+        return E164Formatter.format(PackedPhoneNumber.countryCode(packedPhoneNumber), 0,
+            PackedPhoneNumber.nationalNumber(packedPhoneNumber));
     }
 
     public static String formatPhoneNumber(String countryCode, String national) {
         if (countryCode == null || national == null || national.equals("")) {
             return "";
         } else {
-            return getCleanCountryCode(countryCode) + getCleanPhoneNumber(national);
+            StringBuilder number = new StringBuilder(countryCode.length() + national.length());
+            PhoneNumberSanitizer.appendCleanCountryCode(countryCode, number);
+            appendCleanPhoneNumber(national, number);
+            return number.toString();
         }
     }
 
@@ -342,51 +381,24 @@ public class PhoneNumberUtils {
     }
 
     public static boolean isValidFullPhoneNumberHelper(String fullPhoneNumber) {
-        try {
-            PhoneNumber phoneNumber = phoneUtil.parse(fullPhoneNumber, UNKNOWN_REGION);
-            return phoneUtil.isValidNumber(phoneNumber);
-        } catch (NumberParseException e) {
-            return false;
-        }
+        return engine.isValidFullPhoneNumberHelper(fullPhoneNumber);
     }
 
     public static boolean isPossibleFullPhoneNumber(String fullPhoneNumber) {
-        if (null == fullPhoneNumber) {
-            return false;
-        }
-
-        String regexp = "((?:[a-z][a-z]+))";
-        Pattern pattern = Pattern.compile(regexp, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(fullPhoneNumber);
-
-        if (matcher.find()) {
-            return false;
-        }
-
-        try {
-            PhoneNumber phoneNumber = phoneUtil.parse(fullPhoneNumber, UNKNOWN_REGION);
-            return phoneUtil.isPossibleNumber(phoneNumber);
-        } catch (NumberParseException e) {
-            return false;
-        }
+        return engine.isPossibleFullPhoneNumber(fullPhoneNumber);
     }
 
     public static String normalizePhoneNumber(String phoneNumber) {
+        return engine.normalizePhoneNumber(phoneNumber);
+    }
 
-        PhoneNumber pNumber;
-        try {
-            pNumber = phoneUtil.parse(phoneNumber, UNKNOWN_REGION);
-        } catch (NumberParseException e) {
-            log.debug("bad  number:" + phoneNumber);
-            throw new PhoneNumberParsingException("phone number invalid: " + phoneNumber);
-        }
-        phoneNumber = phoneUtil.format(pNumber, PhoneNumberFormat.E164);
-
-        if (!phoneUtil.isPossibleNumber(pNumber)) {
-            throw new PhoneNumberParsingException("phone number invalid: " + phoneNumber);
-        }
-
-        return phoneNumber;
+    /**
+     * Exception free {@link #normalizePhoneNumber(String)}.
+     * @param phoneNumber Full phone number, starting with +
+     * @return the number in E.164 format, or the failure reason
+     */
+    public static ParseOutcome<String> tryNormalizePhoneNumber(String phoneNumber) {
+        return engine.tryNormalizePhoneNumber(phoneNumber);
     }
 
     public static String replaceInternationalCallingPrefixWithPlus(String phoneNumber) {
@@ -398,91 +410,54 @@ public class PhoneNumberUtils {
     }
 
     public static String appendCountryCodeIfMissingAndNormalize(String phoneNumber, String countryCode) {
+        return engine.appendCountryCodeIfMissingAndNormalize(phoneNumber, countryCode);
+    }
 
-        if (phoneNumber != null && phoneNumber.startsWith("00")) {
-            phoneNumber = "+" + phoneNumber.substring(2);
-        }
-
-        String countryCodeNum;
-        String region = null;
-        if (countryCode != null && !countryCode.isEmpty()) {
-            countryCodeNum = countryCode.replaceAll(JUST_NUMBERS, "");
-            region = phoneUtil.getRegionCodeForCountryCode(Integer.parseInt(countryCodeNum));
-        }
-
-        PhoneNumber pNumber;
-        try {
-            pNumber = phoneUtil.parse(phoneNumber, region);
-        } catch (NumberParseException e) {
-            log.debug("bad  region: " + region + ",  or number:" + phoneNumber);
-            throw new PhoneNumberParsingException("phone number invalid: " + phoneNumber);
-        }
-
-        if (!phoneUtil.isPossibleNumber(pNumber)) {
-            throw new PhoneNumberParsingException("phone number invalid: " + phoneNumber);
-        }
+    /**
+     * Exception free {@link #appendCountryCodeIfMissingAndNormalize(String, String)}.
+     * @param phoneNumber phone number, with or without country code
+     * @param countryCode country code for numbers without one, e.g. "+47"
+     * @return the number in E.164 format, or the failure reason
+     */
+    public static ParseOutcome<String> tryAppendCountryCodeIfMissingAndNormalize(String phoneNumber,
+        String countryCode) {
 
-        phoneNumber = phoneUtil.format(pNumber, PhoneNumberFormat.E164);
-        return phoneNumber;
+        return engine.tryAppendCountryCodeIfMissingAndNormalize(phoneNumber, countryCode);
     }
 
     public static String getPhoneWithoutCountryCode(String phoneNumber, String countryCode) {
-        String countryCodeNum = countryCode.replaceAll(JUST_NUMBERS, "");
-        String region = phoneUtil.getRegionCodeForCountryCode(Integer.parseInt(countryCodeNum));
-        PhoneNumber pNumber = null;
-        try {
-            pNumber = phoneUtil.parse(phoneNumber, region);
-        } catch (NumberParseException e) {
-            throw new PhoneNumberParsingException("phone number error: " + phoneNumber);
-        }
-        // countryCode = countryCode.replaceAll("\\+", "\\\\+"); - what is it?
-        return pNumber.isItalianLeadingZero() ? "0" + pNumber.getNationalNumber() : "" + pNumber.getNationalNumber();
+        return engine.getPhoneWithoutCountryCode(phoneNumber, countryCode);
     }
 
+    /**
+     * Exception free {@link #getPhoneWithoutCountryCode(String, String)}.
+     * @param phoneNumber phone number, with or without country code
+     * @param countryCode country code for numbers without one, e.g. "+47"
+     * @return the national number, or the failure reason
+     */
+    public static ParseOutcome<String> tryGetPhoneWithoutCountryCode(String phoneNumber, String countryCode) {
+        return engine.tryGetPhoneWithoutCountryCode(phoneNumber, countryCode);
+    }
 
-    public static String removeNationalLeadingZero(String phoneNumber) {
-        //
-        if (phoneNumber == null || phoneNumber.isEmpty()) {
-            return phoneNumber;
-        }
-
-        try {
-            // if normalization succeeds, its a perfect valid number with country code, lets just normalize it
-            return normalizePhoneNumber(phoneNumber);
 
-        } catch (PhoneNumberParsingException e) {
-            // else its probably without country code, lets check if it starts with leading zero
-            if (phoneNumber.startsWith("00")) {
-                return phoneNumber.substring(2);
-            }
-            if (phoneNumber.startsWith("0")) {
-                return phoneNumber.substring(1);
-            }
-            // else just return original string
-            return phoneNumber;
-        }
+    public static String removeNationalLeadingZero(String phoneNumber) {
+        return engine.removeNationalLeadingZero(phoneNumber);
     }
 
     /*
-     * Country code is WITHOUT leading "+" or "00". In phone strings no spaces are allowed.
-     * In other words phone numbers consist only from digits, as first digit could not be "0".
-     */
-    private static String getCleanCountryCode(String countryCode) {
-        String phoneCode = countryCode.replace(" ", "");
-        Pattern pattern = Pattern.compile("(\\+|00)(\\d+)");
-        Matcher matcher = pattern.matcher(phoneCode);
-        if (matcher.find()) {
-            return matcher.group(2);
-        }
-        return "";
-    }
-
-    private static String getCleanPhoneNumber(String phoneNumber) {
-        String number = phoneNumber.replace(" ", "");
-        if (number.startsWith("0")) {
-            number = number.substring(1);
+     * In phone strings no spaces are allowed and the national leading "0" is dropped.
+     */
+    private static void appendCleanPhoneNumber(String phoneNumber, StringBuilder out) {
+        boolean first = true;
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c != ' ') {
+                if (!first || c != '0') {
+                    out.append(c);
+                }
+                first = false;
+            }
         }
-        return number;
     }
 
     /*
@@ -493,24 +468,7 @@ public class PhoneNumberUtils {
      */
     public static PhoneNumberHolder parsePhoneNumberWhichAcceptNonNumbers(String phoneNumber)
         throws PhoneNumberParsingException {
-        String countryCode;
-        String shortPhoneNumber;
-        try {
-            countryCode = getCountryCodeWithPlusSignFromFullPhoneNumber(phoneNumber);
-            shortPhoneNumber = getPhoneNumberWithoutCountryCodeFromFullPhoneNumber(phoneNumber);
-
-            return new PhoneNumberHolder(countryCode, shortPhoneNumber);
-        } catch (PhoneNumberParsingException e) {
-            if (phoneNumber.trim().equalsIgnoreCase(EMPTY_COUNTRY_CODE)) {
-                return new PhoneNumberHolder(null, "");
-            }
-            if (phoneNumber.startsWith(EMPTY_COUNTRY_CODE)) {
-                shortPhoneNumber = phoneNumber.split(EMPTY_COUNTRY_CODE)[1];
-                return new PhoneNumberHolder(null, shortPhoneNumber);
-            } else {
-                return new PhoneNumberHolder(null, phoneNumber);
-            }
-        }
+        return engine.parsePhoneNumberWhichAcceptNonNumbers(phoneNumber);
     }
 
     /**
@@ -523,37 +481,25 @@ public class PhoneNumberUtils {
             return "";
         }
 
-        StringBuilder str = new StringBuilder();
-        for (int i = 0; i < numbers.size(); i++) {
-            str.append(numbers.get(i));
-            if (i != numbers.size() - 1) {
-                str.append(", ");
-            }
+        // sized up front, so the builder never grows for huge lists
+        int length = 2 * (numbers.size() - 1);
+        for (String number : numbers) {
+            length += number == null ? 4 : number.length();
         }
-        return str.toString();
+        return E164Formatter.appendJoined(numbers, ", ", new StringBuilder(length)).toString();
     }
 
     /*
-     * Replace all non int characters with "" except for +
+     * Replace all non int characters with "" except for +, digits of other scripts become ASCII digits
      */
     public static String removeNonInteger(String myStr) {
         if (myStr == null) {
             return null;
         }
-        return myStr.replaceAll( "[^+0-9]", "" );
+        return PhoneNumberSanitizer.keepDigitsAndPlus(myStr);
     }
 
     public static Long removeAllNonNumeric(String myStr) {
-        String s = myStr.replaceAll( "[^\\d]", "" );
-        if (s.trim().isEmpty()) {
-            return null;
-        }
-
-        try {
-            return Long.valueOf(s);
-        } catch (NumberFormatException e) {
-            log.error(e.getMessage());
-            return null;
-        }
+        return engine.removeAllNonNumeric(myStr);
     }
 }
@@ -0,0 +1,165 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+
+/*
+ * Rejects "+" numbers which can not be possible or valid, from their digit counts and the possible
+ * lengths in the metadata, before libphonenumber parses them.
+ *
+ * Every answer here is a guarantee, false means "don't know" and the caller parses. Per calling
+ * code there is a bitmask of the national number lengths any of its regions accepts, bit n for
+ * n digits, local only lengths included, computed on first use. The national number libphonenumber
+ * ends up with is the digits after the calling code, unless the main region has a national prefix
+ * rule. Stripping a national prefix only shortens the number, a transform rule may change it any
+ * way, so how much is known depends on the rule:
+ *
+ * - no rule: the national number has exactly the digit count, which must be in the mask
+ * - prefix stripping only: the national number has at most the digit count, which must reach the
+ *   shortest length in the mask
+ * - transform rule: nothing is known from the length
+ */
+final class PossibleLengthFilter {
+
+    // same limits as libphonenumber
+    private static final int MIN_NATIONAL_DIGITS = 2;
+    private static final int MAX_NATIONAL_DIGITS = 17;
+    private static final int MAX_INPUT_LENGTH = 250;
+
+    private static final int ALL_LENGTHS = -1 >>> 1;
+
+    private static final int RULE_NONE = 0;
+    private static final int RULE_STRIP = 1;
+    private static final int RULE_TRANSFORM = 2;
+
+    // bit 31 marks computed entries, the rule sits in bits 29 and 30, lengths in bits 0 to 28
+    private static final int COMPUTED = 1 << 31;
+    private static final int RULE_SHIFT = 29;
+    private static final int LENGTH_BITS = (1 << RULE_SHIFT) - 1;
+
+    // results of scan which are not a calling code and digit count
+    private static final long UNKNOWN = -1;
+    private static final long UNPARSEABLE = -2;
+
+    private static final int[] ENTRIES = new int[CallingCodeTable.MAX_CALLING_CODE + 1];
+
+    private PossibleLengthFilter() {
+    }
+
+    /*
+     * True if libphonenumber can not parse the "+" number without a default region.
+     */
+    static boolean cannotParse(CharSequence fullPhoneNumber) {
+        long scan = scan(fullPhoneNumber);
+        if (scan == UNKNOWN) {
+            return false;
+        }
+        if (scan == UNPARSEABLE) {
+            return true;
+        }
+        int nationalDigits = (int) scan;
+        return nationalDigits > MAX_NATIONAL_DIGITS && rule(entry((int) (scan >>> 32))) == RULE_NONE;
+    }
+
+    /*
+     * True if the "+" number is neither possible nor valid, parse failures included.
+     */
+    static boolean cannotBePossible(CharSequence fullPhoneNumber) {
+        long scan = scan(fullPhoneNumber);
+        if (scan == UNKNOWN) {
+            return false;
+        }
+        if (scan == UNPARSEABLE) {
+            return true;
+        }
+        int nationalDigits = (int) scan;
+        int entry = entry((int) (scan >>> 32));
+        switch (rule(entry)) {
+            case RULE_NONE:
+                return nationalDigits >= RULE_SHIFT || (entry & LENGTH_BITS & (1 << nationalDigits)) == 0;
+            case RULE_STRIP:
+                return nationalDigits < Integer.numberOfTrailingZeros(entry & LENGTH_BITS);
+            default:
+                return false;
+        }
+    }
+
+    /*
+     * Calling code in the high and national digit count in the low half, for "+" numbers of ASCII
+     * digits, spaces and hyphens. UNPARSEABLE if such a number certainly fails to parse, UNKNOWN for
+     * anything else.
+     */
+    private static long scan(CharSequence number) {
+        int length = number == null ? 0 : number.length();
+        if (length == 0 || length > MAX_INPUT_LENGTH || number.charAt(0) != '+') {
+            return UNKNOWN;
+        }
+        int callingCode = 0;
+        int digits = 0;
+        int nationalDigits = 0;
+        for (int i = 1; i < length; i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (CallingCodeTable.isAssigned(callingCode)) {
+                    nationalDigits++;
+                } else if (digits == 3 || digits == 0 && c == '0') {
+                    return UNPARSEABLE;
+                } else {
+                    callingCode = callingCode * 10 + (c - '0');
+                    digits++;
+                }
+            } else if (c != ' ' && c != '-') {
+                return UNKNOWN;
+            }
+        }
+        if (!CallingCodeTable.isAssigned(callingCode) || nationalDigits < MIN_NATIONAL_DIGITS) {
+            return UNPARSEABLE;
+        }
+        return (long) callingCode << 32 | nationalDigits;
+    }
+
+    private static int rule(int entry) {
+        return (entry >>> RULE_SHIFT) & 3;
+    }
+
+    private static int entry(int callingCode) {
+        int entry = ENTRIES[callingCode];
+        if (entry == 0) {
+            // racing threads compute the same value
+            entry = compute(callingCode);
+            ENTRIES[callingCode] = entry;
+        }
+        return entry;
+    }
+
+    private static int compute(int callingCode) {
+        int lengths = 0;
+        for (String region : CallingCodeTable.get(callingCode).getRegions()) {
+            PhoneMetadata metadata = PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY.equals(region)
+                ? PhoneMetadataLookup.forCallingCode(callingCode)
+                : PhoneMetadataLookup.forRegion(region);
+            lengths |= metadata == null ? ALL_LENGTHS : lengths(metadata.getGeneralDesc());
+        }
+        PhoneMetadata main = PhoneMetadataLookup.forCallingCode(callingCode);
+        int rule = RULE_TRANSFORM;
+        if (main != null && main.getNationalPrefixTransformRule().isEmpty()) {
+            rule = main.getNationalPrefixForParsing().isEmpty() ? RULE_NONE : RULE_STRIP;
+        }
+        return COMPUTED | rule << RULE_SHIFT | (lengths & LENGTH_BITS);
+    }
+
+    private static int lengths(PhoneNumberDesc desc) {
+        if (desc.getPossibleLengthCount() == 0) {
+            return ALL_LENGTHS;
+        }
+        int lengths = 0;
+        for (int length : desc.getPossibleLengthList()) {
+            lengths |= length > 0 && length < RULE_SHIFT ? 1 << length : 0;
+        }
+        for (int length : desc.getPossibleLengthLocalOnlyList()) {
+            lengths |= length > 0 && length < RULE_SHIFT ? 1 << length : 0;
+        }
+        return lengths;
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.phone.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Default {@link FailureListener}: counts failures per method and reason, logs a few samples and a
+ * summary of the counts at most once per interval.
+ *
+ * <p>Only the first {@code maxSamplesPerInterval} failures of an interval are logged one by one,
+ * everything else is only counted, so a bad feed costs an increment per failure instead of a log
+ * line. The summary is logged by the first failure after the interval has passed, there is no
+ * background thread. So the counts of the last burst of failures are only logged when failures come
+ * in again, or when {@link #logSummary()} is called, e.g. on shutdown. Nothing is logged when there
+ * are no failures.
+ *
+ * <p>Samples contain the raw input, which may be personal data, so they are logged at DEBUG unless
+ * {@link Builder#sampleLevel(Level)} says otherwise. While that level is disabled no sample message
+ * is built and no sample of the interval is used up. Summaries only hold counts and are logged at
+ * WARN.
+ *
+ * <pre>
+ * PhoneNumberUtils.setFailureListener(SampledFailureLogger.builder()
+ *     .summaryInterval(5, TimeUnit.MINUTES)
+ *     .maxSamplesPerInterval(20)
+ *     .build());
+ * </pre>
+ */
+public final class SampledFailureLogger implements FailureListener {
+
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(PhoneNumberUtils.class);
+
+    private final BooleanSupplier sampleEnabled;
+    private final Consumer<String> sampleSink;
+    private final Consumer<String> summarySink;
+    private final LongSupplier nanoClock;
+    private final long intervalNanos;
+    private final int maxSamplesPerInterval;
+
+    private final ConcurrentMap<String, LongAdder[]> counts = new ConcurrentHashMap<>();
+    private final AtomicInteger samplesLeft;
+    private final AtomicLong intervalEnd;
+
+    SampledFailureLogger(BooleanSupplier sampleEnabled, Consumer<String> sampleSink, Consumer<String> summarySink,
+        LongSupplier nanoClock, long intervalNanos, int maxSamplesPerInterval) {
+
+        this.sampleEnabled = sampleEnabled;
+        this.sampleSink = sampleSink;
+        this.summarySink = summarySink;
+        this.nanoClock = nanoClock;
+        this.intervalNanos = intervalNanos;
+        this.maxSamplesPerInterval = maxSamplesPerInterval;
+        this.samplesLeft = new AtomicInteger(maxSamplesPerInterval);
+        this.intervalEnd = new AtomicLong(nanoClock.getAsLong() + intervalNanos);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void onFailure(String method, FailureReason reason, String input, String context) {
+        counts.computeIfAbsent(method, m -> newCounters())[reason.ordinal()].increment();
+
+        long now = nanoClock.getAsLong();
+        long end = intervalEnd.get();
+        if (now - end >= 0 && intervalEnd.compareAndSet(end, now + intervalNanos)) {
+            logSummary();
+            samplesLeft.set(maxSamplesPerInterval);
+        }
+        if (samplesLeft.get() > 0 && sampleEnabled.getAsBoolean() && samplesLeft.getAndDecrement() > 0) {
+            sampleSink.accept(method + " failed with " + reason + ", input: " + input
+                + (context == null ? "" : ", context: " + context));
+        }
+    }
+
+    /**
+     * Logs the counts collected since the last summary and resets them. Call on shutdown to get the
+     * counts of the last, unfinished interval.
+     */
+    public void logSummary() {
+        Map<String, Long> summary = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<String, LongAdder[]> entry : counts.entrySet()) {
+            LongAdder[] adders = entry.getValue();
+            for (FailureReason reason : FailureReason.values()) {
+                long count = adders[reason.ordinal()].sumThenReset();
+                if (count > 0) {
+                    summary.put(entry.getKey() + " " + reason, count);
+                    total += count;
+                }
+            }
+        }
+        if (total > 0) {
+            summarySink.accept("Phone number failures since last summary: " + total + " " + summary);
+        }
+    }
+
+    private static Consumer<String> sinkOf(Logger logger, Level level) {
+        switch (level) {
+            case ERROR:
+                return logger::error;
+            case WARN:
+                return logger::warn;
+            case INFO:
+                return logger::info;
+            case DEBUG:
+                return logger::debug;
+            default:
+                return logger::trace;
+        }
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] adders = new LongAdder[FailureReason.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public static final class Builder {
+        private Logger logger = DEFAULT_LOGGER;
+        private Level sampleLevel = Level.DEBUG;
+        private long intervalNanos = TimeUnit.MINUTES.toNanos(1);
+        private int maxSamplesPerInterval = 10;
+
+        private Builder() {
+        }
+
+        /**
+         * Logger to write to, the PhoneNumberUtils logger by default.
+         * @param logger the logger
+         * @return this builder
+         */
+        public Builder logger(Logger logger) {
+            if (logger == null) {
+                throw new IllegalArgumentException("logger is null");
+            }
+            this.logger = logger;
+            return this;
+        }
+
+        /**
+         * Level of the samples, which contain the raw input, DEBUG by default. Summaries are
+         * always logged at WARN.
+         * @param sampleLevel the level
+         * @return this builder
+         */
+        public Builder sampleLevel(Level sampleLevel) {
+            if (sampleLevel == null) {
+                throw new IllegalArgumentException("sampleLevel is null");
+            }
+            this.sampleLevel = sampleLevel;
+            return this;
+        }
+
+        /**
+         * Time between summaries, one minute by default.
+         * @param interval the interval
+         * @param unit unit of the interval
+         * @return this builder
+         */
+        public Builder summaryInterval(long interval, TimeUnit unit) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("interval must be positive: " + interval);
+            }
+            this.intervalNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * Number of failures logged one by one per interval, 10 by default.
+         * @param maxSamplesPerInterval the number of samples, 0 for summaries only
+         * @return this builder
+         */
+        public Builder maxSamplesPerInterval(int maxSamplesPerInterval) {
+            if (maxSamplesPerInterval < 0) {
+                throw new IllegalArgumentException("maxSamplesPerInterval is negative: " + maxSamplesPerInterval);
+            }
+            this.maxSamplesPerInterval = maxSamplesPerInterval;
+            return this;
+        }
+
+        public SampledFailureLogger build() {
+            Logger target = logger;
+            Level level = sampleLevel;
+            return new SampledFailureLogger(() -> target.isEnabledForLevel(level), sinkOf(target, level),
+                target::warn, System::nanoTime, intervalNanos, maxSamplesPerInterval);
+        }
+    }
+}
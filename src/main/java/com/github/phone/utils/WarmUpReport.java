@@ -0,0 +1,66 @@
+package com.github.phone.utils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time {@link PhoneNumberUtils#warmUp(java.util.Collection)} spent per region, which is roughly the
+ * latency the first call for that region would have had.
+ */
+public final class WarmUpReport {
+
+    private final Map<String, Long> nanosByRegion;
+    private final long totalNanos;
+
+    WarmUpReport(Map<String, Long> nanosByRegion) {
+        this.nanosByRegion = Collections.unmodifiableMap(nanosByRegion);
+        long total = 0;
+        for (long nanos : nanosByRegion.values()) {
+            total += nanos;
+        }
+        this.totalNanos = total;
+    }
+
+    /**
+     * @return nanoseconds per region in warm up order, non geographical calling codes are keyed by
+     *     their prefix, e.g. "+800"
+     */
+    public Map<String, Long> getNanosByRegion() {
+        return nanosByRegion;
+    }
+
+    /**
+     * @param region region code, e.g. "NO"
+     * @return the nanoseconds spent on the region, -1 if it was not warmed up
+     */
+    public long getNanos(String region) {
+        Long nanos = nanosByRegion.get(region);
+        return nanos == null ? -1 : nanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public int getRegionCount() {
+        return nanosByRegion.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Warmed up ").append(nanosByRegion.size()).append(" regions in ")
+            .append(TimeUnit.NANOSECONDS.toMillis(totalNanos)).append(" ms");
+        String slowest = null;
+        for (Map.Entry<String, Long> entry : nanosByRegion.entrySet()) {
+            if (slowest == null || entry.getValue() > nanosByRegion.get(slowest)) {
+                slowest = entry.getKey();
+            }
+        }
+        if (slowest != null) {
+            sb.append(", slowest ").append(slowest).append(' ')
+                .append(TimeUnit.NANOSECONDS.toMicros(nanosByRegion.get(slowest))).append(" us");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CallingCodeTableUnitTest {
+
+    private static final PhoneNumberUtil PHONE_UTIL = PhoneNumberUtil.getInstance();
+
+    @Test
+    public void shouldMatchLibphonenumberForAllCallingCodes() {
+        for (int callingCode = -1; callingCode <= CallingCodeTable.MAX_CALLING_CODE + 1; callingCode++) {
+            assertEquals(PHONE_UTIL.getRegionCodeForCountryCode(callingCode), CallingCodeTable.regionOf(callingCode));
+            assertEquals(PHONE_UTIL.getSupportedCallingCodes().contains(callingCode),
+                CallingCodeTable.isAssigned(callingCode));
+            CallingCodeTable.Entry entry = CallingCodeTable.get(callingCode);
+            if (entry != null) {
+                assertEquals(PHONE_UTIL.getRegionCodesForCountryCode(callingCode), entry.getRegions());
+                assertEquals("+" + callingCode, entry.getPrefix());
+            }
+        }
+    }
+
+    @Test
+    public void shouldResolveCountryCodeSpellings() {
+        CallingCodeTable.Entry norway = CallingCodeTable.get(47);
+
+        assertEquals("NO", norway.getMainRegion());
+        assertEquals(Arrays.asList("NO", "SJ"), norway.getRegions());
+        assertSame(norway, CallingCodeTable.resolve("+47"));
+        assertSame(norway, CallingCodeTable.resolve("47"));
+        assertSame(norway, CallingCodeTable.resolve("0047"));
+        assertEquals("001", CallingCodeTable.resolve("+800").getMainRegion());
+        assertNull(CallingCodeTable.resolve("+999"));
+        assertNull(CallingCodeTable.resolve("NO"));
+        assertNull(CallingCodeTable.resolve(null));
+        assertFalse(CallingCodeTable.isAssigned(1000));
+        assertTrue(CallingCodeTable.isAssigned(1));
+    }
+
+    @Test
+    public void shouldExtractCallingCode() {
+        assertEquals(47, CallingCodeTable.extract("+47 906 30 185").getCallingCode());
+        assertEquals(47, CallingCodeTable.extract("0047-90630185").getCallingCode());
+        assertEquals(1, CallingCodeTable.extract("+1").getCallingCode());
+        assertEquals(358, CallingCodeTable.extract("+358401234567").getCallingCode());
+        assertNull(CallingCodeTable.extract("+0147"));
+        assertNull(CallingCodeTable.extract("4790630185"));
+        assertNull(CallingCodeTable.extract("+999"));
+        assertNull(CallingCodeTable.extract("+(47)"));
+        assertNull(CallingCodeTable.extract(null));
+    }
+
+    @Test
+    public void shouldOnlyTakeCleanNumbersLibphonenumberParses() throws Exception {
+        List<String> inputs = new ArrayList<>(Arrays.asList("+4", "+47", "+479", "+4790", "+0047906", "+ 47 90",
+            "+47-", "-+4790", "+999123456", "+47 906 30 185 ", "+12345678901234567890", "+1234567890123456789",
+            "+4 7 9 0", "+47 (0) 906", "+47x906"));
+        for (String region : PHONE_UTIL.getSupportedRegions()) {
+            PhoneNumber example = PHONE_UTIL.getExampleNumber(region);
+            if (example != null) {
+                String e164 = PHONE_UTIL.format(example, PhoneNumberFormat.E164);
+                inputs.add(e164);
+                inputs.add(PHONE_UTIL.format(example, PhoneNumberFormat.INTERNATIONAL));
+                inputs.add(e164.substring(0, 4));
+                inputs.add(e164 + "0123456789");
+                inputs.add(e164.replace("+", "+0"));
+            }
+        }
+        for (String input : inputs) {
+            int callingCode = CallingCodeTable.callingCodeOfCleanNumber(input);
+            PhoneNumber parsed;
+            try {
+                parsed = PHONE_UTIL.parse(input, CallingCodeTable.UNKNOWN_REGION);
+            } catch (NumberParseException e) {
+                assertEquals(input, -1, callingCode);
+                continue;
+            }
+            assertTrue(input, callingCode == -1 || callingCode == parsed.getCountryCode());
+            CallingCodeTable.Entry entry = CallingCodeTable.extract(input);
+            assertEquals(input, parsed.getCountryCode(), entry.getCallingCode());
+        }
+    }
+
+    @Test
+    public void shouldReadCountryCodeNumbersLikeParseInt() {
+        String[] inputs = {"47", "+47", "0047", "+0047", "-47", "999", "1000", "2147483647", "2147483648",
+            "+", "-", "", " 47", "47 ", "+-47", "4 7", "x", "٤٧", "0", "00000000047"};
+        for (String input : inputs) {
+            String expected;
+            try {
+                expected = PHONE_UTIL.getRegionCodeForCountryCode(Integer.parseInt(input));
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+            assertEquals(input, expected, CallingCodeTable.regionOfNumber(input));
+        }
+        assertNull(CallingCodeTable.regionOfNumber(null));
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompiledNumberValidatorUnitTest {
+
+    private static final PhoneNumberUtil PHONE_UTIL = PhoneNumberUtils.PHONE_UTIL;
+
+    @Test
+    public void testAutomaton() {
+        DigitAutomaton automaton = DigitAutomaton.compile(
+            new String[] {"4\\d{7}|9[0-8]\\d{6}", "", "(?:[2-4]|5[0-2])\\d{2,3}0?"}, 100);
+        assertEquals(1, accepting(automaton, "45037118"));
+        assertEquals(1, accepting(automaton, "90630185"));
+        assertEquals(0, accepting(automaton, "99630185"));
+        assertEquals(4, accepting(automaton, "5012"));
+        assertEquals(4, accepting(automaton, "50120"));
+        assertEquals(4, accepting(automaton, "501200"));
+        assertEquals(0, accepting(automaton, "5012000"));
+        assertEquals(0, accepting(automaton, "53123"));
+        assertEquals(0, accepting(automaton, ""));
+
+        try {
+            DigitAutomaton.compile(new String[] {"[^0]\\d+"}, 100);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unsupported pattern at 2: [^0]\\d+", e.getMessage());
+        }
+        try {
+            DigitAutomaton.compile(new String[] {"\\d{5,9}"}, 5);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("More than 5 states", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEveryGeographicCallingCodeCompiles() {
+        for (int countryCode : PHONE_UTIL.getSupportedCallingCodes()) {
+            if (!PHONE_UTIL.getRegionCodesForCountryCode(countryCode)
+                .contains(PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY)) {
+                assertEquals(countryCode, CompiledNumberValidator.compile(countryCode).getCountryCode());
+            }
+        }
+    }
+
+    /*
+     * Every region of every geographic calling code, single region, shared with leading digits
+     * (+1, +7) and with italian leading zeros (+39): example numbers of every type with each digit
+     * changed, and for every national length around the possible ones, about one in four three
+     * digit prefixes with random remaining digits.
+     */
+    @Test
+    public void testSameAnswersAsLibphonenumber() {
+        Random random = new Random(47);
+        int valid = 0;
+        for (int countryCode : PHONE_UTIL.getSupportedCallingCodes()) {
+            if (PHONE_UTIL.getRegionCodesForCountryCode(countryCode)
+                .contains(PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY)) {
+                continue;
+            }
+            CompiledNumberValidator validator = CompiledNumberValidator.compile(countryCode);
+            for (String region : PHONE_UTIL.getRegionCodesForCountryCode(countryCode)) {
+                for (PhoneNumberType type : PhoneNumberType.values()) {
+                    PhoneNumber example = PHONE_UTIL.getExampleNumberForType(region, type);
+                    if (example == null) {
+                        continue;
+                    }
+                    assertSameAnswer(validator, example);
+                    String digits = Long.toString(example.getNationalNumber());
+                    for (int i = 0; i < digits.length(); i++) {
+                        for (char d = '0'; d <= '9'; d++) {
+                            String changed = digits.substring(0, i) + d + digits.substring(i + 1);
+                            assertSameAnswer(validator, new PhoneNumber().mergeFrom(example)
+                                .setNationalNumber(Long.parseLong(changed)));
+                        }
+                    }
+                }
+            }
+            for (int length = 2; length <= 13; length++) {
+                for (int prefix = random.nextInt(4); prefix < 1000; prefix += 1 + random.nextInt(8)) {
+                    PhoneNumber number = new PhoneNumber().setCountryCode(countryCode)
+                        .setNationalNumber(randomNumber(random, prefix, length));
+                    if (prefix < 100) {
+                        number.setItalianLeadingZero(true).setNumberOfLeadingZeros(1 + prefix % 2);
+                    }
+                    valid += assertSameAnswer(validator, number) ? 1 : 0;
+                }
+            }
+        }
+        assertTrue(valid > 1000);
+    }
+
+    @Test
+    public void testItalianLeadingZeros() {
+        CompiledNumberValidator italy = CompiledNumberValidator.compile(39);
+        PhoneNumber rome = new PhoneNumber().setCountryCode(39).setNationalNumber(612345678L);
+        assertFalse(italy.isValid(rome));
+        assertTrue(italy.isValid(rome.setItalianLeadingZero(true)));
+        assertFalse(italy.isValid(rome.setNumberOfLeadingZeros(2)));
+    }
+
+    private static boolean assertSameAnswer(CompiledNumberValidator validator, PhoneNumber number) {
+        boolean expected = PHONE_UTIL.isValidNumber(number);
+        assertEquals(number.toString(), expected, validator.isValid(number));
+        return expected;
+    }
+
+    /*
+     * Number of the length starting with the digits of the prefix, or the prefix cut to the length.
+     */
+    private static long randomNumber(Random random, int prefix, int length) {
+        if (length <= 3) {
+            return prefix % (long) Math.pow(10, length);
+        }
+        long value = prefix;
+        for (int i = 3; i < length; i++) {
+            value = value * 10 + random.nextInt(10);
+        }
+        return value;
+    }
+
+    private static int accepting(DigitAutomaton automaton, String digits) {
+        int state = automaton.start();
+        for (int i = 0; i < digits.length(); i++) {
+            state = automaton.next(state, digits.charAt(i) - '0');
+        }
+        return automaton.accepting(state);
+    }
+}
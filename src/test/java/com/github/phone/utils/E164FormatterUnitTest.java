@@ -0,0 +1,144 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class E164FormatterUnitTest {
+
+    private static final PhoneNumberUtil PHONE_UTIL = PhoneNumberUtil.getInstance();
+
+    @Test
+    public void testFormatLikeLibphonenumber() {
+        PhoneNumber[] numbers = {
+            new PhoneNumber().setCountryCode(47).setNationalNumber(45037118L),
+            new PhoneNumber().setCountryCode(39).setNationalNumber(612345678L).setItalianLeadingZero(true),
+            new PhoneNumber().setCountryCode(39).setNationalNumber(0L).setItalianLeadingZero(true)
+                .setNumberOfLeadingZeros(3),
+            new PhoneNumber().setCountryCode(1).setNationalNumber(6502530000L).setExtension("12"),
+            new PhoneNumber().setCountryCode(979).setNationalNumber(999999999999999L),
+            new PhoneNumber().setCountryCode(49).setNationalNumber(0L).setRawInput("+49 0"),
+        };
+        for (PhoneNumber number : numbers) {
+            String expected = PHONE_UTIL.format(number, PhoneNumberFormat.E164);
+            assertEquals(expected, E164Formatter.format(number));
+            assertEquals(expected.length(), E164Formatter.length(number));
+            assertEquals(expected, E164Formatter.append(number, new StringBuilder()).toString());
+
+            char[] chars = new char[expected.length() + 2];
+            assertEquals(expected.length() + 1, E164Formatter.write(number, chars, 1));
+            assertEquals(expected, new String(chars, 1, expected.length()));
+
+            byte[] bytes = new byte[expected.length()];
+            assertEquals(expected.length(), E164Formatter.write(number, bytes, 0));
+            assertEquals(expected, new String(bytes, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void testPackedNumbers() throws IOException {
+        for (String e164 : Arrays.asList("+4745037118", "+390612345678", "+1000", "+97911234567890123")) {
+            long packed = PackedPhoneNumber.fromE164(e164);
+            assertEquals(e164, E164Formatter.format(packed));
+            assertEquals(e164.length(), E164Formatter.length(packed));
+            assertEquals(e164, E164Formatter.append(packed, new StringWriter()).toString());
+            assertEquals("x" + e164, E164Formatter.append(packed, new StringBuilder("x")).toString());
+
+            char[] chars = new char[E164Formatter.MAX_PACKED_LENGTH];
+            assertEquals(e164, new String(chars, 0, E164Formatter.write(packed, chars, 0)));
+            byte[] bytes = new byte[E164Formatter.MAX_PACKED_LENGTH];
+            assertEquals(e164, new String(bytes, 0, E164Formatter.write(packed, bytes, 0), StandardCharsets.US_ASCII));
+        }
+        long longest = PackedPhoneNumber.pack(979, (1L << 50) - 1, 7);
+        assertEquals(E164Formatter.MAX_PACKED_LENGTH, E164Formatter.length(longest));
+        try {
+            E164Formatter.format(PackedPhoneNumber.INVALID);
+            fail();
+        } catch (PhoneNumberParsingException e) {
+            assertEquals("Not a packed phone number: -1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testByteBuffers() {
+        long packed = PackedPhoneNumber.fromE164("+390612345678");
+        for (ByteBuffer buffer : Arrays.asList(ByteBuffer.allocate(32), ByteBuffer.allocateDirect(32))) {
+            buffer.put((byte) '[');
+            E164Formatter.put(packed, buffer).put((byte) ',');
+            E164Formatter.putDigits(1234567890123L, buffer).put((byte) ']');
+            buffer.flip();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            assertEquals("[+390612345678,1234567890123]", new String(bytes, StandardCharsets.US_ASCII));
+        }
+        ByteBuffer slice = ByteBuffer.wrap(new byte[20], 5, 15).slice();
+        E164Formatter.put(new PhoneNumber().setCountryCode(47).setNationalNumber(45037118L), slice);
+        assertEquals(11, slice.position());
+    }
+
+    @Test
+    public void testNothingWrittenWithoutRoom() {
+        long packed = PackedPhoneNumber.fromE164("+4745037118");
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        try {
+            E164Formatter.put(packed, buffer);
+            fail();
+        } catch (BufferOverflowException e) {
+            assertEquals(0, buffer.position());
+        }
+        byte[] bytes = new byte[12];
+        try {
+            E164Formatter.write(packed, bytes, 2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertArrayEquals(new byte[12], bytes);
+        }
+        try {
+            E164Formatter.write(packed, new char[20], -1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals("No room for 11 chars at -1 of 20", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testJoined() throws IOException {
+        assertEquals("+4745037118, null, 90630185", E164Formatter.appendJoined(
+            Arrays.asList("+4745037118", null, "90630185"), ", ", new StringBuilder()).toString());
+        assertEquals("", E164Formatter.appendJoined(Collections.<String>emptyList(), ", ",
+            new StringWriter()).toString());
+
+        long[] packed = {
+            PackedPhoneNumber.fromE164("+4745037118"),
+            PackedPhoneNumber.fromE164("+390612345678"),
+            PackedPhoneNumber.fromE164("+16502530000"),
+        };
+        assertEquals("+390612345678,+16502530000",
+            E164Formatter.appendJoined(packed, 1, 3, ",", new StringWriter()).toString());
+        int length = E164Formatter.joinedLength(packed, 0, 3, ", ");
+        assertEquals("+4745037118, +390612345678, +16502530000".length(), length);
+
+        ByteBuffer buffer = E164Formatter.putJoined(packed, 0, 3, ", ", ByteBuffer.allocate(length));
+        assertEquals("+4745037118, +390612345678, +16502530000",
+            new String(buffer.array(), StandardCharsets.US_ASCII));
+        try {
+            E164Formatter.putJoined(packed, 0, 3, ", ", ByteBuffer.allocate(length - 1));
+            fail();
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+    }
+}
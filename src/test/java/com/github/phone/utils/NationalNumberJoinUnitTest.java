@@ -0,0 +1,136 @@
+package com.github.phone.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class NationalNumberJoinUnitTest {
+
+    private static final List<String> LEFT = Arrays.asList("+47 450 37 118", null, "", "+46 70 123 45 67",
+        "abc", "0047 906 30 185", "450 37 118");
+    private static final List<String> RIGHT = Arrays.asList("45037118", "+4790630185", "  ", "+4745037118",
+        "+1 650 253 0000", "701234567");
+
+    @Test
+    public void testJoin() {
+        for (NationalNumberJoin.Strategy strategy : NationalNumberJoin.Strategy.values()) {
+            NationalNumberJoin.Result result = NationalNumberJoin.builder().strategy(strategy).build()
+                .join(LEFT, RIGHT);
+            assertEquals(strategy.name(), Arrays.asList("0-0", "0-3", "3-5", "6-0", "6-3"), pairs(result));
+        }
+    }
+
+    @Test
+    public void testSameAnswersAsAreNationalNumbersSame() throws Exception {
+        Random random = new Random(7);
+        List<String> left = new ArrayList<>();
+        List<String> right = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            left.add(randomNumber(random));
+            right.add(randomNumber(random));
+        }
+        // pairwise on a sample, the full lists are large enough to be split into chunks
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            for (int j = 0; j < 300; j++) {
+                if (PhoneNumberUtils.areNationalNumbersSame(left.get(i), right.get(j))) {
+                    expected.add(i + "-" + j);
+                }
+            }
+        }
+        assertEquals(expected, pairs(NationalNumberJoin.builder().build()
+            .join(left.subList(0, 300), right.subList(0, 300))));
+        expected = pairs(NationalNumberJoin.builder().parallelism(1).build().join(left, right));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (NationalNumberJoin.Strategy strategy : NationalNumberJoin.Strategy.values()) {
+                NationalNumberJoin join = NationalNumberJoin.builder().strategy(strategy)
+                    .executor(executor).parallelism(4).hashJoinLimit(1000).build();
+                assertEquals(strategy.name(), expected, pairs(join.join(left, right)));
+
+                List<String> streamed = Collections.synchronizedList(new ArrayList<>());
+                long count = join.join(left, right, (l, r) -> streamed.add(l + "-" + r));
+                assertEquals(expected.size(), count);
+                Collections.sort(streamed);
+                List<String> sortedExpected = new ArrayList<>(expected);
+                Collections.sort(sortedExpected);
+                assertEquals(strategy.name(), sortedExpected, streamed);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallbackFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            NationalNumberJoin.builder().parallelism(1).build().join(LEFT, RIGHT, (l, r) -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("stop");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("stop", e.getMessage());
+            assertEquals(1, calls.get());
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        NationalNumberJoin join = NationalNumberJoin.builder().build();
+        assertEquals(0, join.join(Collections.emptyList(), RIGHT).size());
+        assertEquals(0, join.join(Arrays.asList(null, ""), Arrays.asList("", null)).size());
+    }
+
+    @Test
+    public void testBuilderValidation() {
+        try {
+            NationalNumberJoin.builder().parallelism(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("parallelism must be positive: 0", e.getMessage());
+        }
+        try {
+            NationalNumberJoin.builder().strategy(null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("strategy is null", e.getMessage());
+        }
+    }
+
+    private static String randomNumber(Random random) {
+        // few distinct national numbers, so there are many duplicates on both sides
+        String national = "4" + (5000000 + random.nextInt(400));
+        switch (random.nextInt(5)) {
+            case 0:
+                return "+47" + national;
+            case 1:
+                return "0047 " + national;
+            case 2:
+                return national;
+            case 3:
+                return "+46 70 " + random.nextInt(200);
+            default:
+                return random.nextInt(10) == 0 ? null : "+1" + national.substring(1) + "00";
+        }
+    }
+
+    private static List<String> pairs(NationalNumberJoin.Result result) {
+        List<String> pairs = new ArrayList<>();
+        for (int i = 0; i < result.size(); i++) {
+            pairs.add(result.getLeftIndex(i) + "-" + result.getRightIndex(i));
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PackedPhoneNumberUnitTest {
+
+    @Test
+    public void shouldPackAndUnpackParts() {
+        long packed = PackedPhoneNumber.fromE164("+4745037118");
+
+        assertTrue(PackedPhoneNumber.isPacked(packed));
+        assertEquals(47, PackedPhoneNumber.countryCode(packed));
+        assertEquals(45037118L, PackedPhoneNumber.nationalNumber(packed));
+        assertFalse(PackedPhoneNumber.isItalianLeadingZero(packed));
+        assertEquals("+4745037118", PackedPhoneNumber.toE164(packed));
+    }
+
+    @Test
+    public void shouldKeepItalianLeadingZeros() {
+        long packed = PackedPhoneNumber.parse("+39055555555");
+
+        assertEquals(1, PackedPhoneNumber.leadingZeros(packed));
+        assertEquals("+39055555555", PackedPhoneNumber.toE164(packed));
+        assertEquals(packed, PackedPhoneNumber.fromE164("+39055555555"));
+        assertEquals(PhoneNumberUtils.getPhoneNumberObjFromFullPhoneNumber("+39055555555"),
+            PackedPhoneNumber.toPhoneNumber(packed));
+    }
+
+    @Test
+    public void shouldRoundTripThroughPhoneNumber() {
+        for (String number : Arrays.asList("+4745037118", "+14155552671", "+8613912345678", "+390612345678",
+            "+2250712345678", "+80012345678", "+35312345678", "+9647912345678")) {
+            PhoneNumber phoneNumber = PhoneNumberUtils.getPhoneNumberObjFromFullPhoneNumber(number);
+            long packed = PackedPhoneNumber.pack(phoneNumber);
+
+            assertEquals(number, phoneNumber, PackedPhoneNumber.toPhoneNumber(packed));
+            assertEquals(number, PhoneNumberUtils.PHONE_UTIL.format(phoneNumber,
+                com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat.E164), PackedPhoneNumber.toE164(packed));
+            assertEquals(number, packed, PackedPhoneNumber.fromE164(PackedPhoneNumber.toE164(packed)));
+        }
+    }
+
+    @Test
+    public void shouldRejectWhatIsNotE164() {
+        assertEquals(PackedPhoneNumber.INVALID, PackedPhoneNumber.fromE164(null));
+        assertEquals(PackedPhoneNumber.INVALID, PackedPhoneNumber.fromE164("4745037118"));
+        assertEquals(PackedPhoneNumber.INVALID, PackedPhoneNumber.fromE164("+47 45037118"));
+        assertEquals(PackedPhoneNumber.INVALID, PackedPhoneNumber.fromE164("+47"));
+        assertEquals(PackedPhoneNumber.INVALID, PackedPhoneNumber.fromE164("+999123"));
+        assertEquals(PackedPhoneNumber.INVALID, PackedPhoneNumber.fromE164("+471234567890123456789"));
+        assertEquals(PackedPhoneNumber.INVALID, PackedPhoneNumber.parse("Per Vervik"));
+    }
+
+    @Test
+    public void shouldOrderByCountryCodeThenNationalNumber() {
+        long[] packed = {
+            PackedPhoneNumber.fromE164("+4745037118"),
+            PackedPhoneNumber.fromE164("+14155552671"),
+            PackedPhoneNumber.fromE164("+4622222222"),
+            PackedPhoneNumber.fromE164("+4745037117"),
+        };
+        Arrays.sort(packed);
+
+        assertArrayEquals(new long[] {
+            PackedPhoneNumber.fromE164("+14155552671"),
+            PackedPhoneNumber.fromE164("+4622222222"),
+            PackedPhoneNumber.fromE164("+4745037117"),
+            PackedPhoneNumber.fromE164("+4745037118"),
+        }, packed);
+        assertTrue(PackedPhoneNumber.compare(packed[0], packed[1]) < 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOutOfRangeParts() {
+        PackedPhoneNumber.pack(1000, 1, 0);
+    }
+
+    @Test
+    public void shouldAnswerLongBasedQuestionsLikeTheStringBasedOnes() {
+        long packed = PackedPhoneNumber.parse("+4745037118");
+
+        assertEquals(PhoneNumberUtils.formatPhoneNumber(PhoneNumberUtils.parseNumber("+47", "45037118")),
+            PhoneNumberUtils.formatPhoneNumber(packed));
+        assertEquals(47, PhoneNumberUtils.getCountryCodeFromFullPhoneNumber(packed));
+        assertTrue(PhoneNumberUtils.hasCountryCode(47, packed));
+        assertFalse(PhoneNumberUtils.hasCountryCode(46, packed));
+        assertFalse(PhoneNumberUtils.hasCountryCode(47, PackedPhoneNumber.INVALID));
+        assertTrue(PhoneNumberUtils.areNationalNumbersSame(packed, PackedPhoneNumber.fromE164("+4645037118")));
+        assertFalse(PhoneNumberUtils.areNationalNumbersSame(packed, PackedPhoneNumber.fromE164("+4745037117")));
+        assertFalse(PhoneNumberUtils.areNationalNumbersSame(packed, PackedPhoneNumber.INVALID));
+    }
+
+    @Test(expected = PhoneNumberParsingException.class)
+    public void shouldThrowForInvalidWhenCountryCodeIsAsked() {
+        PhoneNumberUtils.getCountryCodeFromFullPhoneNumber(PackedPhoneNumber.INVALID);
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.phone.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParseOutcomeUnitTest {
+
+    @After
+    public void enableStackTraces() {
+        PhoneNumberParsingException.setStackTraceEnabled(true);
+    }
+
+    @Test
+    public void shouldReturnValueOnSuccess() {
+        ParseOutcome<String> outcome = PhoneNumberUtils.tryNormalizePhoneNumber("+47 450 37 118");
+
+        assertTrue(outcome.isSuccess());
+        assertEquals("+4745037118", outcome.get());
+        assertNull(outcome.getFailureReason());
+        assertEquals(Integer.valueOf(11), outcome.map(String::length).get());
+    }
+
+    @Test
+    public void shouldReturnSharedFailureWithReason() {
+        ParseOutcome<String> outcome = PhoneNumberUtils.tryNormalizePhoneNumber("45037118");
+
+        assertTrue(outcome.isFailure());
+        assertEquals(FailureReason.INVALID_COUNTRY_CODE, outcome.getFailureReason());
+        assertSame(outcome, PhoneNumberUtils.tryNormalizePhoneNumber("90630185"));
+        assertEquals("fallback", outcome.orElse("fallback"));
+        assertSame(outcome, outcome.map(String::length));
+    }
+
+    @Test
+    public void shouldReportWhyParsingFailed() {
+        assertEquals(FailureReason.NOT_A_NUMBER,
+            PhoneNumberUtils.tryNormalizePhoneNumber("Per Vervik").getFailureReason());
+        assertEquals(FailureReason.TOO_SHORT_NSN, PhoneNumberUtils.tryNormalizePhoneNumber("+475").getFailureReason());
+        assertEquals(FailureReason.NOT_POSSIBLE, PhoneNumberUtils.tryNormalizePhoneNumber("+47123").getFailureReason());
+        assertEquals(FailureReason.NO_INPUT, PhoneNumberUtils.tryParseNumber("+47", null).getFailureReason());
+        assertEquals(FailureReason.INVALID_DEFAULT_COUNTRY_CODE,
+            PhoneNumberUtils.tryParseNumber("x", "45037118").getFailureReason());
+        assertEquals(FailureReason.NOT_VALID, PhoneNumberUtils.tryParseNumber("+47", "12345678").getFailureReason());
+        assertEquals(FailureReason.INVALID_DEFAULT_COUNTRY_CODE,
+            PhoneNumberUtils.tryAppendCountryCodeIfMissingAndNormalize("45037118", "x").getFailureReason());
+    }
+
+    @Test
+    public void shouldAnswerLikeTheThrowingMethods() {
+        assertEquals(47, (int) PhoneNumberUtils.tryGetCountryCodeFromFullPhoneNumber("+4745037118").get());
+        assertEquals("+47", PhoneNumberUtils.tryGetCountryCodeWithPlusSignFromFullPhoneNumber("+4745037118").get());
+        assertEquals("45037118",
+            PhoneNumberUtils.tryGetPhoneNumberWithoutCountryCodeFromFullPhoneNumber("+4745037118").get());
+        assertEquals(PhoneNumberUtils.parseNumber("+47", "450 37 118"),
+            PhoneNumberUtils.tryParseNumber("+47", "450 37 118").get());
+        assertEquals(PhoneNumberUtils.getPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist("14155552671"),
+            PhoneNumberUtils.tryGetPhoneNumberObjFromFullPhoneNumberAddPlusPrefixIfNotExist("14155552671").get());
+        assertEquals("+4745037118",
+            PhoneNumberUtils.tryAppendCountryCodeIfMissingAndNormalize("45037118", "+47").get());
+        assertEquals("45037118", PhoneNumberUtils.tryGetPhoneWithoutCountryCode("45037118", "+47").get());
+        assertTrue(PhoneNumberUtils.tryParsePhoneByGoogle("45037118", "NO").isSuccess());
+        assertFalse(PhoneNumberUtils.tryGetPhoneNumberObjFromFullPhoneNumber("").isSuccess());
+    }
+
+    @Test
+    public void shouldThrowWithReasonWhenValueOfFailureIsAsked() {
+        try {
+            PhoneNumberUtils.tryNormalizePhoneNumber("+47123").get();
+            fail();
+        } catch (PhoneNumberParsingException e) {
+            assertEquals(FailureReason.NOT_POSSIBLE, e.getFailureReason());
+        }
+    }
+
+    @Test
+    public void shouldCarryReasonInLegacyExceptions() {
+        try {
+            PhoneNumberUtils.normalizePhoneNumber("Per Vervik");
+            fail();
+        } catch (PhoneNumberParsingException e) {
+            assertEquals("phone number invalid: Per Vervik", e.getMessage());
+            assertEquals(FailureReason.NOT_A_NUMBER, e.getFailureReason());
+        }
+    }
+
+    @Test
+    public void shouldCreateStacklessExceptionsWhenAsked() {
+        PhoneNumberParsingException.setStackTraceEnabled(false);
+        try {
+            PhoneNumberUtils.getCountryCodeFromFullPhoneNumber("45037118");
+            fail();
+        } catch (PhoneNumberParsingException e) {
+            assertEquals(0, e.getStackTrace().length);
+            assertEquals(FailureReason.INVALID_COUNTRY_CODE, e.getFailureReason());
+        }
+
+        PhoneNumberParsingException.setStackTraceEnabled(true);
+        assertTrue(new PhoneNumberParsingException("with stack").getStackTrace().length > 0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParsedPhoneUnitTest {
+
+    @After
+    public void resetCache() {
+        PhoneNumberUtils.setParseCache(null);
+    }
+
+    @Test
+    public void shouldAnswerEverythingFromOneParse() {
+        ParsedPhone phone = ParsedPhone.parse("+47 450 37 118");
+
+        assertTrue(phone.isParsed());
+        assertTrue(phone.isValid());
+        assertTrue(phone.isPossible());
+        assertEquals(47, phone.getCountryCode());
+        assertEquals("+47", phone.getCountryCodeWithPlusSign());
+        assertEquals("45037118", phone.getNationalNumber());
+        assertEquals("+4745037118", phone.toE164());
+        assertEquals(45037118L, phone.toPhoneNumber().getNationalNumber());
+    }
+
+    @Test
+    public void shouldMemoizeDerivedValues() {
+        ParsedPhone phone = ParsedPhone.parse("+4745037118");
+
+        assertSame(phone.toE164(), phone.toE164());
+        assertSame(phone.getNationalNumber(), phone.getNationalNumber());
+        assertSame(phone.toPhoneNumberHolder(), phone.toPhoneNumberHolder());
+    }
+
+    @Test
+    public void shouldKeepItalianLeadingZero() {
+        ParsedPhone phone = ParsedPhone.parse("+39055555555");
+
+        assertEquals("055555555", phone.getNationalNumber());
+        assertEquals("+39", phone.toPhoneNumberHolder().getPrefix());
+        assertEquals("055555555", phone.toPhoneNumberHolder().getNational());
+        assertEquals("+39055555555", phone.toPhoneNumberHolder().getPhoneNumber());
+    }
+
+    @Test
+    public void shouldUseRegionForNationalNumbers() {
+        ParsedPhone phone = ParsedPhone.parse("450 37 118", "NO");
+
+        assertTrue(phone.isValid());
+        assertEquals("+4745037118", phone.toE164());
+        assertEquals("NO", phone.getRegion());
+    }
+
+    @Test
+    public void shouldReportFailures() {
+        ParsedPhone phone = ParsedPhone.parse("45037118");
+
+        assertFalse(phone.isParsed());
+        assertFalse(phone.isValid());
+        assertFalse(phone.isPossible());
+        assertEquals("45037118", phone.getInput());
+    }
+
+    @Test
+    public void shouldReportFailuresWithoutPlusLikeLibphonenumber() {
+        for (String input : Arrays.asList("1 2", "1a2", "12", "(12)", " 1-2 ", "123", "1.2 3", "45037118",
+            "abc 12", "12 ab", "1", "", "x", "4 5 ０", "tel:45037118", "1/x2", "#12")) {
+            FailureReason expected;
+            try {
+                PhoneNumberUtil.getInstance().parse(input, "ZZ");
+                throw new AssertionError(input);
+            } catch (NumberParseException e) {
+                expected = FailureReason.of(e);
+            }
+            assertEquals(input, expected, ParsedPhone.parse(input).getFailureReason());
+        }
+    }
+
+    @Test
+    public void shouldThrowWithFailureReason() {
+        try {
+            ParsedPhone.parse("45037118").toE164();
+            fail();
+        } catch (PhoneNumberParsingException e) {
+            assertEquals(FailureReason.INVALID_COUNTRY_CODE, e.getFailureReason());
+            assertNull(e.getCause());
+        }
+    }
+
+    @Test(expected = PhoneNumberParsingException.class)
+    public void shouldThrowWhenAskingForPartsOfUnparsedNumber() {
+        ParsedPhone.parse("Per Vervik").getNationalNumber();
+    }
+
+    @Test
+    public void shouldParseOnceForNationalNumberWithDefaultCountryCode() {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().build();
+        PhoneNumberUtils.setParseCache(cache);
+
+        assertEquals(45037118L, PhoneNumberUtils.parseNumber("+47", "45037118").getNationalNumber());
+        assertEquals("+4745037118", PhoneNumberUtils.generateFullPhoneNumber("+47", "450 37 118"));
+        assertTrue(PhoneNumberUtils.isValidPhoneNumber("+47", "450-37-118"));
+
+        // one parse per call, all three sanitize to the same input
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldHandleNumbersWhichNeedNationalPrefixStrippedAgain() {
+        // parsed in the US region as +1 18202123486, "+118202123486" is a valid number again
+        assertTrue(PhoneNumberUtils.isValidPhoneNumber("1", "0018202123486"));
+        assertNull(PhoneNumberUtils.generateFullPhoneNumber("+47", null));
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.AsYouTypeFormatter;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhoneInputSessionUnitTest {
+
+    private static final PhoneNumberUtil PHONE_UTIL = PhoneNumberUtils.PHONE_UTIL;
+
+    private final PhoneNumberEngine engine = PhoneNumberEngine.builder().failureListener(FailureListener.NO_OP).build();
+
+    @Test
+    public void testTyping() {
+        PhoneInputSession session = PhoneInputSession.builder().engine(engine).build();
+        session.type("+47 450 37 11");
+        assertFalse(session.isPossible());
+        assertFalse(session.isValid());
+        session.type('8');
+        assertTrue(session.isPossible());
+        assertTrue(session.isValid());
+        assertEquals("+47 45 03 71 18", session.getFormatted());
+        assertEquals("+47 450 37 118", session.getInput());
+        assertEquals("+4745037118", session.getSanitized());
+
+        session.backspace();
+        assertFalse(session.isValid());
+        assertEquals("+47 45 03 71 1", session.getFormatted());
+        session.type('8').type(' ');
+        assertTrue(session.isValid());
+        assertEquals("+47 450 37 118 ", session.getInput());
+
+        session.clear();
+        assertEquals("", session.getInput());
+        assertEquals("", session.getFormatted());
+        assertFalse(session.isPossible());
+        session.type("450 37 118");
+        assertFalse(session.isPossible());
+        assertTrue(session.isValid());
+        assertEquals("45 03 71 18", session.getFormatted());
+    }
+
+    @Test
+    public void testDefaultCountryCode() {
+        PhoneInputSession session = PhoneInputSession.builder().engine(engine).defaultCountryCode("+46").build();
+        session.type("070-123 45 67");
+        assertTrue(session.isValid());
+        assertEquals("070-123 45 67", session.getFormatted());
+        try {
+            PhoneInputSession.builder().defaultCountryCode("+999").build();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown default country code: +999", e.getMessage());
+        }
+    }
+
+    /*
+     * Every prefix of example numbers of many regions, typed as E.164, internationally formatted
+     * and nationally formatted, with changed digits and backspaces, against the engine methods on
+     * the whole input.
+     */
+    @Test
+    public void testSameAnswersAsEngine() {
+        PhoneNumberEngine compiled = engine.toBuilder().compiledRegions(Arrays.asList("NO", "IT", "US")).build();
+        Random random = new Random(47);
+        List<String> inputs = new ArrayList<>(Arrays.asList("+390612345678", "+39 06 1234 5678", "+3900612345",
+            "+0047", "+4+745037118", "00 47 450 37 118", "+47 ０４５０ 37 118", "+1 (650) 253-0000 ext 1",
+            "+54 9 11 1234 5678", "+7 8 912 345 67 89", "+44 07400 123456", "+800 1234 5678", "+47 0", "+"));
+        for (String region : Arrays.asList("NO", "SE", "US", "GB", "IT", "DE", "RU", "KZ", "AR", "MX", "BR", "IN",
+            "JP", "AU", "FR", "CI", "SM")) {
+            for (PhoneNumberType type : PhoneNumberType.values()) {
+                PhoneNumber example = PHONE_UTIL.getExampleNumberForType(region, type);
+                if (example != null) {
+                    String e164 = PHONE_UTIL.format(example, PhoneNumberFormat.E164);
+                    inputs.add(e164);
+                    inputs.add(PHONE_UTIL.format(example, PhoneNumberFormat.INTERNATIONAL));
+                    inputs.add(PHONE_UTIL.format(example, PhoneNumberFormat.NATIONAL));
+                    char[] changed = e164.toCharArray();
+                    changed[1 + random.nextInt(changed.length - 1)] = (char) ('0' + random.nextInt(10));
+                    inputs.add(new String(changed));
+                }
+            }
+        }
+        for (PhoneNumberEngine answering : Arrays.asList(engine, compiled)) {
+            for (String input : inputs) {
+                PhoneInputSession session = PhoneInputSession.builder().engine(answering).build();
+                AsYouTypeFormatter formatter = PHONE_UTIL.getAsYouTypeFormatter("NO");
+                String formatted = "";
+                for (int i = 0; i < input.length(); i++) {
+                    session.type(input.charAt(i));
+                    String typed = input.substring(0, i + 1);
+                    String kept = PhoneNumberSanitizer.keepDigitsAndPlus(input.substring(i, i + 1));
+                    if (!kept.isEmpty()) {
+                        formatted = formatter.inputDigit(kept.charAt(0));
+                    }
+                    assertSameAnswers(answering, session, typed, formatted);
+                }
+                for (int i = input.length() - 1; i > 0; i -= 3) {
+                    session.backspace();
+                    if (i > 1) {
+                        session.backspace();
+                    }
+                    String typed = session.getInput();
+                    assertEquals(input.substring(0, typed.length()), typed);
+                    assertEquals(typed, answering.isPossibleFullPhoneNumber(
+                        PhoneNumberSanitizer.keepDigitsAndPlus(typed)), session.isPossible());
+                    assertEquals(typed, answering.isValidPhoneNumber("+47", typed), session.isValid());
+                }
+            }
+        }
+    }
+
+    private static void assertSameAnswers(PhoneNumberEngine engine, PhoneInputSession session, String typed,
+        String formatted) {
+
+        assertEquals(typed, engine.isPossibleFullPhoneNumber(PhoneNumberSanitizer.keepDigitsAndPlus(typed)),
+            session.isPossible());
+        assertEquals(typed, engine.isValidPhoneNumber("+47", typed), session.isValid());
+        assertEquals(typed, formatted, session.getFormatted());
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.phone.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhoneNumberAsyncUnitTest {
+
+    private final PhoneNumberAsync async = PhoneNumberAsync.builder().build();
+
+    @Test
+    public void shouldCompleteLikeTheSynchronousMethods() throws Exception {
+        assertEquals("+4745037118", async.normalizeAsync("+47 450 37 118").get(5, TimeUnit.SECONDS));
+        assertTrue(async.validateAsync("+47", "45037118").get(5, TimeUnit.SECONDS));
+        assertFalse(async.validateAsync("+47", "80630185").get(5, TimeUnit.SECONDS));
+        assertEquals(45037118L, async.parseAsync("+47", "45037118").get(5, TimeUnit.SECONDS).getNationalNumber());
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWithParsingException() throws Exception {
+        try {
+            async.normalizeAsync("45037118").get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PhoneNumberParsingException);
+            assertEquals("phone number invalid: 45037118", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void shouldTimeOutAndDropQueuedWork() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        PhoneNumberAsync stalled = PhoneNumberAsync.builder().executor(queued::add)
+            .timeout(20, TimeUnit.MILLISECONDS).build();
+
+        CompletableFuture<String> future = stalled.normalizeAsync("+47 450 37 118");
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        queued.get(0).run();
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void shouldDropCancelledWork() {
+        List<Runnable> queued = new ArrayList<>();
+        PhoneNumberAsync stalled = PhoneNumberAsync.builder().executor(queued::add).chunkSize(2).build();
+
+        CompletableFuture<String> single = stalled.normalizeAsync("+47 450 37 118");
+        CompletableFuture<List<ParseOutcome<String>>> batch =
+            stalled.normalizeAllAsync(Arrays.asList("+47 450 37 118", "+47 450 37 119", "+47 450 37 110"));
+        assertTrue(single.cancel(true));
+        assertTrue(batch.cancel(true));
+
+        assertEquals(3, queued.size());
+        for (Runnable task : queued) {
+            assertTrue(((FutureTask<?>) task).isCancelled());
+            task.run();
+        }
+        assertTrue(single.isCancelled());
+        assertTrue(batch.isCancelled());
+    }
+
+    @Test
+    public void shouldProcessBatchesInChunks() throws Exception {
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            numbers.addAll(Arrays.asList("+47 450 37 118", "45037118", "nope", null, "+46 70 123 45 67"));
+        }
+        PhoneNumberAsync chunked = PhoneNumberAsync.builder().chunkSize(7).build();
+
+        List<ParseOutcome<String>> outcomes = chunked.normalizeAllAsync(numbers).get(5, TimeUnit.SECONDS);
+        PhoneNumberBatch.Result result = chunked.validateAllAsync(numbers, "+47").get(5, TimeUnit.SECONDS);
+
+        assertEquals(numbers.size(), outcomes.size());
+        assertEquals(numbers.size(), result.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            assertEquals(PhoneNumberUtils.tryNormalizePhoneNumber(numbers.get(i)), outcomes.get(i));
+            assertEquals(PhoneNumberUtils.isValidPhoneNumber("+47", numbers.get(i)), result.isValid(i));
+        }
+        assertTrue(chunked.normalizeAllAsync(new ArrayList<>()).get(5, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeTimeout() {
+        async.withTimeout(-1, TimeUnit.SECONDS);
+    }
+}
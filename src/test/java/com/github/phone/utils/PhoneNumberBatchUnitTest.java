@@ -0,0 +1,70 @@
+package com.github.phone.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PhoneNumberBatchUnitTest {
+
+    private static final List<String> NUMBERS = Arrays.asList(
+        "45 45 45 45", "+47 45 45 45 46", null, "", "TotallyInvalid", "+2365", "90630",
+        "070 123 45 67", "+46 70 123 45 67", "(415) 555-2671", "0612345678", "45037118");
+    private static final List<String> COUNTRY_CODES = Arrays.asList(
+        "+47", "+47", "+47", "+47", "+47", "+47", "+47",
+        "+46", "+1", "1", "+39", "x");
+
+    @Test
+    public void shouldAnswerLikeTheSingleNumberMethods() {
+        List<String> numbers = new ArrayList<>();
+        List<String> countryCodes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            numbers.addAll(NUMBERS);
+            countryCodes.addAll(COUNTRY_CODES);
+        }
+
+        PhoneNumberBatch.Result result = PhoneNumberBatch.builder().chunkSize(7).build()
+            .validate(numbers, countryCodes);
+
+        assertEquals(numbers.size(), result.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            boolean valid = PhoneNumberUtils.isValidPhoneNumber(countryCodes.get(i), numbers.get(i));
+            assertEquals(numbers.get(i), valid, result.isValid(i));
+            if (valid) {
+                assertEquals(PhoneNumberUtils.generateFullPhoneNumber(countryCodes.get(i), numbers.get(i)),
+                    result.getFullPhoneNumber(i));
+            } else {
+                assertNull(result.getFullPhoneNumber(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepInputOrderWithCustomExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            PhoneNumberBatch.Result result = PhoneNumberBatch.builder().executor(executor).chunkSize(1).build()
+                .validate(Arrays.asList("45 45 45 45", "nope", "+47 45 45 45 46"), "+47");
+
+            assertTrue(result.isValid(0));
+            assertFalse(result.isValid(1));
+            assertEquals(Arrays.asList("+4745454545", "+4745454546"), result.getValidFullPhoneNumbers());
+            assertEquals(2, result.getValidCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectListsOfDifferentSize() {
+        PhoneNumberBatch.builder().build().validate(Arrays.asList("1", "2"), Arrays.asList("+47"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.phone.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhoneNumberBinaryFormatUnitTest {
+
+    private static final List<String> NUMBERS = Arrays.asList("+4745037118", "+46701234567", "+390612345678",
+        "+16502530000", "+4745037118", "+4790630185");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNumbersRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PhoneNumberBinaryWriter writer = PhoneNumberBinaryWriter.numbers(bytes, false)) {
+            for (String number : NUMBERS) {
+                writer.writeE164(number);
+            }
+            assertEquals(NUMBERS.size(), writer.getCount());
+        }
+
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes.toByteArray());
+        try (PhoneNumberBinaryReader reader = PhoneNumberBinaryReader.open(in)) {
+            assertEquals(PhoneNumberBinaryReader.getCurrentMetadataVersion(), reader.getMetadataVersion());
+            assertEquals("9.0.7", reader.getMetadataVersion());
+            assertFalse(reader.isHolders());
+            assertFalse(reader.isDeltaEncoded());
+            assertEquals(NUMBERS, readE164(reader));
+        }
+        int header = 5 + 1 + "9.0.7".length();
+        assertTrue(bytes.size() - header < 7 * NUMBERS.size());
+    }
+
+    @Test
+    public void testDeltaEncoding() throws IOException {
+        long[] sorted = new long[1000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = PackedPhoneNumber.fromE164("+474503" + (7000 + i * 3));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        PhoneNumberBinaryWriter writer = PhoneNumberBinaryWriter.numbers(buffer, true);
+        for (long packed : sorted) {
+            writer.writePacked(packed);
+        }
+        // one byte per number after the first
+        assertTrue(buffer.position() < 20 + sorted.length);
+        try {
+            writer.writeE164("+4745037000");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Numbers must be ascending for delta encoding: +4745037000 after +4745039997",
+                e.getMessage());
+        }
+
+        buffer.flip();
+        PhoneNumberBinaryReader reader = PhoneNumberBinaryReader.open(buffer);
+        assertTrue(reader.isDeltaEncoded());
+        for (long packed : sorted) {
+            assertEquals(packed, reader.nextPacked());
+        }
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testHoldersRoundTrip() throws IOException {
+        List<PhoneNumberHolder> holders = Arrays.asList(
+            ParsedPhone.parse("+39 06 1234 5678").toPhoneNumberHolder(),
+            new PhoneNumberHolder(47, 45037118, null),
+            PhoneNumberUtils.parsePhoneNumberWhichAcceptNonNumbers("not a number"),
+            new PhoneNumberHolder("+47", "45037118", "+47 450 37 118"),
+            new PhoneNumberHolder(null, null, "næstved"));
+        Path file = folder.getRoot().toPath().resolve("holders.pnb");
+        try (OutputStream out = Files.newOutputStream(file);
+             PhoneNumberBinaryWriter writer = PhoneNumberBinaryWriter.holders(out)) {
+            for (PhoneNumberHolder holder : holders) {
+                writer.writeHolder(holder);
+            }
+        }
+
+        try (PhoneNumberBinaryReader reader = PhoneNumberBinaryReader.map(file)) {
+            assertTrue(reader.isHolders());
+            for (PhoneNumberHolder expected : holders) {
+                PhoneNumberHolder holder = reader.nextHolder();
+                assertEquals(expected.getPrefix(), holder.getPrefix());
+                assertEquals(expected.getNational(), holder.getNational());
+                assertEquals(expected.getPhoneNumber(), holder.getPhoneNumber());
+            }
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void testNumbersAsHolders() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        PhoneNumberBinaryWriter.numbers(buffer, false).writeE164("+390612345678");
+        buffer.flip();
+
+        PhoneNumberHolder holder = PhoneNumberBinaryReader.open(buffer).nextHolder();
+        assertEquals("+39", holder.getPrefix());
+        assertEquals("0612345678", holder.getNational());
+        assertEquals("+390612345678", holder.getPhoneNumber());
+    }
+
+    @Test
+    public void testMalformedInput() throws IOException {
+        try {
+            PhoneNumberBinaryReader.open(new ByteArrayInputStream("[\"+4745037118\"]".getBytes("UTF-8")));
+            fail();
+        } catch (IOException e) {
+            assertEquals("Not a binary phone number stream", e.getMessage());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PhoneNumberBinaryWriter writer = PhoneNumberBinaryWriter.numbers(bytes, false)) {
+            writer.writeE164("+4745037118");
+        }
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+        PhoneNumberBinaryReader reader = PhoneNumberBinaryReader.open(ByteBuffer.wrap(truncated));
+        try {
+            reader.nextPacked();
+            fail();
+        } catch (IOException e) {
+            assertEquals("Truncated record", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWrongRecordType() throws IOException {
+        PhoneNumberBinaryWriter writer = PhoneNumberBinaryWriter.holders(new ByteArrayOutputStream());
+        try {
+            writer.writeE164("+4745037118");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Writer is for PhoneNumberHolders", e.getMessage());
+        }
+        try {
+            PhoneNumberBinaryWriter.numbers(new ByteArrayOutputStream(), false).writeE164("45037118");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Not an E.164 number: 45037118", e.getMessage());
+        }
+    }
+
+    private static List<String> readE164(PhoneNumberBinaryReader reader) throws IOException {
+        List<String> numbers = new ArrayList<>();
+        while (reader.hasNext()) {
+            numbers.add(reader.nextE164());
+        }
+        return numbers;
+    }
+}
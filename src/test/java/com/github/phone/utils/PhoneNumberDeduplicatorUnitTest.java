@@ -0,0 +1,136 @@
+package com.github.phone.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhoneNumberDeduplicatorUnitTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteUniqueNumbersWithCounts() throws IOException {
+        Path output = folder.getRoot().toPath().resolve("unique.csv");
+        PhoneNumberDeduplicator.Report report = PhoneNumberDeduplicator.builder().defaultCountryCode("+47").build()
+            .deduplicate(Arrays.asList("450 37 118", "+46 70 123 45 67", "+47 450 37 118", "not a number",
+                "0047 45037118", null, "+39 06 1234 5678").iterator(), output);
+
+        assertEquals(Arrays.asList("+390612345678,1", "+46701234567,1", "+4745037118,3"),
+            Files.readAllLines(output, StandardCharsets.US_ASCII));
+        assertEquals(7, report.getInput());
+        assertEquals(2, report.getRejected());
+        assertEquals(3, report.getUnique());
+        assertEquals(2, report.getDuplicates());
+        assertEquals(0, report.getRuns());
+    }
+
+    @Test
+    public void shouldSpillAndMergeRuns() throws IOException {
+        Random random = new Random(11);
+        List<String> numbers = new ArrayList<>();
+        Map<Long, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 60000; i++) {
+            long national = 40000000 + random.nextInt(20000);
+            numbers.add(i % 3 == 0 ? "+47 " + national : Long.toString(national));
+            expected.merge(PackedPhoneNumber.fromE164("+47" + national), 1L, Long::sum);
+        }
+        numbers.add("123");
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<String> unique = new ArrayList<>();
+            List<Long> counts = new ArrayList<>();
+            // 4096 numbers per run, 15 runs merged three at a time
+            PhoneNumberDeduplicator.Report report = PhoneNumberDeduplicator.builder()
+                .memoryBudget(64 * 1024).tempDirectory(folder.getRoot().toPath())
+                .defaultCountryCode("+47").executor(executor).parallelism(3)
+                .build()
+                .deduplicate(numbers.iterator(), (e164, count) -> {
+                    unique.add(e164);
+                    counts.add(count);
+                });
+
+            List<String> expectedUnique = new ArrayList<>();
+            for (long packed : expected.keySet()) {
+                expectedUnique.add(PackedPhoneNumber.toE164(packed));
+            }
+            assertEquals(expectedUnique, unique);
+            assertEquals(new ArrayList<>(expected.values()), counts);
+            assertEquals(60001, report.getInput());
+            assertEquals(1, report.getRejected());
+            assertEquals(expected.size(), report.getUnique());
+            assertEquals(15, report.getRuns());
+            // runs are deleted
+            assertEquals(0, folder.getRoot().list().length);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldDeleteRunsWhenInputFails() {
+        Iterator<String> failing = new Iterator<String>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (++read > 10000) {
+                    throw new IllegalStateException("connection lost");
+                }
+                return "+47 4" + (5000000 + read);
+            }
+        };
+        try {
+            PhoneNumberDeduplicator.builder().memoryBudget(64 * 1024).tempDirectory(folder.getRoot().toPath())
+                .build().deduplicate(failing, (e164, count) -> { });
+            fail();
+        } catch (IllegalStateException | IOException e) {
+            assertEquals("connection lost", e.getMessage());
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void shouldHandleEmptyInput() throws IOException {
+        List<String> unique = new ArrayList<>();
+        PhoneNumberDeduplicator.Report report = PhoneNumberDeduplicator.builder().build()
+            .deduplicate(Collections.<String>emptyIterator(), (e164, count) -> unique.add(e164));
+
+        assertTrue(unique.isEmpty());
+        assertEquals(0, report.getInput());
+    }
+
+    @Test
+    public void shouldRejectSmallMemoryBudget() {
+        try {
+            PhoneNumberDeduplicator.builder().memoryBudget(1024);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("memoryBudget must be at least 65536 bytes: 1024", e.getMessage());
+        }
+    }
+}
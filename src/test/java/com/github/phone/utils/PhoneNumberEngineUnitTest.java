@@ -0,0 +1,229 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhoneNumberEngineUnitTest {
+
+    private final PhoneNumberEngine sweden = PhoneNumberEngine.builder().defaultCountryCode("+46").build();
+
+    @After
+    public void resetDefaultEngine() {
+        PhoneNumberUtils.setEngine(PhoneNumberEngine.builder().build());
+    }
+
+    @Test
+    public void testDefaultEngine() {
+        PhoneNumberEngine engine = PhoneNumberUtils.getEngine();
+        assertEquals("+47", engine.getDefaultCountryCode());
+        assertEquals("NO", engine.getDefaultRegion());
+        assertNull(engine.getParseCache());
+        assertNull(engine.getExecutor());
+        assertTrue(engine.getFailureListener() instanceof SampledFailureLogger);
+    }
+
+    @Test
+    public void testDefaultCountryCode() {
+        assertEquals("SE", sweden.getDefaultRegion());
+        assertTrue(sweden.isValidPhoneNumber("070-123 45 67"));
+        assertEquals("+46701234567", sweden.generateFullPhoneNumber("070-123 45 67"));
+        assertEquals(Arrays.asList("+46701234567", "+4745037118"),
+            sweden.validatePhoneNumbers(Arrays.asList("070-123 45 67", "+4745037118", "45037118")));
+        assertEquals(Arrays.asList("+46701234567"),
+            sweden.validatePhoneNumbers(Arrays.asList("070-123 45 67", "+46701234567"), true));
+
+        // the static methods keep their norwegian default
+        assertFalse(PhoneNumberUtils.isValidPhoneNumber("+47", "070-123 45 67"));
+        assertEquals(Arrays.asList("+4745037118"),
+            PhoneNumberUtils.validatePhoneNumbers(Arrays.asList("070-123 45 67", "45037118")));
+    }
+
+    @Test
+    public void testUnknownDefaultCountryCode() {
+        for (String countryCode : Arrays.asList("+999", "abc", "")) {
+            try {
+                PhoneNumberEngine.builder().defaultCountryCode(countryCode).build();
+                fail(countryCode);
+            } catch (IllegalArgumentException e) {
+                assertEquals("Unknown default country code: " + countryCode, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testSetEngine() {
+        PhoneNumberUtils.setEngine(sweden);
+        assertSame(sweden, PhoneNumberUtils.getEngine());
+        assertEquals(Arrays.asList("+46701234567"),
+            PhoneNumberUtils.validatePhoneNumbers(Arrays.asList("070-123 45 67", "45037118")));
+        // methods named norwegian stay norwegian
+        assertTrue(PhoneNumberUtils.isValidNorwegianPhoneNumber("45037118"));
+    }
+
+    @Test
+    public void testStaticSettersKeepOtherSettings() {
+        PhoneNumberUtils.setEngine(sweden);
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().maximumSize(10).build();
+        PhoneNumberUtils.setParseCache(cache);
+        PhoneNumberUtils.setFailureListener(FailureListener.NO_OP);
+
+        PhoneNumberEngine engine = PhoneNumberUtils.getEngine();
+        assertEquals("+46", engine.getDefaultCountryCode());
+        assertSame(cache, engine.getParseCache());
+        assertSame(FailureListener.NO_OP, engine.getFailureListener());
+        // engines are immutable
+        assertNull(sweden.getParseCache());
+    }
+
+    @Test
+    public void testFailureListenerPerEngine() {
+        List<FailureReason> staticReasons = new ArrayList<>();
+        PhoneNumberUtils.setFailureListener((method, reason, input, context) -> staticReasons.add(reason));
+        List<String> methods = new ArrayList<>();
+        PhoneNumberEngine engine = PhoneNumberEngine.builder()
+            .failureListener((method, reason, input, context) -> methods.add(method))
+            .build();
+
+        try {
+            engine.normalizePhoneNumber("abc");
+            fail();
+        } catch (PhoneNumberParsingException e) {
+            assertEquals(Collections.singletonList("normalizePhoneNumber"), methods);
+        }
+        assertTrue(staticReasons.isEmpty());
+    }
+
+    @Test
+    public void testParseCachePerEngine() {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().maximumSize(100).build();
+        PhoneNumberEngine engine = PhoneNumberEngine.builder().parseCache(cache).build();
+
+        assertEquals("+4745037118", engine.normalizePhoneNumber("+47 450 37 118"));
+        assertEquals("+4745037118", engine.normalizePhoneNumber("+47 450 37 118"));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        PhoneNumberUtils.normalizePhoneNumber("+47 450 37 118");
+        assertEquals(2, cache.getMissCount() + cache.getHitCount());
+    }
+
+    @Test
+    public void testMetadataLoader() {
+        List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+        PhoneNumberEngine engine = PhoneNumberEngine.builder()
+            .metadataLoader(name -> {
+                loaded.add(name);
+                return PhoneNumberUtil.class.getResourceAsStream(name);
+            })
+            .build();
+
+        assertEquals(47, engine.getCountryCodeFromFullPhoneNumber("+47 450 37 118"));
+        assertTrue(engine.isValidPhoneNumber("450 37 118"));
+        assertFalse(engine.isPossibleFullPhoneNumber("+47 450"));
+        assertEquals(Long.valueOf(45037118), engine.getNationalNumber("+47 450 37 118"));
+        assertTrue(loaded.stream().anyMatch(name -> name.endsWith("_NO")));
+        try {
+            PhoneNumberEngine.builder().metadataLoader(null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("metadataLoader is null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSameAnswersAsStaticMethods() {
+        PhoneNumberEngine engine = PhoneNumberEngine.builder().failureListener(FailureListener.NO_OP).build();
+        for (String number : Arrays.asList("+47 450 37 118", "+4780630185", "0047 450 37 118", "+39 06 1234 5678",
+            "16502530000", "45037118", "+47 450", "abc", "")) {
+            assertEquals(number, PhoneNumberUtils.tryNormalizePhoneNumber(number),
+                engine.tryNormalizePhoneNumber(number));
+            assertEquals(number, PhoneNumberUtils.isValidPhoneNumber("+47", number),
+                engine.isValidPhoneNumber(number));
+            assertEquals(number, PhoneNumberUtils.getNationalNumber(number), engine.getNationalNumber(number));
+            assertEquals(number, PhoneNumberUtils.hasCountryCode(number), engine.hasCountryCode(number));
+            assertEquals(number, PhoneNumberUtils.tryParseNumber("+47", number), engine.tryParseNumber("+47", number));
+        }
+    }
+
+    @Test
+    public void testCompiledRegions() {
+        PhoneNumberEngine compiled = PhoneNumberEngine.builder()
+            .compiledRegions(Arrays.asList("NO", "IT"))
+            .failureListener(FailureListener.NO_OP)
+            .build();
+        assertEquals(Arrays.asList("IT", "NO", "SJ", "VA"), new ArrayList<>(compiled.getCompiledRegions()));
+        assertTrue(PhoneNumberEngine.builder().build().getCompiledRegions().isEmpty());
+        assertEquals(compiled.getCompiledRegions(), compiled.toBuilder().build().getCompiledRegions());
+
+        PhoneNumberEngine engine = PhoneNumberEngine.builder().failureListener(FailureListener.NO_OP).build();
+        for (String number : Arrays.asList("+47 450 37 118", "+4712345678", "45037118", "+39 06 1234 5678",
+            "+39 6 1234 5678", "+47 79 12 34 56", "+46701234567", "not a number")) {
+            assertEquals(number, engine.isValidPhoneNumber(number), compiled.isValidPhoneNumber(number));
+            assertEquals(number, engine.isValidFullPhoneNumberHelper(number),
+                compiled.isValidFullPhoneNumberHelper(number));
+        }
+        try {
+            PhoneNumberEngine.builder().compiledRegions(Collections.singleton("XX")).build();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown region: XX", e.getMessage());
+        }
+        try {
+            PhoneNumberEngine.builder().compiledRegions(Arrays.asList("NO", null));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("regions is null or holds null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCompiledRegionsOfNullHostileCollections() {
+        Set<String> keySet = ConcurrentHashMap.newKeySet();
+        keySet.add("NO");
+        for (Collection<String> regions : Arrays.asList(new TreeSet<>(Collections.singleton("NO")), keySet)) {
+            assertEquals(new TreeSet<>(Arrays.asList("NO", "SJ")),
+                PhoneNumberEngine.builder().compiledRegions(regions).build().getCompiledRegions());
+        }
+    }
+
+    @Test
+    public void testAsyncAndBatch() throws Exception {
+        AtomicInteger tasks = new AtomicInteger();
+        PhoneNumberEngine engine = sweden.toBuilder()
+            .executor(task -> {
+                tasks.incrementAndGet();
+                task.run();
+            })
+            .build();
+
+        assertTrue(engine.async().validateAsync("+46", "070-123 45 67").get(5, TimeUnit.SECONDS));
+        assertEquals(1, tasks.get());
+        PhoneNumberBatch.Result result = engine.batch().validate(Arrays.asList("070-123 45 67", "45037118"), "+46");
+        assertEquals(Arrays.asList("+46701234567"), result.getValidFullPhoneNumbers());
+        try {
+            PhoneNumberEngine.builder().executor(null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("executor is null", e.getMessage());
+        }
+    }
+}
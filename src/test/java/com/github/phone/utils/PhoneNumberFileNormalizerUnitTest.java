@@ -0,0 +1,154 @@
+package com.github.phone.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhoneNumberFileNormalizerUnitTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldNormalizeColumnAndSplitOffRejects() throws IOException {
+        Path input = write("id,name,phone,city\r\n"
+            + "1,Per,450 37 118,Oslo\r\n"
+            + "2,\"Vervik, Per\",\"+47 906 30 185\",Bergen\r\n"
+            + "\r\n"
+            + "3,Ola,not a number,Oslo\r\n"
+            + "4,Kari\r\n"
+            + "5,Anna,0046 70 123 45 67,Stockholm");
+
+        PhoneNumberFileNormalizer.Report report = builder(input).column(2).defaultCountryCode("+47")
+            .skipHeader(true).build().run();
+
+        assertEquals(Arrays.asList(
+            "id,name,phone,city",
+            "1,Per,+4745037118,Oslo",
+            "2,\"Vervik, Per\",+4790630185,Bergen",
+            "5,Anna,+46701234567,Stockholm"), read("output.csv"));
+        assertEquals(Arrays.asList("3,Ola,not a number,Oslo", "4,Kari"), read("rejects.csv"));
+        assertEquals(3, report.getNormalized());
+        assertEquals(2, report.getRejected());
+        assertEquals(0, report.getResumedFromOffset());
+    }
+
+    @Test
+    public void shouldRequireCountryCodeWithoutDefault() throws IOException {
+        Path input = write("+47 450 37 118\n45037118\n");
+
+        builder(input).build().run();
+
+        assertEquals(Arrays.asList("+4745037118"), read("output.csv"));
+        assertEquals(Arrays.asList("45037118"), read("rejects.csv"));
+    }
+
+    @Test
+    public void shouldResumeFromCheckpointAfterBeingKilled() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            lines.add(i + ";" + (i % 7 == 0 ? "garbage " + i : "+47 4" + (5000000 + i)));
+        }
+        Path input = write(String.join("\n", lines) + "\n");
+        Path checkpoint = folder.getRoot().toPath().resolve("job.checkpoint");
+        runUntilKilled(input, checkpoint);
+
+        PhoneNumberFileNormalizer.Report report = builder(input).delimiter(';').column(1).chunkSize(512)
+            .checkpoint(checkpoint).build().run();
+
+        assertTrue(report.getResumedFromOffset() > 0);
+        assertFalse(Files.exists(checkpoint));
+        List<String> resumedOutput = read("output.csv");
+        List<String> resumedRejects = read("rejects.csv");
+
+        PhoneNumberFileNormalizer.Report clean = builder(input).delimiter(';').column(1).chunkSize(512).build().run();
+        assertEquals(read("output.csv"), resumedOutput);
+        assertEquals(read("rejects.csv"), resumedRejects);
+        assertEquals(clean.getNormalized(), report.getNormalized());
+        assertEquals(clean.getRejected(), report.getRejected());
+        assertEquals(2000 - 286, clean.getNormalized());
+    }
+
+    @Test
+    public void shouldRefuseCheckpointWhenOutputWasTruncated() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            lines.add(i + ";+47 4" + (5000000 + i));
+        }
+        Path input = write(String.join("\n", lines) + "\n");
+        Path checkpoint = folder.getRoot().toPath().resolve("job.checkpoint");
+        runUntilKilled(input, checkpoint);
+        Path output = folder.getRoot().toPath().resolve("output.csv");
+        Files.write(output, Arrays.copyOf(Files.readAllBytes(output), 100));
+
+        try {
+            builder(input).delimiter(';').column(1).chunkSize(512).checkpoint(checkpoint).build().run();
+            fail("expected the truncated output to be noticed");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("output.csv"));
+        }
+        assertTrue(Files.exists(checkpoint));
+        assertEquals(100, Files.size(output));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRefuseCheckpointOfOtherInput() throws IOException {
+        Path input = write("+4745037118\n");
+        Path checkpoint = folder.getRoot().toPath().resolve("job.checkpoint");
+        Files.write(checkpoint, Arrays.asList("inputSize=999", "inputLastModified=1", "inputOffset=0"));
+
+        builder(input).checkpoint(checkpoint).build().run();
+    }
+
+    /*
+     * Runs the job until the executor refuses the 21st chunk, leaving a checkpoint behind.
+     */
+    private void runUntilKilled(Path input, Path checkpoint) throws IOException {
+        AtomicInteger tasks = new AtomicInteger();
+        try {
+            builder(input).delimiter(';').column(1).chunkSize(512).checkpoint(checkpoint)
+                .executor(command -> {
+                    if (tasks.incrementAndGet() > 20) {
+                        throw new RejectedExecutionException("killed");
+                    }
+                    ForkJoinPool.commonPool().execute(command);
+                })
+                .build().run();
+            fail("expected the job to be killed");
+        } catch (RejectedExecutionException e) {
+            assertTrue(Files.exists(checkpoint));
+        }
+    }
+
+    private PhoneNumberFileNormalizer.Builder builder(Path input) {
+        Path root = folder.getRoot().toPath();
+        return PhoneNumberFileNormalizer.builder().input(input)
+            .output(root.resolve("output.csv")).rejects(root.resolve("rejects.csv"));
+    }
+
+    private Path write(String content) throws IOException {
+        Path input = folder.getRoot().toPath().resolve("input.csv");
+        Files.write(input, content.getBytes(StandardCharsets.UTF_8));
+        return input;
+    }
+
+    private List<String> read(String name) throws IOException {
+        return Files.readAllLines(folder.getRoot().toPath().resolve(name), StandardCharsets.UTF_8);
+    }
+}
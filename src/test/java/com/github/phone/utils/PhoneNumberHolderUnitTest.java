@@ -0,0 +1,108 @@
+package com.github.phone.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PhoneNumberHolderUnitTest {
+
+    @Test
+    public void testGetters() {
+        PhoneNumberHolder holder = new PhoneNumberHolder(47, 45037118, "+4745037118");
+        assertEquals("+47", holder.getPrefix());
+        assertEquals("45037118", holder.getNational());
+        assertEquals("+4745037118", holder.getPhoneNumber());
+        assertEquals(47, holder.getCountryCode());
+        assertEquals(45037118, holder.getNationalNumber());
+
+        PhoneNumberHolder italian = new PhoneNumberHolder("+39", "0612345678", "+390612345678");
+        assertEquals("0612345678", italian.getNational());
+        assertEquals("+390612345678", italian.getPhoneNumber());
+        assertEquals(612345678, italian.getNationalNumber());
+
+        PhoneNumberHolder formatted = new PhoneNumberHolder("+47", "45037118", "+47 450 37 118");
+        assertEquals("+47 450 37 118", formatted.getPhoneNumber());
+
+        PhoneNumberHolder text = new PhoneNumberHolder(null, "Bsafe");
+        assertNull(text.getPrefix());
+        assertEquals("Bsafe", text.getNational());
+        assertNull(text.getPhoneNumber());
+        assertEquals(0, text.getCountryCode());
+        assertEquals(-1, text.getNationalNumber());
+
+        assertEquals("+0", new PhoneNumberHolder(0, -5, null).getPrefix());
+        assertEquals("-5", new PhoneNumberHolder(0, -5, null).getNational());
+        assertEquals("+047", new PhoneNumberHolder("+047", "", null).getPrefix());
+        assertEquals("", new PhoneNumberHolder("+047", "", null).getNational());
+    }
+
+    @Test
+    public void testSharedPrefixAndLazyStrings() {
+        PhoneNumberHolder holder = new PhoneNumberHolder(new String("+47"), "45037118", "+4745037118");
+        assertSame(CallingCodeTable.prefixOf(47), holder.getPrefix());
+        assertSame(holder.getPrefix(), new PhoneNumberHolder(47, 90630185, null).getPrefix());
+        assertSame(holder.getNational(), holder.getNational());
+        assertSame(holder.getPhoneNumber(), holder.getPhoneNumber());
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        PhoneNumberHolder fromNumbers = new PhoneNumberHolder(47, 45037118, "+4745037118");
+        PhoneNumberHolder fromStrings = new PhoneNumberHolder("+47", "45037118", "+4745037118");
+        PhoneNumberHolder parsed = ParsedPhone.parse("+47 450 37 118").toPhoneNumberHolder();
+        assertEquals(fromNumbers, fromStrings);
+        assertEquals(fromNumbers, parsed);
+        assertEquals(fromNumbers.hashCode(), fromStrings.hashCode());
+        assertEquals(fromNumbers.hashCode(), parsed.hashCode());
+
+        assertNotEquals(fromNumbers, new PhoneNumberHolder("+47", "45037118"));
+        assertNotEquals(fromNumbers, new PhoneNumberHolder("+47", "45037118", "+47 450 37 118"));
+        assertNotEquals(fromNumbers, new PhoneNumberHolder("+47", "045037118", "+47045037118"));
+        assertNotEquals(fromNumbers, new PhoneNumberHolder("+46", "45037118", "+4645037118"));
+        assertEquals(new PhoneNumberHolder(null, "Bsafe"), new PhoneNumberHolder(null, "Bsafe", null));
+
+        Set<PhoneNumberHolder> unique = new HashSet<>(Arrays.asList(fromNumbers, fromStrings, parsed,
+            new PhoneNumberHolder(null, "Bsafe"), new PhoneNumberHolder(null, "Bsafe")));
+        assertEquals(2, unique.size());
+    }
+
+    @Test
+    public void testCompareTo() {
+        List<PhoneNumberHolder> holders = new ArrayList<>(Arrays.asList(
+            new PhoneNumberHolder("+47", "90630185", "+4790630185"),
+            new PhoneNumberHolder("+47", "45037118", "+47 450 37 118"),
+            new PhoneNumberHolder("+39", "0612345678", "+390612345678"),
+            new PhoneNumberHolder(null, "Bsafe"),
+            new PhoneNumberHolder("+47", "45037118", "+4745037118"),
+            new PhoneNumberHolder("+1", "6502530000", "+16502530000")));
+        Collections.sort(holders);
+
+        List<String> sorted = new ArrayList<>();
+        for (PhoneNumberHolder holder : holders) {
+            sorted.add(holder.getPrefix() + " " + holder.getNational() + " " + holder.getPhoneNumber());
+        }
+        assertEquals(Arrays.asList(
+            "null Bsafe null",
+            "+1 6502530000 +16502530000",
+            "+39 0612345678 +390612345678",
+            "+47 45037118 +4745037118",
+            "+47 45037118 +47 450 37 118",
+            "+47 90630185 +4790630185"), sorted);
+        for (PhoneNumberHolder holder : holders) {
+            assertEquals(0, holder.compareTo(new PhoneNumberHolder(holder.getPrefix(), holder.getNational(),
+                holder.getPhoneNumber())));
+        }
+        assertTrue(holders.get(0).compareTo(holders.get(1)) < 0);
+    }
+}
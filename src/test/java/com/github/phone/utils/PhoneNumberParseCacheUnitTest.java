@@ -0,0 +1,144 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhoneNumberParseCacheUnitTest {
+
+    private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+
+    @After
+    public void resetCache() {
+        PhoneNumberUtils.setParseCache(null);
+    }
+
+    @Test
+    public void shouldReturnCopiesOnHit() throws NumberParseException {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().build();
+
+        Phonenumber.PhoneNumber first = cache.parse(phoneUtil, "+4745037118", "ZZ");
+        first.setNationalNumber(1L);
+        Phonenumber.PhoneNumber second = cache.parse(phoneUtil, "+4745037118", "ZZ");
+
+        assertNotSame(first, second);
+        assertEquals(45037118L, second.getNationalNumber());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldKeyByRegion() throws NumberParseException {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().build();
+
+        assertEquals(47, cache.parse(phoneUtil, "45037118", "NO").getCountryCode());
+        assertEquals(46, cache.parse(phoneUtil, "45037118", "SE").getCountryCode());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void shouldCacheFailures() {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().build();
+
+        NumberParseException first = parseFailure(cache, "Per Vervik");
+        NumberParseException second = parseFailure(cache, "Per Vervik");
+
+        assertNotSame(first, second);
+        assertEquals(NumberParseException.ErrorType.NOT_A_NUMBER, second.getErrorType());
+        assertEquals(first.getMessage(), second.getMessage());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldAnswerCachedFailuresWithoutException() {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().build();
+        PhoneNumberEngine engine = PhoneNumberEngine.builder().parseCache(cache)
+            .failureListener(FailureListener.NO_OP).build();
+
+        PhoneNumberParseCache.Entry first = cache.lookup(phoneUtil, "+47 Per Vervik", "ZZ");
+        PhoneNumberParseCache.Entry second = cache.lookup(phoneUtil, "+47 Per Vervik", "ZZ");
+
+        assertEquals(first.getFailureMessage(), second.getFailureMessage());
+        assertEquals(NumberParseException.ErrorType.NOT_A_NUMBER, second.getFailureType());
+        assertNull(second.phoneNumberForCaller());
+        assertEquals(FailureReason.NOT_A_NUMBER, ParsedPhone.parse(engine, "+47 Per Vervik").getFailureReason());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldNotCacheFailuresWhenDisabled() {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().cacheFailures(false).build();
+
+        parseFailure(cache, "45037118");
+        parseFailure(cache, "45037118");
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldEvictBySize() throws NumberParseException {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().maximumSize(2).concurrencyLevel(1).build();
+
+        cache.parse(phoneUtil, "+4745037118", "ZZ");
+        cache.parse(phoneUtil, "+4790630185", "ZZ");
+        cache.parse(phoneUtil, "+4745037118", "ZZ");
+        cache.parse(phoneUtil, "+16507139923", "ZZ");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        // least recently used entry was evicted, the touched one survived
+        cache.parse(phoneUtil, "+4745037118", "ZZ");
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldEvictByWeight() throws NumberParseException {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().maximumWeight(500).concurrencyLevel(1).build();
+
+        for (int i = 0; i < 10; i++) {
+            cache.parse(phoneUtil, "+47450371" + (10 + i), "ZZ");
+        }
+
+        assertTrue(cache.weight() <= 500);
+        assertTrue(cache.getEvictionCount() > 0);
+        assertEquals(10, cache.size() + cache.getEvictionCount());
+    }
+
+    @Test
+    public void shouldBeUsedByPhoneNumberUtils() {
+        PhoneNumberParseCache cache = PhoneNumberParseCache.builder().build();
+        PhoneNumberUtils.setParseCache(cache);
+
+        assertEquals("+4745037118", PhoneNumberUtils.normalizePhoneNumber("+47 450 37 118"));
+        assertEquals("+4745037118", PhoneNumberUtils.normalizePhoneNumber("+47 450 37 118"));
+        // input without + is rejected before the parser, and the cache, is asked
+        assertFalse(PhoneNumberUtils.isValidFullPhoneNumberHelper("+47 Per Vervik"));
+        assertFalse(PhoneNumberUtils.isValidFullPhoneNumberHelper("+47 Per Vervik"));
+        assertFalse(PhoneNumberUtils.isValidFullPhoneNumberHelper("Per Vervik"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    private NumberParseException parseFailure(PhoneNumberParseCache cache, String number) {
+        try {
+            cache.parse(phoneUtil, number, "ZZ");
+            fail("should fail");
+            return null;
+        } catch (NumberParseException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.github.phone.utils;
+
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PhoneNumberProcessorUnitTest {
+
+    private static List<String> numbers(int count) {
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // every fifth number is too short to parse
+            numbers.add(i % 5 == 4 ? "+47 4" : "+47 45" + String.format("%06d", i));
+        }
+        return numbers;
+    }
+
+    @Test
+    public void shouldEmitInInputOrder() throws Exception {
+        List<String> input = numbers(2000);
+        List<NormalizedPhone> rejected = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            PhoneNumberProcessor processor = PhoneNumberProcessor.builder()
+                .executor(executor).parallelism(4).bufferSize(16).rejects(rejected::add).build();
+            RecordingSubscriber subscriber = run(input, processor, Long.MAX_VALUE);
+
+            assertTrue(subscriber.await());
+            assertNull(subscriber.error);
+            assertEquals(1600, subscriber.items.size());
+            long previous = -1;
+            for (NormalizedPhone phone : subscriber.items) {
+                assertTrue(phone.getSequence() > previous);
+                previous = phone.getSequence();
+                assertEquals(input.get((int) phone.getSequence()).replace(" ", ""), phone.getE164());
+            }
+            assertEquals(400, rejected.size());
+            assertEquals(FailureReason.TOO_SHORT_NSN, rejected.get(0).getFailureReason());
+            assertEquals(4, rejected.get(0).getSequence());
+            assertEquals(1600, processor.getNormalizedCount());
+            assertEquals(400, processor.getRejectedCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldEmitEverythingUnordered() throws Exception {
+        List<String> input = numbers(2000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            PhoneNumberProcessor processor = PhoneNumberProcessor.builder()
+                .executor(executor).parallelism(4).bufferSize(8).ordered(false).build();
+            RecordingSubscriber subscriber = run(input, processor, Long.MAX_VALUE);
+
+            assertTrue(subscriber.await());
+            assertEquals(1600, new HashSet<>(subscriber.items.stream()
+                .map(NormalizedPhone::getE164).collect(Collectors.toList())).size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldNormalizeWithDefaultCountryCode() throws Exception {
+        PhoneNumberProcessor processor = PhoneNumberProcessor.builder()
+            .executor(Runnable::run).defaultCountryCode("+47").build();
+        RecordingSubscriber subscriber = run(Arrays.asList("450 37 118", "0047 906 30 185"),
+            processor, Long.MAX_VALUE);
+
+        assertTrue(subscriber.await());
+        assertEquals(Arrays.asList("+4745037118", "+4790630185"), subscriber.items.stream()
+            .map(NormalizedPhone::getE164).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldBoundUpstreamDemand() {
+        ListPublisher publisher = new ListPublisher(numbers(1000));
+        PhoneNumberProcessor processor = PhoneNumberProcessor.builder()
+            .executor(Runnable::run).bufferSize(10).build();
+        publisher.subscribe(processor);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        processor.subscribe(subscriber);
+
+        // nothing requested downstream, the buffer fills up and upstream is not asked for more
+        assertEquals(10, publisher.requested.get());
+        assertTrue(subscriber.items.isEmpty());
+
+        subscriber.subscription.request(3);
+        assertEquals(3, subscriber.items.size());
+        // three numbers left the processor, fewer than are requested from upstream at a time
+        assertEquals(10, publisher.requested.get());
+        subscriber.subscription.request(10);
+        assertEquals(13, subscriber.items.size());
+        assertTrue(publisher.requested.get() <= 10 + 13 + 3);
+        assertFalse(subscriber.completed.getCount() == 0);
+    }
+
+    @Test
+    public void shouldPassOnUpstreamErrorAfterReceivedNumbers() throws Exception {
+        ListPublisher publisher = new ListPublisher(numbers(3));
+        publisher.failWith = new IllegalStateException("queue closed");
+        PhoneNumberProcessor processor = PhoneNumberProcessor.builder().executor(Runnable::run).build();
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+
+        assertTrue(subscriber.await());
+        assertEquals(3, subscriber.items.size());
+        assertEquals("queue closed", subscriber.error.getMessage());
+    }
+
+    @Test
+    public void shouldCancelUpstream() {
+        ListPublisher publisher = new ListPublisher(numbers(100));
+        PhoneNumberProcessor processor = PhoneNumberProcessor.builder().executor(Runnable::run).build();
+        publisher.subscribe(processor);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        processor.subscribe(subscriber);
+
+        subscriber.subscription.cancel();
+        assertTrue(publisher.cancelled.get());
+        assertEquals(1, subscriber.items.size());
+    }
+
+    @Test
+    public void shouldFailOnNonPositiveRequest() throws Exception {
+        ListPublisher publisher = new ListPublisher(numbers(10));
+        PhoneNumberProcessor processor = PhoneNumberProcessor.builder().executor(Runnable::run).build();
+        publisher.subscribe(processor);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        processor.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.await());
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(publisher.cancelled.get());
+    }
+
+    @Test
+    public void shouldFailWhenRejectsConsumerThrows() throws Exception {
+        PhoneNumberProcessor processor = PhoneNumberProcessor.builder().executor(Runnable::run)
+            .rejects(rejected -> {
+                throw new IllegalStateException("dead letter queue down");
+            })
+            .build();
+        RecordingSubscriber subscriber = run(numbers(10), processor, Long.MAX_VALUE);
+
+        assertTrue(subscriber.await());
+        assertEquals(4, subscriber.items.size());
+        assertEquals("dead letter queue down", subscriber.error.getMessage());
+    }
+
+    @Test
+    public void shouldAllowOneSubscriber() throws Exception {
+        PhoneNumberProcessor processor = PhoneNumberProcessor.builder().build();
+        processor.subscribe(new RecordingSubscriber(0));
+        RecordingSubscriber second = new RecordingSubscriber(0);
+        processor.subscribe(second);
+
+        assertTrue(second.await());
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveBufferSize() {
+        PhoneNumberProcessor.builder().bufferSize(0);
+    }
+
+    private static RecordingSubscriber run(List<String> input, PhoneNumberProcessor processor, long request) {
+        RecordingSubscriber subscriber = new RecordingSubscriber(request);
+        processor.subscribe(subscriber);
+        new ListPublisher(input).subscribe(processor);
+        return subscriber;
+    }
+
+    /*
+     * Emits the list as requested, trampolining requests made from within onNext.
+     */
+    private static final class ListPublisher implements Publisher<String> {
+        private final Iterator<String> items;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private RuntimeException failWith;
+        private boolean terminated;
+
+        ListPublisher(List<String> items) {
+            this.items = new ArrayList<>(items).iterator();
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super String> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    requested.addAndGet(n);
+                    demand.addAndGet(n);
+                    if (wip.getAndIncrement() != 0) {
+                        return;
+                    }
+                    do {
+                        while (!cancelled.get() && demand.get() > 0 && items.hasNext()) {
+                            demand.decrementAndGet();
+                            subscriber.onNext(items.next());
+                        }
+                        if (!cancelled.get() && !items.hasNext() && !terminated) {
+                            terminated = true;
+                            if (failWith != null) {
+                                subscriber.onError(failWith);
+                            } else {
+                                subscriber.onComplete();
+                            }
+                        }
+                    } while (wip.decrementAndGet() != 0);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+        }
+    }
+
+    private static final class RecordingSubscriber implements Subscriber<NormalizedPhone> {
+        private final long initialRequest;
+        private final List<NormalizedPhone> items = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        boolean await() throws InterruptedException {
+            return completed.await(10, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(NormalizedPhone item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
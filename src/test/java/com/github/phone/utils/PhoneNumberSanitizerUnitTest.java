@@ -0,0 +1,116 @@
+package com.github.phone.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhoneNumberSanitizerUnitTest {
+
+    @Test
+    public void digit() {
+        assertEquals(7, PhoneNumberSanitizer.digit('7'));
+        assertEquals(4, PhoneNumberSanitizer.digit('４'));
+        assertEquals(5, PhoneNumberSanitizer.digit('٥'));
+        assertEquals(9, PhoneNumberSanitizer.digit('۹'));
+        assertEquals(-1, PhoneNumberSanitizer.digit('a'));
+        assertEquals(-1, PhoneNumberSanitizer.digit('+'));
+    }
+
+    @Test
+    public void keepDigitsAndPlus() {
+        assertEquals("+14159716486", PhoneNumberSanitizer.keepDigitsAndPlus("+1 (415)-971-64 86"));
+        assertEquals("+4745037118", PhoneNumberSanitizer.keepDigitsAndPlus("＋４７ ４５０ ３７ １１８"));
+        assertEquals("4745037118", PhoneNumberSanitizer.keepDigitsAndPlus("٤٧٤٥٠٣٧١١٨"));
+        assertEquals("", PhoneNumberSanitizer.keepDigitsAndPlus("Per Vervik"));
+    }
+
+    @Test
+    public void keepDigitsAndPlusReturnsCleanInputAsIs() {
+        String clean = "+4745037118";
+        assertSame(clean, PhoneNumberSanitizer.keepDigitsAndPlus(clean));
+    }
+
+    @Test
+    public void keepDigitsAndPlusIntoBuffers() {
+        char[] buffer = new char[32];
+        buffer[0] = 'x';
+        int length = PhoneNumberSanitizer.keepDigitsAndPlus("+47 450-37-118", buffer, 1);
+        assertEquals("x+4745037118", new String(buffer, 0, length + 1));
+
+        StringBuilder builder = new StringBuilder("tel:");
+        PhoneNumberSanitizer.keepDigitsAndPlus("+47 (450) 37118", builder);
+        assertEquals("tel:+4745037118", builder.toString());
+    }
+
+    @Test
+    public void digitsOnly() {
+        assertEquals("4745037118", PhoneNumberSanitizer.digitsOnly("+47 450-37-118"));
+        char[] buffer = new char[16];
+        assertEquals(3, PhoneNumberSanitizer.digitsOnly("a１b٢c3", buffer, 0));
+        assertEquals("123", new String(buffer, 0, 3));
+        assertEquals("123", PhoneNumberSanitizer.digitsOnly("a１b٢c3", new StringBuilder()).toString());
+    }
+
+    @Test
+    public void parseDigits() {
+        assertEquals(16507139923L, PhoneNumberSanitizer.parseDigits("01(650)-713(9923)"));
+        assertEquals(-1, PhoneNumberSanitizer.parseDigits("Per Vervik"));
+        try {
+            PhoneNumberSanitizer.parseDigits("99999999999999999999");
+            fail("should fail");
+        } catch (NumberFormatException e) {
+            // should come here
+        }
+    }
+
+    @Test
+    public void parseCountryCode() {
+        assertEquals(47, PhoneNumberSanitizer.parseCountryCode("+47"));
+        assertEquals(47, PhoneNumberSanitizer.parseCountryCode("47"));
+        assertEquals(47, PhoneNumberSanitizer.parseCountryCode("0047"));
+        assertEquals(380, PhoneNumberSanitizer.parseCountryCode("+٣٨٠"));
+        for (String invalid : new String[] {"", "+", "4 7", "47a", "4.7", null}) {
+            try {
+                PhoneNumberSanitizer.parseCountryCode(invalid);
+                fail("should fail: " + invalid);
+            } catch (NumberFormatException e) {
+                // should come here
+            }
+        }
+    }
+
+    @Test
+    public void appendCleanCountryCode() {
+        assertEquals("47", cleanCountryCode("+47"));
+        assertEquals("47", cleanCountryCode("00 47"));
+        assertEquals("4", cleanCountryCode("1004"));
+        assertEquals("", cleanCountryCode("47"));
+        assertEquals("", cleanCountryCode("+"));
+        assertEquals("", cleanCountryCode("100"));
+    }
+
+    @Test
+    public void containsLetterPair() {
+        assertTrue(PhoneNumberSanitizer.containsLetterPair("+380ffffff"));
+        assertTrue(PhoneNumberSanitizer.containsLetterPair("+380FfFFFF"));
+        assertFalse(PhoneNumberSanitizer.containsLetterPair("+1 650 713 9923 x"));
+        assertFalse(PhoneNumberSanitizer.containsLetterPair("a1b2c3"));
+    }
+
+    @Test
+    public void phoneNumberUtilsAcceptsUnicodeDigits() {
+        assertEquals("+4745037118", PhoneNumberUtils.removeNonInteger("＋４７ ４５０ ３７ １１８"));
+        assertEquals(Long.valueOf(45037118L), PhoneNumberUtils.removeAllNonNumeric("٤٥٠٣٧١١٨"));
+        assertTrue(PhoneNumberUtils.isValidNorwegianPhoneNumber("４５０ ３７ １１８"));
+    }
+
+    private static String cleanCountryCode(String countryCode) {
+        StringBuilder out = new StringBuilder();
+        PhoneNumberSanitizer.appendCleanCountryCode(countryCode, out);
+        return out.toString();
+    }
+}
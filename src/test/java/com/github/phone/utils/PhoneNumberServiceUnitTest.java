@@ -0,0 +1,114 @@
+package com.github.phone.utils;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PhoneNumberServiceUnitTest {
+
+    @Test
+    public void shouldCompleteLikeNormalizePhoneNumber() throws Exception {
+        try (PhoneNumberService service = PhoneNumberService.builder().build()) {
+            assertEquals("+4745037118", service.normalize("+47 450 37 118").get(5, TimeUnit.SECONDS));
+            try {
+                service.normalize("45037118").get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertEquals("phone number invalid: 45037118", e.getCause().getMessage());
+            }
+            try {
+                service.normalize(null).get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof PhoneNumberParsingException);
+            }
+        }
+    }
+
+    @Test
+    public void shouldNormalizeWithTheGivenEngine() throws Exception {
+        List<String> failures = new CopyOnWriteArrayList<>();
+        PhoneNumberEngine tenant = PhoneNumberEngine.builder()
+            .failureListener((method, reason, input, context) -> failures.add(input))
+            .build();
+        try (PhoneNumberService service = PhoneNumberService.builder().engine(tenant).build()) {
+            assertEquals("+4745037118", service.normalize("+47 450 37 118").get(5, TimeUnit.SECONDS));
+            try {
+                service.normalize("+0 not a number").get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof PhoneNumberParsingException);
+            }
+        }
+        assertEquals(Collections.singletonList("+0 not a number"), failures);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNullEngine() {
+        PhoneNumberService.builder().engine(null);
+    }
+
+    @Test
+    public void shouldCoalesceRequestsForTheSameNumber() throws Exception {
+        BlockingQueue<Runnable> batches = new LinkedBlockingQueue<>();
+        try (PhoneNumberService service = PhoneNumberService.builder().executor(batches::add)
+            .linger(0, TimeUnit.SECONDS).build()) {
+
+            CompletableFuture<String> first = service.normalize("+47 450 37 118");
+            CompletableFuture<String> second = service.normalize("+47 450 37 118");
+            CompletableFuture<String> cancelled = service.normalize("+47 450 37 118");
+            assertTrue(cancelled.cancel(true));
+            batches.poll(5, TimeUnit.SECONDS).run();
+
+            assertEquals("+4745037118", first.get());
+            assertEquals("+4745037118", second.get());
+            assertEquals(3, service.getRequestCount());
+            assertEquals(2, service.getCoalescedCount());
+            assertEquals(1, service.getBatchSizeHistogram().getCount());
+            assertEquals(1, service.getWaitTimeHistogram().getCount());
+        }
+    }
+
+    @Test
+    public void shouldDispatchFullBatchesWithoutLingering() throws Exception {
+        BlockingQueue<Runnable> batches = new LinkedBlockingQueue<>();
+        try (PhoneNumberService service = PhoneNumberService.builder().executor(batches::add)
+            .maxBatchSize(3).linger(1, TimeUnit.HOURS).build()) {
+
+            service.normalize("+47 450 37 118");
+            service.normalize("+47 450 37 119");
+            service.normalize("+47 450 37 110");
+            batches.poll(5, TimeUnit.SECONDS).run();
+
+            PhoneNumberService.Histogram sizes = service.getBatchSizeHistogram();
+            assertEquals(1, sizes.getCount());
+            assertEquals(1, sizes.getBucketCount(2));
+            assertEquals(3, sizes.getValueAtPercentile(1));
+            assertEquals(3.0, sizes.getMean(), 0);
+        }
+    }
+
+    @Test
+    public void shouldRejectRequestsAfterClose() {
+        PhoneNumberService service = PhoneNumberService.builder().build();
+        service.close();
+        try {
+            service.normalize("+47 450 37 118");
+            fail();
+        } catch (IllegalStateException e) {
+            assertFalse(e.getMessage().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.phone.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PhoneNumberSetUnitTest {
+
+    @Test
+    public void shouldAddEachNumberOnce() {
+        PhoneNumberSet set = new PhoneNumberSet();
+        long number = PackedPhoneNumber.fromE164("+4745037118");
+
+        assertTrue(set.add(number));
+        assertFalse(set.add(number));
+        assertTrue(set.contains(number));
+        assertFalse(set.contains(PackedPhoneNumber.fromE164("+4745037117")));
+        assertFalse(set.contains(PackedPhoneNumber.INVALID));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void shouldGrowAndKeepEverything() {
+        PhoneNumberSet set = new PhoneNumberSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(47);
+        for (int i = 0; i < 100_000; i++) {
+            long number = PackedPhoneNumber.pack(1 + random.nextInt(999), 40_000_000 + random.nextInt(50_000), 0);
+            assertEquals(expected.add(number), set.add(number));
+        }
+
+        assertEquals(expected.size(), set.size());
+        long[] sorted = set.toSortedArray();
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).sorted().toArray(), sorted);
+        for (long number : sorted) {
+            assertTrue(set.contains(number));
+        }
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(sorted[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectValuesWhichAreNotPackedNumbers() {
+        new PhoneNumberSet().add(PackedPhoneNumber.INVALID);
+    }
+
+    @Test
+    public void shouldAddEachNumberOnceAcrossThreads() throws Exception {
+        ConcurrentPhoneNumberSet set = new ConcurrentPhoneNumberSet(0, 4);
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        if (set.add(PackedPhoneNumber.pack(47, 40_000_000 + i, 0))) {
+                            added.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(20_000, added.get());
+        assertEquals(20_000, set.size());
+        assertTrue(set.contains(PackedPhoneNumber.pack(47, 40_000_000, 0)));
+        assertEquals(20_000, set.toSortedArray().length);
+    }
+}
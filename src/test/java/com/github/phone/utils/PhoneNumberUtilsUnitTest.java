@@ -888,6 +888,27 @@ public class PhoneNumberUtilsUnitTest {
         assertEquals("+4745454546", numbers.get(1));
     }
 
+    @Test
+    public void validatePhoneNumbersDistinctAfterNormalization() {
+        List<String> list = new ArrayList<>();
+        list.add("45 45 45 45");
+        list.add("+47 45 45 45 45");
+        list.add("45454545");
+        list.add("+47 45 45 45 46");
+        list.add("TotallyInvalid");
+        list.add("0047 45 45 45 46");
+        list.add(null);
+
+        // the test
+        List<String> numbers = PhoneNumberUtils.validatePhoneNumbers(list, true);
+
+        assertEquals(2, numbers.size());
+        assertEquals("+4745454545", numbers.get(0));
+        assertEquals("+4745454546", numbers.get(1));
+        assertEquals(PhoneNumberUtils.validatePhoneNumbers(list), PhoneNumberUtils.validatePhoneNumbers(list, false));
+        assertTrue(PhoneNumberUtils.validatePhoneNumbers(null, true).isEmpty());
+    }
+
     @Test
     public void validatePhoneNumbersNullAndEmpy() {
 
@@ -1046,6 +1067,31 @@ public class PhoneNumberUtilsUnitTest {
         assertFalse(PhoneNumberUtils.isValidNorwegianPhoneNumber("4"));
     }
 
+    @Test
+    public void testWarmUp() {
+        WarmUpReport report = PhoneNumberUtils.warmUp(Arrays.asList("NO", "SE"));
+
+        assertEquals(Arrays.asList("NO", "SE"), new ArrayList<>(report.getNanosByRegion().keySet()));
+        assertTrue(report.getNanos("NO") > 0);
+        assertEquals(-1, report.getNanos("DK"));
+        assertEquals(report.getNanos("NO") + report.getNanos("SE"), report.getTotalNanos());
+    }
+
+    @Test
+    public void testWarmUpAll() {
+        WarmUpReport report = PhoneNumberUtils.warmUp();
+
+        assertTrue(report.getNanos("NO") > 0);
+        assertTrue(report.getNanos("+800") > 0);
+        assertEquals(PhoneNumberUtils.PHONE_UTIL.getSupportedRegions().size()
+            + PhoneNumberUtils.PHONE_UTIL.getSupportedGlobalNetworkCallingCodes().size(), report.getRegionCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWarmUpUnknownRegion() {
+        PhoneNumberUtils.warmUp(Collections.singletonList("XX"));
+    }
+
     private static List<String> createList(String...strings) {
         List<String> list = new ArrayList<>();
         Collections.addAll(list, strings);
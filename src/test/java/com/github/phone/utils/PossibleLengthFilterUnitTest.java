@@ -0,0 +1,101 @@
+package com.github.phone.utils;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PossibleLengthFilterUnitTest {
+
+    private static final PhoneNumberUtil PHONE_UTIL = PhoneNumberUtil.getInstance();
+
+    @Test
+    public void shouldRejectObviouslyImpossibleNumbers() {
+        assertTrue(PossibleLengthFilter.cannotParse("+4"));
+        assertTrue(PossibleLengthFilter.cannotParse("+47 1"));
+        assertTrue(PossibleLengthFilter.cannotParse("+0047906"));
+        assertTrue(PossibleLengthFilter.cannotParse("+999 906 30 185"));
+        assertTrue(PossibleLengthFilter.cannotBePossible("+47 906"));
+        assertTrue(PossibleLengthFilter.cannotBePossible("+47 906 30 185 12"));
+
+        assertFalse(PossibleLengthFilter.cannotBePossible("+47 906 30 185"));
+        assertFalse(PossibleLengthFilter.cannotBePossible("+47 906 30 18x"));
+        assertFalse(PossibleLengthFilter.cannotBePossible("4790630185"));
+        assertFalse(PossibleLengthFilter.cannotBePossible(null));
+        assertFalse(PossibleLengthFilter.cannotParse("+47 906"));
+    }
+
+    @Test
+    public void shouldNeverRejectWhatLibphonenumberAccepts() {
+        List<String> corpus = corpus();
+        int rejected = 0;
+        for (String input : corpus) {
+            boolean cannotParse = PossibleLengthFilter.cannotParse(input);
+            boolean cannotBePossible = PossibleLengthFilter.cannotBePossible(input);
+            assertTrue(input, !cannotParse || cannotBePossible);
+            PhoneNumber parsed;
+            try {
+                parsed = PHONE_UTIL.parse(input, CallingCodeTable.UNKNOWN_REGION);
+            } catch (NumberParseException e) {
+                rejected += cannotBePossible ? 1 : 0;
+                continue;
+            }
+            assertFalse(input, cannotParse);
+            if (cannotBePossible) {
+                assertFalse(input, PHONE_UTIL.isPossibleNumber(parsed));
+                assertFalse(input, PHONE_UTIL.isValidNumber(parsed));
+                rejected++;
+            }
+        }
+        // the filter has to be worth its while on this corpus
+        assertTrue(rejected + " of " + corpus.size(), rejected > corpus.size() / 4);
+    }
+
+    private static List<String> corpus() {
+        Random random = new Random(14);
+        List<String> corpus = new ArrayList<>();
+        List<String> regions = new ArrayList<>(PHONE_UTIL.getSupportedRegions());
+        for (String region : regions) {
+            for (PhoneNumberType type : PhoneNumberType.values()) {
+                PhoneNumber example = PHONE_UTIL.getExampleNumberForType(region, type);
+                if (example == null) {
+                    continue;
+                }
+                String e164 = PHONE_UTIL.format(example, PhoneNumberFormat.E164);
+                String callingCode = "+" + example.getCountryCode();
+                String national = PHONE_UTIL.getNationalSignificantNumber(example);
+                for (int length = 2; length <= e164.length() + 4; length++) {
+                    String digits = length <= e164.length() ? e164.substring(0, length)
+                        : e164 + "1234".substring(0, length - e164.length());
+                    corpus.add(digits);
+                    corpus.add(digits.replace(callingCode, callingCode + " "));
+                }
+                corpus.add(PHONE_UTIL.format(example, PhoneNumberFormat.INTERNATIONAL));
+                corpus.add(callingCode + "0" + national);
+                corpus.add(callingCode + "00" + national);
+                corpus.add(callingCode + "-" + national + "-");
+                corpus.add("+0" + e164.substring(1));
+            }
+        }
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder sb = new StringBuilder("+");
+            for (int digits = 1 + random.nextInt(20); digits > 0; digits--) {
+                sb.append((char) ('0' + random.nextInt(10)));
+                if (random.nextInt(6) == 0) {
+                    sb.append(random.nextBoolean() ? ' ' : '-');
+                }
+            }
+            corpus.add(sb.toString());
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.phone.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SampledFailureLoggerUnitTest {
+
+    private static final long INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private final List<String> samples = new ArrayList<>();
+    private final List<String> lines = new ArrayList<>();
+    private long now;
+
+    @After
+    public void restoreListener() {
+        PhoneNumberUtils.setFailureListener(SampledFailureLogger.builder().build());
+    }
+
+    @Test
+    public void shouldLogSamplesThenOnlyCount() {
+        SampledFailureLogger logger = new SampledFailureLogger(() -> true, samples::add, lines::add,
+            () -> now, INTERVAL, 2);
+
+        for (int i = 0; i < 5; i++) {
+            logger.onFailure("normalizePhoneNumber", FailureReason.NOT_A_NUMBER, "abc" + i, null);
+        }
+
+        assertEquals(2, samples.size());
+        assertEquals("normalizePhoneNumber failed with NOT_A_NUMBER, input: abc0", samples.get(0));
+        assertTrue(lines.isEmpty());
+    }
+
+    @Test
+    public void shouldNotUseUpSamplesWhileTheirLevelIsDisabled() {
+        boolean[] enabled = {false};
+        SampledFailureLogger logger = new SampledFailureLogger(() -> enabled[0], samples::add, lines::add,
+            () -> now, INTERVAL, 2);
+
+        for (int i = 0; i < 5; i++) {
+            logger.onFailure("normalizePhoneNumber", FailureReason.NOT_A_NUMBER, "abc" + i, null);
+        }
+        assertTrue(samples.isEmpty());
+
+        enabled[0] = true;
+        for (int i = 5; i < 10; i++) {
+            logger.onFailure("normalizePhoneNumber", FailureReason.NOT_A_NUMBER, "abc" + i, null);
+        }
+        assertEquals(Arrays.asList("normalizePhoneNumber failed with NOT_A_NUMBER, input: abc5",
+            "normalizePhoneNumber failed with NOT_A_NUMBER, input: abc6"), samples);
+
+        logger.logSummary();
+        assertEquals(Collections.singletonList("Phone number failures since last summary: 10"
+            + " {normalizePhoneNumber NOT_A_NUMBER=10}"), lines);
+    }
+
+    @Test
+    public void shouldLogSummaryAfterInterval() {
+        SampledFailureLogger logger = new SampledFailureLogger(() -> true, samples::add, lines::add,
+            () -> now, INTERVAL, 0);
+        logger.onFailure("generateFullPhoneNumber", FailureReason.NOT_A_NUMBER, "x", "NO");
+        logger.onFailure("generateFullPhoneNumber", FailureReason.NOT_A_NUMBER, "y", "NO");
+        logger.onFailure("removeAllNonNumeric", FailureReason.TOO_LONG, "1234", null);
+        assertTrue(lines.isEmpty());
+
+        now += INTERVAL;
+        logger.onFailure("removeAllNonNumeric", FailureReason.TOO_LONG, "1234", null);
+
+        assertEquals(1, lines.size());
+        assertEquals("Phone number failures since last summary: 4 {generateFullPhoneNumber NOT_A_NUMBER=2,"
+            + " removeAllNonNumeric TOO_LONG=2}", lines.get(0));
+
+        logger.logSummary();
+        assertEquals(1, lines.size());
+        assertTrue(samples.isEmpty());
+    }
+
+    @Test
+    public void shouldReportFailuresOfUtils() {
+        List<FailureReason> reasons = new ArrayList<>();
+        PhoneNumberUtils.setFailureListener((method, reason, input, context) -> reasons.add(reason));
+
+        assertNull(PhoneNumberUtils.parsePhoneByGoogle("not a number", "NO"));
+
+        assertEquals(1, reasons.size());
+        assertEquals(FailureReason.NOT_A_NUMBER, reasons.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNullSampleLevel() {
+        SampledFailureLogger.builder().sampleLevel(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNullListener() {
+        PhoneNumberUtils.setFailureListener(null);
+    }
+}